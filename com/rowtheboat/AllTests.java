@@ -8,6 +8,24 @@
 
 package com.rowtheboat;
  
+import com.rowtheboat.controller.test.CountdownTimerTest;
+import com.rowtheboat.controller.test.LaneClockTest;
+import com.rowtheboat.controller.test.EventRecorderTest;
+import com.rowtheboat.controller.test.HeadlessRaceTest;
+import com.rowtheboat.controller.test.ClockTest;
+import com.rowtheboat.controller.test.AlphaBetaFilterTest;
+import com.rowtheboat.controller.test.LaneExtrapolatorTest;
+import com.rowtheboat.controller.test.LatencyTimerTest;
+import com.rowtheboat.controller.test.OutputQueueTest;
+import com.rowtheboat.controller.test.StrokeReuseTest;
+import com.rowtheboat.input.test.PM2PlusEmulatorTest;
+import com.rowtheboat.input.test.PM2PlusFrameAssemblerTest;
+import com.rowtheboat.input.test.PM2PlusFrameDecoderTest;
+import com.rowtheboat.input.test.PM2PlusStrokeManagerTest;
+import com.rowtheboat.input.test.PaceTimelineCacheTest;
+import com.rowtheboat.input.test.PaceTimelineTest;
+import com.rowtheboat.input.test.PollingScheduleTest;
+import com.rowtheboat.input.test.SessionFileTest;
 import com.rowtheboat.input.test.StrokeDataTest;
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -25,6 +43,24 @@ public class AllTests {
 		
 		//$JUnit-BEGIN$
 		suite.addTest(new TestSuite(StrokeDataTest.class));
+		suite.addTest(new TestSuite(PM2PlusFrameDecoderTest.class));
+		suite.addTest(new TestSuite(PM2PlusFrameAssemblerTest.class));
+		suite.addTest(new TestSuite(PM2PlusEmulatorTest.class));
+		suite.addTest(new TestSuite(PollingScheduleTest.class));
+		suite.addTest(new TestSuite(PaceTimelineTest.class));
+		suite.addTest(new TestSuite(CountdownTimerTest.class));
+		suite.addTest(new TestSuite(LaneExtrapolatorTest.class));
+		suite.addTest(new TestSuite(LaneClockTest.class));
+		suite.addTest(new TestSuite(StrokeReuseTest.class));
+		suite.addTest(new TestSuite(LatencyTimerTest.class));
+		suite.addTest(new TestSuite(EventRecorderTest.class));
+		suite.addTest(new TestSuite(HeadlessRaceTest.class));
+		suite.addTest(new TestSuite(ClockTest.class));
+		suite.addTest(new TestSuite(AlphaBetaFilterTest.class));
+		suite.addTest(new TestSuite(OutputQueueTest.class));
+		suite.addTest(new TestSuite(SessionFileTest.class));
+		suite.addTest(new TestSuite(PaceTimelineCacheTest.class));
+		suite.addTest(new TestSuite(PM2PlusStrokeManagerTest.class));
 		//$JUnit-END$
 		
 		return suite;
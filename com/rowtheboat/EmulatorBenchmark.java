@@ -0,0 +1,159 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: EmulatorBenchmark.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Ergos retrieved in one interleaved batch.  Lane skew 
+ * 										reported
+ * 
+ */
+ 
+package com.rowtheboat;
+
+import java.io.File;
+
+import com.rowtheboat.input.PM2PlusEmulator;
+import com.rowtheboat.input.PM2PlusUnit;
+import com.rowtheboat.input.StrokeData;
+import com.rowtheboat.input.VirtualErg;
+import com.rowtheboat.workout.Workout;
+
+/**
+ * Measures the stroke throughput and latency of the PM2+ acquisition path against the PM2+
+ * emulator, so no hardware is needed.  Usage:
+ * <pre>
+ * EmulatorBenchmark ergs seconds [baud [jitter [loss [session.xml ...]]]]
+ * </pre>
+ * The ergos row the given workout logs in turn, or at a constant pace if none are given.  The
+ * serial options (full stroke data, pipelining, timeout and retries) are taken from the options
+ * file as usual.
+ * 
+ * @author agent
+ */
+public class EmulatorBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		
+		if (args.length < 2) {
+			System.out.println("Usage: EmulatorBenchmark ergs seconds [baud [jitter [loss " +
+				"[session.xml ...]]]]");
+			return;
+		}
+		
+		/* Read the arguments */
+		int ergCount = Integer.parseInt(args[0]);
+		int seconds = Integer.parseInt(args[1]);
+		int baud = args.length > 2 ? Integer.parseInt(args[2]) : 9600;
+		int jitter = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+		double loss = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+		
+		/* Create the ergos, from the workout logs if given */
+		VirtualErg [] ergs = new VirtualErg[ergCount];
+		for (int i = 0; i < ergCount; i++) {
+			if (args.length > 5) {
+				ergs[i] = VirtualErg.load( new File(args[5 + i % (args.length - 5)]) );
+			}
+			else {
+				ergs[i] = new VirtualErg(100 + i * 5, 28, 150, seconds + 60);
+			}
+		}
+		
+		/* Connect a unit to the emulator and start a workout longer than the run */
+		PM2PlusEmulator emulator = new PM2PlusEmulator(ergs);
+		emulator.setBaudRate(baud);
+		emulator.setJitter(jitter);
+		emulator.setByteLoss(loss);
+		emulator.setSeed(0);
+		
+		Workout workout = new Workout(Workout.TIME_WORKOUT);
+		workout.setTime(seconds + 60);
+		PM2PlusUnit unit = PM2PlusUnit.getInstance("Emulator", emulator, workout);
+		unit.setupWorkout(workout);
+		unit.startRowing(Workout.START_AFTER_COUNT);
+		
+		/* Poll the ergos together, as the PortPoller does, for the time given */
+		int [] ergoNumbers = new int[ergCount];
+		for (int i = 0; i < ergCount; i++) {
+			ergoNumbers[i] = i;
+		}
+		StrokeData [] batch = new StrokeData[ergCount];
+		
+		int strokes = 0;
+		int failures = 0;
+		long totalLatency = 0;
+		long maxLatency = 0;
+		long totalSkew = 0;
+		long maxSkew = 0;
+		int batches = 0;
+		long start = System.currentTimeMillis();
+		long end = start + seconds * 1000L;
+		
+		while (System.currentTimeMillis() < end) {
+			long queryStart = System.currentTimeMillis();
+			try {
+				unit.retrieveStrokeData(ergoNumbers, batch);
+			}
+			catch (java.io.IOException e) {
+				failures++;
+				continue;
+			}
+			long latency = System.currentTimeMillis() - queryStart;
+			
+			/* The skew is the age difference of the newest and oldest strokes */
+			long oldest = Long.MAX_VALUE;
+			long newest = Long.MIN_VALUE;
+			for (int i = 0; i < ergCount; i++) {
+				oldest = Math.min( oldest, batch[i].getArrivalTime() );
+				newest = Math.max( newest, batch[i].getArrivalTime() );
+			}
+			
+			strokes += ergCount;
+			batches++;
+			totalLatency += latency;
+			maxLatency = Math.max(maxLatency, latency);
+			totalSkew += newest - oldest;
+			maxSkew = Math.max(maxSkew, newest - oldest);
+		}
+		
+		double elapsed = (System.currentTimeMillis() - start) / 1000.0;
+		unit.cleanUp();
+		
+		/* Report the results */
+		System.out.println("Ergos: " + ergCount + ", baud: " + baud + ", jitter: " + jitter + 
+			"ms, byte loss: " + loss);
+		System.out.println("Strokes retrieved: " + strokes + " in " + elapsed + "s");
+		System.out.println("Strokes per second: " + (strokes / elapsed) + " (" + 
+			(strokes / elapsed / ergCount) + " per ergo)");
+		if (batches > 0) {
+			System.out.println("Latency per batch: mean " + ((double) totalLatency / batches) + 
+				"ms, max " + maxLatency + "ms");
+			System.out.println("Lane skew: mean " + ((double) totalSkew / batches) + 
+				"ms, max " + maxSkew + "ms");
+		}
+		System.out.println("Failed retrievals: " + failures + ", responses: " + 
+			emulator.getResponsesSent() + ", bytes lost: " + emulator.getBytesLost());
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: AcceleratedClock.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+/**
+ * AcceleratedClock runs a given number of times faster than the wall clock, so a race can be run
+ * faster (or slower) than real time whilst still being driven by threads that sleep.
+ * 
+ * @author agent
+ */
+public class AcceleratedClock implements IClock {
+
+	/* Class Variables */
+	
+	private long start;								/* The time the clock started */
+	private long realStart;							/* The wall clock time it started */
+	private double factor;							/* How many times faster than real time */
+	
+	
+	/* Constructors */
+	
+	/**
+	 * Constructs the clock starting at the current time
+	 * 
+	 * @param	factor	how many times faster than real time the clock runs
+	 */
+	public AcceleratedClock(double factor) {
+		
+		this(System.currentTimeMillis(), factor);
+	}
+	
+	
+	/**
+	 * Constructs the clock starting at the given time
+	 * 
+	 * @param	start	the time the clock starts at in milliseconds
+	 * @param	factor	how many times faster than real time the clock runs
+	 */
+	public AcceleratedClock(long start, double factor) {
+		
+		if (factor <= 0) {
+			throw new IllegalArgumentException("The speed must be positive");
+		}
+		this.start = start;
+		this.realStart = System.currentTimeMillis();
+		this.factor = factor;
+	}
+	
+	
+	/* Public Methods */
+	
+	/* Inherited Javadoc */
+	public long currentTimeMillis() {
+		
+		return start + (long) ( (System.currentTimeMillis() - realStart) * factor );
+	}
+	
+	
+	/**
+	 * Returns how many times faster than real time the clock runs
+	 * 
+	 * @return	the factor
+	 */
+	public double getFactor() {
+		
+		return factor;
+	}
+	
+	
+	/**
+	 * Sleeps until the given time has passed on this clock
+	 */
+	public void sleep(long millis) throws InterruptedException {
+		
+		/* Sleep for the wall clock time, then again if it ended early on this clock */
+		long deadline = currentTimeMillis() + millis;
+		long remaining = millis;
+		while (remaining > 0) {
+			Thread.sleep( (long) Math.ceil(remaining / factor) );
+			remaining = deadline - currentTimeMillis();
+		}
+	}
+}
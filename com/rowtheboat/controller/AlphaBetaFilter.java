@@ -0,0 +1,184 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: AlphaBetaFilter.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+/**
+ * AlphaBetaFilter estimates the position and velocity of a boat from measurements of its
+ * distance.  Each measurement is compared with the position predicted from the last estimate and
+ * a fraction of the difference (alpha) corrects the position and a smaller fraction (beta) the
+ * velocity, so the estimate follows the boat smoothly rather than jumping to each measurement.
+ * The position can then be predicted for any time between measurements.
+ * 
+ * @author agent
+ */
+
+public class AlphaBetaFilter {
+
+	/* Class Variables */
+	
+	private double alpha;							/* The position correction */
+	private double beta;							/* The velocity correction */
+	private long maxPrediction;						/* The longest a position is predicted for */
+	
+	private double position;						/* The estimated position in meters */
+	private double velocity;						/* The estimated velocity in meters/second */
+	private long lastMillis;						/* The time of the last measurement */
+	private boolean started;						/* Whether a measurement has been made */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs the filter
+	 * 
+	 * @param	alpha			the fraction of the error corrected in the position, between 0
+	 * 							and 1
+	 * @param	beta			the fraction of the error corrected in the velocity, between 0
+	 * 							and alpha
+	 * @param	maxPrediction	the longest the position is predicted past a measurement in
+	 * 							milliseconds, so a stalled ergo doesn't run away
+	 */
+	public AlphaBetaFilter(double alpha, double beta, long maxPrediction) {
+		
+		this.alpha = alpha;
+		this.beta = beta;
+		this.maxPrediction = maxPrediction;
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Returns the time of the last measurement
+	 * 
+	 * @return	the time in milliseconds
+	 */
+	public long getLastMeasurement() {
+		
+		return lastMillis;
+	}
+	
+	
+	/**
+	 * Returns the position predicted for the given time
+	 * 
+	 * @param	millis	the time in milliseconds
+	 * @return	the position in meters
+	 */
+	public double getPosition(long millis) {
+		
+		long elapsed = Math.min(millis - lastMillis, maxPrediction);
+		if (elapsed < 0) {
+			elapsed = 0;
+		}
+		
+		return position + velocity * elapsed / 1000.0;
+	}
+	
+	
+	/**
+	 * Returns the estimated velocity
+	 * 
+	 * @return	the velocity in meters per second
+	 */
+	public double getVelocity() {
+		
+		return velocity;
+	}
+	
+	
+	/**
+	 * Returns whether a measurement has been made
+	 * 
+	 * @return	<code>true</code> if a measurement has been made; <code>false</code> otherwise
+	 */
+	public boolean isStarted() {
+		
+		return started;
+	}
+	
+	
+	/**
+	 * Forgets the estimate, so the next measurement starts the filter again
+	 */
+	public void reset() {
+		
+		position = 0;
+		velocity = 0;
+		lastMillis = 0;
+		started = false;
+	}
+	
+	
+	/**
+	 * Sets the velocity.  This is used to give the filter a starting velocity.
+	 * 
+	 * @param	velocity	the velocity in meters per second
+	 */
+	public void setVelocity(double velocity) {
+		
+		this.velocity = velocity;
+	}
+	
+	
+	/**
+	 * Corrects the estimate with a measurement.  The first measurement is taken as it is.
+	 * Measurements that aren't newer than the last are ignored.
+	 * 
+	 * @param	measured	the measured position in meters
+	 * @param	millis		the time of the measurement in milliseconds
+	 */
+	public void update(double measured, long millis) {
+		
+		if (!started) {
+			position = measured;
+			lastMillis = millis;
+			started = true;
+			return;
+		}
+		if (millis <= lastMillis) {
+			return;
+		}
+		
+		/* Correct the prediction by a fraction of its error */
+		double predicted = getPosition(millis);
+		double error = measured - predicted;
+		position = predicted + alpha * error;
+		velocity += beta * error * 1000.0 / (millis - lastMillis);
+		lastMillis = millis;
+		
+		/* A boat never goes backwards */
+		if (velocity < 0) {
+			velocity = 0;
+		}
+	}
+}
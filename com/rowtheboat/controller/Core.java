@@ -30,13 +30,22 @@
  * 10-Dec-2004	1.04		GeorgeP		Garbage collection changes made.  Sorted Just Row not
  * 										displaying boats straight away issue.  Fixed xml file saving
  * 										issue if quit without selecting stop rowing.
+ * 17-Oct-2026	1.05		agent		Strokes retrieved on a background acquisition thread
+ * 17-Oct-2026	1.05		agent		Lane skew written to the performance file
+ * 17-Oct-2026	1.05		agent		Countdown run by a CountdownTimer so the GUI isn't frozen.
+ * 										Stroke acquisition started once rowing has started
+ * 17-Oct-2026	1.05		agent		Boat smoothing error written to the performance file
+ * 17-Oct-2026	1.05		agent		No garbage collection per stroke as the strokes are reused
+ * 17-Oct-2026	1.05		agent		Performance figures kept by the Instrumentation rather than
+ * 										written for each stroke, and exported as each workout is
+ * 										cleared up
+ * 17-Oct-2026	1.05		agent		Event recording exported as each workout is cleared up
+ * 17-Oct-2026	1.05		agent		Implements IWorkoutListener for the IODeviceHandler
  * 
  */
  
 package com.rowtheboat.controller;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.net.MalformedURLException;
 
@@ -51,6 +60,7 @@ import com.rowtheboat.gui.OptionsSingleton;
 
 import org.dom4j.DocumentException;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.MessageBox;
 import org.eclipse.swt.widgets.Shell;
 import org.xml.sax.SAXException;
@@ -64,22 +74,29 @@ import com.rowtheboat.workout.Workout;
  * @author GeorgeP
  */
 
-public class Core {
+public class Core implements IWorkoutListener {
 
 	/* Class Variables */
 	
 	private boolean aborted;								/* This flag is set when the race is
 															   aborted */
-	private boolean racing;									/* This flag is set when the racing
+	private volatile boolean racing;						/* This flag is set when the racing
 															   is taking place */
-	private long lastTime;									/* Used for performance ratings */
-	private BufferedWriter performanceWriter;				/* The performance writer */
+	private int lastSequence;								/* The sequence of the last stroke
+															   collection displayed */
+	private StrokeAcquisitionThread acquisition;			/* The thread retrieving the strokes */
+	private CountdownTimer countdown;						/* The countdown to the start */
+	private CountdownWindow countdownWindow;				/* The window showing the countdown */
 	private MainWindow window;								/* The main program window shell */
 	private NewWorkoutWindow newWorkoutWindow;				/* The new workout window */
 	private IODeviceHandler ioDevices;						/* The io device handler */
 	private Workout workout;								/* The workout */
 
 
+	private static final long COUNT_PERIOD = 1000;			/* The time between counts in
+															   milliseconds */
+
+
 	/* Constructor */
 	
 	/**
@@ -89,7 +106,6 @@ public class Core {
 			
 		/* Initialise the new window */
 		window = new MainWindow(this);
-		lastTime = System.currentTimeMillis();
 	}
 	
 	
@@ -158,11 +174,20 @@ public class Core {
 		racing = false;
 		aborted = false;
 		
-		/* Clean up the devices */
+		/* Clean up the devices, stopping the acquisition first so they are no longer in use */
 		try {
+			stopAcquisition();
 			if (ioDevices != null) {
 				ioDevices.cleanUp();
 			}
+			
+			/* Export the performance figures and events of the workout */
+			if ( Instrumentation.isEnabled() ) {
+				Instrumentation.export("Workout");
+			}
+			if ( EventRecorder.isEnabled() ) {
+				EventRecorder.export("Workout");
+			}
 		} 
 		catch (Exception e) {
 			boolean flag = true;
@@ -225,13 +250,6 @@ public class Core {
 		/* Dispose of the window.  The control will then go back to the Start class and the 
 		 * cleanUpWorkout() method will be called to ensure any resources are free again. */
 		Start.setCleanUp(true);
-		if (performanceWriter != null) {
-			try {
-				performanceWriter.close();
-			} catch (IOException e) {
-				GUIUtil.showIOException( window.getShell(), e.getMessage() );
-			}
-		}
 		
 		/* Save the options if possible */
 		try {
@@ -283,13 +301,9 @@ public class Core {
 			/* Main window loop */
 			while ( !mainWindowShell.isDisposed() ) {
 
-				/* If in racing mode then retrieve the latest data and update the outputs */
-				if (racing) {
+				/* If the strokes are being retrieved then update the outputs with the latest */
+				if (acquisition != null) {
 					updateStrokeData();
-					
-					/* Clear up any garbage.  This is done with each stroke to keep ongoing
-					 * memory requirements to a minimum. */
-					OptionsSingleton.getInstance().garbageCollect();
 				}
 
 				if ( !mainWindowShell.getDisplay().readAndDispatch() ) {
@@ -391,7 +405,7 @@ public class Core {
 	
 	/**
 	 * Start the workout.  This starts the countdown and once finished starts the logging of the
-	 * data.
+	 * data.  The countdown runs on a CountdownTimer so this returns straight away.
 	 */
 	public void startRowing() {
 		
@@ -406,64 +420,51 @@ public class Core {
 		try {
 			if (workout.getStartType() == Workout.START_ON_STROKE) {
 				ioDevices.startRowing();
+				startAcquisition();
 			}
 			else {
 			
 				/* Construct the countdown window */
-				CountdownWindow cw = new CountdownWindow
+				countdownWindow = new CountdownWindow
 					( window.getShell().getSize(), window.getShell().getLocation() );
-				Shell countdownShell = cw.getShell();
-				countdownShell.open();
-				
-				
-				/* Whilst the shell is still there */
-				while (!countdownShell.isDisposed()) {
-					if (!countdownShell.getDisplay().readAndDispatch()) {
-						countdownShell.getDisplay().sleep();
-					}
+				countdownWindow.getShell().open();
 				
-					/* Get the countdown delay from the options singleton */
-					byte count = OptionsSingleton.getInstance().getDelay();
-			
-					/* Perform the countdown on both the window and input devices */
-					while (count >= 0) {
-						cw.setCount(count);
+				/* Perform the countdown on both the window and input devices.  The count is
+				 * written to the input devices on the timer thread, at the moment it is due, and
+				 * the window is updated from the display thread. */
+				final Display display = window.getShell().getDisplay();
+				countdown = new CountdownTimer( OptionsSingleton.getInstance().getDelay(), 
+						COUNT_PERIOD, new ICountdownListener() {
+					
+					public void countdownTick(final byte count) throws Exception {
 						ioDevices.displayCount(count);
-						if (count != 0) {
-							Thread.sleep(1000);	
+						if (count == 0) {
+							ioDevices.startRowing();
 						}
-						count--;
+						
+						display.asyncExec(new Runnable() {
+							public void run() {
+								if ( countdownWindow != null && 
+										!countdownWindow.getShell().isDisposed() ) {
+									countdownWindow.setCount(count);
+								}
+							}
+						});
 					}
 					
-					/* Start the rowing */
-					ioDevices.startRowing();
-	
-					/* Dispose of the countdown and refresh the display so we can see the
-					 * gui outputs */
-					countdownShell.dispose();
-					window.getShell().getDisplay().update();
-				}
+					public void countdownFinished(final Exception error) {
+						display.asyncExec(new Runnable() {
+							public void run() {
+								finishCountdown(error);
+							}
+						});
+					}
+				});
+				countdown.start();
 			}
 		}
 		catch (Exception e) {
-			boolean flag = true;
-			if (e instanceof NumberFormatException) {
-				GUIUtil.showNumberFormatException(window.getShell(), e.getMessage());
-				flag = false;
-			}
-			if (e instanceof IOException) {
-				GUIUtil.showIOException(window.getShell(), e.getMessage());
-				flag = false;
-			}
-			if (e instanceof InterruptedException) {
-				GUIUtil.showInterruptedException(window.getShell(), e.getMessage());
-				flag = false;
-			}
-			if (flag) {
-				GUIUtil.showErrorDialog(window.getShell(), "Program Error\n( " + 
-					e.getMessage() + " )");
-					
-			}
+			showStartError(e);
 		}
 	}
   	
@@ -480,8 +481,10 @@ public class Core {
   		aborted = true;
 		workoutFinished();
 		
-		/* Call workout finished in the IODevice handler and main window */
+		/* Call workout finished in the IODevice handler and main window once the strokes are no
+		 * longer being retrieved */
 		try {
+			stopAcquisition();
 			ioDevices.workoutAborted();
 			window.workoutAborted();
 		} catch (Exception e) {
@@ -509,23 +512,111 @@ public class Core {
 	}
 	
 	
+	/* Private Methods */
+	
 	/**
-	 * If called performace figures are written to performance.txt
+	 * Called on the display thread once the countdown has finished.  The rowing has been started
+	 * so the strokes can now be retrieved.
+	 * 
+	 * @param	error	the error that stopped the countdown; null if it finished
 	 */
-	public void writePerformanceFile() {
+	private void finishCountdown(Exception error) {
 		
-		try {
-			performanceWriter = new BufferedWriter( new FileWriter("performance.txt") );
-		} catch (IOException e) {
-			GUIUtil.showIOException( window.getShell(), e.getMessage() );
+		/* Dispose of the countdown and refresh the display so we can see the gui outputs */
+		disposeCountdown();
+		window.getShell().getDisplay().update();
+		
+		if (error != null) {
+			showStartError(error);
+		}
+		else if (racing) {
+			startAcquisition();
 		}
 	}
 	
 	
-	/* Private Methods */
+	/**
+	 * Closes the countdown window if it is open
+	 */
+	private void disposeCountdown() {
+		
+		countdown = null;
+		if (countdownWindow != null) {
+			if ( !countdownWindow.getShell().isDisposed() ) {
+				countdownWindow.getShell().dispose();
+			}
+			countdownWindow = null;
+		}
+	}
+	
+	
+	/**
+	 * Shows the error that stopped the workout starting
+	 * 
+	 * @param	e	the error
+	 */
+	private void showStartError(Exception e) {
+		
+		boolean flag = true;
+		if (e instanceof NumberFormatException) {
+			GUIUtil.showNumberFormatException(window.getShell(), e.getMessage());
+			flag = false;
+		}
+		if (e instanceof IOException) {
+			GUIUtil.showIOException(window.getShell(), e.getMessage());
+			flag = false;
+		}
+		if (e instanceof InterruptedException) {
+			GUIUtil.showInterruptedException(window.getShell(), e.getMessage());
+			flag = false;
+		}
+		if (flag) {
+			GUIUtil.showErrorDialog(window.getShell(), "Program Error\n( " + 
+				e.getMessage() + " )");
+				
+		}
+	}
+	
+	
+	/**
+	 * Starts the background retrieval of the strokes.  The acquisition thread wakes the display
+	 * each time a new stroke collection is available.
+	 */
+	private void startAcquisition() {
+		
+		final Display display = window.getShell().getDisplay();
+		lastSequence = 0;
+		acquisition = new StrokeAcquisitionThread(ioDevices, new Runnable() {
+			public void run() {
+				if ( !display.isDisposed() ) {
+					display.wake();
+				}
+			}
+		});
+		acquisition.start();
+	}
+	
 	
 	/**
-	 * Updates the stroke data for every rower and passes this to the window 
+	 * Stops the countdown, if still running, and the background retrieval of the strokes, waiting
+	 * for any count or retrieval in progress
+	 */
+	private void stopAcquisition() throws InterruptedException {
+		
+		if (countdown != null) {
+			countdown.halt();
+			disposeCountdown();
+		}
+		if (acquisition != null) {
+			acquisition.halt();
+			acquisition = null;
+		}
+	}
+	
+	
+	/**
+	 * Updates the window with the latest stroke collection retrieved by the acquisition thread.
+	 * Nothing is done if a new collection isn't available.
 	 */
 	private void updateStrokeData() throws Exception  {
 		
@@ -533,27 +624,34 @@ public class Core {
 		 * The retrieval of stroke data takes approximately 50ms per PM2Unit - this is due to 
 		 * 		waiting for the PM2PlusUnit event to fire (v. annoying).  However this can be
 		 * 		dropped to 30ms by not retrieving power and hr (option in tools->options).
+		 * 		This is now done on the acquisition thread so doesn't hold up the GUI.
 		 * The updating of the GUI outputs approximately 10ms */
-		 
-		/* Generate the latest stroke data and pass this to the GUI */
-		if (performanceWriter != null) {
-			long current = System.currentTimeMillis();
-			performanceWriter.write(current - lastTime + " ");
-			lastTime = current;
+		
+		/* Pass on any error that stopped the acquisition */
+		if (acquisition.getError() != null) {
+			Exception error = acquisition.getError();
+			acquisition = null;
+			throw error;
 		}
-		StrokeCollection strokes = ioDevices.getLatestStrokeCollection();
-		if (performanceWriter != null) {
-			long current = System.currentTimeMillis();
-			performanceWriter.write(current - lastTime + "\n");
-			lastTime = current;
+		
+		/* Check for a new collection.  The sequence is read before the collection so the
+		 * collection is at least as new as the sequence. */
+		int sequence = acquisition.getSequence();
+		if (sequence == lastSequence) {
+			return;
 		}
+		lastSequence = sequence;
+		StrokeCollection strokes = acquisition.getLatestStrokes();
 		
 		/* If it's the last stroke retrieved then inform main window of workout end.  Otherwise
-		 * just update as normal. */
-		if (racing) {
+		 * just update as normal, timing how long the GUI takes. */
+		if ( !strokes.isWorkoutFinished() ) {
+			long start = Instrumentation.DISPLAY.start();
 			window.updateStrokeData( strokes );
+			Instrumentation.DISPLAY.stop(start);
 		}
 		else {
+			acquisition = null;
 			if (!aborted) {
 				window.workoutFinished( strokes );
 			}
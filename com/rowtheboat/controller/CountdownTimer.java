@@ -0,0 +1,146 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: CountdownTimer.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Counts on an IClock
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+/**
+ * CountdownTimer runs the countdown to the start of a workout on a background thread so the GUI
+ * stays responsive.  Each count is due at a fixed time from when the countdown began rather than
+ * a fixed time after the previous count, so the time taken to display a count (e.g. writing it
+ * to the PM2+ or repainting) doesn't delay the start.
+ * 
+ * @author agent
+ */
+
+public class CountdownTimer extends Thread {
+
+	/* Class Variables */
+	
+	private byte delay;								/* The count to start from */
+	private long tickPeriod;						/* The time between counts in milliseconds */
+	private ICountdownListener listener;			/* Informed of each count */
+	private IClock clock;							/* The clock counted on */
+	private volatile boolean running = true;		/* Whether the countdown should continue */
+	
+	
+	/* Constructors */
+	
+	/**
+	 * Constructs the countdown timer on the wall clock.  The timer must be started to begin the
+	 * countdown.
+	 * 
+	 * @param	delay		the count to start from; zero starts straight away
+	 * @param	tickPeriod	the time between counts in milliseconds
+	 * @param	listener	informed of each count and the end of the countdown
+	 */
+	public CountdownTimer(byte delay, long tickPeriod, ICountdownListener listener) {
+		
+		this( delay, tickPeriod, listener, new SystemClock() );
+	}
+	
+	
+	/**
+	 * Constructs the countdown timer.  The timer must be started to begin the countdown.
+	 * 
+	 * @param	delay		the count to start from; zero starts straight away
+	 * @param	tickPeriod	the time between counts in milliseconds
+	 * @param	listener	informed of each count and the end of the countdown
+	 * @param	clock		the clock to count on
+	 */
+	public CountdownTimer(byte delay, long tickPeriod, ICountdownListener listener, 
+			IClock clock) {
+		
+		super("Countdown");
+		this.delay = delay;
+		this.tickPeriod = tickPeriod;
+		this.listener = listener;
+		this.clock = clock;
+		
+		/* The countdown must never keep the program alive */
+		setDaemon(true);
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Stops the countdown and waits for any count in progress to finish.  The listener isn't told
+	 * the countdown has finished.
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void halt() throws InterruptedException {
+		
+		running = false;
+		if (Thread.currentThread() != this) {
+			interrupt();
+			join();
+		}
+	}
+	
+	
+	/**
+	 * Counts down, informing the listener at the deadline of each count
+	 */
+	public void run() {
+		
+		long start = clock.currentTimeMillis();
+		Exception error = null;
+		
+		try {
+			for (int count = delay; count >= 0 && running; count--) {
+				
+				/* Sleep until the deadline.  A sleep can end early so it is checked again. */
+				long deadline = start + (delay - count) * tickPeriod;
+				long remaining = deadline - clock.currentTimeMillis();
+				while (remaining > 0 && running) {
+					clock.sleep(remaining);
+					remaining = deadline - clock.currentTimeMillis();
+				}
+				
+				if (running) {
+					listener.countdownTick( (byte) count );
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			/* Halted whilst sleeping */
+		}
+		catch (Exception e) {
+			error = e;
+		}
+		
+		if (running) {
+			listener.countdownFinished(error);
+		}
+	}
+}
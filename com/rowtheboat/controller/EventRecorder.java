@@ -0,0 +1,282 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: EventRecorder.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 18-Oct-2026	1.05		agent		Capacity sized for an hour of racing
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+
+/**
+ * EventRecorder keeps a timeline of what the program did during a race: every PM2+ query round
+ * trip, every stroke collection, every river layout and every log file written.  Events are held
+ * in a fixed size ring of primitive arrays so recording creates no objects and a whole race can
+ * be recorded; once the ring is full the oldest events are overwritten.  It is enabled by the 
+ * -record command line flag and the timeline is appended to recording.csv when each workout is 
+ * cleared up, where stalls on the serial line, in the GUI or in the garbage collector can be 
+ * lined up against each other.
+ * <p>
+ * Each event has a start time, a duration, an ergo number, a lane count and a byte count.  What 
+ * the numbers mean depends on the event:
+ * <ul>
+ * <li>QUERY - the ergo queried (-1 if several were), the number of ergos queried and the bytes
+ * written to the serial port</li>
+ * <li>CYCLE - the lanes in the collection and the bytes of heap in use afterwards, which drops
+ * when the garbage collector runs</li>
+ * <li>LAYOUT - the lanes drawn</li>
+ * <li>FLUSH - the ergo of the rower and the bytes in the log file</li>
+ * </ul>
+ * 
+ * @author agent
+ */
+
+public final class EventRecorder {
+
+	/* Class Variables */
+	
+	private static volatile boolean enabled;		/* Whether events are recorded */
+	private static long [] starts;					/* The start time of each event */
+	private static int [] durations;				/* The duration of each event */
+	private static int [] types;					/* The type of each event */
+	private static int [] ergos;					/* The ergo number of each event */
+	private static int [] laneCounts;				/* The lane count of each event */
+	private static long [] byteCounts;				/* The byte count of each event */
+	private static int next;						/* The index of the next event */
+	private static int count;						/* The number of events held */
+	private static int dropped;						/* The number of events overwritten */
+	
+	/**
+	 * A PM2+ query round trip
+	 */
+	public static final int QUERY = 0;
+	
+	/**
+	 * A stroke collection retrieved by the IODeviceHandler
+	 */
+	public static final int CYCLE = 1;
+	
+	/**
+	 * A river layout
+	 */
+	public static final int LAYOUT = 2;
+	
+	/**
+	 * A workout log file written
+	 */
+	public static final int FLUSH = 3;
+	
+	/**
+	 * The file the timeline is exported to
+	 */
+	public static final String RECORDING_FILE = "recording.csv";
+	
+	/**
+	 * The number of events held.  Five ergos at 9600 baud are collected about 15 times a second,
+	 * giving a query and a cycle each time, and the river lays out 25 times a second, so with the
+	 * log files about 55 events a second are recorded and this holds over an hour of racing.
+	 * Fewer ergos are collected more often and fill it sooner.  The ring takes 8MB.
+	 */
+	public static final int CAPACITY = 1 << 18;
+	
+	private static final String [] TYPE_NAMES = { "Query", "Cycle", "Layout", "Flush" };
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Not constructed as everything is static
+	 */
+	private EventRecorder() {
+		
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Removes the events held
+	 */
+	public static synchronized void clear() {
+		
+		next = 0;
+		count = 0;
+		dropped = 0;
+	}
+	
+	
+	/**
+	 * Writes the events held, oldest first, as comma separated values with a heading line
+	 * 
+	 * @param	writer	the writer
+	 * @throws IOException
+	 */
+	public static synchronized void dump(Writer writer) throws IOException {
+		
+		writer.write("Start,Duration,Event,Ergo,Lanes,Bytes\n");
+		if (dropped > 0) {
+			writer.write("# " + dropped + " older events overwritten\n");
+		}
+		
+		int first = (next - count + CAPACITY) % CAPACITY;
+		for (int i = 0; i < count; i++) {
+			int index = (first + i) % CAPACITY;
+			writer.write( starts[index] + "," + durations[index] + "," + 
+				TYPE_NAMES[ types[index] ] + "," + ergos[index] + "," + laneCounts[index] + "," +
+				byteCounts[index] + "\n" );
+		}
+	}
+	
+	
+	/**
+	 * Appends the events to the recording file and clears them ready for the next workout.
+	 * Nothing is written if there are no events.
+	 * 
+	 * @param	title	the title written above the events
+	 * @throws IOException
+	 */
+	public static synchronized void export(String title) throws IOException {
+		
+		if (count == 0) {
+			return;
+		}
+		
+		FileWriter writer = new FileWriter(RECORDING_FILE, true);
+		try {
+			writer.write("# " + title + " - " + new Date() + "\n");
+			dump(writer);
+			writer.write("\n");
+		}
+		finally {
+			writer.close();
+		}
+		clear();
+	}
+	
+	
+	/**
+	 * Returns the number of events held
+	 * 
+	 * @return	the number of events
+	 */
+	public static synchronized int getCount() {
+		
+		return count;
+	}
+	
+	
+	/**
+	 * Returns the number of events that have been overwritten since the events were last cleared
+	 * 
+	 * @return	the number of events
+	 */
+	public static synchronized int getDropped() {
+		
+		return dropped;
+	}
+	
+	
+	/**
+	 * Returns whether events are recorded
+	 * 
+	 * @return	<code>true</code> if enabled; <code>false</code> otherwise
+	 */
+	public static boolean isEnabled() {
+		
+		return enabled;
+	}
+	
+	
+	/**
+	 * Records an event that started at the given time and has just finished, if recording is
+	 * enabled
+	 * 
+	 * @param	type		the type of event, e.g. QUERY
+	 * @param	start		the start time from start()
+	 * @param	ergo		the ergo number; -1 if not applicable
+	 * @param	lanes		the lane count
+	 * @param	bytes		the byte count
+	 */
+	public static void record(int type, long start, int ergo, int lanes, long bytes) {
+		
+		if (!enabled) {
+			return;
+		}
+		
+		long now = System.currentTimeMillis();
+		synchronized (EventRecorder.class) {
+			if (count == CAPACITY) {
+				dropped++;
+			}
+			else {
+				count++;
+			}
+			starts[next] = start;
+			durations[next] = (int) (now - start);
+			types[next] = type;
+			ergos[next] = ergo;
+			laneCounts[next] = lanes;
+			byteCounts[next] = bytes;
+			next = (next + 1) % CAPACITY;
+		}
+	}
+	
+	
+	/**
+	 * Sets whether events are recorded.  The ring is created when first enabled.
+	 * 
+	 * @param	enable	whether to record
+	 */
+	public static synchronized void setEnabled(boolean enable) {
+		
+		if (enable && starts == null) {
+			starts = new long [CAPACITY];
+			durations = new int [CAPACITY];
+			types = new int [CAPACITY];
+			ergos = new int [CAPACITY];
+			laneCounts = new int [CAPACITY];
+			byteCounts = new long [CAPACITY];
+		}
+		enabled = enable;
+	}
+	
+	
+	/**
+	 * Returns the current time, to be passed to record() at the end of the event
+	 * 
+	 * @return	the time in milliseconds; 0 if recording isn't enabled
+	 */
+	public static long start() {
+		
+		return enabled ? System.currentTimeMillis() : 0;
+	}
+}
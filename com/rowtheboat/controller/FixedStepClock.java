@@ -0,0 +1,119 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: FixedStepClock.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+/**
+ * FixedStepClock is a virtual clock that only moves when it is told to.  Sleeping advances the
+ * clock by the time slept and returns straight away, so a race driven by a single thread runs as
+ * fast as the ergos can be queried and produces the same times on every run.
+ * 
+ * @author agent
+ */
+public class FixedStepClock implements IClock {
+
+	/* Class Variables */
+	
+	private long time;								/* The current time in milliseconds */
+	private long step;								/* The time advanced by each step */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs the clock
+	 * 
+	 * @param	start	the time the clock starts at in milliseconds
+	 * @param	step	the time advanced by each step in milliseconds
+	 */
+	public FixedStepClock(long start, long step) {
+		
+		if (step <= 0) {
+			throw new IllegalArgumentException("The step must be positive");
+		}
+		this.time = start;
+		this.step = step;
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Advances the clock by the given time
+	 * 
+	 * @param	millis	the time to advance by in milliseconds
+	 */
+	public synchronized void advance(long millis) {
+		
+		if (millis > 0) {
+			time += millis;
+		}
+	}
+	
+	
+	/* Inherited Javadoc */
+	public synchronized long currentTimeMillis() {
+		
+		return time;
+	}
+	
+	
+	/**
+	 * Returns the time advanced by each step
+	 * 
+	 * @return	the step in milliseconds
+	 */
+	public long getStep() {
+		
+		return step;
+	}
+	
+	
+	/**
+	 * Advances the clock by the time slept without waiting
+	 */
+	public void sleep(long millis) throws InterruptedException {
+		
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+		advance(millis);
+	}
+	
+	
+	/**
+	 * Advances the clock by one step
+	 */
+	public void step() {
+		
+		advance(step);
+	}
+}
@@ -0,0 +1,642 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: HeadlessRace.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Log file queues reported with the results
+ * 17-Oct-2026	1.05		agent		Races replayed on a fixed step or accelerated clock
+ * 17-Oct-2026	1.05		agent		Sessions streamed in by the PaceTimelineLoader
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.dom4j.Document;
+import org.dom4j.DocumentException;
+import org.dom4j.Element;
+import org.dom4j.io.SAXReader;
+import org.xml.sax.SAXException;
+
+import com.rowtheboat.gui.OptionsSingleton;
+import com.rowtheboat.input.PM2PlusEmulator;
+import com.rowtheboat.input.PM2PlusUnit;
+import com.rowtheboat.input.StrokeData;
+import com.rowtheboat.input.VirtualErg;
+import com.rowtheboat.workout.ComputerRower;
+import com.rowtheboat.workout.HumanRower;
+import com.rowtheboat.workout.Rower;
+import com.rowtheboat.workout.Workout;
+
+/**
+ * HeadlessRace runs a workout through the same IODeviceHandler pipeline as the GUI, but without
+ * a display, so races can be run from the command line for regression testing and benchmarking
+ * or on machines with no display.  The strokes are retrieved on the calling thread until every 
+ * human rower has finished or the time limit is reached, and the log files are written as usual.
+ * <p>
+ * A race is described by an XML file:
+ * <pre>
+ * &lt;Race limit="600" progress="10" period="0"&gt;
+ *   &lt;Workout type="distance" distance="2000" start="count" date="2005-01-01-09:00:00"/&gt;
+ *   &lt;Emulator port="Chain1" baud="9600" jitter="0" loss="0" seed="0"&gt;
+ *     &lt;Erg split="105" rate="28" heart="150" duration="600"/&gt;
+ *     &lt;Erg session="geo.xml"/&gt;
+ *   &lt;/Emulator&gt;
+ *   &lt;Human name="George" port="Chain1" ergo="0" log="george.xml"&gt;
+ *     &lt;Shadow name="Target" time="420"/&gt;
+ *   &lt;/Human&gt;
+ *   &lt;Human name="Jane" port="Chain1" ergo="1"/&gt;
+ *   &lt;Computer name="Pacer" time="400"/&gt;
+ *   &lt;Computer name="Record" session="geo2.xml"/&gt;
+ * &lt;/Race&gt;
+ * </pre>
+ * The workout type is distance, time (with a time attribute in seconds) or justrow, and starts
+ * after the countdown or on the first stroke.  The date is optional and defaults to now.  A just
+ * row workout has a single rower on the first ergo of the serial port in the options, so no
+ * rowers are given.  Computer and shadow rowers row at a fixed pace, given by the time to row the
+ * distance or the split to hold for the time, or follow a session.  Emulators are optional and
+ * stand in for the serial port of the same name, or the port in the options if none is named, so
+ * races can be run without ergos.  The limit is in seconds and is required for just row
+ * workouts, which never finish; progress is reported at the given interval in seconds.  The
+ * period is the time in milliseconds waited between collections.  File names are relative to the
+ * race file.
+ * <p>
+ * The race is run against an IClock.  On a FixedStepClock the emulated ergos only move on by the
+ * period each collection, so a race runs as fast as the emulators answer (at once with a baud of
+ * 0) and, with no jitter or loss, writes the same log files on every run.
+ * 
+ * @author agent
+ */
+
+public class HeadlessRace implements IWorkoutListener {
+
+	/* Class Variables */
+	
+	private Workout workout;						/* The workout */
+	private IClock clock;							/* The clock the race is run against */
+	private ArrayList emulatorPorts;				/* The ports replaced by emulators */
+	private ArrayList emulators;					/* The emulators */
+	private long timeLimit;							/* The longest the race may take in
+													   milliseconds; 0 for no limit */
+	private long progressInterval;					/* The time between progress reports in
+													   milliseconds; 0 for none */
+	private long period;							/* The time waited between collections in
+													   milliseconds */
+	private PrintStream progress;					/* Where the progress is reported */
+	private volatile boolean finished;				/* Whether the workout has finished */
+	private boolean timedOut;						/* Whether the time limit was reached */
+	private int collectionCount;					/* The number of collections retrieved */
+	private long elapsedTime;						/* The time the race took */
+	private OutputQueue [] outputQueues;			/* The log file queues of the last run */
+	
+	private static final long COUNT_PERIOD = 1000;	/* The time between counts in 
+													   milliseconds */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs a race of the given workout
+	 * 
+	 * @param	workout	the workout, with its rowers
+	 * @param	clock	the clock to race against
+	 */
+	public HeadlessRace(Workout workout, IClock clock) {
+		
+		this.workout = workout;
+		this.clock = clock;
+		emulatorPorts = new ArrayList();
+		emulators = new ArrayList();
+	}
+	
+	
+	/* Main Method */
+	
+	/**
+	 * Runs the race described by a file and prints the results
+	 */
+	public static void main(String[] args) throws Exception {
+		
+		if (args.length < 1) {
+			System.out.println("Usage: HeadlessRace race.xml [-performance] [-record] " +
+				"[-step millis | -speed factor]");
+			return;
+		}
+		
+		/* The race runs on the wall clock unless a fixed step or faster clock is asked for */
+		IClock clock = new SystemClock();
+		long step = 0;
+		for (int i = 1; i < args.length; i++) {
+			if ( args[i].equals("-step") && i + 1 < args.length ) {
+				step = Long.parseLong(args[++i]);
+				clock = new FixedStepClock(0, step);
+			}
+			if ( args[i].equals("-speed") && i + 1 < args.length ) {
+				clock = new AcceleratedClock( Double.parseDouble(args[++i]) );
+			}
+			if ( args[i].equals("-performance") ) {
+				Instrumentation.setEnabled(true);
+			}
+			if ( args[i].equals("-record") ) {
+				EventRecorder.setEnabled(true);
+			}
+		}
+		
+		HeadlessRace race = load( new File(args[0]), clock );
+		if (step > 0) {
+			race.setPeriod(step);
+		}
+		race.setProgress(System.out);
+		StrokeCollection strokes = race.run();
+		race.printResults(strokes, System.out);
+		
+		if ( Instrumentation.isEnabled() ) {
+			Instrumentation.export( "Headless race " + args[0] );
+		}
+		if ( EventRecorder.isEnabled() ) {
+			EventRecorder.export( "Headless race " + args[0] );
+		}
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Uses an emulator in place of a serial port for this race
+	 * 
+	 * @param	port		the serial port of the human rowers to emulate
+	 * @param	emulator	the emulator
+	 */
+	public void addEmulator(String port, PM2PlusEmulator emulator) {
+		
+		emulatorPorts.add(port);
+		emulators.add(emulator);
+	}
+	
+	
+	/**
+	 * Returns the number of stroke collections retrieved during the last run
+	 * 
+	 * @return	the number of collections
+	 */
+	public int getCollectionCount() {
+		
+		return collectionCount;
+	}
+	
+	
+	/**
+	 * Returns the time the last run took from the start of the rowing
+	 * 
+	 * @return	the time in milliseconds on the race clock
+	 */
+	public long getElapsedTime() {
+		
+		return elapsedTime;
+	}
+	
+	
+	/**
+	 * Returns the workout
+	 * 
+	 * @return	the workout
+	 */
+	public Workout getWorkout() {
+		
+		return workout;
+	}
+	
+	
+	/**
+	 * Returns whether the last run was stopped by the time limit rather than finishing
+	 * 
+	 * @return	<code>true</code> if timed out; <code>false</code> otherwise
+	 */
+	public boolean isTimedOut() {
+		
+		return timedOut;
+	}
+	
+	
+	/**
+	 * Loads a race from a file
+	 * 
+	 * @param	file	the race file
+	 * @param	clock	the clock to race against
+	 * @return	the race
+	 * @throws DocumentException
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 * @throws IllegalArgumentException	if the race isn't valid
+	 */
+	public static HeadlessRace load(File file, IClock clock) 
+			throws DocumentException, IOException, SAXException, ParserConfigurationException {
+		
+		/* Read the file */
+		SAXReader reader = new SAXReader();
+		Document document = reader.read(file);
+		Element root = document.getRootElement();
+		File directory = file.getAbsoluteFile().getParentFile();
+		
+		/* Read the workout */
+		Element workoutElement = root.element("Workout");
+		if (workoutElement == null) {
+			throw new IllegalArgumentException("The race has no workout");
+		}
+		String type = workoutElement.attributeValue("type", "distance");
+		Workout workout;
+		if ( type.equals("distance") ) {
+			workout = new Workout(Workout.DISTANCE_WORKOUT);
+			workout.setDistance( Integer.parseInt(workoutElement.attributeValue("distance")) );
+		}
+		else if ( type.equals("time") ) {
+			workout = new Workout(Workout.TIME_WORKOUT);
+			workout.setTime( Integer.parseInt(workoutElement.attributeValue("time")) );
+		}
+		else if ( type.equals("justrow") ) {
+			
+			/* A just row workout comes with its one rower, on ergo 1 of the options port */
+			workout = new Workout(Workout.JUST_ROW);
+			if (root.element("Human") != null || root.element("Computer") != null) {
+				throw new IllegalArgumentException("A just row race has no other rowers");
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Unknown workout type " + type);
+		}
+		if (workoutElement.attributeValue("date") != null) {
+			workout.setDate( workoutElement.attributeValue("date") );
+		}
+		if ( "stroke".equals(workoutElement.attributeValue("start")) || 
+				workout.getType() == Workout.JUST_ROW ) {
+			workout.setStartType(Workout.START_ON_STROKE);
+		}
+		else {
+			workout.setStartType(Workout.START_AFTER_COUNT);
+		}
+		
+		/* Read the rowers, in lane order */
+		for ( Iterator i = root.elementIterator(); i.hasNext(); ) {
+			Element el = (Element) i.next();
+			if ( el.getName().equals("Human") ) {
+				HumanRower rower = loadHumanRower(el, directory);
+				workout.addRower(rower);
+				
+				Element shadow = el.element("Shadow");
+				if (shadow != null) {
+					workout.addShadow( loadComputerRower(shadow, directory) );
+				}
+			}
+			else if ( el.getName().equals("Computer") ) {
+				workout.addRower( loadComputerRower(el, directory) );
+			}
+		}
+		if (workout.numberOfHumanRowers() == 0) {
+			throw new IllegalArgumentException("The race has no human rowers");
+		}
+		
+		/* Read the race settings */
+		HeadlessRace race = new HeadlessRace(workout, clock);
+		race.setTimeLimit( Long.parseLong(root.attributeValue("limit", "0")) * 1000 );
+		race.setProgressInterval( Long.parseLong(root.attributeValue("progress", "0")) * 1000 );
+		race.setPeriod( Long.parseLong(root.attributeValue("period", "0")) );
+		if (workout.getType() == Workout.JUST_ROW && race.timeLimit == 0) {
+			throw new IllegalArgumentException("A just row race needs a time limit");
+		}
+		
+		/* Read the emulators */
+		for ( Iterator i = root.elementIterator("Emulator"); i.hasNext(); ) {
+			Element el = (Element) i.next();
+			String port = el.attributeValue("port");
+			if (port == null) {
+				port = OptionsSingleton.getInstance().getSerialPort();
+			}
+			race.addEmulator( port, loadEmulator(el, directory) );
+		}
+		
+		return race;
+	}
+	
+	
+	/**
+	 * Prints the result of each lane
+	 * 
+	 * @param	strokes	the last collection of the race
+	 * @param	out		where to print the results
+	 */
+	public void printResults(StrokeCollection strokes, PrintStream out) {
+		
+		out.println( (timedOut ? "Stopped at the time limit" : "Finished") + " after " + 
+			collectionCount + " collections in " + (elapsedTime / 1000.0) + "s" );
+		for (int i = 0; i < strokes.getNumberOfRowers(); i++) {
+			out.println( "Lane " + (i + 1) + ": " + describe(workout.getRower(i), 
+				strokes.getStroke(i)) );
+			if ( workout.hasShadowRower(i) ) {
+				out.println( "  Shadow: " + describe(workout.getShadow(i), 
+					strokes.getShadowStroke(i)) );
+			}
+		}
+		for (int i = 0; i < outputQueues.length; i++) {
+			OutputQueue queue = outputQueues[i];
+			out.println( "Log file " + (i + 1) + ": " + queue.getDelivered() + " written, " + 
+				queue.getDropped() + " dropped, max depth " + queue.getMaxDepth() + 
+				", max lag " + queue.getMaxLag() + "ms" );
+		}
+	}
+	
+	
+	/**
+	 * Runs the race.  The countdown, if any, is given and the strokes retrieved until every human
+	 * rower has finished or the time limit is reached.  The input devices are cleaned up before
+	 * this returns.
+	 * 
+	 * @return	the last stroke collection of the race
+	 * @throws Exception	if the input or output devices fail
+	 */
+	public StrokeCollection run() throws Exception {
+		
+		finished = false;
+		timedOut = false;
+		collectionCount = 0;
+		
+		/* Put the emulators in place of their serial ports.  The emulated ergos run on the race
+		 * clock, unless it is the wall clock when they also count the time on the line. */
+		for (int i = 0; i < emulators.size(); i++) {
+			PM2PlusEmulator emulator = (PM2PlusEmulator) emulators.get(i);
+			if ( !(clock instanceof SystemClock) ) {
+				emulator.setClock(clock);
+			}
+			PM2PlusUnit.getInstance( (String) emulatorPorts.get(i), emulator, workout );
+		}
+		
+		IODeviceHandler ioDevices = new IODeviceHandler(workout, this, clock);
+		outputQueues = ioDevices.getOutputDispatcher().getQueues();
+		try {
+			
+			/* Count down to the start, as the GUI would */
+			if (workout.getStartType() == Workout.START_ON_STROKE) {
+				ioDevices.startRowing();
+			}
+			else {
+				for (byte count = OptionsSingleton.getInstance().getDelay(); count >= 0; count--) {
+					ioDevices.displayCount(count);
+					if (count == 0) {
+						ioDevices.startRowing();
+					}
+					else {
+						clock.sleep(COUNT_PERIOD);
+					}
+				}
+			}
+			
+			/* Retrieve the strokes until the workout has finished */
+			StrokeCollection strokes = ioDevices.createStrokeCollection();
+			long start = clock.currentTimeMillis();
+			long nextProgress = start + progressInterval;
+			while (!finished) {
+				long acquisitionStart = Instrumentation.ACQUISITION.start();
+				ioDevices.getLatestStrokeCollection(strokes);
+				Instrumentation.ACQUISITION.stop(acquisitionStart);
+				collectionCount++;
+				
+				long now = clock.currentTimeMillis();
+				elapsedTime = now - start;
+				if ( progress != null && progressInterval > 0 && now >= nextProgress && 
+						!finished ) {
+					reportProgress(strokes);
+					nextProgress += progressInterval;
+				}
+				if ( timeLimit > 0 && elapsedTime >= timeLimit && !finished ) {
+					timedOut = true;
+					ioDevices.workoutAborted();
+					break;
+				}
+				
+				if (period > 0 && !finished) {
+					clock.sleep(period);
+				}
+			}
+			
+			return strokes;
+		}
+		finally {
+			ioDevices.cleanUp();
+		}
+	}
+	
+	
+	/**
+	 * Sets the time waited between stroke collections.  On a FixedStepClock this is the time the
+	 * race moves on by each collection, so it must be set for the race to progress.
+	 * 
+	 * @param	period	the time in milliseconds; 0 to collect the strokes as fast as possible
+	 */
+	public void setPeriod(long period) {
+		
+		this.period = period;
+	}
+	
+	
+	/**
+	 * Sets where the progress is reported
+	 * 
+	 * @param	progress	the stream; null for no progress
+	 */
+	public void setProgress(PrintStream progress) {
+		
+		this.progress = progress;
+	}
+	
+	
+	/**
+	 * Sets the time between progress reports
+	 * 
+	 * @param	interval	the interval in milliseconds; 0 for no progress
+	 */
+	public void setProgressInterval(long interval) {
+		
+		this.progressInterval = interval;
+	}
+	
+	
+	/**
+	 * Sets the longest the race may take, after which the workout is aborted.  This is needed for
+	 * just row workouts, which don't finish.
+	 * 
+	 * @param	limit	the time in milliseconds; 0 for no limit
+	 */
+	public void setTimeLimit(long limit) {
+		
+		this.timeLimit = limit;
+	}
+	
+	
+	/* Inherited Javadoc */
+	public void workoutFinished() {
+		
+		finished = true;
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Returns a description of a rower and its stroke
+	 * 
+	 * @param	rower	the rower
+	 * @param	stroke	the stroke
+	 * @return	the description
+	 */
+	private static String describe(Rower rower, StrokeData stroke) {
+		
+		return rower.getName() + " " + stroke.getDistance() + "m " + stroke.getTime() + "s";
+	}
+	
+	
+	/**
+	 * Returns a file named in the race file
+	 * 
+	 * @param	name		the file name
+	 * @param	directory	the directory of the race file
+	 * @return	the file
+	 */
+	private static File getFile(String name, File directory) {
+		
+		File file = new File(name);
+		
+		return file.isAbsolute() ? file : new File(directory, name);
+	}
+	
+	
+	/**
+	 * Loads a computer or shadow rower
+	 * 
+	 * @param	el			the rower element
+	 * @param	directory	the directory of the race file
+	 * @return	the rower
+	 */
+	private static ComputerRower loadComputerRower(Element el, File directory) {
+		
+		ComputerRower rower;
+		String session = el.attributeValue("session");
+		if (session != null) {
+			rower = new ComputerRower(ComputerRower.VARIABLE_SPLIT);
+			rower.setVariableInputFile( getFile(session, directory) );
+		}
+		else {
+			rower = new ComputerRower(ComputerRower.FIXED_SPLIT);
+			rower.setRowTime( Float.parseFloat(el.attributeValue("time", "0")) );
+			rower.setSplitToRowAt( Float.parseFloat(el.attributeValue("split", "0")) );
+		}
+		rower.setName( el.attributeValue("name", "Computer") );
+		
+		return rower;
+	}
+	
+	
+	/**
+	 * Loads an emulator
+	 * 
+	 * @param	el			the emulator element
+	 * @param	directory	the directory of the race file
+	 * @return	the emulator
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 */
+	private static PM2PlusEmulator loadEmulator(Element el, File directory) 
+			throws IOException, SAXException, ParserConfigurationException {
+		
+		ArrayList ergs = new ArrayList();
+		for ( Iterator i = el.elementIterator("Erg"); i.hasNext(); ) {
+			Element erg = (Element) i.next();
+			String session = erg.attributeValue("session");
+			if (session != null) {
+				ergs.add( VirtualErg.load(getFile(session, directory)) );
+			}
+			else {
+				ergs.add( new VirtualErg( Float.parseFloat(erg.attributeValue("split", "120")),
+					Integer.parseInt(erg.attributeValue("rate", "28")), 
+					Float.parseFloat(erg.attributeValue("heart", "0")),
+					Float.parseFloat(erg.attributeValue("duration", "3600")) ) );
+			}
+		}
+		
+		PM2PlusEmulator emulator = new PM2PlusEmulator
+			( (VirtualErg []) ergs.toArray(new VirtualErg[ergs.size()]) );
+		emulator.setBaudRate( Integer.parseInt(el.attributeValue("baud", "9600")) );
+		emulator.setJitter( Integer.parseInt(el.attributeValue("jitter", "0")) );
+		emulator.setByteLoss( Double.parseDouble(el.attributeValue("loss", "0")) );
+		emulator.setSeed( Long.parseLong(el.attributeValue("seed", "0")) );
+		
+		return emulator;
+	}
+	
+	
+	/**
+	 * Loads a human rower
+	 * 
+	 * @param	el			the rower element
+	 * @param	directory	the directory of the race file
+	 * @return	the rower
+	 */
+	private static HumanRower loadHumanRower(Element el, File directory) {
+		
+		String log = el.attributeValue("log");
+		HumanRower rower = new HumanRower( el.attributeValue("name", "Rower"), 
+			el.attributeValue("port"), Integer.parseInt(el.attributeValue("ergo", "0")), 
+			log != null );
+		if (log != null) {
+			rower.setXMLFileName( getFile(log, directory) );
+		}
+		
+		return rower;
+	}
+	
+	
+	/**
+	 * Reports the distance of each lane
+	 * 
+	 * @param	strokes	the latest stroke collection
+	 */
+	private void reportProgress(StrokeCollection strokes) {
+		
+		StringBuffer line = new StringBuffer();
+		line.append( (elapsedTime / 1000) + "s:" );
+		for (int i = 0; i < strokes.getNumberOfRowers(); i++) {
+			line.append( " " + (int) strokes.getStroke(i).getDistance() + "m" );
+		}
+		progress.println(line);
+	}
+}
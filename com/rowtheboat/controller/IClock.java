@@ -0,0 +1,56 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: IClock.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+/**
+ * IClock is the source of time for a race, so that a race needn't be run against the wall clock.
+ * 
+ * @author agent
+ */
+public interface IClock {
+
+	/**
+	 * Returns the current time
+	 * 
+	 * @return	the time in milliseconds
+	 */
+	public long currentTimeMillis();
+	
+	
+	/**
+	 * Waits until the given time has passed on this clock
+	 * 
+	 * @param	millis	the time to wait in milliseconds
+	 * @throws InterruptedException
+	 */
+	public void sleep(long millis) throws InterruptedException;
+}
@@ -0,0 +1,58 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: ICountdownListener.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+/**
+ * ICountdownListener is informed by a CountdownTimer as the countdown progresses.  The methods are
+ * called from the timer thread, so anything touching the GUI must be passed to the display thread.
+ * 
+ * @author agent
+ */
+public interface ICountdownListener {
+
+	/**
+	 * Called at the deadline of each count.  A count of zero is the start.
+	 * 
+	 * @param	count	the count reached
+	 * @throws Exception	stops the countdown and is passed to countdownFinished
+	 */
+	public void countdownTick(byte count) throws Exception;
+	
+	
+	/**
+	 * Called once the countdown has finished or been stopped by an error.  It isn't called if 
+	 * the timer is halted.
+	 * 
+	 * @param	error	the error that stopped the countdown; null if it finished
+	 */
+	public void countdownFinished(Exception error);
+}
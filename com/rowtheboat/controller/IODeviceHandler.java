@@ -28,13 +28,32 @@
  * 28-Nov-2003	1.0			GeorgeP		Initial version coded
  * 30-Oct-2004	1.03		GeorgeP		Updated to RXTX pure serial driver
  * 10-Dec-2004	1.04		GeorgeP		Garbage collection changes made
+ * 17-Oct-2026	1.05		agent		Ergos on different serial ports polled in parallel.  PM
+ * 										methods called once per serial port
+ * 17-Oct-2026	1.05		agent		Age skew between the lanes measured for each collection
+ * 17-Oct-2026	1.05		agent		Boat smoothing by a LaneExtrapolator per lane, using the
+ * 										arrival time of the strokes, replaces calculateLag
+ * 17-Oct-2026	1.05		agent		Clock model per lane.  Computer and shadow rowers raced
+ * 										against a single RaceClock
+ * 17-Oct-2026	1.05		agent		Strokes put in a StrokeCollection given by the caller so it
+ * 										can be reused.  Garbage collection per stroke removed
+ * 17-Oct-2026	1.05		agent		File output and smoothing timed by the Instrumentation
+ * 17-Oct-2026	1.05		agent		Each collection recorded by the EventRecorder
+ * 17-Oct-2026	1.05		agent		Informs an IWorkoutListener rather than the Core, and takes
+ * 										the time from an IClock, so it can be used without the GUI
+ * 17-Oct-2026	1.05		agent		Log files written through an OutputDispatcher so they don't
+ * 										slow the acquisition
+ * 17-Oct-2026	1.05		agent		PM2+ responses stamped by the race clock
+ * 17-Oct-2026	1.05		agent		Variable split sessions streamed in
+ * 17-Oct-2026	1.05		agent		Collections stamped with the race clock time
+ * 18-Oct-2026	1.05		agent		Collections carry the smoothed velocity of each boat
  * 
  */
 
 package com.rowtheboat.controller;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.util.ArrayList;
 import java.util.TooManyListenersException;
 
 import gnu.io.PortInUseException;
@@ -43,10 +62,8 @@ import gnu.io.UnsupportedCommOperationException;
 import javax.xml.parsers.FactoryConfigurationError;
 import javax.xml.parsers.ParserConfigurationException;
 
-import org.dom4j.DocumentException;
 import org.xml.sax.SAXException;
 
-import com.rowtheboat.output.IFileOutputDevice;
 import com.rowtheboat.output.XMLWorkoutWriter;
 import com.rowtheboat.workout.ComputerRower;
 import com.rowtheboat.workout.HumanRower;
@@ -69,156 +86,236 @@ import com.rowtheboat.input.VariableSplitInput;
 public class IODeviceHandler {
 
 	/* Class Variables */
-	private float lastStrokeTime = -1;				/* The workout time of the last stroke */
-	private long lastStrokeMillis;					/* The last stroke time in milliseconds */
 	private int numberOfRowers;						/* The number of rowers */
 	private int startType;							/* The workout start type */
-	private Core core;								/* Reference to the core */
+	private IWorkoutListener listener;				/* Informed when the workout finishes */
+	private IClock clock;							/* The clock the race is run against */
 	
 
 	private int [] humanRowerErgoNumbers;			/* Maintains human rower indexes */
 	private IInputDevice [] inputDevices;			/* The input devices */
+	private IInputDevice [] distinctInputDevices;	/* The input devices without repeats, as
+													   every ergo on a port shares a device */
+	private PortPoller [] portPollers;				/* The pollers, one per serial port */
+	private StrokeData [] humanStrokes;				/* The strokes retrieved by the pollers */
+	private LaneExtrapolator [] extrapolators;		/* The boat smoothing, by lane */
+	private RaceClock raceClock;					/* The time computer rowers race against */
 	private IInputDevice [] shadowInputDevices;		/* The shadow input devices */
-	private IFileOutputDevice [] fileOutputDevices;	/* The file output devices */
+	private OutputDispatcher outputDispatcher;		/* Delivers to the file output devices */
+	private OutputQueue [] fileOutputs;				/* The queues of the file output devices */
 
 
 	/* Constructor */
 	
+	/**
+	 * Construct the collection of strokes, racing against the wall clock
+	 * 
+	 * @param workout	the workout which the strokes will be part of
+	 * @param	listener	informed when the workout finishes, e.g. the Core.  May be null.
+	 */
+	public IODeviceHandler(Workout workout, IWorkoutListener listener) throws Exception {
+		
+		this(workout, listener, new SystemClock());
+	}
+	
+	
 	/**
 	 * Construct the collection of strokes
 	 * 
 	 * @param workout	the workout which the strokes will be part of
-	 * @param	core	the Core to which this handler should be references
+	 * @param	listener	informed when the workout finishes, e.g. the Core.  May be null.
+	 * @param	clock		the clock the race is run against
 	 */
-	public IODeviceHandler(Workout workout, Core core) throws Exception {
+	public IODeviceHandler(Workout workout, IWorkoutListener listener, IClock clock) 
+			throws Exception {
 		
 		/* Initialise the class fields variables */
-		this.core = core;
+		this.listener = listener;
+		this.clock = clock;
 		numberOfRowers = workout.numberOfRowers();
 		startType = workout.getStartType();
 		
 		/* Initialise the array class variables */
 		humanRowerErgoNumbers = new int[numberOfRowers];
 		inputDevices = new IInputDevice [numberOfRowers];
+		humanStrokes = new StrokeData [numberOfRowers];
+		extrapolators = new LaneExtrapolator [numberOfRowers];
 		shadowInputDevices = new IInputDevice [numberOfRowers];
-		fileOutputDevices = new IFileOutputDevice [numberOfRowers];
+		outputDispatcher = new OutputDispatcher();
+		fileOutputs = new OutputQueue [numberOfRowers];
 		
 		/* Initialise the input devices */
 		initialiseInputDevices(workout);
 		setupWorkout(workout);
+		initialisePortPollers();
 	}
 	
 	
 	/* Public Methods */
 	
 	/**
-	 * Clean up any resources associated with the input devices  
+	 * Clean up any resources associated with the input and output devices  
 	 */
 	public void cleanUp() throws Exception {
 		
-		/* Used so PM methods only called once */
-		boolean flag = true;
+		/* Stop the pollers so the ports are no longer in use */
+		if (portPollers != null) {
+			for (int i = 0; i < portPollers.length; i++) {
+				portPollers[i].halt();
+			}
+		}
 		
 		/* Delegate the responsability to each input device */
-		for (int i = 0; i < inputDevices.length; i++) {
-			if (humanRowerErgoNumbers[i] == -1) {
-				inputDevices[i].cleanUp();
-			}
-			else {
-				if (flag) {
-					inputDevices[i].cleanUp();
-					flag = false;
-				}
-			}
+		for (int i = 0; i < distinctInputDevices.length; i++) {
+			distinctInputDevices[i].cleanUp();
 		}
+		
+		/* Wait for anything still queued to be written to the files */
+		outputDispatcher.halt();
 	}
 	
 	
 	/**
-	 * Called to retrieve the latest stroke collection
+	 * Creates a stroke collection sized for this workout, to be filled by 
+	 * {@link #getLatestStrokeCollection(StrokeCollection)}
 	 * 
-	 * @return	a stroke collection
+	 * @return	an empty stroke collection
 	 */
-	public StrokeCollection getLatestStrokeCollection() throws Exception {
+	public StrokeCollection createStrokeCollection() {
+		
+		return new StrokeCollection(numberOfRowers);
+	}
 	
-		/* Initialise the stroke collection */
-		StrokeCollection strokeCollection = new StrokeCollection(numberOfRowers);
+	
+	/**
+	 * Returns the dispatcher delivering to the file output devices, e.g. for the depth and lag of
+	 * their queues
+	 * 
+	 * @return	the dispatcher
+	 */
+	public OutputDispatcher getOutputDispatcher() {
+		
+		return outputDispatcher;
+	}
+	
+	
+	/**
+	 * Called to retrieve the latest stroke collection.  The strokes are copied into the given
+	 * collection so that collections can be reused rather than created for every update.
+	 * 
+	 * @param	strokeCollection	the collection to fill, from createStrokeCollection()
+	 */
+	public void getLatestStrokeCollection(StrokeCollection strokeCollection) throws Exception {
+	
+		long eventStart = EventRecorder.start();
 		
 		/* The boolean that tracks if the workout has finished for all human boats */
 		boolean workoutFinished = true;
-
-		/* The current lag since the last time update */
-		float lag = 0;
 		
-		/* Loop over the input devices */
-		for (int i = 0; i < inputDevices.length; i++) {
-			
-			if (humanRowerErgoNumbers[i] != -1) {
-						
-				/* If the input device is a human rower, get the stroke data, add this to the 
-				 * stroke collection and set the last time */
-				
-				StrokeData stroke = inputDevices[i].retrieveStrokeData( humanRowerErgoNumbers[i] );
+		/* Retrieve the human rowers strokes.  Every port is polled at once and the strokes
+		 * are only used once all the ports have finished. */
+		for (int i = 0; i < portPollers.length; i++) {
+			portPollers[i].requestPoll();
+		}
+		for (int i = 0; i < portPollers.length; i++) {
+			portPollers[i].awaitPoll();
+		}
+		long laneSkew = calculateLaneSkew();
+		strokeCollection.setLaneSkew(laneSkew);
+		Instrumentation.LANE_SKEW.record(laneSkew);
+		
+		/* Queue the strokes for the output files, which are written on their own threads.  This
+		 * is done before smoothing so the files have the values given by the ergo. */
+		outputDispatcher.checkErrors();
+		long start = Instrumentation.FILE_OUTPUT.start();
+		for (int i = 0; i < numberOfRowers; i++) {
+			if (humanRowerErgoNumbers[i] != -1 && fileOutputs[i] != null) {
 				
-				/* Call a garbage collection as retrieving stroke data sets a stroke to null so
-				 * it is desirable to recover this space. */
-				OptionsSingleton.getInstance().garbageCollect();
+				/* If the stroke data is the end of the stroke then update the output file */
+				StrokeData stroke = humanStrokes[i];
+				if ( stroke.isEndOfStroke() ) {
+					fileOutputs[i].updateStrokeData(stroke);
+				}
 				
-				/* If the stroke time and last stroke time are not equal (i.e. a second has cligged
-				 * on in the PM2+) then calculate the latest stroke distance and time */
-				if ( OptionsSingleton.getInstance().getBoatSmoothing() ) {
-					
-					/* Calculate the lag and use to update the stroke time for more accuracy */
-					lag = calculateLag(stroke);
-					stroke.setTime( lastStrokeTime + lag );
+				/* If the stroke is the the end of the workout then inform the output device
+				 * of the last stroke */
+				if ( stroke.isEndOfWorkout() ) {
+					fileOutputs[i].workoutFinished(stroke);
 				}
-				else {
-					lastStrokeTime = stroke.getTime();
+			}
+		}
+		Instrumentation.FILE_OUTPUT.stop(start);
+		
+		/* Update each erg clock with the new strokes before any are smoothed, so the race time
+		 * is the same for every lane, and set the human rowers strokes in the collection.  The 
+		 * boats are moved on from when the stroke arrived to when the collection is made for 
+		 * more accuracy, as the PM2+ time only changes once a second. */
+		start = Instrumentation.SMOOTHING.start();
+		long now = clock.currentTimeMillis();
+		long smoothingError = 0;
+		for (int i = 0; i < numberOfRowers; i++) {
+			if (humanRowerErgoNumbers[i] != -1 &&
+				extrapolators[i].observe(humanStrokes[i], now)) {
+				long error = Math.abs( extrapolators[i].getLastError() );
+				smoothingError = Math.max(smoothingError, error);
+				Instrumentation.SMOOTHING_ERROR.record(error);
+			}
+		}
+		boolean smoothing = OptionsSingleton.getInstance().getBoatSmoothing();
+		for (int i = 0; i < numberOfRowers; i++) {
+			if (humanRowerErgoNumbers[i] != -1) {
+				strokeCollection.setStroke(i, humanStrokes[i]);
+				if (smoothing) {
+					extrapolators[i].extrapolate( strokeCollection.getStroke(i), now );
+					strokeCollection.setVelocity( i, extrapolators[i].getVelocity() );
 				}
-				
-				/* Set the stroke in the stroke collection */
-				strokeCollection.setStroke(i, stroke);
+			}
+		}
+		float raceTime = raceClock.getTime(now);
+		Instrumentation.SMOOTHING.stop(start);
+		
+		/* Loop over the input devices */
+		for (int i = 0; i < inputDevices.length; i++) {
+			
+			if (humanRowerErgoNumbers[i] != -1) {
 				
 				/* Generate shadow stroke data where appropriate */
 				if (shadowInputDevices[i] != null) {
 					strokeCollection.setShadowStroke( i, 
-						shadowInputDevices[i].retrieveStrokeData( lastStrokeTime + lag ) );
-				}
-				
-				/* If the stroke data is the end of the stroke then update the output file */
-				if ( stroke.isEndOfStroke() && fileOutputDevices[i] != null ) {
-					fileOutputDevices[i].updateStrokeData(stroke);
-				}
-				
-				/* If the stroke is the the end of the workout then inform the output device
-				 * of the last stroke */
-				if ( stroke.isEndOfWorkout() && fileOutputDevices[i] != null ) {
-					fileOutputDevices[i].workoutFinished(stroke);
+						shadowInputDevices[i].retrieveStrokeData(raceTime) );
 				}
 				
 				/* Update if the workout has finished */
-				workoutFinished = workoutFinished && stroke.isEndOfWorkout();
+				workoutFinished = workoutFinished && humanStrokes[i].isEndOfWorkout();
 			}
 			else {
-				/* Else, the rower is a computer generated, so use the time to retrieve the
-				 * stroke data.  As there must be one human rower, the last time variable will
-				 * always be set. */
+				/* Else, the rower is a computer generated, so use the race time to retrieve the
+				 * stroke data */
 
 				strokeCollection.setStroke
-					(i, inputDevices[i].retrieveStrokeData(lastStrokeTime + lag));
+					(i, inputDevices[i].retrieveStrokeData(raceTime));
 			}
 		}
+		strokeCollection.setSmoothingError(smoothingError);
+		strokeCollection.setCollectionTime(now);
 		
 		
+		/* Record the collection with the heap in use, so garbage collections show up */
+		if ( EventRecorder.isEnabled() ) {
+			Runtime runtime = Runtime.getRuntime();
+			EventRecorder.record( EventRecorder.CYCLE, eventStart, -1, numberOfRowers, 
+				runtime.totalMemory() - runtime.freeMemory() );
+		}
+		
 		/* Test to see whether the workout is over */
+		strokeCollection.setWorkoutFinished(workoutFinished);
 		if ( workoutFinished ) {
 			
-			/* Inform the core that the workout has finished */
-			core.workoutFinished();
+			/* The collection is marked as the final one, so inform the listener */
+			if (listener != null) {
+				listener.workoutFinished();
+			}
 		}
-		
-		/* Return the stroke collection */
-		return strokeCollection;
 	}
 	
 	
@@ -229,20 +326,9 @@ public class IODeviceHandler {
 	 */
 	public void displayCount(byte time) throws Exception {
 		
-		/* Used so PM methods only called once */
-		boolean flag = true;
-		
 		/* Delegate the responsability to each input device */
-		for (int i = 0; i < inputDevices.length; i++) {
-			if (humanRowerErgoNumbers[i] == -1) {
-				inputDevices[i].displayCount(time);
-			}
-			else {
-				if (flag) {
-					inputDevices[i].displayCount(time);
-					flag = false;
-				}
-			}
+		for (int i = 0; i < distinctInputDevices.length; i++) {
+			distinctInputDevices[i].displayCount(time);
 		}
 	}
 	
@@ -252,20 +338,9 @@ public class IODeviceHandler {
 	 */
 	public void startRowing() throws Exception {
 		
-		/* Used so PM methods only called once */
-		boolean flag = true;
-		
 		/* Delegate the responsability to each input device */
-		for (int i = 0; i < inputDevices.length; i++) {
-			if (humanRowerErgoNumbers[i] == -1) {
-				inputDevices[i].startRowing(startType);
-			}
-			else {
-				if (flag) {
-					inputDevices[i].startRowing(startType);
-					flag = false;
-				}
-			}
+		for (int i = 0; i < distinctInputDevices.length; i++) {
+			distinctInputDevices[i].startRowing(startType);
 		}
 	}
 	
@@ -276,42 +351,43 @@ public class IODeviceHandler {
 	 */
 	public void workoutAborted() throws Exception {
 		
-		for (int i = 0; i < fileOutputDevices.length; i++) {
-			if (fileOutputDevices[i] != null) {
-				fileOutputDevices[i].workoutAborted();
+		for (int i = 0; i < fileOutputs.length; i++) {
+			if (fileOutputs[i] != null) {
+				fileOutputs[i].workoutAborted();
 			}
 		}
+		
+		/* Wait for the files to be written */
+		outputDispatcher.halt();
+		outputDispatcher.checkErrors();
 	}
 	
 	
 	/* Private Methods */
 	
 	/**
-	 * Calculate the lag since the last PM unit update
+	 * Calculate the difference in age between the newest and oldest human rower strokes, i.e.
+	 * how far the boats on the river may be out of step with each other
 	 * 
-	 * @param	stroke	the stroke
+	 * @return	the skew in milliseconds
 	 */
-	private float calculateLag(StrokeData stroke) {
+	private long calculateLaneSkew() {
 		
-		float lag;
-		
-		/* Calculate the latest distance, time and millis */
-		if ( stroke.getTime() != lastStrokeTime ) {
-			
-			lastStrokeTime = stroke.getTime();
-			lastStrokeMillis = System.currentTimeMillis();
+		long oldest = Long.MAX_VALUE;
+		long newest = Long.MIN_VALUE;
+		for (int i = 0; i < humanStrokes.length; i++) {
+			if (humanRowerErgoNumbers[i] != -1) {
+				long arrival = humanStrokes[i].getArrivalTime();
+				oldest = Math.min(oldest, arrival);
+				newest = Math.max(newest, arrival);
+			}
 		}
-					
-		/* Calculate the lag */
-		lag = (float) ((System.currentTimeMillis() - lastStrokeMillis) / 1000.0);
-					
-		/* This stops boats moving backwards - although it doesn't solve the
-		 * original problem */
-		if (lag > 1) {
-			lag = 1;
+		
+		if (newest == Long.MIN_VALUE) {
+			return 0;
 		}
 		
-		return lag;
+		return newest - oldest;
 	}
 	
 	
@@ -323,8 +399,7 @@ public class IODeviceHandler {
 	private void initialiseInputDevices(Workout workout) 
 			throws ParserConfigurationException, FactoryConfigurationError, NumberFormatException, 
 			PortInUseException, UnsupportedCommOperationException, TooManyListenersException, 
-			IOException, InterruptedException, SAXException, MalformedURLException, 
-			DocumentException {
+			IOException, InterruptedException, SAXException {
 		
 		/* Loop over the human rowers */
 		for (int i = 0; i < inputDevices.length; i++) {
@@ -333,17 +408,23 @@ public class IODeviceHandler {
 			Rower rower = workout.getRower(i); 
 			if (rower instanceof HumanRower) {
 				
-				/* If the rower is a human rower then initialise the PM2+ unit and set their ergo
-				 * number. */
-				inputDevices[i] = PM2PlusUnit.getInstance
-					( OptionsSingleton.getInstance().getSerialPort(), workout );
-				humanRowerErgoNumbers[i] = ((HumanRower) rower).getErgoNumber();
+				/* If the rower is a human rower then initialise the PM2+ unit for their port
+				 * and set their ergo number.  Rowers without a port use the one in the options. */
+				HumanRower humanRower = ((HumanRower) rower);
+				String port = humanRower.getSerialPort();
+				if (port == null) {
+					port = OptionsSingleton.getInstance().getSerialPort();
+				}
+				PM2PlusUnit unit = PM2PlusUnit.getInstance(port, workout);
+				unit.setClock(clock);
+				inputDevices[i] = unit;
+				humanRowerErgoNumbers[i] = humanRower.getErgoNumber();
+				extrapolators[i] = new LaneExtrapolator();
 				
 				/* If workout data should be logged then create the xml writer */
-				HumanRower humanRower = ((HumanRower) rower);
 				if ( humanRower.shouldLogData() ) {
-					fileOutputDevices[i] = 
-						new XMLWorkoutWriter(humanRower, workout);
+					fileOutputs[i] = outputDispatcher.add
+						( new XMLWorkoutWriter(humanRower, workout), OutputQueue.BLOCK );
 				}
 				
 				/* If the rower has a shadow then initialise this */
@@ -360,6 +441,68 @@ public class IODeviceHandler {
 				humanRowerErgoNumbers[i] = -1;
 			}
 		}
+		
+		/* Every ergo on a port shares its PM2+ unit, so list each device only once to ensure
+		 * that the PM methods are only called once per port */
+		ArrayList distinct = new ArrayList();
+		for (int i = 0; i < inputDevices.length; i++) {
+			if ( !distinct.contains(inputDevices[i]) ) {
+				distinct.add(inputDevices[i]);
+			}
+		}
+		distinctInputDevices = 
+			(IInputDevice []) distinct.toArray( new IInputDevice[distinct.size()] );
+		
+		/* The computer rowers race against the average of the human rowers' erg clocks */
+		LaneClock [] clocks = new LaneClock[numberOfRowers];
+		for (int i = 0; i < numberOfRowers; i++) {
+			if (extrapolators[i] != null) {
+				clocks[i] = extrapolators[i].getClock();
+			}
+		}
+		raceClock = new RaceClock(clocks);
+	}
+	
+	
+	/**
+	 * Creates and starts a poller for each serial port in use
+	 */
+	private void initialisePortPollers() {
+		
+		ArrayList pollers = new ArrayList();
+		for (int i = 0; i < distinctInputDevices.length; i++) {
+			
+			/* Only the PM2+ units need polling; computer rowers are calculated from the time */
+			if ( !(distinctInputDevices[i] instanceof PM2PlusUnit) ) {
+				continue;
+			}
+			PM2PlusUnit unit = (PM2PlusUnit) distinctInputDevices[i];
+			
+			/* Find the lanes rowing on this unit */
+			int count = 0;
+			for (int j = 0; j < inputDevices.length; j++) {
+				if (inputDevices[j] == unit) {
+					count++;
+				}
+			}
+			int [] lanes = new int[count];
+			int [] ergoNumbers = new int[count];
+			count = 0;
+			for (int j = 0; j < inputDevices.length; j++) {
+				if (inputDevices[j] == unit) {
+					lanes[count] = j;
+					ergoNumbers[count] = humanRowerErgoNumbers[j];
+					count++;
+				}
+			}
+			
+			PortPoller poller = 
+				new PortPoller(unit.getPortName(), unit, lanes, ergoNumbers, humanStrokes);
+			poller.start();
+			pollers.add(poller);
+		}
+		
+		portPollers = (PortPoller []) pollers.toArray( new PortPoller[pollers.size()] );
 	}
 	
 	
@@ -371,7 +514,7 @@ public class IODeviceHandler {
 	 * @return	a concrete implementation of an input device
 	 */
 	private IInputDevice initialiseComputerRower(ComputerRower compRower, Workout workout) 
-			throws MalformedURLException, DocumentException {
+			throws IOException, SAXException, ParserConfigurationException {
 		
 		/* Test the computer rower type */
 		if ( compRower.getType() == ComputerRower.FIXED_SPLIT ) {
@@ -405,20 +548,9 @@ public class IODeviceHandler {
 	 */
 	private void setupWorkout(Workout workout) throws Exception {
 		
-		/* Used so PM methods only called once */
-		boolean flag = true;
-		
 		/* Delegate the responsability to each input device */
-		for (int i = 0; i < inputDevices.length; i++) {
-			if (humanRowerErgoNumbers[i] == -1) {
-				inputDevices[i].setupWorkout(workout);
-			}
-			else {
-				if (flag) {
-					inputDevices[i].setupWorkout(workout);
-					flag = false;
-				}
-			}
+		for (int i = 0; i < distinctInputDevices.length; i++) {
+			distinctInputDevices[i].setupWorkout(workout);
 		}
 	}
 }
\ No newline at end of file
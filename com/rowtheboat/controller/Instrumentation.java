@@ -0,0 +1,260 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: Instrumentation.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Output lag added as the log files are written on their own
+ * 										threads
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+
+/**
+ * Instrumentation holds the named timers that measure each phase of getting a stroke from the
+ * ergo to the screen, so a stutter can be traced to the serial line, the log file or the drawing.
+ * It is enabled by the -performance command line flag.  The figures can be shown at any time from
+ * the tools menu and are appended to performance.txt when each workout is cleared up.
+ * 
+ * @author agent
+ */
+
+public final class Instrumentation {
+
+	/* Class Variables */
+	
+	private static volatile boolean enabled;		/* Whether the timers record */
+	
+	/**
+	 * The file the figures are exported to
+	 */
+	public static final String PERFORMANCE_FILE = "performance.txt";
+	
+	/**
+	 * The time to query a chain of PM2+ units and receive the responses
+	 */
+	public static final LatencyTimer SERIAL_QUERY = new LatencyTimer("Serial query");
+	
+	/**
+	 * The time to decode the responses in a serial event
+	 */
+	public static final LatencyTimer DECODE = new LatencyTimer("Decode");
+	
+	/**
+	 * The time to smooth the boats of a collection
+	 */
+	public static final LatencyTimer SMOOTHING = new LatencyTimer("Smoothing");
+	
+	/**
+	 * The time to queue the strokes of a collection for the log files
+	 */
+	public static final LatencyTimer FILE_OUTPUT = new LatencyTimer("File output");
+	
+	/**
+	 * The time from a stroke being queued for an output device to it being written
+	 */
+	public static final LatencyTimer OUTPUT_LAG = new LatencyTimer("Output lag");
+	
+	/**
+	 * The time to retrieve a whole collection, including the phases above
+	 */
+	public static final LatencyTimer ACQUISITION = new LatencyTimer("Acquisition");
+	
+	/**
+	 * The time for the river to position the boats, water and signs
+	 */
+	public static final LatencyTimer RIVER_LAYOUT = new LatencyTimer("River layout");
+	
+	/**
+	 * The time for the river to paint a boat
+	 */
+	public static final LatencyTimer RIVER_PAINT = new LatencyTimer("River paint");
+	
+	/**
+	 * The time to pass a collection to every GUI output, including the river layout
+	 */
+	public static final LatencyTimer DISPLAY = new LatencyTimer("Display");
+	
+	/**
+	 * The difference in arrival time of the strokes of a collection
+	 */
+	public static final LatencyTimer LANE_SKEW = new LatencyTimer("Lane skew");
+	
+	/**
+	 * How far the smoothed time was from the ergo's when its clock ticked
+	 */
+	public static final LatencyTimer SMOOTHING_ERROR = new LatencyTimer("Smoothing error");
+	
+	private static final LatencyTimer [] TIMERS = { SERIAL_QUERY, DECODE, SMOOTHING, 
+		FILE_OUTPUT, OUTPUT_LAG, ACQUISITION, RIVER_LAYOUT, RIVER_PAINT, DISPLAY, LANE_SKEW, 
+		SMOOTHING_ERROR };
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Not constructed as everything is static
+	 */
+	private Instrumentation() {
+		
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Writes the figures of every timer that has recorded a time, one timer per line
+	 * 
+	 * @param	writer	the writer
+	 * @throws IOException
+	 */
+	public static void dump(Writer writer) throws IOException {
+		
+		writer.write( pad("Timer", 18) + pad("Count", 8) + pad("p50", 8) + pad("p99", 8) + 
+			pad("Max", 8) + pad("Mean", 8) + "(ms)\n" );
+		for (int i = 0; i < TIMERS.length; i++) {
+			LatencyTimer timer = TIMERS[i];
+			if (timer.getCount() > 0) {
+				writer.write( pad(timer.getName(), 18) + pad(timer.getCount() + "", 8) + 
+					pad(timer.getPercentile(0.5) + "", 8) + pad(timer.getPercentile(0.99) + "", 8)
+					+ pad(timer.getMax() + "", 8) + pad((Math.round(timer.getMean() * 10) / 10.0)
+					+ "", 8) + "\n" );
+			}
+		}
+	}
+	
+	
+	/**
+	 * Appends the figures to the performance file and clears the timers ready for the next
+	 * workout.  Nothing is written if nothing was recorded.
+	 * 
+	 * @param	title	the title written above the figures
+	 * @throws IOException
+	 */
+	public static void export(String title) throws IOException {
+		
+		if ( !hasRecorded() ) {
+			return;
+		}
+		
+		FileWriter writer = new FileWriter(PERFORMANCE_FILE, true);
+		try {
+			writer.write(title + " - " + new Date() + "\n");
+			dump(writer);
+			writer.write("\n");
+		}
+		finally {
+			writer.close();
+		}
+		reset();
+	}
+	
+	
+	/**
+	 * Returns the timers
+	 * 
+	 * @return	the timers
+	 */
+	public static LatencyTimer [] getTimers() {
+		
+		return (LatencyTimer []) TIMERS.clone();
+	}
+	
+	
+	/**
+	 * Returns whether any timer has recorded a time
+	 * 
+	 * @return	<code>true</code> if a time has been recorded; <code>false</code> otherwise
+	 */
+	public static boolean hasRecorded() {
+		
+		for (int i = 0; i < TIMERS.length; i++) {
+			if (TIMERS[i].getCount() > 0) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	
+	/**
+	 * Returns whether the timers record
+	 * 
+	 * @return	<code>true</code> if enabled; <code>false</code> otherwise
+	 */
+	public static boolean isEnabled() {
+		
+		return enabled;
+	}
+	
+	
+	/**
+	 * Clears every timer
+	 */
+	public static void reset() {
+		
+		for (int i = 0; i < TIMERS.length; i++) {
+			TIMERS[i].reset();
+		}
+	}
+	
+	
+	/**
+	 * Sets whether the timers record
+	 * 
+	 * @param	enable	whether to record
+	 */
+	public static void setEnabled(boolean enable) {
+		
+		enabled = enable;
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Pads text with spaces to a column width
+	 * 
+	 * @param	text	the text
+	 * @param	width	the width
+	 * @return	the padded text
+	 */
+	private static String pad(String text, int width) {
+		
+		StringBuffer buffer = new StringBuffer(text);
+		while (buffer.length() < width) {
+			buffer.append(' ');
+		}
+		
+		return buffer.toString();
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: LaneClock.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Only synchronised once the erg clock has ticked, and never
+ * 										run on more than a second past the latest erg time
+ * 18-Oct-2026	1.05		agent		Stopped at the end of the workout
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+/**
+ * LaneClock models the clock of one ergo against the computer's clock.  The erg time is taken to
+ * be a straight line in the computer's time, the offset being when the ergo's clock read zero and
+ * the drift how much faster or slower the ergo's clock runs.  The line is fitted by least squares
+ * to every tick of the erg clock seen, so the error in estimating when each tick happened averages
+ * out as the workout goes on.  Until the first tick the ergo hasn't started, so the clock stands
+ * at the erg time seen.  As the erg clock would have ticked within a second, the clock never runs
+ * on more than a second past the latest erg time seen, so it stops when the ergo is paused, and it
+ * stops at once when told the workout has ended.
+ * 
+ * @author agent
+ */
+
+public class LaneClock {
+
+	/* Class Variables */
+	
+	private long origin;							/* The computer time of the first tick */
+	private float latest;							/* The latest erg time seen in seconds */
+	private int ticks;								/* The number of ticks seen */
+	private boolean stopped;						/* Whether the workout has ended */
+	private double sumHost;							/* The sums for the least squares fit, with */
+	private double sumErg;							/* the computer time in milliseconds from */
+	private double sumHostSquared;					/* the origin and the erg time in seconds */
+	private double sumHostErg;
+	
+	private double intercept;						/* The erg time at the origin in seconds */
+	private double rate = 1 / 1000.0;				/* The erg seconds per computer millisecond */
+	
+	private static final double MIN_FIT_SPAN = 10000;
+													/* The time the ticks must span before the
+													   drift is fitted in milliseconds */
+	private static final double MAX_DRIFT = 0.005;	/* The largest believable drift */
+	private static final float MAX_RUN_ON = 1;		/* The furthest the clock runs past the
+													   latest erg time in seconds */
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Returns the drift of the erg clock, i.e. how much faster it runs than the computer's
+	 * 
+	 * @return	the drift as a fraction; e.g. 0.001 if the ergo gains a millisecond a second
+	 */
+	public double getDrift() {
+		
+		return rate * 1000 - 1;
+	}
+	
+	
+	/**
+	 * Returns the computer time at which the erg clock read zero
+	 * 
+	 * @return	the offset in milliseconds; 0 if the erg clock hasn't ticked
+	 */
+	public long getOffset() {
+		
+		if (ticks == 0) {
+			return 0;
+		}
+		
+		return origin - (long) (intercept / rate);
+	}
+	
+	
+	/**
+	 * Returns the erg time at the given computer time
+	 * 
+	 * @param	millis	the computer time in milliseconds
+	 * @return	the erg time in seconds; the latest erg time seen, or 0, if the erg clock hasn't
+	 * 			ticked or the workout has ended
+	 */
+	public float getTime(long millis) {
+		
+		if (ticks == 0 || stopped) {
+			return latest;
+		}
+		
+		float time = (float) (intercept + rate * (millis - origin));
+		return Math.min(time, latest + MAX_RUN_ON);
+	}
+	
+	
+	/**
+	 * Returns whether the ergo is running at the given computer time, i.e. the erg clock has 
+	 * ticked, the workout hasn't ended and the clock hasn't run on as far as it can past the 
+	 * latest erg time
+	 * 
+	 * @param	millis	the computer time in milliseconds
+	 * @return	<code>true</code> if the ergo is running; <code>false</code> otherwise
+	 */
+	public boolean isRunning(long millis) {
+		
+		if (ticks == 0 || stopped) {
+			return false;
+		}
+		
+		return intercept + rate * (millis - origin) < latest + MAX_RUN_ON;
+	}
+	
+	
+	/**
+	 * Returns whether the erg clock has ticked, so the ergo has started and the time can be 
+	 * estimated
+	 * 
+	 * @return	<code>true</code> if the clock has ticked; <code>false</code> otherwise
+	 */
+	public boolean isSynchronised() {
+		
+		return ticks > 0;
+	}
+	
+	
+	/**
+	 * Records the erg time each time it is seen, whether or not the erg clock has ticked.  The
+	 * clock doesn't run on far past the latest time seen.
+	 * 
+	 * @param	ergTime		the erg time in seconds
+	 */
+	public void see(float ergTime) {
+		
+		latest = ergTime;
+	}
+	
+	
+	/**
+	 * Stops the clock at the latest erg time seen, as the workout has ended
+	 */
+	public void stop() {
+		
+		stopped = true;
+	}
+	
+	
+	/**
+	 * Adds a tick of the erg clock to the model
+	 * 
+	 * @param	millis		the computer time of the tick in milliseconds
+	 * @param	ergTime		the erg time reached in seconds
+	 */
+	public void tick(long millis, float ergTime) {
+		
+		latest = ergTime;
+		if (ticks == 0) {
+			origin = millis;
+		}
+		
+		double host = millis - origin;
+		ticks++;
+		sumHost += host;
+		sumErg += ergTime;
+		sumHostSquared += host * host;
+		sumHostErg += host * ergTime;
+		
+		/* The error in placing each tick would swamp the drift over a few seconds, so the clock
+		 * is taken to run at the computer's rate until the ticks cover long enough.  Ergos don't
+		 * drift by much so anything larger is an error too. */
+		double spread = ticks * sumHostSquared - sumHost * sumHost;
+		if (host >= MIN_FIT_SPAN && spread > 0) {
+			rate = (ticks * sumHostErg - sumHost * sumErg) / spread;
+			rate = Math.min( Math.max(rate, (1 - MAX_DRIFT) / 1000), (1 + MAX_DRIFT) / 1000 );
+		}
+		intercept = (sumErg - rate * sumHost) / ticks;
+	}
+}
@@ -0,0 +1,256 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: LaneExtrapolator.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Time taken from a LaneClock, which models the offset and 
+ * 										drift of the erg clock
+ * 17-Oct-2026	1.05		agent		Distance extrapolated by an AlphaBetaFilter
+ * 17-Oct-2026	1.05		agent		Erg time given to the clock with every stroke
+ * 18-Oct-2026	1.05		agent		Clock stopped at the end of the workout
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+import com.rowtheboat.input.StrokeData;
+
+/**
+ * LaneExtrapolator smooths the boat of one human rower between updates from the PM2+.  The PM2+
+ * time only changes once a second, so the moment the erg clock ticked is estimated as halfway
+ * between the arrival of the last stroke with the old time and the first with the new time.  The
+ * ticks are fitted by a LaneClock, from which the time is extrapolated.  The distance is
+ * extrapolated by an AlphaBetaFilter of the distances and their arrival times, starting at the
+ * current pace, so the boat speeds up and slows down smoothly through the stroke.  Neither ever
+ * goes backwards, so a boat that has been moved on too far waits for the ergo to catch up rather
+ * than jumping back.
+ * <p>
+ * Each time the erg clock ticks the time that was predicted for that moment is compared with the
+ * ergo's, giving the error of the smoothing.
+ * 
+ * @author agent
+ */
+
+public class LaneExtrapolator {
+
+	/* Class Variables */
+	
+	private LaneClock clock = new LaneClock();		/* The model of the erg clock */
+	private AlphaBetaFilter distanceFilter = 
+		new AlphaBetaFilter(ALPHA, BETA, MAX_EXTRAPOLATION);
+													/* The model of the boat */
+	private float ergTime = StrokeData.UNSET;		/* The latest time given by the ergo */
+	private long lastSeenMillis;					/* When the latest time last arrived */
+	private float smoothedTime;						/* The last smoothed time given out */
+	private float smoothedDistance;					/* The last smoothed distance given out */
+	
+	private int errorCount;							/* The number of errors measured */
+	private long totalError;						/* The total of the errors in milliseconds */
+	private long maxError;							/* The largest error in milliseconds */
+	private long lastError;							/* The latest error in milliseconds */
+	
+	private static final long MAX_EXTRAPOLATION = 1000;
+													/* The longest the distance is extrapolated
+													   for in milliseconds */
+	private static final double ALPHA = 0.5;		/* The distance correction */
+	private static final double BETA = 0.1;			/* The velocity correction */
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Returns the model of the erg clock
+	 * 
+	 * @return	the clock
+	 */
+	public LaneClock getClock() {
+		
+		return clock;
+	}
+	
+	
+	/**
+	 * Returns the estimated velocity of the boat
+	 * 
+	 * @return	the velocity in meters per second
+	 */
+	public double getVelocity() {
+		
+		return distanceFilter.getVelocity();
+	}
+	
+	
+	/**
+	 * Returns the number of errors measured, i.e. the number of times the erg clock has ticked
+	 * 
+	 * @return	the number of errors
+	 */
+	public int getErrorCount() {
+		
+		return errorCount;
+	}
+	
+	
+	/**
+	 * Returns the latest error measured.  The error is positive if the smoothed time was ahead of
+	 * the ergo.
+	 * 
+	 * @return	the error in milliseconds
+	 */
+	public long getLastError() {
+		
+		return lastError;
+	}
+	
+	
+	/**
+	 * Returns the largest error measured, ignoring the sign
+	 * 
+	 * @return	the error in milliseconds
+	 */
+	public long getMaxError() {
+		
+		return maxError;
+	}
+	
+	
+	/**
+	 * Returns the mean error measured, ignoring the sign
+	 * 
+	 * @return	the error in milliseconds; 0 if none have been measured
+	 */
+	public long getMeanError() {
+		
+		if (errorCount == 0) {
+			return 0;
+		}
+		
+		return totalError / errorCount;
+	}
+	
+	
+	/**
+	 * Adds the latest stroke to the model of the erg clock
+	 * 
+	 * @param	stroke	the latest stroke from the ergo, stamped with its arrival time
+	 * @param	now		the time used if the stroke has no arrival time in milliseconds
+	 * @return	<code>true</code> if the erg clock ticked, and so an error was measured
+	 */
+	public boolean observe(StrokeData stroke, long now) {
+		
+		long arrival = stroke.getArrivalTime();
+		if (arrival == StrokeData.UNSET) {
+			arrival = now;
+		}
+		
+		/* Find when the erg clock reached the time it gives */
+		boolean ticked = false;
+		float time = stroke.getTime();
+		clock.see(time);
+		if (ergTime != StrokeData.UNSET && time != ergTime) {
+			
+			/* The tick was between the two arrivals.  Compare the time the ergo reached with the
+			 * time the clock gave for the same moment. */
+			long tick = (lastSeenMillis + arrival) / 2;
+			recordError( (long) ((clock.getTime(tick) - time) * 1000) );
+			
+			clock.tick(tick, time);
+			ticked = true;
+		}
+		ergTime = time;
+		lastSeenMillis = arrival;
+		if ( stroke.isEndOfWorkout() ) {
+			clock.stop();
+		}
+		
+		/* The boat starts at the pace of the first stroke */
+		if ( !distanceFilter.isStarted() ) {
+			distanceFilter.setVelocity( stroke.getMetersPerSecond() );
+		}
+		distanceFilter.update(stroke.getDistance(), arrival);
+		
+		return ticked;
+	}
+	
+	
+	/**
+	 * Replaces the time and distance of the stroke with the values extrapolated to the given time.
+	 * The final stroke of a workout is left as it is.  The stroke must have been observed first.
+	 * 
+	 * @param	stroke	the latest stroke from the ergo, stamped with its arrival time
+	 * @param	now		the time to extrapolate to in milliseconds
+	 */
+	public void extrapolate(StrokeData stroke, long now) {
+		
+		if ( stroke.isEndOfWorkout() ) {
+			return;
+		}
+		
+		/* The time can't run on more than a second past the ergo's as it would have ticked */
+		float time = stroke.getTime();
+		float estimate = Math.min( Math.max(clock.getTime(now), time), time + 1 );
+		smoothedTime = Math.max(smoothedTime, estimate);
+		stroke.setTime(smoothedTime);
+		
+		/* Move the distance on as estimated, never beyond a second's rowing */
+		float distance = (float) distanceFilter.getPosition(now);
+		smoothedDistance = Math.max(smoothedDistance, distance);
+		stroke.setDistance(smoothedDistance);
+	}
+	
+	
+	/**
+	 * Observes the stroke and replaces its time and distance with the values extrapolated to the
+	 * given time
+	 * 
+	 * @param	stroke	the latest stroke from the ergo, stamped with its arrival time
+	 * @param	now		the time to extrapolate to in milliseconds
+	 * @return	<code>true</code> if the erg clock ticked, and so an error was measured
+	 */
+	public boolean update(StrokeData stroke, long now) {
+		
+		boolean ticked = observe(stroke, now);
+		extrapolate(stroke, now);
+		
+		return ticked;
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Adds the error to the statistics
+	 * 
+	 * @param	error	the error in milliseconds
+	 */
+	private void recordError(long error) {
+		
+		lastError = error;
+		errorCount++;
+		totalError += Math.abs(error);
+		maxError = Math.max( maxError, Math.abs(error) );
+	}
+}
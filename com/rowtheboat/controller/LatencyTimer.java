@@ -0,0 +1,255 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: LatencyTimer.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+/**
+ * LatencyTimer records how long a named phase of the program takes into a fixed size histogram,
+ * from which the median, 99th percentile and maximum can be read.  Recording is cheap and creates
+ * no objects so timers can be left in the stroke path.  Times are in whole milliseconds; the
+ * buckets are a millisecond wide up to 100ms, 10ms wide up to a second and 100ms wide up to 10 
+ * seconds, above which everything shares one bucket.
+ * <p>
+ * Timers only record whilst the instrumentation is enabled, see {@link Instrumentation}.
+ * 
+ * @author agent
+ */
+
+public class LatencyTimer {
+
+	/* Class Variables */
+	
+	private String name;							/* The name of the timer */
+	private int [] buckets;							/* The number of times in each bucket */
+	private int count;								/* The number of times recorded */
+	private long total;								/* The sum of the times recorded */
+	private long max;								/* The longest time recorded */
+	
+	private static final int FINE_LIMIT = 100;		/* Below this buckets are 1ms wide */
+	private static final int MEDIUM_LIMIT = 1000;	/* Below this buckets are 10ms wide */
+	private static final int COARSE_LIMIT = 10000;	/* Below this buckets are 100ms wide */
+	private static final int MEDIUM_START = FINE_LIMIT;
+	private static final int COARSE_START = MEDIUM_START + (MEDIUM_LIMIT - FINE_LIMIT) / 10;
+	private static final int OVERFLOW_BUCKET = COARSE_START + (COARSE_LIMIT - MEDIUM_LIMIT) / 100;
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs an empty timer
+	 * 
+	 * @param	name	the name of the timer
+	 */
+	public LatencyTimer(String name) {
+		
+		this.name = name;
+		buckets = new int [OVERFLOW_BUCKET + 1];
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Returns the number of times recorded
+	 * 
+	 * @return	the count
+	 */
+	public synchronized int getCount() {
+		
+		return count;
+	}
+	
+	
+	/**
+	 * Returns the longest time recorded
+	 * 
+	 * @return	the time in milliseconds; 0 if none have been recorded
+	 */
+	public synchronized long getMax() {
+		
+		return max;
+	}
+	
+	
+	/**
+	 * Returns the mean of the times recorded
+	 * 
+	 * @return	the mean in milliseconds; 0 if none have been recorded
+	 */
+	public synchronized double getMean() {
+		
+		return (count == 0) ? 0 : (double) total / count;
+	}
+	
+	
+	/**
+	 * Returns the name of the timer
+	 * 
+	 * @return	the name
+	 */
+	public String getName() {
+		
+		return name;
+	}
+	
+	
+	/**
+	 * Returns the time that the given fraction of the recorded times are no longer than.  The
+	 * time is the top of the bucket it falls in, so is exact below 100ms and otherwise rounded up
+	 * to the bucket width, but never more than the maximum.
+	 * 
+	 * @param	fraction	the fraction, e.g. 0.5 for the median or 0.99 for the 99th percentile
+	 * @return	the time in milliseconds; 0 if none have been recorded
+	 */
+	public synchronized long getPercentile(double fraction) {
+		
+		if (count == 0) {
+			return 0;
+		}
+		
+		/* Find the bucket holding the time ranked at the fraction of the count */
+		long rank = Math.max( 1, (long) Math.ceil(fraction * count) );
+		long seen = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+			if (seen >= rank) {
+				return Math.min( max, getBucketTop(i) );
+			}
+		}
+		
+		return max;
+	}
+	
+	
+	/**
+	 * Records a time if the instrumentation is enabled
+	 * 
+	 * @param	millis	the time in milliseconds.  Negative times are recorded as 0.
+	 */
+	public synchronized void record(long millis) {
+		
+		if ( !Instrumentation.isEnabled() ) {
+			return;
+		}
+		if (millis < 0) {
+			millis = 0;
+		}
+		
+		buckets[ getBucket(millis) ]++;
+		count++;
+		total += millis;
+		max = Math.max(max, millis);
+	}
+	
+	
+	/**
+	 * Clears the times recorded
+	 */
+	public synchronized void reset() {
+		
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = 0;
+		}
+		count = 0;
+		total = 0;
+		max = 0;
+	}
+	
+	
+	/**
+	 * Returns the current time, to be passed to stop() at the end of the phase being timed
+	 * 
+	 * @return	the time in milliseconds; 0 if the instrumentation isn't enabled
+	 */
+	public long start() {
+		
+		return Instrumentation.isEnabled() ? System.currentTimeMillis() : 0;
+	}
+	
+	
+	/**
+	 * Records the time since the phase being timed started
+	 * 
+	 * @param	start	the time returned by start()
+	 */
+	public void stop(long start) {
+		
+		if ( Instrumentation.isEnabled() ) {
+			record(System.currentTimeMillis() - start);
+		}
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Returns the bucket a time falls in
+	 * 
+	 * @param	millis	the time in milliseconds
+	 * @return	the bucket index
+	 */
+	private static int getBucket(long millis) {
+		
+		if (millis < FINE_LIMIT) {
+			return (int) millis;
+		}
+		if (millis < MEDIUM_LIMIT) {
+			return MEDIUM_START + (int) (millis - FINE_LIMIT) / 10;
+		}
+		if (millis < COARSE_LIMIT) {
+			return COARSE_START + (int) (millis - MEDIUM_LIMIT) / 100;
+		}
+		
+		return OVERFLOW_BUCKET;
+	}
+	
+	
+	/**
+	 * Returns the longest time that falls in a bucket
+	 * 
+	 * @param	bucket	the bucket index
+	 * @return	the time in milliseconds
+	 */
+	private static long getBucketTop(int bucket) {
+		
+		if (bucket < MEDIUM_START) {
+			return bucket;
+		}
+		if (bucket < COARSE_START) {
+			return FINE_LIMIT + (bucket - MEDIUM_START) * 10 + 9;
+		}
+		if (bucket < OVERFLOW_BUCKET) {
+			return MEDIUM_LIMIT + (bucket - COARSE_START) * 100 + 99;
+		}
+		
+		return Long.MAX_VALUE;
+	}
+}
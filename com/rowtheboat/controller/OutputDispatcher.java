@@ -0,0 +1,146 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: OutputDispatcher.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+import java.util.ArrayList;
+
+import com.rowtheboat.output.IFileOutputDevice;
+
+/**
+ * OutputDispatcher fans the stroke events out to the output devices, each through its own
+ * OutputQueue and thread, so adding outputs never slows the stroke acquisition.  Errors from the
+ * devices are passed back to the acquisition by checkErrors().
+ * <p>
+ * The GUI outputs aren't dispatched this way as SWT must be used from the display thread.  They
+ * are already fed the latest collection by the StrokeAcquisitionThread, which is the coalescing
+ * policy.
+ * 
+ * @author agent
+ */
+
+public class OutputDispatcher {
+
+	/* Class Variables */
+	
+	private ArrayList queues;						/* The queues */
+	
+	/**
+	 * The number of events each queue holds unless given
+	 */
+	public static final int DEFAULT_CAPACITY = 64;
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs a dispatcher without any devices
+	 */
+	public OutputDispatcher() {
+		
+		queues = new ArrayList();
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Adds a device with a queue of the default capacity
+	 * 
+	 * @param	device	the device
+	 * @param	policy	the overflow policy, e.g. OutputQueue.BLOCK
+	 * @return	the started queue to send the device's events to
+	 */
+	public OutputQueue add(IFileOutputDevice device, int policy) {
+		
+		return add(device, DEFAULT_CAPACITY, policy);
+	}
+	
+	
+	/**
+	 * Adds a device
+	 * 
+	 * @param	device		the device
+	 * @param	capacity	the number of events the queue holds
+	 * @param	policy		the overflow policy, e.g. OutputQueue.BLOCK
+	 * @return	the started queue to send the device's events to
+	 */
+	public synchronized OutputQueue add(IFileOutputDevice device, int capacity, int policy) {
+		
+		OutputQueue queue = new OutputQueue(device, capacity, policy);
+		queue.setName( "Output Queue " + (queues.size() + 1) );
+		queues.add(queue);
+		queue.start();
+		
+		return queue;
+	}
+	
+	
+	/**
+	 * Throws the first error a device has thrown
+	 * 
+	 * @throws Exception	the error
+	 */
+	public synchronized void checkErrors() throws Exception {
+		
+		for (int i = 0; i < queues.size(); i++) {
+			Exception error = ((OutputQueue) queues.get(i)).getError();
+			if (error != null) {
+				throw error;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Returns the queues, in the order the devices were added
+	 * 
+	 * @return	the queues
+	 */
+	public synchronized OutputQueue [] getQueues() {
+		
+		return (OutputQueue []) queues.toArray( new OutputQueue[queues.size()] );
+	}
+	
+	
+	/**
+	 * Waits for every queue to deliver its events and stops the threads
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void halt() throws InterruptedException {
+		
+		OutputQueue [] all = getQueues();
+		for (int i = 0; i < all.length; i++) {
+			all[i].halt();
+		}
+	}
+}
@@ -0,0 +1,434 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: OutputQueue.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+import com.rowtheboat.input.StrokeData;
+import com.rowtheboat.output.IFileOutputDevice;
+
+/**
+ * OutputQueue delivers stroke events to one output device on its own thread, so a slow device
+ * never holds up the stroke acquisition.  Events wait in a bounded queue of strokes that are
+ * reused, so queueing creates no garbage.  When the queue is full the overflow policy decides
+ * what happens to a new stroke:
+ * <ul>
+ * <li>BLOCK - the caller waits for room, so every stroke is delivered</li>
+ * <li>DROP_OLDEST - the oldest stroke waiting is discarded</li>
+ * <li>COALESCE - only the latest stroke waits; it replaces any waiting stroke whether or not the
+ * queue is full</li>
+ * </ul>
+ * The end of the workout, whether finished or aborted, is never discarded and is the last event
+ * delivered; anything queued after it is ignored.  The depth of the queue and the lag between
+ * queueing and delivery are kept for each queue.
+ * 
+ * @author agent
+ */
+
+public class OutputQueue extends Thread {
+
+	/* Class Variables */
+	
+	private IFileOutputDevice device;				/* The device delivered to */
+	private int policy;								/* The overflow policy */
+	
+	private StrokeData [] strokes;					/* The strokes waiting, reused */
+	private int [] events;							/* The event of each stroke waiting */
+	private long [] queueTimes;						/* When each event was queued */
+	private int head;								/* The index of the oldest event */
+	private int size;								/* The number of events waiting */
+	private StrokeData delivering;					/* The stroke being delivered */
+	
+	private boolean ended;							/* Whether the end of the workout has been
+													   queued */
+	private boolean stopping;						/* Whether to stop once the queue is empty */
+	private volatile Exception error;				/* The error thrown by the device */
+	
+	private int maxDepth;							/* The most events that have waited */
+	private int delivered;							/* The number of events delivered */
+	private int dropped;							/* The number of strokes discarded */
+	private int coalesced;							/* The number of strokes replaced */
+	private long lastLag;							/* The lag of the last event delivered */
+	private long maxLag;							/* The longest lag */
+	private long totalLag;							/* The sum of the lags */
+	
+	/**
+	 * The caller waits for room in the queue
+	 */
+	public static final int BLOCK = 0;
+	
+	/**
+	 * The oldest stroke is discarded to make room
+	 */
+	public static final int DROP_OLDEST = 1;
+	
+	/**
+	 * The latest stroke replaces any stroke waiting
+	 */
+	public static final int COALESCE = 2;
+	
+	private static final int UPDATE = 0;			/* A stroke */
+	private static final int FINISHED = 1;			/* The final stroke */
+	private static final int ABORTED = 2;			/* The workout was aborted */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs the queue.  The thread must be started to deliver the events.
+	 * 
+	 * @param	device		the device to deliver to
+	 * @param	capacity	the most events that may wait, at least 2 so the end of the workout
+	 * 						can always be queued behind a stroke
+	 * @param	policy		the overflow policy, e.g. BLOCK
+	 */
+	public OutputQueue(IFileOutputDevice device, int capacity, int policy) {
+		
+		super("Output Queue");
+		this.device = device;
+		this.policy = policy;
+		
+		capacity = Math.max(2, capacity);
+		strokes = new StrokeData[capacity];
+		for (int i = 0; i < capacity; i++) {
+			strokes[i] = new StrokeData();
+		}
+		events = new int[capacity];
+		queueTimes = new long[capacity];
+		delivering = new StrokeData();
+		
+		/* Stopped by halt() but mustn't keep the program alive if that isn't called */
+		setDaemon(true);
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Returns the number of strokes replaced by a later one under the COALESCE policy
+	 * 
+	 * @return	the number of strokes
+	 */
+	public synchronized int getCoalesced() {
+		
+		return coalesced;
+	}
+	
+	
+	/**
+	 * Returns the number of events delivered
+	 * 
+	 * @return	the number of events
+	 */
+	public synchronized int getDelivered() {
+		
+		return delivered;
+	}
+	
+	
+	/**
+	 * Returns the number of events waiting
+	 * 
+	 * @return	the depth
+	 */
+	public synchronized int getDepth() {
+		
+		return size;
+	}
+	
+	
+	/**
+	 * Returns the device delivered to
+	 * 
+	 * @return	the device
+	 */
+	public IFileOutputDevice getDevice() {
+		
+		return device;
+	}
+	
+	
+	/**
+	 * Returns the number of strokes discarded under the DROP_OLDEST policy
+	 * 
+	 * @return	the number of strokes
+	 */
+	public synchronized int getDropped() {
+		
+		return dropped;
+	}
+	
+	
+	/**
+	 * Returns the error thrown by the device, after which nothing more is delivered
+	 * 
+	 * @return	the error; null if there hasn't been one
+	 */
+	public Exception getError() {
+		
+		return error;
+	}
+	
+	
+	/**
+	 * Returns the time between the last event delivered being queued and its delivery finishing
+	 * 
+	 * @return	the lag in milliseconds
+	 */
+	public synchronized long getLastLag() {
+		
+		return lastLag;
+	}
+	
+	
+	/**
+	 * Returns the most events that have waited at once
+	 * 
+	 * @return	the depth
+	 */
+	public synchronized int getMaxDepth() {
+		
+		return maxDepth;
+	}
+	
+	
+	/**
+	 * Returns the longest lag of an event
+	 * 
+	 * @return	the lag in milliseconds
+	 */
+	public synchronized long getMaxLag() {
+		
+		return maxLag;
+	}
+	
+	
+	/**
+	 * Returns the mean lag of the events delivered
+	 * 
+	 * @return	the lag in milliseconds; 0 if none have been delivered
+	 */
+	public synchronized double getMeanLag() {
+		
+		return (delivered == 0) ? 0 : (double) totalLag / delivered;
+	}
+	
+	
+	/**
+	 * Returns the overflow policy
+	 * 
+	 * @return	the policy, e.g. BLOCK
+	 */
+	public int getPolicy() {
+		
+		return policy;
+	}
+	
+	
+	/**
+	 * Waits for the events queued to be delivered and stops the thread
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void halt() throws InterruptedException {
+		
+		synchronized (this) {
+			stopping = true;
+			notifyAll();
+		}
+		if (Thread.currentThread() != this && isAlive()) {
+			join();
+		}
+	}
+	
+	
+	/**
+	 * Delivers the events until halted, the end of the workout has been delivered or the device
+	 * throws an error
+	 */
+	public void run() {
+		
+		while (true) {
+			
+			/* Take the oldest event, copying the stroke so its place can be reused */
+			int event;
+			long queueTime;
+			synchronized (this) {
+				while (size == 0 && !stopping) {
+					try {
+						wait();
+					}
+					catch (InterruptedException e) {
+						stopping = true;
+					}
+				}
+				if (size == 0) {
+					return;
+				}
+				
+				event = events[head];
+				queueTime = queueTimes[head];
+				delivering.setStrokeData( strokes[head] );
+				head = (head + 1) % strokes.length;
+				size--;
+				notifyAll();
+			}
+			
+			/* Deliver it */
+			try {
+				if (event == UPDATE) {
+					device.updateStrokeData(delivering);
+				}
+				else if (event == FINISHED) {
+					device.workoutFinished(delivering);
+				}
+				else {
+					device.workoutAborted();
+				}
+			}
+			catch (Exception e) {
+				
+				/* Nothing more can be delivered, so anyone waiting for room is released */
+				synchronized (this) {
+					error = e;
+					size = 0;
+					ended = true;
+					notifyAll();
+				}
+				return;
+			}
+			
+			long lag = System.currentTimeMillis() - queueTime;
+			Instrumentation.OUTPUT_LAG.record(lag);
+			synchronized (this) {
+				delivered++;
+				lastLag = lag;
+				maxLag = Math.max(maxLag, lag);
+				totalLag += lag;
+			}
+			
+			/* Nothing follows the end of the workout */
+			if (event != UPDATE) {
+				return;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Queues a stroke for the device's updateStrokeData
+	 * 
+	 * @param	stroke	the stroke, which is copied so may be reused by the caller
+	 * @throws InterruptedException
+	 */
+	public void updateStrokeData(StrokeData stroke) throws InterruptedException {
+		
+		put(UPDATE, stroke);
+	}
+	
+	
+	/**
+	 * Queues the abort of the workout for the device's workoutAborted
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void workoutAborted() throws InterruptedException {
+		
+		put(ABORTED, null);
+	}
+	
+	
+	/**
+	 * Queues the final stroke for the device's workoutFinished
+	 * 
+	 * @param	stroke	the stroke, which is copied so may be reused by the caller
+	 * @throws InterruptedException
+	 */
+	public void workoutFinished(StrokeData stroke) throws InterruptedException {
+		
+		put(FINISHED, stroke);
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Queues an event, applying the overflow policy if the queue is full
+	 * 
+	 * @param	event	the event
+	 * @param	stroke	the stroke; null if the event has none
+	 * @throws InterruptedException
+	 */
+	private synchronized void put(int event, StrokeData stroke) throws InterruptedException {
+		
+		if (ended) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		
+		/* A waiting stroke is replaced by the latest.  It keeps its queue time so the lag
+		 * includes the time the replaced stroke waited. */
+		int tail = (head + size - 1) % strokes.length;
+		if (event == UPDATE && policy == COALESCE && size > 0 && events[tail] == UPDATE) {
+			strokes[tail].setStrokeData(stroke);
+			coalesced++;
+			return;
+		}
+		
+		/* Make room.  Only strokes are discarded; the end of the workout waits for room. */
+		while (size == strokes.length) {
+			if (event == UPDATE && policy != BLOCK && events[head] == UPDATE) {
+				head = (head + 1) % strokes.length;
+				size--;
+				dropped++;
+			}
+			else {
+				wait();
+				if (ended) {
+					return;
+				}
+			}
+		}
+		
+		tail = (head + size) % strokes.length;
+		events[tail] = event;
+		queueTimes[tail] = now;
+		if (stroke != null) {
+			strokes[tail].setStrokeData(stroke);
+		}
+		else {
+			strokes[tail].reset();
+		}
+		size++;
+		maxDepth = Math.max(maxDepth, size);
+		ended = (event != UPDATE);
+		notifyAll();
+	}
+}
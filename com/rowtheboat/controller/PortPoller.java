@@ -0,0 +1,187 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: PortPoller.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		The ergos on the port are retrieved in one interleaved batch
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+import com.rowtheboat.input.PM2PlusUnit;
+import com.rowtheboat.input.StrokeData;
+
+/**
+ * PortPoller retrieves the stroke data for every ergo on one serial port.  Each port has its own
+ * poller thread so that the ports, which are independent serial lines, are queried in parallel
+ * rather than one after another.  The IODeviceHandler requests a poll from every poller and then
+ * waits for them all to complete.
+ * <p>
+ * The strokes are written into an array shared with the IODeviceHandler.  Each poller only writes
+ * the lanes of its own ergos and the handler only reads them after {@link #awaitPoll()} has 
+ * returned, so no further locking is needed.
+ * 
+ * @author agent
+ */
+
+public class PortPoller extends Thread {
+
+	/* Class Variables */
+	
+	private PM2PlusUnit unit;						/* The PM2+ unit for the port */
+	private int [] lanes;							/* The lanes of the ergos on the port */
+	private int [] ergoNumbers;						/* The ergo numbers, by lane index */
+	private StrokeData [] portStrokes;				/* The strokes, by lane index */
+	private StrokeData [] strokes;					/* The strokes, indexed by lane */
+	
+	private boolean pollRequested;					/* Whether a poll has been requested */
+	private boolean pollComplete = true;			/* Whether the last poll has completed */
+	private boolean running = true;					/* Whether the thread should keep running */
+	private Exception error;						/* The error from the last poll */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs the poller.  The thread must be started before a poll can be requested.
+	 * 
+	 * @param	name		the name of the port, used to name the thread
+	 * @param	unit		the PM2+ unit for the port
+	 * @param	lanes		the lanes of the ergos on the port
+	 * @param	ergoNumbers	the ergo numbers of the ergos, in the same order as the lanes
+	 * @param	strokes		the array, indexed by lane, that the strokes are written to
+	 */
+	public PortPoller(String name, PM2PlusUnit unit, int [] lanes, int [] ergoNumbers,
+			StrokeData [] strokes) {
+		
+		super("Port Poller " + name);
+		this.unit = unit;
+		this.lanes = lanes;
+		this.ergoNumbers = ergoNumbers;
+		this.portStrokes = new StrokeData[lanes.length];
+		this.strokes = strokes;
+		
+		/* The poller must never keep the program alive */
+		setDaemon(true);
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Blocks until the requested poll has completed
+	 * 
+	 * @throws	Exception	the error the poll failed with
+	 */
+	public synchronized void awaitPoll() throws Exception {
+		
+		while (!pollComplete && running) {
+			wait();
+		}
+		
+		if (error != null) {
+			throw error;
+		}
+	}
+	
+	
+	/**
+	 * Stops the thread and waits for any poll in progress to complete
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void halt() throws InterruptedException {
+		
+		synchronized (this) {
+			running = false;
+			notifyAll();
+		}
+		
+		if (Thread.currentThread() != this) {
+			join();
+		}
+	}
+	
+	
+	/**
+	 * Requests that the strokes are retrieved.  This returns immediately; 
+	 * {@link #awaitPoll()} must be called to wait for the result.
+	 */
+	public synchronized void requestPoll() {
+		
+		pollRequested = true;
+		pollComplete = false;
+		error = null;
+		notifyAll();
+	}
+	
+	
+	/**
+	 * Polls the ergos each time a poll is requested until halted
+	 */
+	public void run() {
+		
+		while (true) {
+			
+			/* Wait for the next request */
+			synchronized (this) {
+				try {
+					while (!pollRequested && running) {
+						wait();
+					}
+				}
+				catch (InterruptedException e) {
+					running = false;
+				}
+				
+				if (!running) {
+					notifyAll();
+					return;
+				}
+				pollRequested = false;
+			}
+			
+			/* Retrieve the strokes outside the lock as this blocks on the serial port */
+			Exception pollError = null;
+			try {
+				unit.retrieveStrokeData(ergoNumbers, portStrokes);
+				for (int i = 0; i < lanes.length; i++) {
+					strokes[ lanes[i] ] = portStrokes[i];
+				}
+			}
+			catch (Exception e) {
+				pollError = e;
+			}
+			
+			synchronized (this) {
+				error = pollError;
+				pollComplete = true;
+				notifyAll();
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: RaceClock.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Waits for an ergo to start and stops with them
+ * 18-Oct-2026	1.05		agent		The latest of the running clocks, so a finished or late 
+ * 										starting lane doesn't hold the race back
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+/**
+ * RaceClock is the single time the computer and shadow rowers are raced against.  It is the 
+ * latest of the clock models of the human rowers' running ergos, so it doesn't depend on which 
+ * ergo was polled last, and it never goes backwards.  Only the ergos whose clocks have ticked and
+ * not stopped count, so the race time stays at 0 until one has started, an ergo that finishes or
+ * is paused doesn't slow the race for the others, and one started late doesn't hold it back.
+ * Once every ergo has stopped the race time stops too.
+ * 
+ * @author agent
+ */
+
+public class RaceClock {
+
+	/* Class Variables */
+	
+	private LaneClock [] clocks;					/* The human rowers' clocks */
+	private float time;								/* The last race time given out */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs the race clock from the human rowers' clocks
+	 * 
+	 * @param	clocks	the clocks; the array may contain nulls
+	 */
+	public RaceClock(LaneClock [] clocks) {
+		
+		this.clocks = clocks;
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Returns the race time at the given computer time
+	 * 
+	 * @param	millis	the computer time in milliseconds
+	 * @return	the race time in seconds; 0 until an erg clock has ticked
+	 */
+	public float getTime(long millis) {
+		
+		for (int i = 0; i < clocks.length; i++) {
+			if ( clocks[i] != null && clocks[i].isRunning(millis) ) {
+				time = Math.max( time, clocks[i].getTime(millis) );
+			}
+		}
+		
+		return time;
+	}
+}
@@ -26,6 +26,8 @@
  * 
  * Date			Version		User		Description
  * 11-Nov-2003	1.0			GeorgeP		Initial version coded
+ * 17-Oct-2026	1.05		agent		-performance enables the Instrumentation
+ * 17-Oct-2026	1.05		agent		-record enables the EventRecorder
  * 
  */
  
@@ -51,13 +53,16 @@ public class Start {
 	 */
 	public static void main(String[] args) {
 		
-		/* Initiate and run the core class, checking for performance criteria */
-		Core core = new Core();
+		/* Check for performance criteria, then initiate and run the core class */
 		for (int i = 0; i < args.length; i++) {
 			if ( args[i].equals("-performance") ) {
-				core.writePerformanceFile();
+				Instrumentation.setEnabled(true);
+			}
+			if ( args[i].equals("-record") ) {
+				EventRecorder.setEnabled(true);
 			}
 		}
+		Core core = new Core();
 		core.mainProgramLoop();
 		
 		/* Clean up any resources associated with the workout before exiting */
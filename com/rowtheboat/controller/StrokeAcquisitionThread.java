@@ -0,0 +1,223 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: StrokeAcquisitionThread.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Three collections reused in turn rather than a new one for
+ * 										each poll
+ * 17-Oct-2026	1.05		agent		Acquisition timed by the Instrumentation
+ * 
+ */
+ 
+package com.rowtheboat.controller;
+
+/**
+ * StrokeAcquisitionThread polls the input devices continuously in the background so that serial 
+ * input never blocks the GUI.  Each completed StrokeCollection is published into a single 
+ * latest-value slot; the GUI thread reads the newest collection whenever it is ready to draw and 
+ * older collections it didn't get to are simply skipped.
+ * <p>
+ * Three collections are reused in turn so that polling creates no garbage.  The GUI thread claims
+ * the collection it reads, which stays unchanged until it claims the next, and this thread fills
+ * whichever collection is neither claimed nor the latest.  Only choosing and claiming a collection
+ * is locked; the filling and drawing are not.
+ * 
+ * @author agent
+ */
+
+public class StrokeAcquisitionThread extends Thread {
+
+	/* Class Variables */
+	
+	private IODeviceHandler ioDevices;				/* The io device handler to poll */
+	private Runnable strokeListener;				/* Called when a collection is published */
+	
+	private StrokeCollection [] collections;		/* The collections reused in turn */
+	private volatile StrokeCollection latest;		/* The latest stroke collection */
+	private StrokeCollection claimed;				/* The collection the GUI is reading */
+	private volatile int sequence;					/* The number of collections published */
+	private volatile long acquisitionTime;			/* The time taken to retrieve the latest
+													   collection (in milliseconds) */
+	private volatile boolean running = true;		/* Whether the thread should keep polling */
+	private volatile Exception error;				/* The error that stopped the polling */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs the acquisition thread.  The thread must be started to begin polling.
+	 * 
+	 * @param	ioDevices		the io device handler to poll
+	 * @param	strokeListener	called from this thread each time a collection is published or
+	 * 							an error occurs, e.g. to wake the GUI thread.  May be null.
+	 */
+	public StrokeAcquisitionThread(IODeviceHandler ioDevices, Runnable strokeListener) {
+		
+		super("Stroke Acquisition");
+		this.ioDevices = ioDevices;
+		this.strokeListener = strokeListener;
+		
+		collections = new StrokeCollection[3];
+		for (int i = 0; i < collections.length; i++) {
+			collections[i] = ioDevices.createStrokeCollection();
+		}
+		
+		/* The acquisition must never keep the program alive */
+		setDaemon(true);
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Returns the time taken to retrieve the latest collection
+	 * 
+	 * @return	the acquisition time in milliseconds
+	 */
+	public long getAcquisitionTime() {
+		
+		return acquisitionTime;
+	}
+	
+	
+	/**
+	 * Returns the error that stopped the polling, if any
+	 * 
+	 * @return	the error; null if there hasn't been one
+	 */
+	public Exception getError() {
+		
+		return error;
+	}
+	
+	
+	/**
+	 * Returns the latest published stroke collection.  The collection won't be changed until this
+	 * method is next called, so it can be read until then.
+	 * 
+	 * @return	the latest collection; null if none has been published yet
+	 */
+	public synchronized StrokeCollection getLatestStrokes() {
+		
+		claimed = latest;
+		
+		return latest;
+	}
+	
+	
+	/**
+	 * Returns the number of collections published so far.  A change in this number indicates a
+	 * new collection is available.
+	 * 
+	 * @return	the sequence number
+	 */
+	public int getSequence() {
+		
+		return sequence;
+	}
+	
+	
+	/**
+	 * Stops the polling and waits for the current poll to complete so that the input and output
+	 * devices are no longer in use when this method returns
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void halt() throws InterruptedException {
+		
+		running = false;
+		if (Thread.currentThread() != this) {
+			join();
+		}
+	}
+	
+	
+	/**
+	 * Polls the input devices until halted, the workout finishes or an error occurs
+	 */
+	public void run() {
+		
+		while (running) {
+			try {
+				long start = System.currentTimeMillis();
+				StrokeCollection strokes = getFreeCollection();
+				ioDevices.getLatestStrokeCollection(strokes);
+				acquisitionTime = System.currentTimeMillis() - start;
+				Instrumentation.ACQUISITION.record(acquisitionTime);
+				
+				/* Publish the collection.  The sequence is written last so a reader that sees the
+				 * new sequence also sees the collection. */
+				publish(strokes);
+				sequence++;
+				
+				/* There is nothing more to retrieve once the workout has finished */
+				if ( strokes.isWorkoutFinished() ) {
+					running = false;
+				}
+			}
+			catch (Exception e) {
+				error = e;
+				running = false;
+			}
+			
+			if (strokeListener != null) {
+				strokeListener.run();
+			}
+		}
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Returns a collection that is neither the latest nor being read by the GUI, so it can be
+	 * filled
+	 * 
+	 * @return	the collection
+	 */
+	private synchronized StrokeCollection getFreeCollection() {
+		
+		for (int i = 0; i < collections.length; i++) {
+			if (collections[i] != latest && collections[i] != claimed) {
+				return collections[i];
+			}
+		}
+		
+		/* Not reached as there are three collections */
+		return null;
+	}
+	
+	
+	/**
+	 * Makes the collection the latest
+	 * 
+	 * @param	strokes	the collection
+	 */
+	private synchronized void publish(StrokeCollection strokes) {
+		
+		latest = strokes;
+	}
+}
@@ -26,6 +26,12 @@
  * 
  * Date			Version		User		Description
  * 01-Dec-2003	1.0			GeorgeP		Initial version coded
+ * 17-Oct-2026	1.05		agent		Added workout finished flag
+ * 17-Oct-2026	1.05		agent		Added lane skew
+ * 17-Oct-2026	1.05		agent		Added smoothing error
+ * 17-Oct-2026	1.05		agent		Holds its own strokes so a collection can be reused
+ * 17-Oct-2026	1.05		agent		Added the race clock time the collection was made at
+ * 18-Oct-2026	1.05		agent		Added the velocity of each boat
  * 
  */
  
@@ -34,7 +40,9 @@ package com.rowtheboat.controller;
 import com.rowtheboat.input.StrokeData;
 
 /**
- * StrokeCollection encapsulates the stroke information for all rowers in a workout
+ * StrokeCollection encapsulates the stroke information for all rowers in a workout.  It holds its
+ * own StrokeData for every rower, which the strokes set are copied into, so the same collection
+ * can be filled again for each update rather than a new one created.
  * 
  * @author GeorgeP
  */
@@ -45,6 +53,12 @@ public class StrokeCollection {
 	
 	private StrokeData [] strokes;					/* The strokes */
 	private StrokeData [] shadowStrokes;			/* The shadow strokes */
+	private double [] velocities;					/* The velocity of each boat */
+	private double [] shadowVelocities;				/* The velocity of each shadow boat */
+	private boolean workoutFinished;				/* Whether this is the final collection */
+	private long laneSkew;							/* The age difference of the human strokes */
+	private long smoothingError;					/* The largest boat smoothing error */
+	private long collectionTime;					/* The race clock time of the collection */
 
 	
 	/* Constructor */
@@ -58,11 +72,40 @@ public class StrokeCollection {
 		
 		strokes = new StrokeData[numberOfRowers];
 		shadowStrokes = new StrokeData[numberOfRowers];
+		velocities = new double[numberOfRowers];
+		shadowVelocities = new double[numberOfRowers];
+		for (int i = 0; i < numberOfRowers; i++) {
+			strokes[i] = new StrokeData();
+			shadowStrokes[i] = new StrokeData();
+		}
 	}
 	
 	
 	/* Public Methods */
 
+	/**
+	 * Returns the race clock time the collection was made at, which the strokes are moved on to
+	 * when boat smoothing is on
+	 * 
+	 * @return	the time in milliseconds; 0 if not set
+	 */
+	public long getCollectionTime() {
+		
+		return collectionTime;
+	}
+	
+	
+	/**
+	 * Returns the difference in arrival time between the newest and oldest human rower strokes
+	 * 
+	 * @return	the skew in milliseconds
+	 */
+	public long getLaneSkew() {
+		
+		return laneSkew;
+	}
+	
+	
 	/**
 	 * Returns the number of rowers
 	 * 
@@ -85,6 +128,18 @@ public class StrokeCollection {
 	}
 	
 	
+	/**
+	 * Returns the largest error of the boat smoothing measured when this collection was made,
+	 * i.e. how far the smoothed time was from the ergo's when its clock ticked
+	 * 
+	 * @return	the error in milliseconds; 0 if none was measured
+	 */
+	public long getSmoothingError() {
+		
+		return smoothingError;
+	}
+	
+	
 	/**
 	 * Returns the strokes for a given rower
 	 * 
@@ -97,6 +152,18 @@ public class StrokeCollection {
 	}
 	
 	
+	/**
+	 * Returns the velocity of a given shadow rower's boat at the collection time
+	 * 
+	 * @param	index	the index of the shadow rower
+	 * @return	the velocity in meters per second
+	 */
+	public double getShadowVelocity(int index) {
+		
+		return shadowVelocities[index];
+	}
+	
+	
 	/**
 	 * Returns the strokes for a given shadow rower
 	 * 
@@ -110,25 +177,111 @@ public class StrokeCollection {
 	
 	
 	/**
-	 * Sets the index to be the passed stroke
+	 * Returns the velocity of a given rower's boat at the collection time, which the boat can be
+	 * moved on at until the next collection
+	 * 
+	 * @param	index	the index of the rower
+	 * @return	the velocity in meters per second
+	 */
+	public double getVelocity(int index) {
+		
+		return velocities[index];
+	}
+	
+	
+	/**
+	 * Returns whether the workout finished with this collection, i.e. it is the final one
+	 * 
+	 * @return	<code>true</code> if the workout has finished; <code>false</code> otherwise
+	 */
+	public boolean isWorkoutFinished() {
+		
+		return workoutFinished;
+	}
+	
+	
+	/**
+	 * Sets the race clock time the collection was made at
+	 * 
+	 * @param	time	the time in milliseconds
+	 */
+	public void setCollectionTime(long time) {
+		
+		collectionTime = time;
+	}
+	
+	
+	/**
+	 * Sets the difference in arrival time between the newest and oldest human rower strokes
+	 * 
+	 * @param	skew	the skew in milliseconds
+	 */
+	public void setLaneSkew(long skew) {
+		
+		laneSkew = skew;
+	}
+	
+	
+	/**
+	 * Sets the largest error of the boat smoothing measured when this collection was made
+	 * 
+	 * @param	error	the error in milliseconds
+	 */
+	public void setSmoothingError(long error) {
+		
+		smoothingError = error;
+	}
+	
+	
+	/**
+	 * Sets the index to be the passed stroke.  The stroke is copied, so it may be reused by the
+	 * caller afterwards.  The velocity of the boat is set to the pace of the stroke.
 	 * 
 	 * @param index		the index
 	 * @param stroke	the stroke
 	 */
 	public void setStroke(int index, StrokeData stroke) {
 		
-		strokes[index] = stroke;
+		strokes[index].setStrokeData(stroke);
+		velocities[index] = stroke.getMetersPerSecond();
 	}
 	
 	
 	/**
-	 * Sets the index to be the passed stroke (for a shadow boat)
+	 * Sets the index to be the passed stroke (for a shadow boat).  The stroke is copied, so it may
+	 * be reused by the caller afterwards.  The velocity of the boat is set to the pace of the 
+	 * stroke.
 	 * 
 	 * @param index		the index
 	 * @param stroke	the stroke
 	 */
 	public void setShadowStroke(int index, StrokeData shadowStroke) {
 	
-		shadowStrokes[index] = shadowStroke;
+		shadowStrokes[index].setStrokeData(shadowStroke);
+		shadowVelocities[index] = shadowStroke.getMetersPerSecond();
+	}
+	
+	
+	/**
+	 * Sets the velocity of a given rower's boat, e.g. as estimated by the boat smoothing rather
+	 * than from the pace of the stroke
+	 * 
+	 * @param	index		the index of the rower
+	 * @param	velocity	the velocity in meters per second
+	 */
+	public void setVelocity(int index, double velocity) {
+		
+		velocities[index] = velocity;
+	}
+	
+	
+	/**
+	 * Sets whether the workout finished with this collection
+	 * 
+	 * @param finished	whether the workout has finished
+	 */
+	public void setWorkoutFinished(boolean finished) {
+		
+		workoutFinished = finished;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+/*
+ * File: AlphaBetaFilterTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller.test;
+
+import com.rowtheboat.controller.AlphaBetaFilter;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * This class tests the AlphaBetaFilter class
+ * 
+ * @author agent
+ */
+public class AlphaBetaFilterTest extends TestCase {
+
+	private AlphaBetaFilter filter;
+	
+	protected void setUp() throws Exception {
+		
+		filter = new AlphaBetaFilter(0.5, 0.1, 1000);
+	}
+	
+	public void testConvergesOnVelocity() {
+		
+		/* A boat at 4m/s measured every 300ms, the filter starting still */
+		for (long millis = 0; millis <= 30000; millis += 300) {
+			filter.update(millis * 4 / 1000.0, millis);
+		}
+		Assert.assertEquals( 4, filter.getVelocity(), 0.01 );
+		
+		/* Between measurements the boat is moved on at that velocity */
+		Assert.assertEquals( 120.4, filter.getPosition(30100), 0.05 );
+	}
+	
+	public void testPredictionLimited() {
+		
+		filter.setVelocity(5);
+		filter.update(10, 1000);
+		Assert.assertTrue( filter.isStarted() );
+		Assert.assertEquals( 10, filter.getPosition(500), 0.001 );
+		Assert.assertEquals( 12.5, filter.getPosition(1500), 0.001 );
+		
+		/* A stalled ergo doesn't run away */
+		Assert.assertEquals( 15, filter.getPosition(60000), 0.001 );
+	}
+	
+	public void testCorrectsSmoothly() {
+		
+		filter.setVelocity(4);
+		filter.update(0, 0);
+		
+		/* The boat is 2m further on than predicted, so only half of that is taken */
+		filter.update(6, 1000);
+		Assert.assertEquals( 5, filter.getPosition(1000), 0.001 );
+		Assert.assertEquals( 4.2, filter.getVelocity(), 0.001 );
+		
+		/* Old measurements are ignored and the velocity is never negative */
+		filter.update(100, 1000);
+		Assert.assertEquals( 5, filter.getPosition(1000), 0.001 );
+		filter.update(0, 1100);
+		Assert.assertEquals( 0, filter.getVelocity(), 0.001 );
+	}
+}
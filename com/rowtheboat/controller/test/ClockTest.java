@@ -0,0 +1,81 @@
+/*
+ * File: ClockTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller.test;
+
+import com.rowtheboat.controller.AcceleratedClock;
+import com.rowtheboat.controller.CountdownTimer;
+import com.rowtheboat.controller.FixedStepClock;
+import com.rowtheboat.controller.ICountdownListener;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * This class tests the FixedStepClock and AcceleratedClock classes
+ * 
+ * @author agent
+ */
+public class ClockTest extends TestCase {
+
+	private int ticks;
+	
+	public void testFixedStep() throws Exception {
+		
+		FixedStepClock clock = new FixedStepClock(1000, 50);
+		Assert.assertEquals( 1000, clock.currentTimeMillis() );
+		
+		/* The clock only moves when stepped or slept on */
+		Thread.sleep(20);
+		Assert.assertEquals( 1000, clock.currentTimeMillis() );
+		clock.step();
+		Assert.assertEquals( 1050, clock.currentTimeMillis() );
+		
+		/* Sleeping doesn't wait */
+		long start = System.currentTimeMillis();
+		clock.sleep(60000);
+		Assert.assertEquals( 61050, clock.currentTimeMillis() );
+		Assert.assertTrue( System.currentTimeMillis() - start < 1000 );
+		
+		/* Time never goes backwards */
+		clock.advance(-10);
+		Assert.assertEquals( 61050, clock.currentTimeMillis() );
+	}
+	
+	public void testAccelerated() throws Exception {
+		
+		AcceleratedClock clock = new AcceleratedClock(0, 20);
+		
+		/* A second on the clock takes a twentieth of a second */
+		long start = System.currentTimeMillis();
+		clock.sleep(1000);
+		long elapsed = System.currentTimeMillis() - start;
+		Assert.assertTrue( clock.currentTimeMillis() >= 1000 );
+		Assert.assertTrue( elapsed >= 45 );
+		Assert.assertTrue( elapsed < 500 );
+	}
+	
+	public void testCountdownOnFixedStep() throws Exception {
+		
+		/* A ten second countdown is over at once, ending ten seconds later on the clock */
+		FixedStepClock clock = new FixedStepClock(0, 1);
+		CountdownTimer timer = new CountdownTimer( (byte) 10, 1000, new ICountdownListener() {
+			public void countdownTick(byte count) {
+				ticks++;
+			}
+			public void countdownFinished(Exception e) {
+			}
+		}, clock );
+		
+		long start = System.currentTimeMillis();
+		timer.start();
+		timer.join();
+		Assert.assertEquals( 11, ticks );
+		Assert.assertEquals( 10000, clock.currentTimeMillis() );
+		Assert.assertTrue( System.currentTimeMillis() - start < 1000 );
+	}
+}
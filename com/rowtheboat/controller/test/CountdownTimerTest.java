@@ -0,0 +1,90 @@
+/*
+ * File: CountdownTimerTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller.test;
+
+import com.rowtheboat.controller.CountdownTimer;
+import com.rowtheboat.controller.ICountdownListener;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * This class tests the CountdownTimer class
+ * 
+ * @author agent
+ */
+public class CountdownTimerTest extends TestCase {
+
+	private byte [] counts = new byte[10];
+	private long [] times = new long[10];
+	private int ticks;
+	private boolean finished;
+	private Exception error;
+	
+	private ICountdownListener listener = new ICountdownListener() {
+		public void countdownTick(byte count) throws Exception {
+			counts[ticks] = count;
+			times[ticks] = System.currentTimeMillis();
+			ticks++;
+			
+			/* A slow display mustn't delay the following counts */
+			Thread.sleep(40);
+		}
+		public void countdownFinished(Exception e) {
+			finished = true;
+			error = e;
+		}
+	};
+	
+	public void testCountsToDeadlines() throws Exception {
+		
+		long start = System.currentTimeMillis();
+		CountdownTimer timer = new CountdownTimer( (byte) 3, 100, listener );
+		timer.start();
+		timer.join();
+		
+		Assert.assertEquals( 4, ticks );
+		Assert.assertTrue( finished );
+		Assert.assertNull( error );
+		for (int i = 0; i < ticks; i++) {
+			Assert.assertEquals( 3 - i, counts[i] );
+			Assert.assertEquals( start + i * 100, times[i], 30 );
+		}
+	}
+	
+	public void testHalt() throws Exception {
+		
+		CountdownTimer timer = new CountdownTimer( (byte) 5, 100, listener );
+		timer.start();
+		Thread.sleep(150);
+		timer.halt();
+		
+		Assert.assertEquals( 2, ticks );
+		Assert.assertFalse( finished );
+	}
+	
+	public void testErrorStopsCountdown() throws Exception {
+		
+		CountdownTimer timer = new CountdownTimer( (byte) 3, 10, new ICountdownListener() {
+			public void countdownTick(byte count) throws Exception {
+				ticks++;
+				throw new java.io.IOException("No response");
+			}
+			public void countdownFinished(Exception e) {
+				finished = true;
+				error = e;
+			}
+		});
+		timer.start();
+		timer.join();
+		
+		Assert.assertEquals( 1, ticks );
+		Assert.assertTrue( finished );
+		Assert.assertTrue( error instanceof java.io.IOException );
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * File: EventRecorderTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller.test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import com.rowtheboat.controller.EventRecorder;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * This class tests the EventRecorder
+ * 
+ * @author agent
+ */
+public class EventRecorderTest extends TestCase {
+
+	protected void setUp() {
+		
+		EventRecorder.setEnabled(true);
+		EventRecorder.clear();
+	}
+	
+	protected void tearDown() {
+		
+		EventRecorder.clear();
+		EventRecorder.setEnabled(false);
+	}
+	
+	public void testDisabled() {
+		
+		EventRecorder.setEnabled(false);
+		Assert.assertEquals( 0, EventRecorder.start() );
+		EventRecorder.record(EventRecorder.QUERY, 0, 1, 1, 2);
+		Assert.assertEquals( 0, EventRecorder.getCount() );
+	}
+	
+	public void testDump() throws Exception {
+		
+		long start = EventRecorder.start();
+		EventRecorder.record(EventRecorder.QUERY, start, 2, 1, 8);
+		EventRecorder.record(EventRecorder.CYCLE, start, -1, 3, 123456);
+		EventRecorder.record(EventRecorder.FLUSH, start, 0, 1, 4096);
+		Assert.assertEquals( 3, EventRecorder.getCount() );
+		
+		/* The events are written oldest first after the heading */
+		BufferedReader reader = new BufferedReader( new StringReader(dump()) );
+		Assert.assertEquals( "Start,Duration,Event,Ergo,Lanes,Bytes", reader.readLine() );
+		Assert.assertTrue( reader.readLine().endsWith(",Query,2,1,8") );
+		Assert.assertTrue( reader.readLine().endsWith(",Cycle,-1,3,123456") );
+		Assert.assertTrue( reader.readLine().startsWith(start + ",") );
+		Assert.assertNull( reader.readLine() );
+	}
+	
+	public void testRingOverwritesOldest() throws Exception {
+		
+		/* Fill the ring and three more, which overwrite the three oldest */
+		for (int i = 0; i < EventRecorder.CAPACITY + 3; i++) {
+			EventRecorder.record(EventRecorder.LAYOUT, i, -1, 5, i);
+		}
+		Assert.assertEquals( EventRecorder.CAPACITY, EventRecorder.getCount() );
+		Assert.assertEquals( 3, EventRecorder.getDropped() );
+		
+		BufferedReader reader = new BufferedReader( new StringReader(dump()) );
+		reader.readLine();
+		Assert.assertEquals( "# 3 older events overwritten", reader.readLine() );
+		Assert.assertTrue( reader.readLine().startsWith("3,") );
+		
+		EventRecorder.clear();
+		Assert.assertEquals( 0, EventRecorder.getCount() );
+		Assert.assertEquals( 0, EventRecorder.getDropped() );
+	}
+	
+	/**
+	 * Returns the events written by the recorder
+	 */
+	private String dump() throws Exception {
+		
+		StringWriter writer = new StringWriter();
+		EventRecorder.dump(writer);
+		
+		return writer.toString();
+	}
+}
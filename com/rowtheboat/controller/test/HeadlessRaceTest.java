@@ -0,0 +1,184 @@
+/*
+ * File: HeadlessRaceTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Replay on a fixed step clock
+ * 
+ */
+ 
+package com.rowtheboat.controller.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+
+import com.rowtheboat.controller.FixedStepClock;
+import com.rowtheboat.controller.HeadlessRace;
+import com.rowtheboat.controller.StrokeCollection;
+import com.rowtheboat.controller.SystemClock;
+import com.rowtheboat.workout.ComputerRower;
+import com.rowtheboat.workout.Workout;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * This class tests the HeadlessRace against the PM2+ emulator
+ * 
+ * @author agent
+ */
+public class HeadlessRaceTest extends TestCase {
+
+	private File raceFile;
+	
+	protected void setUp() throws Exception {
+		
+		raceFile = File.createTempFile("race", ".xml");
+	}
+	
+	protected void tearDown() {
+		
+		raceFile.delete();
+	}
+	
+	public void testDistanceRace() throws Exception {
+		
+		/* Two ergos on one emulated chain race a fixed split computer rower over 40m */
+		writeRace(
+			"<Race limit=\"30\">" +
+			"<Workout type=\"distance\" distance=\"40\" start=\"stroke\"/>" +
+			"<Emulator port=\"HeadlessRaceTest\">" +
+			"<Erg split=\"25\" rate=\"40\" duration=\"60\"/>" +
+			"<Erg split=\"30\" rate=\"40\" duration=\"60\"/>" +
+			"</Emulator>" +
+			"<Human name=\"A\" port=\"HeadlessRaceTest\" ergo=\"0\">" +
+			"<Shadow name=\"Target\" time=\"3\"/>" +
+			"</Human>" +
+			"<Human name=\"B\" port=\"HeadlessRaceTest\" ergo=\"1\"/>" +
+			"<Computer name=\"Pacer\" time=\"2\"/>" +
+			"</Race>" );
+		HeadlessRace race = HeadlessRace.load( raceFile, new SystemClock() );
+		
+		Workout workout = race.getWorkout();
+		Assert.assertEquals( Workout.DISTANCE_WORKOUT, workout.getType() );
+		Assert.assertEquals( 40, workout.getDistance() );
+		Assert.assertEquals( 3, workout.numberOfRowers() );
+		Assert.assertEquals( 2, workout.numberOfHumanRowers() );
+		Assert.assertTrue( workout.hasShadowRower(0) );
+		Assert.assertEquals( 2, ((ComputerRower) workout.getRower(2)).getRowTime(), 0 );
+		
+		/* Both ergos finish, the slower after 2.4 seconds */
+		StrokeCollection strokes = race.run();
+		Assert.assertFalse( race.isTimedOut() );
+		Assert.assertTrue( strokes.isWorkoutFinished() );
+		Assert.assertTrue( strokes.getStroke(0).isEndOfWorkout() );
+		Assert.assertTrue( strokes.getStroke(1).isEndOfWorkout() );
+		Assert.assertTrue( race.getCollectionCount() > 10 );
+		Assert.assertTrue( race.getElapsedTime() >= 2000 );
+		Assert.assertTrue( race.getElapsedTime() < 10000 );
+	}
+	
+	public void testTimeLimit() throws Exception {
+		
+		/* A just row workout runs until the limit, on the options port */
+		writeRace(
+			"<Race limit=\"1\">" +
+			"<Workout type=\"justrow\"/>" +
+			"<Emulator><Erg split=\"100\"/></Emulator>" +
+			"</Race>" );
+		HeadlessRace race = HeadlessRace.load( raceFile, new SystemClock() );
+		
+		StrokeCollection strokes = race.run();
+		Assert.assertTrue( race.isTimedOut() );
+		Assert.assertFalse( strokes.isWorkoutFinished() );
+		Assert.assertTrue( race.getElapsedTime() >= 1000 );
+	}
+	
+	public void testFixedStepReplay() throws Exception {
+		
+		/* A 200m race, which takes over 40 seconds on the ergos, replayed twice in 50ms steps
+		 * with no time on the line */
+		File log = File.createTempFile("replay", ".xml");
+		writeRace(
+			"<Race limit=\"120\" period=\"50\">" +
+			"<Workout type=\"distance\" distance=\"200\" date=\"2005-01-01-09:00:00\"/>" +
+			"<Emulator port=\"HeadlessRaceReplay\" baud=\"0\">" +
+			"<Erg split=\"100\" rate=\"30\" heart=\"150\" duration=\"60\"/>" +
+			"<Erg split=\"110\" rate=\"28\" duration=\"60\"/>" +
+			"</Emulator>" +
+			"<Human name=\"A\" port=\"HeadlessRaceReplay\" ergo=\"0\" log=\"" + 
+				log.getName() + "\"/>" +
+			"<Human name=\"B\" port=\"HeadlessRaceReplay\" ergo=\"1\"/>" +
+			"<Computer name=\"Pacer\" time=\"45\"/>" +
+			"</Race>" );
+		
+		byte [][] logs = new byte[2][];
+		for (int i = 0; i < 2; i++) {
+			long start = System.currentTimeMillis();
+			HeadlessRace race = HeadlessRace.load( raceFile, new FixedStepClock(0, 50) );
+			StrokeCollection strokes = race.run();
+			Assert.assertFalse( race.isTimedOut() );
+			Assert.assertTrue( strokes.isWorkoutFinished() );
+			Assert.assertTrue( race.getElapsedTime() >= 40000 );
+			Assert.assertTrue( System.currentTimeMillis() - start < race.getElapsedTime() / 2 );
+			logs[i] = read( new File(raceFile.getParentFile(), log.getName()) );
+		}
+		log.delete();
+		
+		Assert.assertTrue( logs[0].length > 0 );
+		Assert.assertEquals( new String(logs[0]), new String(logs[1]) );
+	}
+	
+	public void testInvalidRaces() throws Exception {
+		
+		writeRace("<Race><Workout type=\"justrow\"/></Race>");
+		try {
+			HeadlessRace.load( raceFile, new SystemClock() );
+			Assert.fail("A just row race without a limit never ends");
+		}
+		catch (IllegalArgumentException e) {
+		}
+		
+		writeRace("<Race limit=\"10\"><Workout type=\"justrow\"/><Human port=\"X\"/></Race>");
+		try {
+			HeadlessRace.load( raceFile, new SystemClock() );
+			Assert.fail("A just row race has its own rower");
+		}
+		catch (IllegalArgumentException e) {
+		}
+		
+		writeRace("<Race><Workout type=\"distance\" distance=\"100\"/>" +
+			"<Computer split=\"100\"/></Race>");
+		try {
+			HeadlessRace.load( raceFile, new SystemClock() );
+			Assert.fail("A race needs a human rower");
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+	
+	/**
+	 * Reads a file
+	 */
+	private byte [] read(File file) throws Exception {
+		
+		FileInputStream in = new FileInputStream(file);
+		byte [] data = new byte[ (int) file.length() ];
+		int read = 0;
+		while (read < data.length) {
+			read += in.read(data, read, data.length - read);
+		}
+		in.close();
+		return data;
+	}
+	
+	/**
+	 * Writes the race file
+	 */
+	private void writeRace(String race) throws Exception {
+		
+		FileWriter writer = new FileWriter(raceFile);
+		writer.write(race);
+		writer.close();
+	}
+}
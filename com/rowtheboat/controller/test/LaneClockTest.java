@@ -0,0 +1,162 @@
+/*
+ * File: LaneClockTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Clocks wait for the ergo to start and stop with it
+ * 18-Oct-2026	1.05		agent		Race clock follows the running ergos
+ * 
+ */
+ 
+package com.rowtheboat.controller.test;
+
+import com.rowtheboat.controller.LaneClock;
+import com.rowtheboat.controller.LaneExtrapolator;
+import com.rowtheboat.controller.RaceClock;
+import com.rowtheboat.input.StrokeData;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * This class tests the LaneClock and RaceClock classes
+ * 
+ * @author agent
+ */
+public class LaneClockTest extends TestCase {
+
+	/**
+	 * Ticks the clock of an ergo started at the given time which gains two milliseconds a 
+	 * second.  Each tick is placed up to 30ms out, as when estimated between polls.
+	 */
+	private void tickClock(LaneClock clock, long start, int seconds) {
+		
+		for (int second = 1; second <= seconds; second++) {
+			long tick = start + (long) (second * 1000 / 1.002);
+			long error = ((second * 7) % 61) - 30;
+			clock.tick(tick + error, second);
+		}
+	}
+	
+	public void testSeenBeforeTick() {
+		
+		LaneClock clock = new LaneClock();
+		Assert.assertFalse( clock.isSynchronised() );
+		
+		/* The clock stands at the erg time until it ticks */
+		clock.see(3);
+		Assert.assertFalse( clock.isSynchronised() );
+		Assert.assertEquals( 3, clock.getTime(5500), 0.001 );
+		Assert.assertEquals( 0, clock.getOffset() );
+		
+		clock.tick(6000, 4);
+		Assert.assertTrue( clock.isSynchronised() );
+		Assert.assertEquals( 4.5, clock.getTime(6500), 0.001 );
+		Assert.assertEquals( 2000, clock.getOffset() );
+	}
+	
+	public void testStopsWithErgo() {
+		
+		LaneClock clock = new LaneClock();
+		clock.tick(1000, 1);
+		clock.tick(2000, 2);
+		
+		/* Paused at 2 seconds the clock runs on no more than a second */
+		clock.see(2);
+		Assert.assertEquals( 2.9, clock.getTime(2900), 0.001 );
+		Assert.assertEquals( 3, clock.getTime(10000), 0.001 );
+	}
+	
+	public void testFitsOffsetAndDrift() {
+		
+		LaneClock clock = new LaneClock();
+		clock.see(0);
+		tickClock(clock, 5000, 120);
+		
+		Assert.assertEquals( 0.002, clock.getDrift(), 0.0005 );
+		Assert.assertEquals( 5000, clock.getOffset(), 20 );
+		Assert.assertEquals( 120.24, clock.getTime(125000), 0.05 );
+	}
+	
+	public void testRaceClock() {
+		
+		LaneClock first = new LaneClock();
+		LaneClock second = new LaneClock();
+		RaceClock race = new RaceClock( new LaneClock [] {first, null, second} );
+		Assert.assertEquals( 0, race.getTime(1000), 0 );
+		
+		/* The race time is the latest of the ergos' */
+		first.tick(1200, 1);
+		second.tick(1000, 1);
+		Assert.assertEquals( 1.5, race.getTime(1500), 0.001 );
+		
+		/* A later tick puts the second ergo back, but the race time doesn't go back */
+		second.tick(1700, 1.2f);
+		Assert.assertEquals( 1.5, race.getTime(1500), 0.001 );
+		Assert.assertEquals( 1.5, race.getTime(1600), 0.001 );
+		Assert.assertTrue( race.getTime(1800) > 1.5 );
+	}
+	
+	public void testRaceOutlivesFinishedLane() {
+		
+		LaneClock first = new LaneClock();
+		LaneClock second = new LaneClock();
+		LaneClock third = new LaneClock();
+		RaceClock race = new RaceClock( new LaneClock [] {first, second, third} );
+		
+		/* The first ergo finishes at 100 seconds and the second is paused at 150, but the race
+		 * keeps going at a second a second with the third */
+		for (int elapsed = 1; elapsed <= 200; elapsed++) {
+			long now = elapsed * 1000;
+			if (elapsed <= 100) {
+				first.tick(now + 200, elapsed);
+			}
+			else if (elapsed == 101) {
+				first.stop();
+			}
+			if (elapsed <= 150) {
+				second.tick(now + 100, elapsed);
+			}
+			third.tick(now, elapsed);
+			Assert.assertEquals( elapsed + 0.5, race.getTime(now + 500), 0.001 );
+		}
+	}
+	
+	public void testRaceIgnoresLateStart() {
+		
+		LaneClock first = new LaneClock();
+		LaneClock second = new LaneClock();
+		RaceClock race = new RaceClock( new LaneClock [] {first, second} );
+		
+		/* The second ergo starts a minute after the first without holding the race back */
+		for (int elapsed = 1; elapsed <= 120; elapsed++) {
+			long now = elapsed * 1000;
+			first.tick(now, elapsed);
+			if (elapsed > 60) {
+				second.tick(now, elapsed - 60);
+			}
+			Assert.assertEquals( elapsed + 0.5, race.getTime(now + 500), 0.001 );
+		}
+	}
+	
+	public void testRaceWaitsForStart() {
+		
+		LaneExtrapolator lane = new LaneExtrapolator();
+		RaceClock race = new RaceClock( new LaneClock [] {lane.getClock()} );
+		
+		/* The ergo is polled for several seconds before the first stroke is taken */
+		StrokeData stroke = new StrokeData();
+		stroke.setTime(0);
+		stroke.setDistance(0);
+		for (long now = 1000; now <= 5000; now += 250) {
+			stroke.setArrivalTime(now);
+			lane.observe(stroke, now);
+			Assert.assertEquals( 0, race.getTime(now), 0 );
+		}
+		
+		/* Once the erg clock ticks the race starts */
+		stroke.setTime(1);
+		stroke.setArrivalTime(5250);
+		lane.observe(stroke, 5250);
+		Assert.assertTrue( race.getTime(5500) > 1 );
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * File: LaneExtrapolatorTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		The ergo has started before the time runs on
+ * 
+ */
+ 
+package com.rowtheboat.controller.test;
+
+import com.rowtheboat.controller.LaneExtrapolator;
+import com.rowtheboat.input.StrokeData;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * This class tests the LaneExtrapolator class
+ * 
+ * @author agent
+ */
+public class LaneExtrapolatorTest extends TestCase {
+
+	private LaneExtrapolator extrapolator;
+	
+	protected void setUp() throws Exception {
+		
+		extrapolator = new LaneExtrapolator();
+	}
+	
+	/**
+	 * Returns the stroke of an ergo rowing at 4m/s, whose clock only gives whole seconds
+	 */
+	private StrokeData ergStroke(long millis) {
+		
+		StrokeData stroke = new StrokeData();
+		stroke.setTime( (float) Math.floor(millis / 1000.0) );
+		stroke.setDistance( millis * 4 / 1000f );
+		stroke.setPower(2.8 * 64);
+		stroke.setArrivalTime(millis);
+		
+		return stroke;
+	}
+	
+	public void testTracksErgClock() {
+		
+		float lastTime = 0;
+		float lastDistance = 0;
+		for (long millis = 0; millis < 20000; millis += 70) {
+			StrokeData stroke = ergStroke(millis);
+			extrapolator.update(stroke, millis + 5);
+			
+			/* The boat never goes backwards */
+			Assert.assertTrue( stroke.getTime() >= lastTime );
+			Assert.assertTrue( stroke.getDistance() >= lastDistance );
+			lastTime = stroke.getTime();
+			lastDistance = stroke.getDistance();
+			
+			/* Once the clock has ticked the time is within a poll of the real time */
+			if (millis > 1100) {
+				Assert.assertEquals( (millis + 5) / 1000f, stroke.getTime(), 0.07 );
+			}
+			Assert.assertEquals( (millis + 5) * 4 / 1000f, stroke.getDistance(), 0.1 );
+		}
+		
+		Assert.assertEquals( 19, extrapolator.getErrorCount() );
+		Assert.assertTrue( extrapolator.getMaxError() <= 70 );
+	}
+	
+	public void testLateStrokeDoesNotMoveBack() {
+		
+		extrapolator.update( ergStroke(0), 0 );
+		extrapolator.update( ergStroke(1000), 1000 );
+		
+		/* Nothing new arrives for two seconds so the time stops a second on */
+		StrokeData stroke = ergStroke(1000);
+		extrapolator.update(stroke, 3000);
+		Assert.assertEquals( 2, stroke.getTime(), 0.001 );
+		
+		/* The ergo slowed after the stale data, so the boat waits for it */
+		stroke = ergStroke(3005);
+		stroke.setDistance(2);
+		extrapolator.update(stroke, 3010);
+		Assert.assertEquals( 8, stroke.getDistance(), 0.001 );
+	}
+	
+	public void testEndOfWorkoutUnchanged() {
+		
+		extrapolator.update( ergStroke(0), 500 );
+		StrokeData stroke = ergStroke(900);
+		stroke.setStatus(StrokeData.END_OF_WORKOUT);
+		extrapolator.update(stroke, 1500);
+		
+		Assert.assertEquals( 0, stroke.getTime(), 0.001 );
+		Assert.assertEquals( 3.6, stroke.getDistance(), 0.001 );
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * File: LatencyTimerTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller.test;
+
+import java.io.StringWriter;
+
+import com.rowtheboat.controller.Instrumentation;
+import com.rowtheboat.controller.LatencyTimer;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * This class tests the LatencyTimer and the Instrumentation
+ * 
+ * @author agent
+ */
+public class LatencyTimerTest extends TestCase {
+
+	protected void setUp() {
+		
+		Instrumentation.setEnabled(true);
+		Instrumentation.reset();
+	}
+	
+	protected void tearDown() {
+		
+		Instrumentation.reset();
+		Instrumentation.setEnabled(false);
+	}
+	
+	public void testEmpty() {
+		
+		LatencyTimer timer = new LatencyTimer("Empty");
+		Assert.assertEquals( 0, timer.getCount() );
+		Assert.assertEquals( 0, timer.getPercentile(0.5) );
+		Assert.assertEquals( 0, timer.getMax() );
+		Assert.assertEquals( 0, timer.getMean(), 0 );
+	}
+	
+	public void testPercentiles() {
+		
+		/* 1 to 100ms once each, so the percentiles are exact */
+		LatencyTimer timer = new LatencyTimer("Fine");
+		for (int i = 1; i <= 100; i++) {
+			timer.record(i);
+		}
+		
+		Assert.assertEquals( 100, timer.getCount() );
+		Assert.assertEquals( 50, timer.getPercentile(0.5) );
+		Assert.assertEquals( 99, timer.getPercentile(0.99) );
+		Assert.assertEquals( 100, timer.getPercentile(1) );
+		Assert.assertEquals( 100, timer.getMax() );
+		Assert.assertEquals( 50.5, timer.getMean(), 0.001 );
+	}
+	
+	public void testCoarseBuckets() {
+		
+		/* Longer times are rounded up to their bucket but never beyond the maximum */
+		LatencyTimer timer = new LatencyTimer("Coarse");
+		for (int i = 0; i < 98; i++) {
+			timer.record(5);
+		}
+		timer.record(123);
+		timer.record(4567);
+		
+		Assert.assertEquals( 5, timer.getPercentile(0.5) );
+		Assert.assertEquals( 129, timer.getPercentile(0.99) );
+		Assert.assertEquals( 4567, timer.getPercentile(1) );
+		
+		timer.record(60000);
+		Assert.assertEquals( 60000, timer.getPercentile(1) );
+		Assert.assertEquals( 60000, timer.getMax() );
+		
+		timer.record(-3);
+		Assert.assertEquals( 102, timer.getCount() );
+		Assert.assertEquals( 0, timer.getPercentile(0) );
+	}
+	
+	public void testDisabled() {
+		
+		/* Nothing is recorded unless the instrumentation is enabled */
+		Instrumentation.setEnabled(false);
+		LatencyTimer timer = new LatencyTimer("Disabled");
+		timer.record(10);
+		timer.stop( timer.start() );
+		Assert.assertEquals( 0, timer.getCount() );
+		
+		Instrumentation.setEnabled(true);
+		timer.stop( timer.start() );
+		Assert.assertEquals( 1, timer.getCount() );
+		
+		timer.reset();
+		Assert.assertEquals( 0, timer.getCount() );
+		Assert.assertEquals( 0, timer.getMax() );
+	}
+	
+	public void testDump() throws Exception {
+		
+		Assert.assertFalse( Instrumentation.hasRecorded() );
+		Instrumentation.SERIAL_QUERY.record(40);
+		Instrumentation.SERIAL_QUERY.record(60);
+		Assert.assertTrue( Instrumentation.hasRecorded() );
+		
+		/* Only the timers that have recorded are written */
+		StringWriter writer = new StringWriter();
+		Instrumentation.dump(writer);
+		String dump = writer.toString();
+		Assert.assertTrue( dump.indexOf("Serial query") != -1 );
+		Assert.assertTrue( dump.indexOf("River paint") == -1 );
+		Assert.assertTrue( dump.indexOf("60") != -1 );
+		
+		Instrumentation.reset();
+		Assert.assertFalse( Instrumentation.hasRecorded() );
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * File: OutputQueueTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import com.rowtheboat.controller.OutputDispatcher;
+import com.rowtheboat.controller.OutputQueue;
+import com.rowtheboat.input.StrokeData;
+import com.rowtheboat.output.IFileOutputDevice;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * This class tests the OutputQueue overflow policies and the OutputDispatcher
+ * 
+ * @author agent
+ */
+public class OutputQueueTest extends TestCase {
+
+	private OutputDispatcher dispatcher;
+	
+	protected void setUp() {
+		
+		dispatcher = new OutputDispatcher();
+	}
+	
+	protected void tearDown() throws Exception {
+		
+		dispatcher.halt();
+	}
+	
+	public void testBlock() throws Exception {
+		
+		/* Every stroke is delivered, in order, with the final stroke last */
+		SlowDevice device = new SlowDevice(5);
+		OutputQueue queue = dispatcher.add(device, 4, OutputQueue.BLOCK);
+		for (int i = 0; i < 20; i++) {
+			queue.updateStrokeData( stroke(i) );
+		}
+		queue.workoutFinished( stroke(99) );
+		queue.updateStrokeData( stroke(100) );
+		dispatcher.halt();
+		
+		Assert.assertEquals( 20, device.distances.size() );
+		for (int i = 0; i < 20; i++) {
+			Assert.assertEquals( new Float(i), device.distances.get(i) );
+		}
+		Assert.assertEquals( 99, device.finished, 0 );
+		Assert.assertEquals( 21, queue.getDelivered() );
+		Assert.assertEquals( 0, queue.getDropped() );
+		Assert.assertTrue( queue.getMaxDepth() <= 4 );
+		Assert.assertTrue( queue.getMaxLag() >= 5 );
+	}
+	
+	public void testDropOldest() throws Exception {
+		
+		/* The caller isn't held up by the slow device.  The newest strokes are kept. */
+		SlowDevice device = new SlowDevice(50);
+		OutputQueue queue = dispatcher.add(device, 4, OutputQueue.DROP_OLDEST);
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < 20; i++) {
+			queue.updateStrokeData( stroke(i) );
+		}
+		Assert.assertTrue( System.currentTimeMillis() - start < 50 );
+		queue.workoutAborted();
+		dispatcher.halt();
+		
+		Assert.assertTrue( queue.getDropped() > 10 );
+		Assert.assertEquals( 20, device.distances.size() + queue.getDropped() );
+		Assert.assertEquals( new Float(19), device.distances.get(device.distances.size() - 1) );
+		Assert.assertTrue( device.aborted );
+	}
+	
+	public void testCoalesce() throws Exception {
+		
+		/* Only the latest stroke waits */
+		SlowDevice device = new SlowDevice(50);
+		OutputQueue queue = dispatcher.add(device, 4, OutputQueue.COALESCE);
+		for (int i = 0; i < 20; i++) {
+			queue.updateStrokeData( stroke(i) );
+		}
+		Assert.assertTrue( queue.getDepth() <= 1 );
+		queue.workoutFinished( stroke(20) );
+		dispatcher.halt();
+		
+		Assert.assertTrue( queue.getCoalesced() > 10 );
+		Assert.assertEquals( 20, device.distances.size() + queue.getCoalesced() );
+		Assert.assertEquals( new Float(19), device.distances.get(device.distances.size() - 1) );
+		Assert.assertEquals( 20, device.finished, 0 );
+	}
+	
+	public void testError() throws Exception {
+		
+		/* The error is passed back and nothing more is delivered */
+		SlowDevice device = new SlowDevice(0);
+		device.failAt = 3;
+		OutputQueue queue = dispatcher.add(device, 2, OutputQueue.BLOCK);
+		dispatcher.checkErrors();
+		for (int i = 0; i < 10; i++) {
+			queue.updateStrokeData( stroke(i) );
+		}
+		dispatcher.halt();
+		
+		Assert.assertEquals( 3, device.distances.size() );
+		Assert.assertNotNull( queue.getError() );
+		try {
+			dispatcher.checkErrors();
+			Assert.fail("The error should have been thrown");
+		}
+		catch (IOException e) {
+		}
+	}
+	
+	/**
+	 * Returns a stroke at the given distance
+	 */
+	private StrokeData stroke(float distance) {
+		
+		StrokeData stroke = new StrokeData();
+		stroke.setDistance(distance);
+		
+		return stroke;
+	}
+	
+	/**
+	 * A device that takes a while to write each stroke
+	 */
+	private static class SlowDevice implements IFileOutputDevice {
+		
+		private long delay;
+		private ArrayList distances = new ArrayList();
+		private float finished = -1;
+		private boolean aborted;
+		private int failAt = -1;
+		
+		public SlowDevice(long delay) {
+			
+			this.delay = delay;
+		}
+		
+		public void updateStrokeData(StrokeData stroke) throws Exception {
+			
+			if (distances.size() == failAt) {
+				throw new IOException("Disk full");
+			}
+			Thread.sleep(delay);
+			distances.add( new Float(stroke.getDistance()) );
+		}
+		
+		public void workoutFinished(StrokeData stroke) {
+			
+			finished = stroke.getDistance();
+		}
+		
+		public void workoutAborted() {
+			
+			aborted = true;
+		}
+		
+		public void displayCount(byte time) {
+			
+		}
+		
+		public void startRowing(int startType) {
+			
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * File: StrokeReuseTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.controller.test;
+
+import java.util.ArrayList;
+
+import com.rowtheboat.controller.IODeviceHandler;
+import com.rowtheboat.controller.StrokeAcquisitionThread;
+import com.rowtheboat.controller.StrokeCollection;
+import com.rowtheboat.input.PM2PlusEmulator;
+import com.rowtheboat.input.PM2PlusUnit;
+import com.rowtheboat.input.VirtualErg;
+import com.rowtheboat.workout.ComputerRower;
+import com.rowtheboat.workout.HumanRower;
+import com.rowtheboat.workout.Workout;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * This class tests that the stroke collections and strokes are reused between polls rather than
+ * created for each one
+ * 
+ * @author agent
+ */
+public class StrokeReuseTest extends TestCase {
+
+	private static final String PORT = "StrokeReuseTest";
+	
+	private IODeviceHandler handler;
+	private StrokeAcquisitionThread acquisition;
+	
+	protected void setUp() throws Exception {
+		
+		Workout workout = new Workout(Workout.TIME_WORKOUT);
+		workout.setTime(60);
+		workout.addRower( new HumanRower("A", PORT, 0, false) );
+		ComputerRower shadow = new ComputerRower(ComputerRower.FIXED_SPLIT);
+		shadow.setSplitToRowAt(120);
+		shadow.setRowTime(60);
+		workout.addShadow(shadow);
+		workout.addRower( new HumanRower("B", PORT, 1, false) );
+		ComputerRower computer = new ComputerRower(ComputerRower.FIXED_SPLIT);
+		computer.setSplitToRowAt(110);
+		computer.setRowTime(60);
+		workout.addRower(computer);
+		
+		/* The handler finds the emulator already registered for the port */
+		PM2PlusEmulator emulator = new PM2PlusEmulator( new VirtualErg [] {
+			new VirtualErg(100, 30, 0, 60), new VirtualErg(105, 30, 0, 60)} );
+		emulator.setBaudRate(9600);
+		PM2PlusUnit.getInstance(PORT, emulator, workout);
+		
+		handler = new IODeviceHandler(workout, null);
+		handler.startRowing();
+		acquisition = new StrokeAcquisitionThread(handler, null);
+		acquisition.start();
+	}
+	
+	protected void tearDown() throws Exception {
+		
+		acquisition.halt();
+		handler.cleanUp();
+	}
+	
+	public void testCollectionsReused() throws Exception {
+		
+		/* Read the collections for a while, as the GUI would */
+		ArrayList collections = new ArrayList();
+		ArrayList strokes = new ArrayList();
+		int lastSequence = 0;
+		long end = System.currentTimeMillis() + 1000;
+		while (System.currentTimeMillis() < end) {
+			if (acquisition.getSequence() != lastSequence) {
+				lastSequence = acquisition.getSequence();
+				StrokeCollection collection = acquisition.getLatestStrokes();
+				if ( !collections.contains(collection) ) {
+					collections.add(collection);
+					for (int i = 0; i < collection.getNumberOfRowers(); i++) {
+						strokes.add( collection.getStroke(i) );
+						strokes.add( collection.getShadowStroke(i) );
+					}
+				}
+				
+				/* Every stroke is one that was there when the collection was first seen */
+				for (int i = 0; i < collection.getNumberOfRowers(); i++) {
+					Assert.assertTrue( strokes.contains(collection.getStroke(i)) );
+				}
+			}
+			Thread.sleep(5);
+		}
+		
+		Assert.assertNull( acquisition.getError() );
+		Assert.assertTrue( lastSequence > 10 );
+		Assert.assertTrue( collections.size() <= 3 );
+	}
+	
+	public void testClaimedCollectionUnchanged() throws Exception {
+		
+		while (acquisition.getSequence() < 2) {
+			Thread.sleep(5);
+		}
+		
+		/* Whilst the GUI holds a collection it isn't filled again */
+		StrokeCollection collection = acquisition.getLatestStrokes();
+		float distance = collection.getStroke(1).getDistance();
+		float computerDistance = collection.getStroke(2).getDistance();
+		int sequence = acquisition.getSequence();
+		Thread.sleep(500);
+		
+		Assert.assertTrue( acquisition.getSequence() > sequence + 2 );
+		Assert.assertEquals( distance, collection.getStroke(1).getDistance(), 0 );
+		Assert.assertEquals( computerDistance, collection.getStroke(2).getDistance(), 0 );
+	}
+}
@@ -31,13 +31,18 @@
  * 30-Oct-2004	1.03		GeorgeP		Renamed shadow to isShadow and controller to parentWindow
  * 10-Nov-2004	1.04		GeorgeP		Changed the 0 for split to 00:00. Garbage collect changes
  * 										Sorted out sizing on Linux Gtk
+ * 17-Oct-2026	1.05		agent		Added the serial port of a human rowers ergo
+ * 17-Oct-2026	1.05		agent		Binary session files may be raced against
  * 
  */
  
 package com.rowtheboat.gui;
 
+import gnu.io.CommPortIdentifier;
+
 import java.io.File;
 import java.io.IOException;
+import java.util.Enumeration;
 
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
@@ -50,8 +55,10 @@ import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.SWT;
 
+import com.rowtheboat.input.SessionFile;
 import com.rowtheboat.workout.Workout;
 
 /**
@@ -80,6 +87,8 @@ public class AddRowerWindow {
 	private Button writeXMLButton;
 	private Text writeXMLLogText;
 	private Button writeXMLLogButton;
+	private Combo portCombo;
+	private Label portLabel;
 	private Text ergoText;
 	private Label ergoLabel;
 	private Button humanRowerButton;
@@ -138,6 +147,17 @@ public class AddRowerWindow {
 	}
 	
 	
+	/**
+	 * Return the serial port the ergo is connected to
+	 * 
+	 * @return the serial port
+	 */
+	public String getSerialPort() {
+		
+		return portCombo.getText();
+	}
+	
+	
 	/**
 	 * Return the rower name
 	 * 
@@ -282,12 +302,29 @@ public class AddRowerWindow {
 		ergoLabel.setText("Ergo Number:");
 		
 		ergoText = new Text(shell, SWT.BORDER);
-		ergoText.setLayoutData( GUIUtil.getHorizontalSpanGridData(4, 20) );
+		ergoText.setLayoutData( GUIUtil.getHorizontalSpanGridData(1, 20) );
 		ergoText.setText("1");
 		if (isShadow) {
 			ergoText.setEnabled(false);
 		}
 		
+		portLabel = new Label(shell, SWT.NULL);
+		portLabel.setText("Port:");
+		
+		portCombo = new Combo(shell, SWT.BORDER);
+		portCombo.setLayoutData( GUIUtil.getHorizontalSpanGridData(2, 95) );
+		
+		/* Each port has its own chain of ergos so default to the port in the options */
+		OptionsSingleton options = OptionsSingleton.getInstance();
+		Enumeration ports = options.getPossibleSerialPorts();
+		while (ports.hasMoreElements()) {
+			portCombo.add(((CommPortIdentifier) ports.nextElement()).getName());
+		}
+		portCombo.select(options.getSerialPortPosition());
+		if (isShadow) {
+			portCombo.setEnabled(false);
+		}
+		
 		writeXMLLogButton = new Button(shell, SWT.CHECK | SWT.LEFT);
 		GridData writeXMLLogButtonLData = GUIUtil.getHorizontalGridData(2, 87);
 		writeXMLLogButton.setLayoutData(writeXMLLogButtonLData);
@@ -363,12 +400,13 @@ public class AddRowerWindow {
 			public void widgetSelected(SelectionEvent e) {
 				/* Create an open a save dialog */
 				FileDialog openDialog = new FileDialog(shell, SWT.OPEN);
-				openDialog.setFilterExtensions(new String [] {"*.xml"});
+				openDialog.setFilterExtensions( 
+					new String [] {"*.xml", "*" + SessionFile.EXTENSION} );
 				openDialog.open();				
 				
-				/* Ensure the path has the xml file extension */
+				/* Ensure the path has the xml or session file extension */
 				String filename = openDialog.getFileName();
-				if ( !filename.endsWith(".xml") ) {
+				if ( !filename.endsWith(".xml") && !filename.endsWith(SessionFile.EXTENSION) ) {
 					filename += ".xml";
 				}
 				xmlReadText.setText( openDialog.getFilterPath() + File.separatorChar + filename );
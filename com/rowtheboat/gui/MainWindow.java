@@ -26,11 +26,15 @@
  * 
  * Date			Version		User		Description
  * 11-Nov-2003	1.0			GeorgeP		Initial version coded
+ * 17-Oct-2026	1.05		agent		Performance figures shown from the tools menu
  * 
  */
  
 package com.rowtheboat.gui;
 
+import java.io.IOException;
+import java.io.StringWriter;
+
 import com.rowtheboat.gui.output.*;
 
 import org.eclipse.swt.SWT;
@@ -48,6 +52,7 @@ import org.eclipse.swt.widgets.MessageBox;
 import org.eclipse.swt.widgets.Shell;
 
 import com.rowtheboat.controller.Core;
+import com.rowtheboat.controller.Instrumentation;
 import com.rowtheboat.controller.StrokeCollection;
 
 import com.rowtheboat.workout.Workout;
@@ -399,6 +404,30 @@ public class MainWindow {
 		});
 		optionsBox.setText ("&Options\tCtrl+O");
 		optionsBox.setAccelerator (SWT.CTRL + 'O');
+		
+		
+		/* The performance figures are only kept when running with -performance */
+		if ( Instrumentation.isEnabled() ) {
+			MenuItem performanceBox = new MenuItem (toolMenu, SWT.PUSH);
+			performanceBox.addListener (SWT.Selection, new Listener () {
+				public void handleEvent (Event e) {
+					StringWriter figures = new StringWriter();
+					try {
+						Instrumentation.dump(figures);
+					}
+					catch (IOException ex) {
+						/* Not thrown by a StringWriter */
+					}
+					
+					MessageBox box = new MessageBox( shell, SWT.ICON_INFORMATION | SWT.OK );
+					box.setText("Performance Figures");
+					box.setMessage( figures.toString() );
+					box.open();
+				}
+			});
+			performanceBox.setText ("&Performance Figures\tCtrl+P");
+			performanceBox.setAccelerator (SWT.CTRL + 'P');
+		}
 	}
 	
 	
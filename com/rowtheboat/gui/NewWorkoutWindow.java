@@ -28,6 +28,7 @@
  * 11-Nov-2003	1.0			GeorgeP		Initial version coded
  * 15-Oct-2004	1.02		GeorgeP		Made alterations for generic window sizing.  Sorted layout
  * 										issues.
+ * 17-Oct-2026	1.05		agent		Human rowers created with the serial port of their ergo
  * 
  */
 
@@ -148,13 +149,15 @@ public class NewWorkoutWindow {
 					boolean log = logDataFile != null;
 					
 					/* Create the rower */
-					rower = new HumanRower(name, rowerWindow.getErgoNumber(), log);
+					rower = new HumanRower
+						(name, rowerWindow.getSerialPort(), rowerWindow.getErgoNumber(), log);
 					if (log) {
 						((HumanRower) rower).setXMLFileName(logDataFile);
 					}
 				} catch (IOException e) {
 					// Would have been caught by the error checking so this shouldn't occur
-					rower = new HumanRower(name, rowerWindow.getErgoNumber(), false);
+					rower = new HumanRower
+						(name, rowerWindow.getSerialPort(), rowerWindow.getErgoNumber(), false);
 				}
 				
 				break;
@@ -30,6 +30,10 @@
  * 15-Oct-2004	1.02		GeorgeP		Added get method for operating system and os dep. font
  * 15-Nov-2004	1.03		GeorgeP		Changed serial port code to search system for ports
  * 10-Dec-2004	1.04		GeorgeP		Add garbage collection variable and options saving
+ * 17-Oct-2026	1.05		agent		Added pipelined queries, serial timeout and retries options
+ * 17-Oct-2026	1.05		agent		Allowed for no serial ports or serial driver, e.g. when
+ * 										running against the PM2+ emulator
+ * 17-Oct-2026	1.05		agent		Added pace and heart query intervals
  * 
  */
 
@@ -40,6 +44,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.Enumeration;
+import java.util.Vector;
 
 import org.dom4j.Document;
 import org.dom4j.DocumentHelper;
@@ -64,8 +69,18 @@ public class OptionsSingleton {
 	private boolean smoothing = true;				/* Whether smoothing is on */
 	private boolean fullStrokeData = true;			/* Whether the full stroke data should be
 													   retrieved, i.e. Power and HR as well */
+	private boolean pipelinedQueries = true;		/* Whether the PM2+ queries for an ergo are
+													   sent in a single write */
 													   
 	private byte delay = 5;							/* The delay before racing starts */
+	private int serialTimeout = 500;				/* The time to wait for the PM2+ to respond
+													   to a query (in milliseconds) */
+	private int serialRetries = 2;					/* The number of times a query is retried if
+													   the PM2+ doesn't respond */
+	private int paceInterval = 4;					/* The number of stroke retrievals between
+													   pace queries */
+	private int heartInterval = 8;					/* The number of stroke retrievals between
+													   heart queries */
 	private String serialPort = "";					/* The serial port to use for the PM2+.  
 													   Defaults to COM1 as used by Windows. */
 	private String icon = "images" + File.separatorChar + "icon.gif";
@@ -113,8 +128,10 @@ public class OptionsSingleton {
 	private OptionsSingleton() {
 		
 		/* Retrieve the serial ports and set the first as standard */
-		Enumeration ports = CommPortIdentifier.getPortIdentifiers();
-		serialPort = ((CommPortIdentifier) ports.nextElement()).getName();
+		Enumeration ports = getPossibleSerialPorts();
+		if (ports.hasMoreElements()) {
+			serialPort = ((CommPortIdentifier) ports.nextElement()).getName();
+		}
 		
 		/* Find the current location and use this to create the optionsFile.  This resolves issues
 		 * with jar files */
@@ -147,8 +164,30 @@ public class OptionsSingleton {
 			Element inputElement = root.element("Input");
 			String portFromFile = inputElement.elementText("SerialPort");
 			
+			/* Older options files won't have the pipelined setting so keep the default */
+			String pipelinedFromFile = inputElement.elementText("PipelinedQueries");
+			if (pipelinedFromFile != null) {
+				this.setPipelinedQueries( Boolean.valueOf(pipelinedFromFile).booleanValue() );
+			}
+			String timeoutFromFile = inputElement.elementText("SerialTimeout");
+			if (timeoutFromFile != null) {
+				this.setSerialTimeout( Integer.parseInt(timeoutFromFile) );
+			}
+			String retriesFromFile = inputElement.elementText("SerialRetries");
+			if (retriesFromFile != null) {
+				this.setSerialRetries( Integer.parseInt(retriesFromFile) );
+			}
+			String paceFromFile = inputElement.elementText("PaceInterval");
+			if (paceFromFile != null) {
+				this.setPaceInterval( Integer.parseInt(paceFromFile) );
+			}
+			String heartFromFile = inputElement.elementText("HeartInterval");
+			if (heartFromFile != null) {
+				this.setHeartInterval( Integer.parseInt(heartFromFile) );
+			}
+			
 			/* Check the port is valid, if not then default is used */
-			Enumeration possiblePorts = CommPortIdentifier.getPortIdentifiers();
+			Enumeration possiblePorts = getPossibleSerialPorts();
 			while (possiblePorts.hasMoreElements()) {
 				if ( ((CommPortIdentifier) possiblePorts.nextElement()).
 					getName().equals(portFromFile) ) {
@@ -228,6 +267,18 @@ public class OptionsSingleton {
 	}
 	
 	
+	/**
+	 * Returns the number of stroke retrievals between heart rate queries when full stroke data is
+	 * on.  The heart rate changes slowly so it needn't be queried every time.
+	 * 
+	 * @return	the interval; 1 to query every time
+	 */
+	public int getHeartInterval() {
+		
+		return heartInterval;
+	}
+	
+	
 	/**
 	 * Returns the icon location
 	 * 
@@ -272,6 +323,30 @@ public class OptionsSingleton {
 	}
 	
 	
+	/**
+	 * Returns the number of stroke retrievals between pace (stroke rate and power) queries when
+	 * full stroke data is on
+	 * 
+	 * @return	the interval; 1 to query every time
+	 */
+	public int getPaceInterval() {
+		
+		return paceInterval;
+	}
+	
+	
+	/**
+	 * Returns whether the queries for an ergo should be pipelined, i.e. sent to the PM2+ in a
+	 * single write rather than waiting for each response before sending the next query.
+	 * 
+	 * @return	<code>true</code> if queries are pipelined; <code>false</code> otherwise
+	 */
+	public boolean getPipelinedQueries() {
+		
+		return pipelinedQueries;
+	}
+	
+	
 	/**
 	 * Return the possible serial ports
 	 * 
@@ -279,7 +354,13 @@ public class OptionsSingleton {
 	 */
 	public Enumeration getPossibleSerialPorts() {
 		
-		return CommPortIdentifier.getPortIdentifiers();
+		try {
+			return CommPortIdentifier.getPortIdentifiers();
+		}
+		catch (LinkageError e) {
+			/* The native serial driver isn't installed so there are no ports */
+			return new Vector().elements();
+		}
 	}
 	
 	
@@ -293,6 +374,28 @@ public class OptionsSingleton {
 		return serialPort;
 	}
 	
+	/**
+	 * Returns the number of times a query is retried if the PM2+ doesn't respond
+	 * 
+	 * @return	the number of retries
+	 */
+	public int getSerialRetries() {
+		
+		return serialRetries;
+	}
+	
+	
+	/**
+	 * Returns the time to wait for the PM2+ to respond to a query
+	 * 
+	 * @return	the timeout in milliseconds
+	 */
+	public int getSerialTimeout() {
+		
+		return serialTimeout;
+	}
+	
+	
 	/**
 	 * Return the position of the selected serial port in the serial port enumeration
 	 * 
@@ -301,7 +404,7 @@ public class OptionsSingleton {
 	public int getSerialPortPosition() {
 	
 		int count = 0;
-		Enumeration ports = CommPortIdentifier.getPortIdentifiers();
+		Enumeration ports = getPossibleSerialPorts();
 		
 		/* Whilst there are more elements check for a match, and return the count if there is one */
 		while (ports.hasMoreElements()) {
@@ -368,6 +471,11 @@ public class OptionsSingleton {
 		/* Input options */
 		DefaultElement inputElement = new DefaultElement( "Input" );
 		inputElement.addElement( "SerialPort" ).addText( getSerialPort() );
+		inputElement.addElement( "PipelinedQueries" ).addText( getPipelinedQueries() + "" );
+		inputElement.addElement( "SerialTimeout" ).addText( getSerialTimeout() + "" );
+		inputElement.addElement( "SerialRetries" ).addText( getSerialRetries() + "" );
+		inputElement.addElement( "PaceInterval" ).addText( getPaceInterval() + "" );
+		inputElement.addElement( "HeartInterval" ).addText( getHeartInterval() + "" );
 		root.add( inputElement );
 		
 		/* Race options */
@@ -427,6 +535,61 @@ public class OptionsSingleton {
 	}
 	
 	
+	/**
+	 * Sets the number of stroke retrievals between heart rate queries
+	 * 
+	 * @param interval	the interval; 1 to query every time
+	 */
+	public void setHeartInterval(int interval) {
+		
+		heartInterval = Math.max(interval, 1);
+	}
+	
+	
+	/**
+	 * Sets the number of stroke retrievals between pace queries
+	 * 
+	 * @param interval	the interval; 1 to query every time
+	 */
+	public void setPaceInterval(int interval) {
+		
+		paceInterval = Math.max(interval, 1);
+	}
+	
+	
+	/**
+	 * Sets whether the queries for an ergo should be pipelined
+	 * 
+	 * @param pipelined	whether queries should be sent in a single write
+	 */
+	public void setPipelinedQueries(boolean pipelined) {
+		
+		pipelinedQueries = pipelined;
+	}
+	
+	
+	/**
+	 * Sets the number of times a query is retried if the PM2+ doesn't respond
+	 * 
+	 * @param retries	the number of retries
+	 */
+	public void setSerialRetries(int retries) {
+		
+		serialRetries = retries;
+	}
+	
+	
+	/**
+	 * Sets the time to wait for the PM2+ to respond to a query
+	 * 
+	 * @param timeout	the timeout in milliseconds
+	 */
+	public void setSerialTimeout(int timeout) {
+		
+		serialTimeout = timeout;
+	}
+	
+	
 	/**
 	 * Sets the serial port string
 	 * 
@@ -29,6 +29,8 @@
  * 15-Oct-2004	1.02		GeorgeP		Made alterations for generic window sizing and sorted
  * 										sizing for seperator.  Allowed for serial port differences
  * 15-Nov-2004	1.03		GeorgeP		Changed population of serial box to be from system
+ * 17-Oct-2026	1.05		agent		Added pipelined queries, serial timeout and retries options
+ * 17-Oct-2026	1.05		agent		Added pace and heart query intervals
  * 
  */
 
@@ -68,10 +70,20 @@ public class OptionsWindow {
 	private Label smoothingLabel;
 	private Combo serialCombo;
 	private Label serialPortLabel;
+	private Label pipelinedLabel;
+	private Text timeoutText;
+	private Label timeoutLabel;
+	private Text retriesText;
+	private Label retriesLabel;
+	private Text paceIntervalText;
+	private Label paceIntervalLabel;
+	private Text heartIntervalText;
+	private Label heartIntervalLabel;
 	private Text countdownText;
 	private Label countdownLabel;
 	private Button fullStrokeDataButton;
 	private Button smoothingButton;
+	private Button pipelinedButton;
 	
 	
 	/* Constructor */
@@ -160,6 +172,41 @@ public class OptionsWindow {
 		}
 		serialCombo.select(optionsSingleton.getSerialPortPosition());
 		
+		pipelinedLabel = new Label(shell, SWT.NULL);
+		pipelinedLabel.setText("Pipeline Serial Queries");
+		
+		pipelinedButton = new Button(shell, SWT.CHECK | SWT.LEFT);
+		pipelinedButton.setLayoutData( GUIUtil.getHorizontalSpanGridData(2) );
+		pipelinedButton.setSelection( options.getPipelinedQueries() );
+		
+		timeoutLabel = new Label(shell, SWT.NULL);
+		timeoutLabel.setText("Serial Timeout (ms):");
+		
+		timeoutText = new Text(shell, SWT.BORDER);
+		timeoutText.setLayoutData( GUIUtil.getHorizontalSpanGridData(2, 40) );
+		timeoutText.setText( options.getSerialTimeout() + "" );
+		
+		retriesLabel = new Label(shell, SWT.NULL);
+		retriesLabel.setText("Serial Retries:");
+		
+		retriesText = new Text(shell, SWT.BORDER);
+		retriesText.setLayoutData( GUIUtil.getHorizontalSpanGridData(2, 25) );
+		retriesText.setText( options.getSerialRetries() + "" );
+		
+		paceIntervalLabel = new Label(shell, SWT.NULL);
+		paceIntervalLabel.setText("Pace Query Interval:");
+		
+		paceIntervalText = new Text(shell, SWT.BORDER);
+		paceIntervalText.setLayoutData( GUIUtil.getHorizontalSpanGridData(2, 25) );
+		paceIntervalText.setText( options.getPaceInterval() + "" );
+		
+		heartIntervalLabel = new Label(shell, SWT.NULL);
+		heartIntervalLabel.setText("Heart Query Interval:");
+		
+		heartIntervalText = new Text(shell, SWT.BORDER);
+		heartIntervalText.setLayoutData( GUIUtil.getHorizontalSpanGridData(2, 25) );
+		heartIntervalText.setText( options.getHeartInterval() + "" );
+		
 		Label seperator = new Label(shell, SWT.SEPARATOR | SWT.HORIZONTAL);
 		GridData seperatorGridData = GUIUtil.getHorizontalSpanGridData(3);
 		seperatorGridData.widthHint = shell.computeSize(SWT.DEFAULT, SWT.DEFAULT).x - 18;
@@ -178,6 +225,11 @@ public class OptionsWindow {
 				options.setFullStrokeData( fullStrokeDataButton.getSelection() );
 				options.setDelay( (new Byte(countdownText.getText())).byteValue() );
 				options.setSerialPort( serialCombo.getText() );
+				options.setPipelinedQueries( pipelinedButton.getSelection() );
+				options.setSerialTimeout( Integer.parseInt(timeoutText.getText()) );
+				options.setSerialRetries( Integer.parseInt(retriesText.getText()) );
+				options.setPaceInterval( Integer.parseInt(paceIntervalText.getText()) );
+				options.setHeartInterval( Integer.parseInt(heartIntervalText.getText()) );
 				
 				/* Dispose of the GUI */
 				shell.dispose();
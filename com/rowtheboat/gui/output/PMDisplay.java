@@ -27,6 +27,8 @@
  * Date			Version		User		Description
  * 19-Nov-2003	1.0			GeorgeP		Initial version coded
  * 15-Oct-2004	1.02		GeorgeP		Changed to pace output
+ * 17-Oct-2026	1.05		agent		Split only redrawn when it changes.  No garbage collection
+ * 										per stroke
  * 
  */
  
@@ -62,6 +64,7 @@ public class PMDisplay extends Canvas implements IGUIOutputDevice {
 	private Workout workout;						/* The number of boats there are */
 
 	private Label splitLabel;						/* The split label */
+	private double lastSplit = -1;					/* The split last shown */
 //	/* The text fields - auto generated by GUI builder */
 //	private Text spmText;
 //	private Text timeText;
@@ -134,11 +137,16 @@ public class PMDisplay extends Canvas implements IGUIOutputDevice {
 		/* Find the stroke for the given rower */
 		StrokeData stroke = strokes.getStroke(rowerNumber);
 		
-		String split = "" + stroke.get500Split();
-		split = split.replace('.',':');
-		
-		splitLabel.setText(split);
-		splitLabel.update();
+		/* The split changes far less often than the display is updated */
+		if (stroke.get500Split() != lastSplit) {
+			lastSplit = stroke.get500Split();
+			
+			String split = "" + lastSplit;
+			split = split.replace('.',':');
+			
+			splitLabel.setText(split);
+			splitLabel.update();
+		}
 		
 //		/* Update the text boxes */
 //		timeText.setText("" + stroke.getTime());
@@ -151,10 +159,6 @@ public class PMDisplay extends Canvas implements IGUIOutputDevice {
 
 		/* This must be called to trigger updates */
 		this.update();
-		
-		/* A garbage collection is used so that the memory usage associated with an update is kept
-		 * down. */
-		OptionsSingleton.getInstance().garbageCollect();
 	}
 	
 	
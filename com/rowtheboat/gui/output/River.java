@@ -28,6 +28,15 @@
  * 19-Nov-2003	1.0			GeorgeP		Initial version coded
  * 15-Oct-2004	1.02		GeorgeP		Corrected fonts and sizes for Linux
  * 10-Dec-2004	1.04		GeorgeP		Garbage collect changes made
+ * 17-Oct-2026	1.05		agent		No garbage collection per stroke as the strokes are reused
+ * 17-Oct-2026	1.05		agent		Layout and boat painting timed by the Instrumentation
+ * 17-Oct-2026	1.05		agent		Layout recorded by the EventRecorder
+ * 17-Oct-2026	1.05		agent		Boats drawn at a fixed frame rate from an AlphaBetaFilter
+ * 										per boat when boat smoothing is on
+ * 17-Oct-2026	1.05		agent		Frames interpolate the strokes smoothed by the controller,
+ * 										timed by the race clock, rather than filtering them again
+ * 18-Oct-2026	1.05		agent		Frames move each boat on from the controller's estimate at
+ * 										its velocity rather than gliding an update behind
  * 
  */
 
@@ -54,7 +63,11 @@ import org.eclipse.swt.widgets.Canvas;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Display;
 
+import com.rowtheboat.controller.EventRecorder;
+import com.rowtheboat.controller.IClock;
+import com.rowtheboat.controller.Instrumentation;
 import com.rowtheboat.controller.StrokeCollection;
+import com.rowtheboat.controller.SystemClock;
 
 import com.rowtheboat.workout.Workout;
 
@@ -88,6 +101,14 @@ public final class River extends Canvas implements IGUIOutputDevice {
 	private double pixelsPerMeter;					/* The number of pixels per meter */
 	private int signCount;							/* The number of the sign */
 	private int lastSignMove = 0;					/* The last amount the signs were moved */
+	
+	private StrokeCollection frameStrokes;			/* The strokes drawn in each frame */
+	private BoatPath [] boatPaths;					/* The path of each boat */
+	private BoatPath [] shadowPaths;				/* The path of each shadow boat */
+	private IClock clock = new SystemClock();		/* The clock the frames are timed by, the
+													   one the GUI's race is run against */
+	private boolean framesRunning;					/* Whether the frames are being drawn */
+	private Runnable frameRunnable;					/* Draws a frame and schedules the next */
 
 	/* Pixel dimensions */
 	private static final int BOAT_LENGTH = 100;		/* The length of a boat */
@@ -108,6 +129,12 @@ public final class River extends Canvas implements IGUIOutputDevice {
 	private static final int SIGN_WIDTH = 61;		/* The width of the sign */
 	private static final int START_BLOCK_SIZE = BOAT_LENGTH + BOAT_MARGIN + 1;
 													/* The size of the start block */
+	
+	/* Frames */
+	private static final int FRAME_PERIOD = 40;		/* The time between frames in milliseconds */
+	private static final long MAX_EXTRAPOLATION = 1000;
+													/* The longest a boat is moved on past its
+													   latest position for in milliseconds */
 	private final int WATER_OFF_SCREEN_WIDTH;		/* The off screen width required.  This is 
 													   calculated at run time */ 
 
@@ -168,6 +195,20 @@ public final class River extends Canvas implements IGUIOutputDevice {
 		this.signs = new Canvas[7];
 		this.signCount = 0;
 		this.signWidths = new int[5];
+		
+		/* Setup the models the frames are drawn from */
+		this.frameStrokes = new StrokeCollection( workout.numberOfRowers() );
+		this.boatPaths = new BoatPath[workout.numberOfRowers()];
+		this.shadowPaths = new BoatPath[workout.numberOfRowers()];
+		for (int i = 0; i < workout.numberOfRowers(); i++) {
+			boatPaths[i] = new BoatPath();
+			shadowPaths[i] = new BoatPath();
+		}
+		this.frameRunnable = new Runnable() {
+			public void run() {
+				drawFrame();
+			}
+		};
 
 		/* Determine the scale to be used */
 		switch (showDistance) {
@@ -237,81 +278,60 @@ public final class River extends Canvas implements IGUIOutputDevice {
 	}
 	
 	
-	/* Inherited javadoc */
+	/**
+	 * Moves the boats to the positions of the given strokes.  When boat smoothing is on the 
+	 * controller has already moved each stroke on to when the collection was made, so the boats
+	 * are drawn at a fixed frame rate moving on from those positions at their velocities, for no
+	 * more than a second if the next collection is late.  The frames are timed by the race clock.
+	 * A boat is never moved backwards.
+	 * 
+	 * @param	strokes	the latest stroke collection
+	 */
 	public void updateStrokeData(StrokeCollection strokes) {
 		
-		/* The distance to move the leading human boat */
-		int moveDistance = -1;
-		
-		/* The total distance travelled by the leading human rower */
-		int leadingHumanDistance = -1;
-		
-		/* The flag that indicates whether the rower names should be moved */
-		boolean nameMove = false;
-		
-		/* Find the leading human rower */		
-		float maxStrokeDistance = findMaximumStrokeDistance(strokes);
-		
-		/* Use the leading human rower's distance to find the number of pixels this equates to */
-		leadingHumanDistance = (int) (maxStrokeDistance * pixelsPerMeter + 0.5);
-		
+		if ( !OptionsSingleton.getInstance().getBoatSmoothing() ) {
+			layoutBoats(strokes);
+			return;
+		}
 		
-		/* See if the leading human rower has reached the middle of the water */
-		if ( leadingHumanDistance > middleOfWater ) {
-			
-			/* Calculate the amount to move the boats */
-			int amountToMove = leadingHumanDistance - middleOfWater;
-			
-			/* Move the signs the required amount */
-			moveSigns(amountToMove - lastSignMove);
-			lastSignMove = amountToMove;
-
-			/* When the boats are in the middle start moving the water until start line has gone
-			 * off the left hand side of the screen */
-			if (water.getLocation().x > START_BLOCK_SIZE * -1 ) {
-				
-				moveStartLineWater(amountToMove);
-								
-				/* Set the moveDistance and put name moving on */
-				moveDistance = leadingHumanDistance;
-				nameMove = true;
-			}
-			
-			/* Check (and if applicable move) the finish line onto the water */
-			int distanceToMove = moveFinishLineWater(leadingHumanDistance, amountToMove);
-			if (distanceToMove != -1) {
-				moveDistance = distanceToMove;
-				nameMove = true; 
+		/* Keep a copy to draw the frames from, as the collection will be reused */
+		long now = strokes.getCollectionTime();
+		if (now == 0) {
+			now = clock.currentTimeMillis();
+		}
+		for (int i = 0; i < strokes.getNumberOfRowers(); i++) {
+			updateFrameStroke( boatPaths[i], frameStrokes.getStroke(i), strokes.getStroke(i), 
+				strokes.getVelocity(i), now );
+			if ( workout.hasShadowRower(i) ) {
+				updateFrameStroke( shadowPaths[i], frameStrokes.getShadowStroke(i), 
+					strokes.getShadowStroke(i), strokes.getShadowVelocity(i), now );
 			}
-			
-			/* If none of the statements above are entered then there is no movement in the
-			 * leading boat although the leading boat itself could have changed. */
 		}
-		else {
-			/* If the leading human rower has not reached the middle of the screen then set the 
-			 * move distance to be the amount they have travelled so far */
-			
-			moveDistance = leadingHumanDistance;
+		
+		/* Start drawing frames, drawing the first straight away */
+		if (!framesRunning) {
+			framesRunning = true;
+			drawFrame();
 		}
-	
-		/* Update boats positions */
-		updateBoatPositions(strokes, leadingHumanDistance, moveDistance, nameMove);
 	}
 	
 	
 	/* Inherited Javadoc */
 	public void workoutAborted() {
 		
-		/* Do nothing */
+		/* Stop drawing frames */
+		framesRunning = false;
 	}
 	
 	
 	/* Inherited Javadoc */
 	public void workoutFinished(StrokeCollection strokes) {
 	
-		/* Pass this responsability onto the updateStrokeData method which deals with the issues
-		 * of a stroke being the last and the possibility of a workout being a distance one. */
-		updateStrokeData(strokes);
+		/* Stop drawing frames and pass this responsability onto the layoutBoats method which deals
+		 * with the issues of a stroke being the last and the possibility of a workout being a
+		 * distance one. */
+		framesRunning = false;
+		layoutBoats(strokes);
 	}
 
 
@@ -398,6 +418,8 @@ public final class River extends Canvas implements IGUIOutputDevice {
 		/* Draw the boat */
 		boat.addPaintListener(new PaintListener() { 
 			public void paintControl(PaintEvent e) { 
+				long start = Instrumentation.RIVER_PAINT.start();
+				
 				/* Draw image and dispose of resources */
 				Image image = new Image(display, bis);
 				e.gc.drawImage(image, 0, BOAT_MARGIN);
@@ -426,11 +448,35 @@ public final class River extends Canvas implements IGUIOutputDevice {
 				
 				/* Dispose of font */
 				font.dispose();
+				
+				Instrumentation.RIVER_PAINT.stop(start);
 			}
 		});
 	}
 	
 	
+	/**
+	 * Draws a frame, with each boat moved along its path, and schedules the next
+	 */
+	private void drawFrame() {
+		
+		if ( !framesRunning || isDisposed() ) {
+			return;
+		}
+		
+		long now = clock.currentTimeMillis();
+		for (int i = 0; i < frameStrokes.getNumberOfRowers(); i++) {
+			interpolateStroke( boatPaths[i], frameStrokes.getStroke(i), now );
+			if ( workout.hasShadowRower(i) ) {
+				interpolateStroke( shadowPaths[i], frameStrokes.getShadowStroke(i), now );
+			}
+		}
+		layoutBoats(frameStrokes);
+		
+		display.timerExec(FRAME_PERIOD, frameRunnable);
+	}
+	
+	
 	/**
 	 * Draw a rower name
 	 * 
@@ -556,6 +602,79 @@ public final class River extends Canvas implements IGUIOutputDevice {
 	}
 
 	
+	/**
+	 * Lays out the river with the boats at the positions of the given strokes
+	 * 
+	 * @param	strokes	the stroke collection
+	 */
+	private void layoutBoats(StrokeCollection strokes) {
+		
+		long start = Instrumentation.RIVER_LAYOUT.start();
+		long eventStart = EventRecorder.start();
+		
+		/* The distance to move the leading human boat */
+		int moveDistance = -1;
+		
+		/* The total distance travelled by the leading human rower */
+		int leadingHumanDistance = -1;
+		
+		/* The flag that indicates whether the rower names should be moved */
+		boolean nameMove = false;
+		
+		/* Find the leading human rower */		
+		float maxStrokeDistance = findMaximumStrokeDistance(strokes);
+		
+		/* Use the leading human rower's distance to find the number of pixels this equates to */
+		leadingHumanDistance = (int) (maxStrokeDistance * pixelsPerMeter + 0.5);
+		
+		
+		/* See if the leading human rower has reached the middle of the water */
+		if ( leadingHumanDistance > middleOfWater ) {
+			
+			/* Calculate the amount to move the boats */
+			int amountToMove = leadingHumanDistance - middleOfWater;
+			
+			/* Move the signs the required amount */
+			moveSigns(amountToMove - lastSignMove);
+			lastSignMove = amountToMove;
+
+			/* When the boats are in the middle start moving the water until start line has gone
+			 * off the left hand side of the screen */
+			if (water.getLocation().x > START_BLOCK_SIZE * -1 ) {
+				
+				moveStartLineWater(amountToMove);
+								
+				/* Set the moveDistance and put name moving on */
+				moveDistance = leadingHumanDistance;
+				nameMove = true;
+			}
+			
+			/* Check (and if applicable move) the finish line onto the water */
+			int distanceToMove = moveFinishLineWater(leadingHumanDistance, amountToMove);
+			if (distanceToMove != -1) {
+				moveDistance = distanceToMove;
+				nameMove = true; 
+			}
+			
+			/* If none of the statements above are entered then there is no movement in the
+			 * leading boat although the leading boat itself could have changed. */
+		}
+		else {
+			/* If the leading human rower has not reached the middle of the screen then set the 
+			 * move distance to be the amount they have travelled so far */
+			
+			moveDistance = leadingHumanDistance;
+		}
+	
+		/* Update boats positions */
+		updateBoatPositions(strokes, leadingHumanDistance, moveDistance, nameMove);
+		
+		Instrumentation.RIVER_LAYOUT.stop(start);
+		EventRecorder.record( EventRecorder.LAYOUT, eventStart, -1, 
+			strokes.getNumberOfRowers(), 0 );
+	}
+	
+	
 	/**
 	 * Move the boat along the river
 	 * 
@@ -690,6 +809,27 @@ public final class River extends Canvas implements IGUIOutputDevice {
 	}
 
 	
+	/**
+	 * Moves the stroke along the path of the boat, never moving it backwards.  The final stroke is
+	 * left where it is.
+	 * 
+	 * @param	path	the path of the boat
+	 * @param	stroke	the stroke last drawn for the boat
+	 * @param	now		the race clock time of the frame in milliseconds
+	 */
+	private void interpolateStroke(BoatPath path, StrokeData stroke, long now) {
+		
+		if ( stroke.isEndOfWorkout() || !path.isStarted() ) {
+			return;
+		}
+		
+		float distance = path.getDistance(now);
+		if ( distance > stroke.getDistance() ) {
+			stroke.setDistance(distance);
+		}
+	}
+	
+	
 	/**
 	 * Setup the boats and rower names 
 	 */
@@ -938,9 +1078,79 @@ public final class River extends Canvas implements IGUIOutputDevice {
 	
 		/* Important this is called so boat movements are updated */
 		this.update();
+	}
+	
+	
+	/**
+	 * Copies the latest stroke of a boat into the stroke drawn in the frames and sets the path of
+	 * the boat to it.  A boat that has been drawn ahead of the latest stroke stays where it is.
+	 * 
+	 * @param	path		the path of the boat
+	 * @param	frameStroke	the stroke drawn for the boat
+	 * @param	stroke		the latest stroke of the boat
+	 * @param	velocity	the velocity of the boat in meters per second
+	 * @param	now			the race clock time of the stroke in milliseconds
+	 */
+	private void updateFrameStroke(BoatPath path, StrokeData frameStroke, StrokeData stroke, 
+			double velocity, long now) {
+		
+		path.update(stroke.getDistance(), velocity, now);
+		
+		float drawnDistance = frameStroke.getDistance();
+		frameStroke.setStrokeData(stroke);
+		if ( !stroke.isEndOfWorkout() && drawnDistance > stroke.getDistance() ) {
+			frameStroke.setDistance(drawnDistance);
+		}
+	}
+	
+	
+	/* Inner Classes */
+	
+	/**
+	 * The path of a boat from its latest update.  The boat moves on from the latest position at
+	 * its velocity until the next update, for no more than MAX_EXTRAPOLATION, so it doesn't lag
+	 * an update behind and doesn't stop between updates.
+	 */
+	private static class BoatPath {
+		
+		private float distance;						/* The latest position of the boat */
+		private double velocity;					/* The velocity in meters per second */
+		private long updateTime = -1;				/* The time of the latest update */
+		
+		/**
+		 * Returns whether the path has had an update
+		 * 
+		 * @return	<code>true</code> if updated; <code>false</code> otherwise
+		 */
+		public boolean isStarted() {
+			
+			return updateTime != -1;
+		}
 		
-		/* A garbage collection is used so that the memory usage associated with an update is kept
-		 * down. */
-		 OptionsSingleton.getInstance().garbageCollect();
+		/**
+		 * Returns the distance along the path at the given time
+		 * 
+		 * @param	now	the race clock time in milliseconds
+		 * @return	the distance in meters
+		 */
+		public float getDistance(long now) {
+			
+			long elapsed = Math.min( Math.max(now - updateTime, 0), MAX_EXTRAPOLATION );
+			return (float) (distance + velocity * elapsed / 1000.0);
+		}
+		
+		/**
+		 * Sets the latest position and velocity
+		 * 
+		 * @param	distance	the latest position in meters
+		 * @param	velocity	the velocity in meters per second
+		 * @param	now			the race clock time of the update in milliseconds
+		 */
+		public void update(float distance, double velocity, long now) {
+			
+			this.distance = distance;
+			this.velocity = Math.max(velocity, 0);
+			updateTime = now;
+		}
 	}
-}
\ No newline at end of file
+}
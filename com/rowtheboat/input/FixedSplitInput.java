@@ -26,6 +26,7 @@
  * 
  * Date			Version		User		Description
  * 22-Nov-2003	1.0			GeorgeP		Initial version coded
+ * 17-Oct-2026	1.05		agent		The same stroke is reused for every call
  * 
  */
  
@@ -51,6 +52,7 @@ public class FixedSplitInput implements IInputDevice {
 	private int workoutDistance;					/* The workout distance */
 	private float split;							/* The split to be achieved */
 	private float workoutFinishTime;				/* The workout finish time */
+	private StrokeData stroke = new StrokeData();	/* The stroke returned */
 	
 	
 	/* Constructor */
@@ -79,8 +81,8 @@ public class FixedSplitInput implements IInputDevice {
 	/* Inherited Javadoc */
 	public StrokeData retrieveStrokeData(float time) {
 		
-		/* Construct a stroke.  Only status and distance are set. */
-		StrokeData stroke = new StrokeData();
+		/* Clear the stroke.  Only status and distance are set. */
+		stroke.reset();
 	
 		/* Calculate the distance for the stroke */
 		float distance;
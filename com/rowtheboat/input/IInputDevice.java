@@ -26,6 +26,7 @@
  * 
  * Date			Version		User		Description
  * 17-Oct-2003	1.0			GeorgeP		Inital version coded
+ * 17-Oct-2026	1.05		agent		The stroke returned may be reused by the device
  * 
  */
  
@@ -50,7 +51,8 @@ public interface IInputDevice extends IInputOutputDevice {
 	public void cleanUp() throws Exception;
 
 	/**
-	 * Retrieves the stroke data
+	 * Retrieves the stroke data.  The device may reuse the stroke it returns for the next call, so
+	 * the values must be used or copied before then.
 	 * 
 	 * @param data			the ergo number for a human rower, the time for a computer rower 
 	 * @return				StrokeData object
@@ -0,0 +1,82 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: ISerialTransport.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.input;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.TooManyListenersException;
+
+/**
+ * ISerialTransport is the interface for the byte link to a PM2+ daisy chain.  It is normally a
+ * serial port but can be replaced, e.g. by the PM2PlusEmulator, so the PM2+ code can be run 
+ * without any hardware.
+ * 
+ * @author agent
+ */
+public interface ISerialTransport {
+
+	/**
+	 * Closes the transport, including its streams.  It cannot be used again.
+	 * 
+	 * @throws IOException
+	 */
+	public void close() throws IOException;
+	
+	
+	/**
+	 * Returns the stream that data from the PM2+ is read from
+	 * 
+	 * @return	the input stream
+	 * @throws IOException
+	 */
+	public InputStream getInputStream() throws IOException;
+	
+	
+	/**
+	 * Returns the stream that commands to the PM2+ are written to
+	 * 
+	 * @return	the output stream
+	 * @throws IOException
+	 */
+	public OutputStream getOutputStream() throws IOException;
+	
+	
+	/**
+	 * Sets the listener to be informed when data from the PM2+ can be read.  Only one listener
+	 * may be set.
+	 * 
+	 * @param	listener	the listener
+	 * @throws TooManyListenersException
+	 */
+	public void setDataListener(ISerialDataListener listener) throws TooManyListenersException;
+}
@@ -0,0 +1,623 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: PM2PlusEmulator.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Ergos may run on a race clock
+ * 
+ */
+ 
+package com.rowtheboat.input;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.TooManyListenersException;
+
+import com.rowtheboat.controller.IClock;
+import com.rowtheboat.workout.Workout;
+
+/**
+ * PM2PlusEmulator emulates a daisy chain of PM2+ units behind the ISerialTransport interface so
+ * the PM2PlusUnit can be used, tested and timed without any hardware.  It understands the same
+ * byte protocol as the PM2+: the distance, pace, heart and time queries, the distance and time
+ * setup, lock and unlock, the two start commands and display number.  Each ergo on the chain is
+ * a VirtualErg.
+ * <p>
+ * The serial line can be made realistic with a baud rate, which delays each byte by the time it
+ * takes to send, random jitter added to each response and random loss of bytes.  Responses are
+ * delivered on a separate thread, as the serial driver does.
+ * 
+ * @author agent
+ */
+
+public class PM2PlusEmulator implements ISerialTransport {
+
+	/* Class Variables */
+	
+	private VirtualErg [] ergs;						/* The ergos on the chain */
+	private EmulatorInputStream inputStream;		/* The responses to be read */
+	private EmulatorOutputStream outputStream;		/* The commands written */
+	private ISerialDataListener listener;			/* The listener for responses */
+	private IClock clock;							/* The clock the ergos run on, null for
+													 * the wall clock */
+	private Thread deliveryThread;					/* The thread delivering responses */
+	private Random random = new Random();			/* The jitter and byte loss generator */
+	
+	private double byteMillis;						/* The time to send one byte */
+	private int jitter;								/* The maximum jitter in milliseconds */
+	private double byteLoss;						/* The probability of losing a byte */
+	
+	private LinkedList responses = new LinkedList();/* The responses awaiting delivery */
+	private double commandArrival;					/* When the last command byte arrives */
+	private double lineFree;						/* When the line is free to respond */
+	private volatile boolean open = true;			/* Whether the transport is open */
+	
+	private int command = -1;						/* The command being received, -1 if none */
+	private byte [] arguments = new byte[4];		/* The command arguments received */
+	private int argumentCount;						/* The number of arguments received */
+	private int argumentsNeeded;					/* The number of arguments the command has */
+	
+	private boolean locked;							/* Whether the units are locked */
+	private int displayedNumber = -1;				/* The number last displayed */
+	private int responsesSent;						/* The number of responses sent */
+	private int bytesLost;							/* The number of bytes lost */
+	
+	private static final int QUERY_DISTANCE = 176;	/* The code to query distance - hex b0 */
+	private static final int QUERY_PACE = 177;		/* The code to query pace - hex b1 */
+	private static final int QUERY_HEART = 178;		/* The code to query heart - hex b2 */
+	private static final int QUERY_TIME = 179;		/* The code to query time - hex b3 */
+	private static final int DISPLAY_PLACE = 147;	/* The code to display a place - hex 93 */
+	private static final int SETUP_DISTANCE = 148;	/* The code to setup meters - hex 94 */
+	private static final int SETUP_TIME = 149;		/* The code to setup time - hex 95 */
+	private static final int DISPLAY_NUMBER = 153;	/* The code to display a number - hex 99 */
+	private static final int LOCK_UNIT = 224;		/* The code to lock the unit - hex e0 */
+	private static final int START_ON_STROKE = 197;	/* The code to start on stroke - hex c5 */
+	private static final int START_NOW = 198;		/* The code to start now - hex c6 */
+	private static final int UNLOCK_UNIT = 199;		/* The code to unlock the unit - hex c7 */
+	private static final int RESPONSE_SIZE = PM2PlusFrameDecoder.FRAME_SIZE;
+													/* The size of a response */
+	private static final int BITS_PER_BYTE = 10;	/* Start, 8 data and stop bits */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs the emulator for the given ergos.  The ergos are numbered from zero in the 
+	 * order given.  The line has no delay, jitter or loss until these are set.
+	 * 
+	 * @param	ergs	the ergos on the chain
+	 */
+	public PM2PlusEmulator(VirtualErg [] ergs) {
+		
+		this.ergs = ergs;
+		inputStream = new EmulatorInputStream();
+		outputStream = new EmulatorOutputStream();
+		
+		deliveryThread = new Thread("PM2+ Emulator") {
+			public void run() {
+				deliverResponses();
+			}
+		};
+		deliveryThread.setDaemon(true);
+		deliveryThread.start();
+	}
+	
+	
+	/* Public Methods */
+	
+	/* Inherited Javadoc */
+	public void close() {
+		
+		synchronized (this) {
+			open = false;
+			notifyAll();
+		}
+		synchronized (inputStream) {
+			inputStream.notifyAll();
+		}
+	}
+	
+	
+	/**
+	 * Returns the number of bytes lost
+	 * 
+	 * @return	the number of bytes lost
+	 */
+	public synchronized int getBytesLost() {
+		
+		return bytesLost;
+	}
+	
+	
+	/**
+	 * Returns the number last displayed on the units
+	 * 
+	 * @return	the number; -1 if none has been displayed
+	 */
+	public synchronized int getDisplayedNumber() {
+		
+		return displayedNumber;
+	}
+	
+	
+	/* Inherited Javadoc */
+	public InputStream getInputStream() {
+		
+		return inputStream;
+	}
+	
+	
+	/* Inherited Javadoc */
+	public OutputStream getOutputStream() {
+		
+		return outputStream;
+	}
+	
+	
+	/**
+	 * Returns the number of responses sent, including any with lost bytes
+	 * 
+	 * @return	the number of responses
+	 */
+	public synchronized int getResponsesSent() {
+		
+		return responsesSent;
+	}
+	
+	
+	/**
+	 * Returns whether the units are locked
+	 * 
+	 * @return	<code>true</code> if locked; <code>false</code> otherwise
+	 */
+	public synchronized boolean isLocked() {
+		
+		return locked;
+	}
+	
+	
+	/**
+	 * Sets the baud rate, which determines how long each byte takes to send
+	 * 
+	 * @param	baudRate	the baud rate; 0 for no delay
+	 */
+	public synchronized void setBaudRate(int baudRate) {
+		
+		if (baudRate > 0) {
+			byteMillis = BITS_PER_BYTE * 1000.0 / baudRate;
+		}
+		else {
+			byteMillis = 0;
+		}
+	}
+	
+	
+	/**
+	 * Sets the probability of each byte sent by the units being lost
+	 * 
+	 * @param	probability	the probability, between 0 and 1
+	 */
+	public synchronized void setByteLoss(double probability) {
+		
+		byteLoss = probability;
+	}
+	
+	
+	/**
+	 * Sets the clock the ergos run on.  The ergos then answer with their state at the clock time
+	 * a query is received rather than when its last byte arrives, as the line still runs on the
+	 * wall clock.
+	 * 
+	 * @param	clock	the race clock
+	 */
+	public synchronized void setClock(IClock clock) {
+		
+		this.clock = clock;
+	}
+	
+	
+	/* Inherited Javadoc */
+	public synchronized void setDataListener(ISerialDataListener listener) 
+			throws TooManyListenersException {
+		
+		if (this.listener != null) {
+			throw new TooManyListenersException();
+		}
+		this.listener = listener;
+	}
+	
+	
+	/**
+	 * Sets the maximum random delay added to each response, as a USB adapter or operating system
+	 * would add
+	 * 
+	 * @param	millis	the maximum jitter in milliseconds
+	 */
+	public synchronized void setJitter(int millis) {
+		
+		jitter = millis;
+	}
+	
+	
+	/**
+	 * Sets the seed of the jitter and byte loss so a run can be repeated
+	 * 
+	 * @param	seed	the seed
+	 */
+	public synchronized void setSeed(long seed) {
+		
+		random.setSeed(seed);
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Handles a byte sent to the units
+	 * 
+	 * @param	b	the byte (0 - 255)
+	 */
+	private synchronized void receive(int b) {
+		
+		/* The byte arrives once the bytes before it have been sent */
+		long now = System.currentTimeMillis();
+		commandArrival = Math.max(now, commandArrival) + byteMillis;
+		
+		/* Collect the arguments of the current command */
+		if (command != -1) {
+			arguments[argumentCount++] = (byte) b;
+			if (argumentCount == argumentsNeeded) {
+				execute( ergoTime(now) );
+				command = -1;
+			}
+			return;
+		}
+		
+		switch (b) {
+			case QUERY_DISTANCE :
+			case QUERY_PACE :
+			case QUERY_HEART :
+			case QUERY_TIME :
+			case DISPLAY_NUMBER :
+			case DISPLAY_PLACE :
+				argumentsNeeded = 1;
+				break;
+			case SETUP_DISTANCE :
+			case SETUP_TIME :
+				argumentsNeeded = 4;
+				break;
+			case LOCK_UNIT :
+			case UNLOCK_UNIT :
+			case START_ON_STROKE :
+			case START_NOW :
+				argumentsNeeded = 0;
+				break;
+			default :
+				/* The PM2+ ignores anything it doesn't understand */
+				return;
+		}
+		
+		command = b;
+		argumentCount = 0;
+		if (argumentsNeeded == 0) {
+			execute( ergoTime(now) );
+			command = -1;
+		}
+	}
+	
+	
+	/**
+	 * Executes the command that has been received
+	 * 
+	 * @param	now	the current time on the ergos in milliseconds
+	 */
+	private void execute(long now) {
+		
+		switch (command) {
+			case QUERY_DISTANCE :
+			case QUERY_PACE :
+			case QUERY_HEART :
+			case QUERY_TIME : {
+				/* Only an ergo that is on the chain answers */
+				int ergNumber = arguments[0] & 0xFF;
+				if (ergNumber < ergs.length) {
+					respond( ergs[ergNumber], now );
+				}
+				break;
+			}
+			case SETUP_DISTANCE :
+			case SETUP_TIME : {
+				/* The target is a float sent least significant byte first */
+				int bits =   (arguments[0] & 0xFF)
+						   | (arguments[1] & 0xFF) << 8
+						   | (arguments[2] & 0xFF) << 16
+						   | (arguments[3] & 0xFF) << 24;
+				int type = Workout.DISTANCE_WORKOUT;
+				if (command == SETUP_TIME) {
+					type = Workout.TIME_WORKOUT;
+				}
+				for (int i = 0; i < ergs.length; i++) {
+					ergs[i].setupWorkout( type, Float.intBitsToFloat(bits) );
+				}
+				break;
+			}
+			case START_ON_STROKE :
+			case START_NOW :
+				/* There is no rower so the first stroke is taken to be now */
+				for (int i = 0; i < ergs.length; i++) {
+					ergs[i].start(now);
+				}
+				break;
+			case LOCK_UNIT :
+				locked = true;
+				break;
+			case UNLOCK_UNIT :
+				locked = false;
+				break;
+			case DISPLAY_NUMBER :
+				displayedNumber = arguments[0];
+				break;
+		}
+	}
+	
+	
+	/**
+	 * Returns the time on the ergos of the byte just received
+	 * 
+	 * @param	now	the wall clock time the byte was received in milliseconds
+	 * @return	the time in milliseconds
+	 */
+	private long ergoTime(long now) {
+		
+		if (clock == null) {
+			return now;
+		}
+		return clock.currentTimeMillis();
+	}
+	
+	
+	/**
+	 * Queues the response to the current query from the given ergo
+	 * 
+	 * @param	erg	the ergo queried
+	 * @param	now	the current time on the ergos in milliseconds
+	 */
+	private void respond(VirtualErg erg, long now) {
+		
+		/* Answer with the ergos state at the time the query arrives.  On a race clock this is when
+		 * it was received, as the time on the line isn't race time. */
+		long at = now;
+		if (clock == null) {
+			at = (long) commandArrival;
+		}
+		int first;
+		float value;
+		switch (command) {
+			case QUERY_DISTANCE :
+				first = erg.getStatus(at, true);
+				value = erg.getDistance(at);
+				break;
+			case QUERY_PACE :
+				/* Pace is the one response where the first byte is the stroke rate */
+				first = erg.getStrokeRate(at);
+				value = erg.getPace(at);
+				break;
+			case QUERY_HEART :
+				first = erg.getStatus(at, false);
+				value = erg.getHeartPeriod(at);
+				break;
+			default :
+				first = erg.getStatus(at, false);
+				value = erg.getTime(at);
+				break;
+		}
+		
+		int bits = Float.floatToIntBits(value);
+		byte [] response = new byte [] { (byte) first, (byte) bits, (byte) (bits >> 8), 
+			(byte) (bits >> 16), (byte) (bits >> 24) };
+		
+		/* The response is sent once the line is free and takes the time of its bytes to send */
+		lineFree = Math.max(commandArrival, lineFree) + RESPONSE_SIZE * byteMillis;
+		double due = lineFree;
+		if (jitter > 0) {
+			due += random.nextInt(jitter + 1);
+		}
+		
+		/* Jitter mustn't reorder the responses */
+		if (!responses.isEmpty()) {
+			due = Math.max( due, ((Response) responses.getLast()).due );
+		}
+		
+		responses.addLast( new Response(due, response) );
+		notifyAll();
+	}
+	
+	
+	/**
+	 * Delivers the responses as they fall due, informing the listener as the serial driver would
+	 */
+	private void deliverResponses() {
+		
+		while (true) {
+			
+			/* Wait for a response to fall due and pass its bytes to the input stream */
+			synchronized (this) {
+				try {
+					while (open) {
+						long now = System.currentTimeMillis();
+						if (!responses.isEmpty() &&
+							((Response) responses.getFirst()).due <= now) {
+							break;
+						}
+						
+						if ( responses.isEmpty() ) {
+							wait();
+						}
+						else {
+							wait( (long) Math.ceil(((Response) responses.getFirst()).due - now) );
+						}
+					}
+				}
+				catch (InterruptedException e) {
+					open = false;
+				}
+				
+				if (!open) {
+					return;
+				}
+				
+				/* Pass on every response due, losing bytes at random */
+				long now = System.currentTimeMillis();
+				while ( !responses.isEmpty() && ((Response) responses.getFirst()).due <= now ) {
+					byte [] data = ((Response) responses.removeFirst()).data;
+					for (int i = 0; i < data.length; i++) {
+						if (byteLoss > 0 && random.nextDouble() < byteLoss) {
+							bytesLost++;
+						}
+						else {
+							inputStream.append( data[i] );
+						}
+					}
+					responsesSent++;
+				}
+			}
+			
+			/* Inform the listener outside the lock as it will read the input stream */
+			if (listener != null && inputStream.available() > 0) {
+				listener.dataAvailable();
+			}
+		}
+	}
+	
+	
+	/* Inner Classes */
+	
+	/**
+	 * A response and the time it is due to arrive
+	 */
+	private static class Response {
+		
+		private double due;							/* When the response arrives */
+		private byte [] data;						/* The response */
+		
+		private Response(double due, byte [] data) {
+			
+			this.due = due;
+			this.data = data;
+		}
+	}
+	
+	
+	/**
+	 * The stream of bytes the units have sent
+	 */
+	private class EmulatorInputStream extends InputStream {
+		
+		private byte [] buffer = new byte[1024];	/* The bytes, as a ring */
+		private int start;							/* The index of the first byte */
+		private int count;							/* The number of bytes */
+		
+		/* Adds a byte, discarding the oldest if the buffer is full as a serial port would */
+		private synchronized void append(byte b) {
+			
+			if (count == buffer.length) {
+				start = (start + 1) % buffer.length;
+				count--;
+			}
+			buffer[(start + count) % buffer.length] = b;
+			count++;
+			notifyAll();
+		}
+		
+		public synchronized int available() {
+			
+			return count;
+		}
+		
+		public synchronized int read() throws IOException {
+			
+			/* Block until there is a byte, as a serial port does */
+			try {
+				while (count == 0) {
+					if (!open) {
+						return -1;
+					}
+					wait();
+				}
+			}
+			catch (InterruptedException e) {
+				throw new IOException("Interrupted");
+			}
+			
+			int b = buffer[start] & 0xFF;
+			start = (start + 1) % buffer.length;
+			count--;
+			
+			return b;
+		}
+		
+		public synchronized int read(byte [] b, int off, int len) throws IOException {
+			
+			if (len == 0) {
+				return 0;
+			}
+			
+			/* Block for the first byte then take whatever else is available */
+			int first = read();
+			if (first == -1) {
+				return -1;
+			}
+			b[off] = (byte) first;
+			
+			int n = 1;
+			while (n < len && count > 0) {
+				b[off + n++] = buffer[start];
+				start = (start + 1) % buffer.length;
+				count--;
+			}
+			
+			return n;
+		}
+	}
+	
+	
+	/**
+	 * The stream of bytes sent to the units
+	 */
+	private class EmulatorOutputStream extends OutputStream {
+		
+		public void write(int b) throws IOException {
+			
+			if (!open) {
+				throw new IOException("Emulator closed");
+			}
+			receive(b & 0xFF);
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: PM2PlusFrameAssembler.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.input;
+
+/**
+ * PM2PlusFrameAssembler collects the bytes read from the serial port and reassembles them into
+ * complete 5 byte PM2+ responses.  A response can be split over several serial events or several
+ * responses can arrive in one, so the bytes are held in a ring buffer until a whole response is
+ * available.
+ * <p>
+ * If a byte is lost every following response would be misaligned.  To recover, a response that
+ * should begin with a status byte is checked and, if the first byte isn't a status or the value
+ * isn't one the PM2+ could send, bytes are discarded one at a time until the responses line up
+ * again.
+ * 
+ * @author agent
+ */
+
+public class PM2PlusFrameAssembler {
+
+	/* Class Variables */
+	
+	private byte [] ring = new byte[RING_SIZE];		/* The buffered bytes */
+	private int head;								/* The index of the oldest byte */
+	private int count;								/* The number of buffered bytes */
+	private int discardedBytes;						/* The bytes discarded to resynchronise */
+	
+	private static final int RING_SIZE = 256;		/* The buffer size - must be a power of 2 */
+	private static final int RING_MASK = RING_SIZE - 1;
+													/* The mask to wrap an index */
+	private static final int FRAME_SIZE = PM2PlusFrameDecoder.FRAME_SIZE;
+													/* The size of a response */
+	private static final int STATUS_MASK = 224;		/* The bits fixed in a status - hex e0 */
+	private static final int STATUS_BITS = 192;		/* The value of the fixed bits - hex c0.  The
+													   status is a workout type of hex c4 or c8
+													   plus the end of stroke, end of workout
+													   and venue racing masks so always lies 
+													   between hex c0 and df */
+	private static final float MIN_MAGNITUDE = 0.001f;
+													/* The smallest non zero value the PM2+
+													   sends (pace is around 0.4s per meter) */
+	private static final float MAX_MAGNITUDE = 10000000;
+													/* The largest value the PM2+ sends */
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Adds bytes read from the serial port.  If the buffer is full the oldest bytes are lost,
+	 * which is then recovered from in the same way as a dropped byte.
+	 * 
+	 * @param	buffer	the bytes read
+	 * @param	offset	the index of the first byte to add
+	 * @param	length	the number of bytes to add
+	 */
+	public synchronized void append(byte [] buffer, int offset, int length) {
+		
+		for (int i = 0; i < length; i++) {
+			
+			/* Overwrite the oldest byte if full */
+			if (count == RING_SIZE) {
+				head = (head + 1) & RING_MASK;
+				count--;
+				discardedBytes++;
+			}
+			
+			ring[(head + count) & RING_MASK] = buffer[offset + i];
+			count++;
+		}
+	}
+	
+	
+	/**
+	 * Returns the number of bytes that have been discarded to resynchronise the responses
+	 * 
+	 * @return	the number of discarded bytes
+	 */
+	public synchronized int getDiscardedBytes() {
+		
+		return discardedBytes;
+	}
+	
+	
+	/**
+	 * Returns the number of bytes waiting to form a response
+	 * 
+	 * @return	the number of buffered bytes
+	 */
+	public synchronized int getBufferedBytes() {
+		
+		return count;
+	}
+	
+	
+	/**
+	 * Copies the next complete response into the frame buffer, resynchronising first if the
+	 * buffered bytes don't line up with a response.
+	 * 
+	 * @param	frame			the buffer to copy the response into (at least 5 bytes)
+	 * @param	statusExpected	whether the response should begin with a status byte.  This is
+	 * 							not the case for pace, which begins with the stroke rate.
+	 * @return	<code>true</code> if a response was copied; <code>false</code> if there isn't a
+	 * 			complete response yet
+	 */
+	public synchronized boolean nextFrame(byte [] frame, boolean statusExpected) {
+		
+		while (count >= FRAME_SIZE) {
+			
+			/* If the response doesn't look valid then drop the first byte and try again */
+			if ( statusExpected && !isValidFrame() ) {
+				head = (head + 1) & RING_MASK;
+				count--;
+				discardedBytes++;
+				continue;
+			}
+			
+			/* Copy and consume the response */
+			for (int i = 0; i < FRAME_SIZE; i++) {
+				frame[i] = ring[(head + i) & RING_MASK];
+			}
+			head = (head + FRAME_SIZE) & RING_MASK;
+			count -= FRAME_SIZE;
+			
+			return true;
+		}
+		
+		return false;
+	}
+	
+	
+	/**
+	 * Discards all the buffered bytes.  This is used when the buffered data can't belong to any
+	 * query, e.g. after a timeout.
+	 */
+	public synchronized void reset() {
+		
+		discardedBytes += count;
+		head = 0;
+		count = 0;
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Checks whether the buffered bytes begin with a valid response, i.e. a status byte followed 
+	 * by a float in the range of values sent by the PM2+.  Misaligned bytes usually give a tiny, 
+	 * huge or not-a-number float so this catches most misalignments the status alone wouldn't.
+	 * 
+	 * @return	<code>true</code> if valid; <code>false</code> otherwise
+	 */
+	private boolean isValidFrame() {
+		
+		/* Check the status byte */
+		if ( (ring[head] & STATUS_MASK) != STATUS_BITS ) {
+			return false;
+		}
+		
+		/* Check the float, least significant byte first */
+		int bits =   (ring[(head + 1) & RING_MASK] & 0xFF)
+				   | (ring[(head + 2) & RING_MASK] & 0xFF) << 8
+				   | (ring[(head + 3) & RING_MASK] & 0xFF) << 16
+				   | (ring[(head + 4) & RING_MASK] & 0xFF) << 24;
+		float value = Math.abs( Float.intBitsToFloat(bits) );
+		
+		return value == 0 || (value >= MIN_MAGNITUDE && value <= MAX_MAGNITUDE);
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: PM2PlusFrameDecoder.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.input;
+
+import com.rowtheboat.workout.Workout;
+
+/**
+ * PM2PlusFrameDecoder decodes the 5 byte responses sent by the PM2+.  A response is a status 
+ * byte followed by a little endian float.  The decoder is reused for every response and builds
+ * the float directly from the bits so no objects are created per response.
+ * 
+ * @author agent
+ */
+
+public class PM2PlusFrameDecoder {
+
+	/* Class Variables */
+	
+	private int workoutType;						/* The workout type */
+	private int firstByte;							/* The unconverted first byte */
+	private int status;								/* The standardised status */
+	private float value;							/* The float value */
+	
+	/**
+	 * The size of a PM2+ response in bytes
+	 */
+	public static final int FRAME_SIZE = 5;
+	
+	private static final int DISTANCE_WORKOUT = 196;/* The distance workout - hex c4 */
+	private static final int TIME_WORKOUT = 200;	/* The time workout - hex c8 */
+	private static final int END_OF_WORKOUT_MASK = 1;
+													/* The end of workout mask */
+	private static final int END_OF_STROKE_MASK = 2;/* The end of stroke mask */
+	private static final int UNKNOWN_MASK = 16;		/* Something to do with venue racing */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs the decoder
+	 * 
+	 * @param workoutType	the workout type (get from Workout), used to standardise the status
+	 */
+	public PM2PlusFrameDecoder(int workoutType) {
+		
+		this.workoutType = workoutType;
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Decodes the response starting at the given offset.  The results are available from the
+	 * get methods until the next call.
+	 * 
+	 * @param buffer	the buffer holding the response
+	 * @param offset	the index of the first byte of the response
+	 */
+	public void decode(byte [] buffer, int offset) {
+		
+		/* The first byte is unsigned */
+		firstByte = buffer[offset] & 0xFF;
+		
+		/* The remaining bytes are the float, least significant byte first */
+		int bits =   (buffer[offset + 1] & 0xFF)
+				   | (buffer[offset + 2] & 0xFF) << 8
+				   | (buffer[offset + 3] & 0xFF) << 16
+				   | (buffer[offset + 4] & 0xFF) << 24;
+		value = Float.intBitsToFloat(bits);
+		
+		status = standardiseStatus(firstByte);
+	}
+	
+	
+	/**
+	 * Returns the first byte of the last response as sent by the PM2+.  For a pace query this is
+	 * the stroke rate rather than the status.
+	 * 
+	 * @return	the first byte (0 - 255)
+	 */
+	public int getFirstByte() {
+		
+		return firstByte;
+	}
+	
+	
+	/**
+	 * Returns the status of the last response, changed to a standard regardless of the workout
+	 * type where it represents the end of a stroke or workout.
+	 * 
+	 * @return	the status; StrokeData.END_OF_STROKE or StrokeData.END_OF_WORKOUT where relevant
+	 */
+	public int getStatus() {
+		
+		return status;
+	}
+	
+	
+	/**
+	 * Returns the float value of the last response
+	 * 
+	 * @return	the value
+	 */
+	public float getValue() {
+		
+		return value;
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Change status to a standard regardless of workout type
+	 * 
+	 * @param	firstByte	the status byte sent by the PM2+
+	 * @return	the standardised status
+	 */
+	private int standardiseStatus(int firstByte) {
+		
+		if (workoutType == Workout.DISTANCE_WORKOUT) {
+			if (firstByte == DISTANCE_WORKOUT + END_OF_WORKOUT_MASK  ||
+				firstByte == DISTANCE_WORKOUT + END_OF_WORKOUT_MASK + UNKNOWN_MASK) {
+				return StrokeData.END_OF_WORKOUT;
+			}
+			if (firstByte == DISTANCE_WORKOUT + END_OF_STROKE_MASK) {
+				return StrokeData.END_OF_STROKE;
+			}
+		}
+		if (workoutType == Workout.TIME_WORKOUT) {
+			if (firstByte == TIME_WORKOUT + END_OF_WORKOUT_MASK ||
+				firstByte == TIME_WORKOUT + END_OF_WORKOUT_MASK + UNKNOWN_MASK) {
+				return StrokeData.END_OF_WORKOUT;
+			}
+			if (firstByte == TIME_WORKOUT + END_OF_STROKE_MASK) {
+				return StrokeData.END_OF_STROKE;
+			}
+		}
+		
+		return firstByte;
+	}
+}
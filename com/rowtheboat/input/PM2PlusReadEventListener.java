@@ -27,6 +27,19 @@
  * Date			Version		User		Description
  * 17-Oct-2003	1.0			GeorgeP		Inital version coded
  * 30-Oct-2004	1.03		GeorgeP		Updated to RXTX pure serial driver
+ * 17-Oct-2026	1.05		agent		Responses matched to queries by order for pipelining.
+ * 										Responses decoded without creating strings.  Responses
+ * 										reassembled across events and resynchronised
+ * 17-Oct-2026	1.05		agent		Uses the stroke manager of its own serial port
+ * 17-Oct-2026	1.05		agent		Listens to an ISerialTransport rather than RXTX directly
+ * 17-Oct-2026	1.05		agent		Responses fill in the stroke started by the PM2PlusUnit, so
+ * 										distance needn't be queried first
+ * 17-Oct-2026	1.05		agent		Responses matched to the stroke of their ergo and stamped
+ * 										with their arrival time
+ * 17-Oct-2026	1.05		agent		Decoding timed by the Instrumentation
+ * 17-Oct-2026	1.05		agent		Arrival times taken from the race clock
+ * 17-Oct-2026	1.05		agent		Responses matched and processed under the manager's lock.
+ * 										Data from a cancelled attempt is dropped
  * 
  */
  
@@ -36,10 +49,9 @@ package com.rowtheboat.input;
 import java.io.IOException;
 import java.io.InputStream;
 
-import gnu.io.SerialPortEvent;
-import gnu.io.SerialPortEventListener;
-
-import com.rowtheboat.workout.Workout;
+import com.rowtheboat.controller.IClock;
+import com.rowtheboat.controller.Instrumentation;
+import com.rowtheboat.controller.SystemClock;
 
 /**
  * Listens for PM2Plus Serial Port Events
@@ -47,24 +59,23 @@ import com.rowtheboat.workout.Workout;
  * @author GeorgeP
  */
 
-public class PM2PlusReadEventListener implements SerialPortEventListener {
+public class PM2PlusReadEventListener implements ISerialDataListener {
 
 	/* Class Variables */
 
 	private InputStream inputStream;				/* The inputStream to listen to */
-	private int workoutType;						/* The workout type */
+	private PM2PlusStrokeManager strokeManager;		/* The manager for this serial port */
+	private PM2PlusFrameDecoder decoder;			/* The response decoder */
+	private PM2PlusFrameAssembler assembler;		/* The response reassembler */
+	private IClock clock = new SystemClock();		/* The clock arrivals are stamped with */
 	
-	private static final int DISTANCE_WORKOUT = 196;/* The distance workout - hex c4 */
-	private static final int TIME_WORKOUT = 200;	/* The time workout - hex c8 */
-	private static final int END_OF_WORKOUT_MASK = 1;
-													/* The end of workout mask */
-	private static final int END_OF_STROKE_MASK = 2;/* The end of stroke mask */
-	private static final int UNKNOWN_MASK = 16;		/* Something to do with venue racing */
+	private static final int BUFFER_SIZE = PM2PlusFrameDecoder.FRAME_SIZE;
+													/* The input buffer size */
+	private static final int READ_SIZE = 64;		/* The serial read size */
 	
-	private static final int BUFFER_SIZE = 5;		/* The input buffer size */
-	private static final char[] HEX_CHARS = 				
-		new char[] {'0','1','2','3','4','5','6','7','8','9','A','B','C','D','E','F'};
-													/* An array of hex characters */
+	private byte [] readBuffer = new byte[READ_SIZE];
+													/* The buffer serial data is read into */
+	private byte [] frame = new byte[BUFFER_SIZE];	/* The response being processed */
 
 
 	/* Constructor */
@@ -73,138 +84,167 @@ public class PM2PlusReadEventListener implements SerialPortEventListener {
 	 * Constructs the PM2PlusReadEvent
 	 * 
 	 * @param inputStream	the input stream to be monitored
+	 * @param strokeManager	the manager the responses are passed to
+	 * @param workoutType	the type of workout, used to interpret the status
 	 */
-	public PM2PlusReadEventListener(InputStream inputStream, int workoutType) {
+	public PM2PlusReadEventListener(InputStream inputStream, PM2PlusStrokeManager strokeManager, 
+			int workoutType) {
 	
 		/* Set the class variables */
 		this.inputStream = inputStream;
-		this.workoutType = workoutType;
+		this.strokeManager = strokeManager;
+		this.decoder = new PM2PlusFrameDecoder(workoutType);
+		this.assembler = new PM2PlusFrameAssembler();
 	}
 
 	
 	/* Public Methods */
 	
 	/**
-	 * The method called when a serialEvent occurs
-	 * 
-	 * @param event	the serial port event
+	 * Discards any bytes received but not yet processed.  This is called when the PM2+ hasn't
+	 * responded in time so that a partial response isn't joined to the next one.
+	 */
+	public void discardBufferedData() {
+		
+		synchronized (strokeManager) {
+			assembler.reset();
+		}
+	}
+	
+	
+	/**
+	 * The method called when data is available from the serial port.  The data is processed so
+	 * it can be used by the PM2PlusStrokeManager.
 	 */
-	public void serialEvent(SerialPortEvent event) {
+	public void dataAvailable() {
 		
-		/* Check the type of event and if data is available from the serial port then process this
-		 * so it can be used by the PM2PlusStrokeManager */
-		switch(event.getEventType()) {
-			case SerialPortEvent.BI:
-			case SerialPortEvent.OE:
-			case SerialPortEvent.FE:
-			case SerialPortEvent.PE:
-			case SerialPortEvent.CD:
-			case SerialPortEvent.CTS:
-			case SerialPortEvent.DSR:
-			case SerialPortEvent.RI:
-			case SerialPortEvent.OUTPUT_BUFFER_EMPTY:
-				break;
-			case SerialPortEvent.DATA_AVAILABLE:
-				byte[] readBuffer = new byte[BUFFER_SIZE];
-				try {
-					/* Populate the readBuffer */
-					while (inputStream.available() > 0) {
-						int numBytes = inputStream.read(readBuffer);
+		try {
+			/* Every response completed by this event arrived now, whilst this attempt was the
+			 * one awaited */
+			long arrivalTime = clock.currentTimeMillis();
+			int attempt = strokeManager.getAttempt();
+			
+			/* The manager is held whilst the responses are matched and consumed, so the querying
+			 * thread can't cancel the attempt part way through */
+			synchronized (strokeManager) {
+				
+				/* Read everything available into the assembler.  A response may be split over
+				 * events or several may arrive in one event. */
+				while (inputStream.available() > 0) {
+					int numBytes = inputStream.read(readBuffer);
+					if (numBytes > 0) {
+						assembler.append(readBuffer, 0, numBytes);
 					}
-
-					processBufferData(readBuffer);
 				}
-				catch (IOException e) {
-					/* Nothing can be done about this.  Could show error box */
-					e.printStackTrace();
+				
+				/* Data that arrived for an attempt since cancelled mustn't answer the retry */
+				if (strokeManager.getAttempt() != attempt) {
+					assembler.reset();
+					return;
 				}
-				/* Let the manager know that the work here is done */
-				PM2PlusStrokeManager.getInstance().setDataProcessed(true);
-				break;
+				
+				long start = Instrumentation.DECODE.start();
+				processResponses(arrivalTime, attempt);
+				Instrumentation.DECODE.stop(start);
+			}
 		}
+		catch (IOException e) {
+			/* Nothing can be done about this.  Could show error box */
+			e.printStackTrace();
+		}
+	}
+	
+	
+	/**
+	 * Sets the clock the arrival of each response is stamped with
+	 * 
+	 * @param	clock	the race clock
+	 */
+	public void setClock(IClock clock) {
+		
+		this.clock = clock;
 	}
 
 
 	/* Private Methods */
 
 	/**
-	 * Converts a byte into a hex string
+	 * Processes every complete response held by the assembler.  The caller holds the manager's
+	 * lock.
 	 * 
-	 * @return the hex string
+	 * @param arrivalTime	the time the responses arrived in milliseconds
+	 * @param attempt		the attempt the responses are for
 	 */
-	private String hexString (byte nibble) {
-	
-		return "" + HEX_CHARS [0x0F & (nibble >> 4)] + HEX_CHARS [0x0F & nibble];
+	private void processResponses(long arrivalTime, int attempt) {
+		
+		while (true) {
+			
+			/* Match the response to the query it answers.  Responses arrive in the order the 
+			 * queries were written so the manager knows which one this is. */
+			int query = strokeManager.getNextExpectedQuery();
+			
+			/* Data that wasn't asked for can't be placed so it is discarded */
+			if (query == -1) {
+				assembler.reset();
+				return;
+			}
+			
+			/* Every response except pace begins with a status byte, which allows the assembler
+			 * to resynchronise if a byte has been lost */
+			if ( !assembler.nextFrame(frame, query != PM2PlusUnit.QUERY_PACE) ) {
+				return;
+			}
+			
+			processBufferData( frame, query, strokeManager.getNextExpectedStroke(), arrivalTime,
+				attempt );
+		}
 	}
 	
 	
 	/**
 	 * Processes the buffer turning the data into the correct fields within the StrokeData object
 	 * 
-	 * @param buffer	the buffer to process
+	 * @param buffer		the buffer to process
+	 * @param query			the query the buffer is the response to
+	 * @param stroke		the stroke the response is for
+	 * @param arrivalTime	the time the response arrived in milliseconds
+	 * @param attempt		the attempt the response is for
 	 */
-	private void processBufferData(byte [] buffer) {
+	private void processBufferData(byte [] buffer, int query, StrokeData stroke, 
+			long arrivalTime, int attempt) {
 		
-		/* Construct a byte and float representing the data from the PM2+ */
-		int firstByte = Integer.parseInt( hexString(buffer[0]), 16 );
-		String remainingBytesString =     hexString(buffer[4]) 
-										+ hexString(buffer[3])
-										+ hexString(buffer[2])
-										+ hexString(buffer[1]);
-		float remainingBytes = Float.intBitsToFloat
-			(Integer.parseInt(remainingBytesString,16));
-
-		/* The following assumes a query sequence of distance, pace, hr and time in PM2PlusUnit */
-		PM2PlusStrokeManager strokeManager = PM2PlusStrokeManager.getInstance();
+		/* Decode the status byte and float representing the data from the PM2+ */
+		decoder.decode(buffer, 0);
 
-		/* If there is no stroke data then create a new stroke data */
-		if (strokeManager.getStrokeData() == null ) {
-	
-			/* Change status to a standard regardless of workout type */
-			if (workoutType == Workout.DISTANCE_WORKOUT) {
-				if (firstByte == DISTANCE_WORKOUT + END_OF_WORKOUT_MASK  ||
-					firstByte == DISTANCE_WORKOUT + END_OF_WORKOUT_MASK + UNKNOWN_MASK) {
-					firstByte = StrokeData.END_OF_WORKOUT;
-				}
-				if (firstByte == DISTANCE_WORKOUT + END_OF_STROKE_MASK) {
-					firstByte = StrokeData.END_OF_STROKE;
-				}
+		/* The responses fill in the stroke started by the PM2PlusUnit.  The stroke is as recent
+		 * as its latest response. */
+		if (stroke != null) {
+			
+			stroke.setArrivalTime(arrivalTime);
+			
+			/* The status is standardised by the decoder regardless of workout type.  It is
+			 * taken from the distance response, which carries the end of stroke flag, or from
+			 * the time response if distance wasn't queried.  The first byte of the pace
+			 * response is the stroke rate rather than the status. */
+			if (query == PM2PlusUnit.QUERY_DISTANCE) {
+				stroke.setStatus( decoder.getStatus() );
+				stroke.setDistance( decoder.getValue() );
 			}
-			if (workoutType == Workout.TIME_WORKOUT) {
-				if (firstByte == TIME_WORKOUT + END_OF_WORKOUT_MASK ||
-				firstByte == TIME_WORKOUT + END_OF_WORKOUT_MASK + UNKNOWN_MASK) {
-					firstByte = StrokeData.END_OF_WORKOUT;
-				}
-				if (firstByte == TIME_WORKOUT + END_OF_STROKE_MASK) {
-					firstByte = StrokeData.END_OF_STROKE;
+			if (query == PM2PlusUnit.QUERY_TIME) {
+				if (stroke.getStatus() == StrokeData.UNSET) {
+					stroke.setStatus( decoder.getStatus() );
 				}
+				stroke.setTime( decoder.getValue() );
 			}
-			
-			StrokeData newStroke = new StrokeData(firstByte, remainingBytes);
-			strokeManager.setStrokeData(newStroke);
-		}
-		else {
-			/* Check to see if the time has been set.  If not update accordingly */
-			if (strokeManager.getStrokeData().getTime() == StrokeData.UNSET) {
-				
-				/* firstByte not passed as status should remain unchanged */
-				strokeManager.getStrokeData().setTime(remainingBytes);
+			if (query == PM2PlusUnit.QUERY_PACE) {
+				stroke.setPaceData( decoder.getFirstByte(), decoder.getValue() );
 			}
-			else {
-				
-				/* Check to see whether the power has been set.  If so then the data must be the
-				 * HR value. */
-				if (strokeManager.getStrokeData().getPower() == StrokeData.UNSET) {
-				
-					strokeManager.getStrokeData().setPaceData(firstByte, remainingBytes);
-				}
-				else {
-					
-					strokeManager.getStrokeData().setHeartPeriod
-						( new Float(remainingBytes).intValue() );
-				}
-				
+			if (query == PM2PlusUnit.QUERY_HEART) {
+				stroke.setHeartPeriod( (int) decoder.getValue() );
 			}
 		}
+		
+		/* Let the manager know that the work here is done */
+		strokeManager.responseProcessed(attempt);
 	}
 }
\ No newline at end of file
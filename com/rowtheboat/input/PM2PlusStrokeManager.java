@@ -26,6 +26,16 @@
  * 
  * Date			Version		User		Description
  * 25-Oct-2003	1.0			GeorgeP		Inital version coded
+ * 17-Oct-2026	1.05		agent		Responses matched to pending queries by order.  Blocking
+ * 										wait with timeout replaces polling of dataProcessed
+ * 17-Oct-2026	1.05		agent		No longer a singleton so each serial port has its own
+ * 17-Oct-2026	1.05		agent		Holds a stroke per ergo so the queries for several ergos can
+ * 										be interleaved
+ * 17-Oct-2026	1.05		agent		The stroke in each slot is reused
+ * 17-Oct-2026	1.05		agent		Each batch of responses numbered so those of a cancelled
+ * 										batch are ignored
+ * 17-Oct-2026	1.05		agent		A stroke is only complete once every query planned for it
+ * 										has been answered
  * 
  */
  
@@ -33,8 +43,15 @@ package com.rowtheboat.input;
 
 
 /**
- * PM2PlusStrokeHolder is a singleton that holds a stroke as it is being constructed (whilst the 
- * java events are triggering as the serial port data arrives).
+ * PM2PlusStrokeHolder holds the strokes as they are being constructed (whilst the java events are 
+ * triggering as the serial port data arrives).  There is one per serial port and a stroke, in a
+ * numbered slot, for each ergo being queried so that the queries for the ergos can be 
+ * interleaved.  It is shared between the serial
+ * event thread and the thread querying the PM2+, so all access is synchronized and the querying
+ * thread blocks in {@link #waitForResponses(long)} until the event thread has finished.  The event
+ * thread holds the manager's lock whilst it matches a response and fills in its stroke, so a 
+ * batch can't be cancelled part way through.  Each batch is numbered by an attempt, and a 
+ * response processed for an attempt that has since been cancelled is ignored.
  * 
  * @author GeorgeP
  */
@@ -43,10 +60,16 @@ public class PM2PlusStrokeManager {
 
 	/* Class Variables */
 	
-	private StrokeData stroke;						/* The current stroke being constructed */
+	private StrokeData [] strokes = new StrokeData[1];
+													/* The strokes being constructed, by slot */
+	private int [] outstanding = new int[1];		/* The responses still due, by slot */
 	private boolean dataProcessed;					/* Whether the data is finished */
-	
-	private static PM2PlusStrokeManager instance;	/* The self referencing instance */
+	private int [] pendingQueries = new int[8];		/* The queries awaiting a response, in the
+													   order they were written */
+	private int [] pendingSlots = new int[8];		/* The slot each pending response is for */
+	private int pendingCount;						/* The number of pending queries */
+	private int nextResponse;						/* The index of the next expected response */
+	private int attempt;							/* The number of the current batch */
 	
 	
 	/* Constructor */
@@ -54,34 +77,105 @@ public class PM2PlusStrokeManager {
 	/**
 	 * Constructs the PM2PlusStrokeHolder instance
 	 */
-	private PM2PlusStrokeManager() {}
+	public PM2PlusStrokeManager() {}
 
 
 	/* Methods */
 
 	/**
-	 * Returns the instance of the class
+	 * Returns the stroke data in the given slot
+	 * 
+	 * @param	slot	the slot
+	 * @return	the stroke data
+	 */
+	public synchronized StrokeData getStrokeData(int slot) {
+		
+		return strokes[slot];
+	}
+	
+	
+	/**
+	 * Records the queries that have just been written to the PM2+.  The PM2+ answers queries in 
+	 * the order they are received, so the responses are matched back to their queries by order.
+	 * The data is marked as unprocessed until every query has been answered.  The queries count
+	 * towards the responses planned when each slot's stroke was started.
 	 * 
-	 * @return the instance of the class
+	 * @param	queries	the query codes written, in order
+	 * @param	slots	the slot of the stroke each query is for
+	 * @param	offset	the index of the first query written
+	 * @param	count	the number of queries written
 	 */
-	public static PM2PlusStrokeManager getInstance() {
+	public synchronized void expectResponses(int [] queries, int [] slots, int offset, int count) {
 		
-		if (instance == null) {
-			instance = new PM2PlusStrokeManager();
+		/* Grow the pending arrays if a larger batch has been written */
+		if (count > pendingQueries.length) {
+			pendingQueries = new int[count];
+			pendingSlots = new int[count];
 		}
 		
-		return instance;
+		for (int i = 0; i < count; i++) {
+			pendingQueries[i] = queries[offset + i];
+			pendingSlots[i] = slots[offset + i];
+		}
+		pendingCount = count;
+		nextResponse = 0;
+		dataProcessed = false;
+		attempt++;
 	}
 	
 	
 	/**
-	 * Returns the current stroke data
+	 * Returns the number of the current batch of responses.  It changes whenever responses are
+	 * expected or cancelled.
 	 * 
-	 * @return	the stroke data
+	 * @return	the attempt number
+	 */
+	public synchronized int getAttempt() {
+		
+		return attempt;
+	}
+	
+	
+	/**
+	 * Returns the query code that the next response from the PM2+ answers
+	 * 
+	 * @return	the query code; -1 if no response is expected
+	 */
+	public synchronized int getNextExpectedQuery() {
+		
+		if (nextResponse < pendingCount) {
+			return pendingQueries[nextResponse];
+		}
+		
+		return -1;
+	}
+	
+	
+	/**
+	 * Returns the stroke that the next response from the PM2+ is for
+	 * 
+	 * @return	the stroke; null if no response is expected
+	 */
+	public synchronized StrokeData getNextExpectedStroke() {
+		
+		if (nextResponse < pendingCount) {
+			return strokes[ pendingSlots[nextResponse] ];
+		}
+		
+		return null;
+	}
+	
+	
+	/**
+	 * Returns whether every response planned for the stroke in the given slot has been processed.
+	 * A stroke whose queries weren't all sent isn't complete.
+	 * 
+	 * @param	slot	the slot
+	 * @return	<code>true</code> if the stroke is complete; <code>false</code> otherwise
 	 */
-	public StrokeData getStrokeData() {
+	public synchronized boolean isComplete(int slot) {
 		
-		return stroke;
+		return outstanding[slot] == 0;
 	}
 	
 	
@@ -90,20 +184,67 @@ public class PM2PlusStrokeManager {
 	 * 
 	 * @return <code>true</code> if the code has been processed; <code>false</code> otherwise
 	 */
-	public boolean getDataProcessed() {
+	public synchronized boolean getDataProcessed() {
 		
 		return dataProcessed;
 	}
 	
 	
 	/**
-	 * Set the stroke data to be stored within the class
+	 * Marks the next expected response as processed.  Once the last outstanding response has
+	 * been processed the data is flagged as processed.  A response for an attempt that has been
+	 * cancelled or replaced is ignored.
 	 * 
-	 * @param 	strokeData	the stroke data
+	 * @param	responseAttempt	the attempt the response was matched in
+	 * @return	<code>true</code> if the response was for the current attempt; <code>false</code>
+	 * 			if it was ignored
 	 */
-	public void setStrokeData(StrokeData strokeData) {
+	public synchronized boolean responseProcessed(int responseAttempt) {
+		
+		if (responseAttempt != attempt || nextResponse >= pendingCount) {
+			return false;
+		}
+		
+		outstanding[ pendingSlots[nextResponse] ]--;
+		nextResponse++;
+		if (nextResponse >= pendingCount) {
+			dataProcessed = true;
+			notifyAll();
+		}
+		
+		return true;
+	}
+	
+	
+	/**
+	 * Starts a new stroke in the given slot for the responses to fill in.  Any responses still
+	 * outstanding for the old stroke are forgotten.  The stroke isn't complete until the given
+	 * number of responses for it have been processed.  The stroke in each slot is reused, so it
+	 * is only valid until the slot's next stroke is started.
+	 * 
+	 * @param	slot		the slot
+	 * @param	responses	the number of responses planned for the stroke
+	 * @return	the new stroke data, with every field unset
+	 */
+	public synchronized StrokeData startStroke(int slot, int responses) {
+		
+		/* Grow the slots if more ergos are being queried */
+		if (slot >= strokes.length) {
+			StrokeData [] newStrokes = new StrokeData[slot + 1];
+			int [] newOutstanding = new int[slot + 1];
+			System.arraycopy(strokes, 0, newStrokes, 0, strokes.length);
+			System.arraycopy(outstanding, 0, newOutstanding, 0, outstanding.length);
+			strokes = newStrokes;
+			outstanding = newOutstanding;
+		}
+		
+		if (strokes[slot] == null) {
+			strokes[slot] = new StrokeData();
+		}
+		strokes[slot].reset();
+		outstanding[slot] = responses;
 		
-		stroke = strokeData;
+		return strokes[slot];
 	}
 
 
@@ -112,8 +253,45 @@ public class PM2PlusStrokeManager {
 	 * 
 	 * @param	processed	the boolean to set
 	 */
-	public void setDataProcessed(boolean processed) {
+	public synchronized void setDataProcessed(boolean processed) {
 		
 		dataProcessed = processed;
+		notifyAll();
+	}
+	
+	
+	/**
+	 * Abandons any responses still outstanding.  This is used when the PM2+ hasn't answered in
+	 * time so that any late responses are ignored rather than being added to the next stroke.
+	 */
+	public synchronized void cancelResponses() {
+		
+		pendingCount = 0;
+		nextResponse = 0;
+		attempt++;
+	}
+	
+	
+	/**
+	 * Blocks the calling thread until every outstanding response has been processed or the
+	 * timeout expires
+	 * 
+	 * @param	timeout	the maximum time to wait in milliseconds
+	 * @return	<code>true</code> if the responses were processed; <code>false</code> if the wait
+	 * 			timed out
+	 * @throws InterruptedException
+	 */
+	public synchronized boolean waitForResponses(long timeout) throws InterruptedException {
+		
+		long deadline = System.currentTimeMillis() + timeout;
+		long remaining = timeout;
+		
+		/* Loop as the wait can return before being notified */
+		while (!dataProcessed && remaining > 0) {
+			wait(remaining);
+			remaining = deadline - System.currentTimeMillis();
+		}
+		
+		return dataProcessed;
 	}
 }
\ No newline at end of file
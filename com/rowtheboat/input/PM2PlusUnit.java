@@ -28,30 +28,54 @@
  * 17-Oct-2003	1.0			GeorgeP		Inital version coded
  * 25-Oct-2004	1.02		GeorgeP		gnu.io imports added for gcj native build
  * 30-Oct-2004	1.03		GeorgeP		Updated to RXTX pure serial driver
+ * 17-Oct-2026	1.05		agent		Added pipelined query mode.  Responses are waited for
+ * 										with a timeout and queries retried.  Buffered data is
+ * 										discarded after a timeout
+ * 17-Oct-2026	1.05		agent		One instance per serial port, each with its own stroke
+ * 										manager, so several daisy chains can be used at once
+ * 17-Oct-2026	1.05		agent		Talks to the PM2+ through an ISerialTransport so that the
+ * 										emulator can be used in place of a serial port
+ * 17-Oct-2026	1.05		agent		Queries chosen by a PollingSchedule so pace and heart rate
+ * 										are queried less often, their last values carried forward
+ * 17-Oct-2026	1.05		agent		Queries for all the ergos on the chain interleaved in one
+ * 										batch, starting with a different ergo each time
+ * 17-Oct-2026	1.05		agent		Commands confirmed by a status query rather than waiting
+ * 										a fixed time after each
+ * 17-Oct-2026	1.05		agent		Strokes reused rather than created for each retrieval.
+ * 										Command codes held as numbers rather than hex strings
+ * 17-Oct-2026	1.05		agent		Queries timed by the Instrumentation
+ * 17-Oct-2026	1.05		agent		Query round trips recorded by the EventRecorder
+ * 17-Oct-2026	1.05		agent		Responses stamped by the race clock
+ * 17-Oct-2026	1.05		agent		An ergo's stroke only received once all its queries have
+ * 										been sent and answered
+ * 17-Oct-2026	1.05		agent		Setup confirmed by the workout type bits of the status alone
  * 
  */
  
 package com.rowtheboat.input;
 
 
+import com.rowtheboat.controller.EventRecorder;
+import com.rowtheboat.controller.IClock;
+import com.rowtheboat.controller.Instrumentation;
 import com.rowtheboat.gui.OptionsSingleton;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Enumeration;
+import java.util.Hashtable;
 import java.util.TooManyListenersException;
 
-import gnu.io.CommPortIdentifier;
 import gnu.io.PortInUseException;
-import gnu.io.SerialPort;
 import gnu.io.UnsupportedCommOperationException;
 
 import com.rowtheboat.workout.Workout;
 
 /**
  * PM2PlusUnit provides an implementation for the PM2+ input device unit.  It implements the
- * InputDevice interface. 
+ * InputDevice interface.  There is one instance per serial port, each of which talks to the daisy
+ * chain of PM2+ units connected to that port.  Instances for different ports share nothing so
+ * they may be queried concurrently from different threads.
  * 
  * @author GeorgeP
  */
@@ -62,25 +86,53 @@ public class PM2PlusUnit implements IInputDevice {
 	
 	private InputStream pm2PlusInputStream;				/* The PM2+ input stream */
 	private OutputStream pm2PlusOutputStream;			/* The PM2+ output stream */
-	private SerialPort serialPort;						/* The serial port */
-	private static PM2PlusUnit singleton;				/* Self singleton reference */
-	
-	private static final int PORT_TIMEOUT = 2000;		/* The serial port timeout (=2seconds) */
-	private static final String DISPLAY_NUMBER = "99";	/* The hexadecimal code to display a 
-														   number */
-	private static final String DISPLAY_PLACE = "93";	/* The hexadecimal code to display a rowers
-														   place */
-	private static final String LOCK_UNIT = "e0";		/* The hexadecimal code to lock the unit */
-	private static final String QUERY_DISTANCE = "b0";	/* The hexadecimal code to query distance*/
-	private static final String QUERY_PACE = "b1";		/* The hexadecimal code to query pace */
-	private static final String QUERY_HEART = "b2";		/* The hexadecimal code to query heart */
-	private static final String QUERY_TIME = "b3";		/* The hexadecimal code to query time */
-	private static final String START_ON_STROKE = "c5"; /* The hexadecimal code to start on the 
-														   next stroke */
-	private static final String START_NOW = "c6";		/* The hexadecimal code to start now */
-	private static final String SETUP_DISTANCE = "94";	/* The hexadecimal code to setup meters */
-	private static final String SETUP_TIME = "95";		/* The hexadecimal code to setup time */
-	private static final String UNLOCK_UNIT = "c7";		/* The hexadecimal code to unlock unit*/
+	private ISerialTransport transport;					/* The serial port or emulator */
+	private PM2PlusReadEventListener readListener;		/* The serial port listener */
+	private PM2PlusStrokeManager manager;				/* The stroke manager for this port */
+	private String portName;							/* The name of the serial port */
+	private static Hashtable units = new Hashtable();	/* The instances keyed by port name */
+	private PollingSchedule schedule;					/* Decides the queries for a stroke */
+	private int [][] ergoQueries = new int[1][4];		/* The queries for each ergos stroke */
+	private int [] ergoQueryCounts = new int[1];		/* The number of queries for each ergo */
+	private int [] ergoRetrievals = new int[1];			/* The retrieval number of each ergo */
+	private boolean [] received = new boolean[1];		/* Whether each ergos stroke is done */
+	private int [] queries = new int[8];				/* The queries in a batch, in order */
+	private int [] querySlots = new int[8];				/* The ergo slot of each query */
+	private int rotation;								/* The ergo slot to query first */
+	private int [] singleErgo = new int[1];				/* Used to retrieve a single stroke */
+	private StrokeData [] singleStroke = new StrokeData[1];
+	private int [] retrievals = new int[MAX_ERGOS];		/* The strokes retrieved, by ergo */
+	private StrokeData [] lastStrokes = new StrokeData[MAX_ERGOS];
+														/* The last strokes, by ergo */
+	private byte [] queryBuffer = new byte[16];			/* The buffer a batch of queries is
+														   written from */
+	private byte [] commandBuffer = new byte[8];		/* The buffer a command is written from */
+	private int [] confirmQuery = new int [] {QUERY_TIME};
+														/* The query confirming a command */
+	private int [] confirmSlot = new int[1];			/* The slot of the confirming query */
+	
+	private static final int MAX_ERGOS = 256;			/* The most ergos on a chain (one byte) */
+	private static final int CONFIRM_ERGO = 0;			/* The ergo queried to confirm commands,
+														   as every chain has a first ergo */
+	private static final int ANY_STATUS = -1;			/* Any status confirms the command */
+	private static final int DISTANCE_STATUS = 196;		/* The distance workout status - hex c4 */
+	private static final int TIME_STATUS = 200;			/* The time workout status - hex c8 */
+	private static final int STATUS_FLAGS = 19;			/* The end of workout, end of stroke and
+														   venue racing bits - hex 13 */
+	private static final int DISPLAY_NUMBER = 153;		/* The code to display a number - hex 99 */
+	private static final int DISPLAY_PLACE = 147;		/* The code to display a rowers place - 
+														   hex 93 */
+	private static final int LOCK_UNIT = 224;			/* The code to lock the unit - hex e0 */
+	static final int QUERY_DISTANCE = 176;				/* The code to query distance - hex b0 */
+	static final int QUERY_PACE = 177;					/* The code to query pace - hex b1 */
+	static final int QUERY_HEART = 178;					/* The code to query heart - hex b2 */
+	static final int QUERY_TIME = 179;					/* The code to query time - hex b3 */
+	private static final int START_ON_STROKE = 197;		/* The code to start on the next stroke -
+														   hex c5 */
+	private static final int START_NOW = 198;			/* The code to start now - hex c6 */
+	private static final int SETUP_DISTANCE = 148;		/* The code to setup meters - hex 94 */
+	private static final int SETUP_TIME = 149;			/* The code to setup time - hex 95 */
+	private static final int UNLOCK_UNIT = 199;			/* The code to unlock unit - hex c7 */
 
 	/* The gnu.io.* classes are not used in this class but are here to force gcj to include them in
  	 * the native build */
@@ -94,34 +146,28 @@ public class PM2PlusUnit implements IInputDevice {
 	/* Constructor */
 	
 	/**
-	 * Initialise the PM2PlusUnit class by accessing the serial port and checking its available
+	 * Initialise the PM2PlusUnit class to talk to the PM2+ units over the given transport
 	 * 
-	 * @param port the port to access (this is OS dependent)
+	 * @param port		the name of the port
+	 * @param transport	the open serial port or emulator
+	 * @param workout	the workout to do
 	 */
-	private PM2PlusUnit(String port, Workout workout) 
-			throws PortInUseException, UnsupportedCommOperationException, 
-			TooManyListenersException, NumberFormatException, IOException, InterruptedException  {
+	private PM2PlusUnit(String port, ISerialTransport transport, Workout workout) 
+			throws TooManyListenersException, IOException {
 		
-		/* Find the ports and iterate through them */
-		Enumeration portList = CommPortIdentifier.getPortIdentifiers();
+		this.portName = port;
+		this.manager = new PM2PlusStrokeManager();
+		this.schedule = createSchedule();
 		
-		while (portList.hasMoreElements()) {
-			CommPortIdentifier portId = (CommPortIdentifier) portList.nextElement();
-			
-			/* If the port is serial and named as the passed parameter then initialise it */
-			if (portId.getPortType() == CommPortIdentifier.PORT_SERIAL 
-				&& portId.getName().equals(port)) {
-				
-				initialisePort(portId, workout);
-			}
-		}
+		initialiseTransport(transport, workout);
 	}
 	
 	
 	/* Public Methods */
 	
 	/**
-	 * Return the only instance of this class
+	 * Return the instance of this class for the given serial port, opening the port if it isn't
+	 * already in use
 	 * 
 	 * @param port		the serial port to use
 	 * @param workout	the workout to do
@@ -133,36 +179,102 @@ public class PM2PlusUnit implements IInputDevice {
 	 * @throws IOException
 	 * @throws InterruptedException
 	 */
-	public static PM2PlusUnit getInstance(String port, Workout workout) 
+	public static synchronized PM2PlusUnit getInstance(String port, Workout workout) 
 		throws NumberFormatException, PortInUseException, UnsupportedCommOperationException, 
 		TooManyListenersException, IOException, InterruptedException {
 		
-		if (singleton == null) {
-			singleton = new PM2PlusUnit(port, workout);
+		PM2PlusUnit unit = (PM2PlusUnit) units.get(port);
+		if (unit == null) {
+			unit = new PM2PlusUnit(port, RXTXSerialTransport.open(port), workout);
+			units.put(port, unit);
 		}
 		
-		return singleton;
+		return unit;
+	}
+	
+	
+	/**
+	 * Return the instance of this class for the given port name, using the given transport if
+	 * there isn't one already.  This allows a transport other than a serial port, such as the
+	 * PM2PlusEmulator, to be used.
+	 * 
+	 * @param port		the name to register the transport under
+	 * @param transport	the open transport
+	 * @param workout	the workout to do
+	 * @return	a reference to this class
+	 * @throws TooManyListenersException
+	 * @throws IOException
+	 */
+	public static synchronized PM2PlusUnit getInstance(String port, ISerialTransport transport, 
+			Workout workout) throws TooManyListenersException, IOException {
+		
+		PM2PlusUnit unit = (PM2PlusUnit) units.get(port);
+		if (unit == null) {
+			unit = new PM2PlusUnit(port, transport, workout);
+			units.put(port, unit);
+		}
+		
+		return unit;
+	}
+	
+	
+	/**
+	 * Returns the schedule deciding which queries are sent for each stroke.  This is setup from
+	 * the options but may be changed.
+	 * 
+	 * @return	the polling schedule
+	 */
+	public PollingSchedule getPollingSchedule() {
+		
+		return schedule;
+	}
+	
+	
+	/**
+	 * Returns the name of the serial port this unit uses
+	 * 
+	 * @return	the serial port name
+	 */
+	public String getPortName() {
+		
+		return portName;
+	}
+	
+	
+	/**
+	 * Sets the clock the arrival of each response is stamped with.  Timeouts on the serial line
+	 * stay on the wall clock as the line runs in real time.
+	 * 
+	 * @param	clock	the race clock
+	 */
+	public void setClock(IClock clock) {
+		
+		readListener.setClock(clock);
 	}
 	
 	
 	/* Inherited Javadoc */
 	public void cleanUp() throws NumberFormatException, IOException, InterruptedException {
 		
-		/* Release the serial port for other applications if it has been used by this program */
-		if (serialPort != null) {
-			
-			/* Unlock the PM2+ */
-			pm2PlusOutputStream.write(Integer.parseInt(UNLOCK_UNIT, 16));
-			Thread.sleep(100);
-			
-			/* Close the streams and serial port */
-			pm2PlusInputStream.close();
-			pm2PlusOutputStream.close();
-			serialPort.close();
+		try {
+			/* Release the serial port for other applications if it has been used by this 
+			 * program.  The port is closed even if the PM2+ doesn't confirm the unlock. */
+			if (transport != null) {
+				try {
+					commandBuffer[0] = (byte) UNLOCK_UNIT;
+					sendCommand(1, ANY_STATUS, "unlock");
+				}
+				finally {
+					transport.close();
+				}
+			}
+		}
+		finally {
+			/* This instance must be recreated for the port as no longer of any use */
+			synchronized (PM2PlusUnit.class) {
+				units.remove(portName);
+			}
 		}
-		
-		/* This class must be reinstantiated as no longer of any use */
-		singleton = null;
 	}
 	
 	
@@ -171,48 +283,84 @@ public class PM2PlusUnit implements IInputDevice {
 			throws NumberFormatException, IOException, InterruptedException {
 		
 		/* Display a number.  No thread sleeping as done in time for countdown  */
-		pm2PlusOutputStream.write(Integer.parseInt(DISPLAY_NUMBER, 16));
+		pm2PlusOutputStream.write(DISPLAY_NUMBER);
 		pm2PlusOutputStream.write(time);
 	}
 	
 	
 	/* Inherited Javadoc */
 	public StrokeData retrieveStrokeData(float ergNumber) 
-			throws NumberFormatException, IOException {
+			throws NumberFormatException, IOException, InterruptedException {
 		
-		/* As we are receiving a stroke we should clear the last one first */
-		PM2PlusStrokeManager.getInstance().setStrokeData(null);
+		singleErgo[0] = (int) ergNumber;
+		retrieveStrokeData(singleErgo, singleStroke);
 		
-		/* Generate erg number as string */
-		String ergNum = Integer.toHexString(new Float(ergNumber).intValue());
-		if (ergNum.length() == 1) {
-			ergNum = "0" + ergNum;
-		}
+		return singleStroke[0];
+	}
+	
+	
+	/**
+	 * Retrieves the stroke data for several ergos on the chain at once.  The queries for the
+	 * ergos are interleaved, so one ergo is being queried whilst another's response is on its
+	 * way, and the ergo queried first changes each time so that no ergo's data is always the
+	 * oldest.  Each stroke is stamped with the time its data arrived.
+	 * 
+	 * @param	ergoNumbers	the ergos to retrieve
+	 * @param	strokes		filled with the stroke for each ergo, in the same order.  The strokes
+	 * 						are reused by the next retrieval.
+	 * @throws IOException	if an ergo doesn't respond after the retries
+	 * @throws InterruptedException
+	 */
+	public synchronized void retrieveStrokeData(int [] ergoNumbers, StrokeData [] strokes) 
+			throws IOException, InterruptedException {
 		
-		/* Query Distance */
-		pm2PlusOutputStream.write(Integer.parseInt(QUERY_DISTANCE, 16));
-		pm2PlusOutputStream.write(Integer.parseInt(ergNum, 16));
-		waitForDataToBeProcessed();
-				
-		/* Query Time */
-		pm2PlusOutputStream.write(Integer.parseInt(QUERY_TIME, 16));
-		pm2PlusOutputStream.write(Integer.parseInt(ergNum, 16));
-		waitForDataToBeProcessed();
-				
-		if ( OptionsSingleton.getInstance().getFullStrokeData() ) {
-			/* Query Pace */
-			pm2PlusOutputStream.write(Integer.parseInt(QUERY_PACE, 16));
-			pm2PlusOutputStream.write(Integer.parseInt(ergNum, 16));
-			waitForDataToBeProcessed();
+		/* Determine the queries to make for each ergo this time */
+		int ergoCount = ergoNumbers.length;
+		ensureBatchCapacity(ergoCount);
+		for (int i = 0; i < ergoCount; i++) {
+			int ergo = ergoNumbers[i];
+			ergoRetrievals[i] = retrievals[ergo]++;
+			ergoQueryCounts[i] = schedule.getQueries( ergoRetrievals[i], ergoQueries[i] );
+			received[i] = false;
+		}
 		
-			/* Query Heart */
-			pm2PlusOutputStream.write(Integer.parseInt(QUERY_HEART, 16));
-			pm2PlusOutputStream.write(Integer.parseInt(ergNum, 16));
-			waitForDataToBeProcessed();
+		/* Query the ergos, retrying those the PM2+ doesn't respond for in time (e.g. a byte is
+		 * lost) */
+		int retries = OptionsSingleton.getInstance().getSerialRetries();
+		boolean complete = false;
+		long start = Instrumentation.SERIAL_QUERY.start();
+		for (int attempt = 0; attempt <= retries && !complete; attempt++) {
+			long eventStart = EventRecorder.start();
+			int queryCount = queryErgos(ergoNumbers, ergoCount);
+			EventRecorder.record( EventRecorder.QUERY, eventStart, 
+				(ergoCount == 1) ? ergoNumbers[0] : -1, ergoCount, queryCount * 2 );
+			
+			complete = true;
+			for (int i = 0; i < ergoCount; i++) {
+				received[i] = received[i] || manager.isComplete(i);
+				complete = complete && received[i];
+			}
 		}
+		rotation++;
+		Instrumentation.SERIAL_QUERY.stop(start);
 		
-		/* Return the stroke data */
-		return PM2PlusStrokeManager.getInstance().getStrokeData();
+		/* Return the strokes with the metrics not queried carried forward */
+		for (int i = 0; i < ergoCount; i++) {
+			int ergo = ergoNumbers[i];
+			if (!received[i]) {
+				throw new IOException("No response from ergo " + (ergo + 1) + " after " 
+					+ (retries + 1) + " attempts");
+			}
+			
+			strokes[i] = manager.getStrokeData(i);
+			carryForward( strokes[i], lastStrokes[ergo], ergoRetrievals[i] );
+			
+			/* The stroke is reused for the next retrieval so its values are kept */
+			if (lastStrokes[ergo] == null) {
+				lastStrokes[ergo] = new StrokeData();
+			}
+			lastStrokes[ergo].setStrokeData( strokes[i] );
+		}
 	}
 	
 	
@@ -220,60 +368,63 @@ public class PM2PlusUnit implements IInputDevice {
 	public void setupWorkout(Workout workout) 
 			throws NumberFormatException, IOException, InterruptedException {
 	
+		/* Every metric is queried on the first stroke of the workout */
+		for (int i = 0; i < MAX_ERGOS; i++) {
+			retrievals[i] = 0;
+			lastStrokes[i] = null;
+		}
+		
 		/* Lock the unit */
-		pm2PlusOutputStream.write(Integer.parseInt(LOCK_UNIT, 16));
-		Thread.sleep(100);
+		commandBuffer[0] = (byte) LOCK_UNIT;
+		sendCommand(1, ANY_STATUS, "lock");
 
-		/* Determine the type of workout and setup accordingly */
-		String hexString = "";
-		boolean workoutFlag = false;
+		/* Determine the type of workout and setup accordingly.  The setup is confirmed by the
+		 * status, which gives the type of workout the PM2+ is set up for. */
+		int expectedStatus = ANY_STATUS;
+		float target = 0;
 	
 		if (workout.getType() == Workout.DISTANCE_WORKOUT) {
-	
-			/* Setup as a distance workout and create the hexString  */
-			pm2PlusOutputStream.write(Integer.parseInt(SETUP_DISTANCE, 16));
-			hexString = Integer.toHexString( Float.floatToIntBits(workout.getDistance()) );
-		
-			workoutFlag = true;
+			commandBuffer[0] = (byte) SETUP_DISTANCE;
+			target = workout.getDistance();
+			expectedStatus = DISTANCE_STATUS;
 		}
 		if (workout.getType() == Workout.TIME_WORKOUT) {
-
-			/* Setup as a time workout and create the hexString  */
-			pm2PlusOutputStream.write(Integer.parseInt(SETUP_TIME, 16));
-			hexString = Integer.toHexString( Float.floatToIntBits(workout.getTime()) );
-		
-			workoutFlag = true;
+			commandBuffer[0] = (byte) SETUP_TIME;
+			target = workout.getTime();
+			expectedStatus = TIME_STATUS;
 		}
 
-		/* If a workout of type in the above if statements, send the data through */
-		if (workoutFlag) {
-			pm2PlusOutputStream.write(Integer.parseInt(hexString.substring(6,8) , 16));
-			pm2PlusOutputStream.write(Integer.parseInt(hexString.substring(4,6) , 16));
-			pm2PlusOutputStream.write(Integer.parseInt(hexString.substring(2,4) , 16));
-			pm2PlusOutputStream.write(Integer.parseInt(hexString.substring(0,2) , 16));
-			Thread.sleep(100);
+		/* If a workout of type in the above if statements, send the target through least 
+		 * significant byte first.  The unit needs to be relocked afterwards due an inherent
+		 * error with the PM2+, which is sent with the setup so that one confirmation covers
+		 * both. */
+		if (expectedStatus != ANY_STATUS) {
+			int bits = Float.floatToIntBits(target);
+			commandBuffer[1] = (byte) bits;
+			commandBuffer[2] = (byte) (bits >> 8);
+			commandBuffer[3] = (byte) (bits >> 16);
+			commandBuffer[4] = (byte) (bits >> 24);
+			commandBuffer[5] = (byte) LOCK_UNIT;
+			sendCommand(6, expectedStatus, "workout setup");
 		}
-
-		/* The unit needs to be relocked due an inherent error with the PM2+ */
-		pm2PlusOutputStream.write(Integer.parseInt(LOCK_UNIT, 16));
-		Thread.sleep(100);
 	}
 	
 	
 	/* Inherited Javadoc */
 	public void startRowing(int startType) 
 			throws NumberFormatException, IOException, InterruptedException {
-		/* Thread sleeping is low so start as soon as possible after command issued */
 		
+		/* The confirmation returns as soon as the PM2+ has the command so rowing starts as soon
+		 * as possible */
 		if (startType == Workout.START_ON_STROKE) {
 			/* Start rowing on first stroke */
-			pm2PlusOutputStream.write(Integer.parseInt(START_ON_STROKE, 16));
-			Thread.sleep(10);
+			commandBuffer[0] = (byte) START_ON_STROKE;
+			sendCommand(1, ANY_STATUS, "start");
 		}
 		if (startType == Workout.START_AFTER_COUNT) {
 			/* Start rowing immediately */
-			pm2PlusOutputStream.write(Integer.parseInt(START_NOW, 16));
-			Thread.sleep(10);
+			commandBuffer[0] = (byte) START_NOW;
+			sendCommand(1, ANY_STATUS, "start");
 		}
 	}
 	
@@ -281,53 +432,258 @@ public class PM2PlusUnit implements IInputDevice {
 	/* Private Methods */
 	
 	/**
-	 * Initialise the serial port
+	 * Copies the metrics that weren't queried for this stroke from the last stroke, so that every
+	 * stroke has the latest known values
 	 * 
-	 * @param	port	The serial port identifier
-	 * @param	workout	The workout
+	 * @param	stroke		the stroke just retrieved
+	 * @param	last		the last stroke retrieved from the ergo; null if none
+	 * @param	retrieval	the number of the retrieval the stroke was from
+	 */
+	private void carryForward(StrokeData stroke, StrokeData last, int retrieval) {
+		
+		if (last == null) {
+			return;
+		}
+		
+		if ( !schedule.isDue(PollingSchedule.DISTANCE, retrieval) ) {
+			stroke.setDistance( last.getDistance() );
+		}
+		if ( !schedule.isDue(PollingSchedule.TIME, retrieval) ) {
+			stroke.setTime( last.getTime() );
+		}
+		if ( !schedule.isDue(PollingSchedule.PACE, retrieval) ) {
+			stroke.setStrokeRate( last.getStrokeRate() );
+			stroke.setPower( last.getPower() );
+		}
+		if ( !schedule.isDue(PollingSchedule.HEART, retrieval) ) {
+			stroke.setHeartRate( last.getHeartRate() );
+		}
+		
+		/* The end of a stroke is only reported once, but the end of the workout remains */
+		if ( stroke.getStatus() == StrokeData.UNSET && !last.isEndOfStroke() ) {
+			stroke.setStatus( last.getStatus() );
+		}
+	}
+	
+	
+	/**
+	 * Returns whether a status shows the PM2+ is set up as expected.  Only the workout type bits
+	 * are compared, as the PM2+ also flags the end of a stroke or workout and venue racing in the
+	 * status.  The decoder standardises the end of a stroke or workout only for the workout type
+	 * the port was opened with, so those statuses also confirm the setup.
+	 * 
+	 * @param	status			the status of the confirming response
+	 * @param	expectedStatus	the status expected; ANY_STATUS if any will do
+	 * @return	<code>true</code> if the status is as expected; <code>false</code> otherwise
+	 */
+	private boolean isStatus(int status, int expectedStatus) {
+		
+		if (expectedStatus == ANY_STATUS) {
+			return true;
+		}
+		if (status == StrokeData.END_OF_STROKE || status == StrokeData.END_OF_WORKOUT) {
+			return true;
+		}
+		
+		return status != StrokeData.UNSET && (status & ~STATUS_FLAGS) == expectedStatus;
+	}
+	
+	
+	/**
+	 * Creates the polling schedule from the options.  Distance and time are queried for every
+	 * stroke; pace and heart rate at their intervals if full stroke data is on.
+	 * 
+	 * @return	the schedule
+	 */
+	private PollingSchedule createSchedule() {
+		
+		OptionsSingleton options = OptionsSingleton.getInstance();
+		PollingSchedule pollingSchedule = new PollingSchedule();
+		
+		if ( options.getFullStrokeData() ) {
+			pollingSchedule.setPeriod( PollingSchedule.PACE, options.getPaceInterval() );
+			pollingSchedule.setPeriod( PollingSchedule.HEART, options.getHeartInterval() );
+		}
+		else {
+			pollingSchedule.setPeriod(PollingSchedule.PACE, 0);
+			pollingSchedule.setPeriod(PollingSchedule.HEART, 0);
+		}
+		
+		return pollingSchedule;
+	}
+	
+	
+	/**
+	 * Initialise the transport
+	 * 
+	 * @param	transport	The open serial port or emulator
+	 * @param	workout		The workout
 	 * 
-	 * @throws PortInUseException
-	 * @throws UnsupportedCommOperationException
 	 * @throws IOException
 	 * @throws TooManyListenersException
 	 */
-	private void initialisePort(CommPortIdentifier port, Workout workout) 
-		throws PortInUseException, UnsupportedCommOperationException, 
-		IOException, TooManyListenersException {
-		
-		/* Open the serial port */
-		serialPort = (SerialPort) port.open(OptionsSingleton.APP_NAME, PORT_TIMEOUT);
+	private void initialiseTransport(ISerialTransport transport, Workout workout) 
+		throws IOException, TooManyListenersException {
 		
-		/* Set the port up to the defaults required */
-		serialPort.notifyOnDataAvailable(true);
-		serialPort.setSerialPortParams
-			(9600, SerialPort.DATABITS_8, SerialPort.STOPBITS_1, SerialPort.PARITY_NONE);
+		this.transport = transport;
 		
 		/* Get the input and output streams */
-		pm2PlusOutputStream = serialPort.getOutputStream();
-		pm2PlusInputStream = serialPort.getInputStream();
+		pm2PlusOutputStream = transport.getOutputStream();
+		pm2PlusInputStream = transport.getInputStream();
 		
 		/* Add the event listener */
-		serialPort.addEventListener( 
-			new PM2PlusReadEventListener( pm2PlusInputStream, workout.getType() ) );
+		readListener = 
+			new PM2PlusReadEventListener( pm2PlusInputStream, manager, workout.getType() );
+		transport.setDataListener(readListener);
 	}
 
 	
 	/**
-	 * Ensures that the program cannot progess until the serial port event has fired and completed
+	 * Makes sure the batch arrays can hold the queries for the given number of ergos
+	 * 
+	 * @param	ergoCount	the number of ergos
 	 */
-	private void waitForDataToBeProcessed() throws NumberFormatException, IOException {
+	private void ensureBatchCapacity(int ergoCount) {
+		
+		if (ergoCount > ergoQueryCounts.length) {
+			ergoQueries = new int[ergoCount][4];
+			ergoQueryCounts = new int[ergoCount];
+			ergoRetrievals = new int[ergoCount];
+			received = new boolean[ergoCount];
+			queries = new int[ergoCount * 4];
+			querySlots = new int[ergoCount * 4];
+			queryBuffer = new byte[ergoCount * 8];
+		}
+	}
 	
-		/* Retrieve the manager */
-		PM2PlusStrokeManager manager = PM2PlusStrokeManager.getInstance();
 	
-		/* Whilst we are waiting for the data to be processed let the current thread
-		 * (ie this class) check for other threads - ie the PM2PlusReadEventListener */
-		while ( !manager.getDataProcessed() ) {
-			Thread.yield();
+	/**
+	 * Sends the queries for the ergos whose strokes haven't been received and waits for the
+	 * responses
+	 * 
+	 * @param	ergoNumbers	the ergos
+	 * @param	ergoCount	the number of ergos
+	 * @return	the number of queries sent
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private int queryErgos(int [] ergoNumbers, int ergoCount) 
+			throws IOException, InterruptedException {
+		
+		/* Interleave the queries round robin, starting with a different ergo each time, so the
+		 * most important query for every ergo is sent before the less important ones.  Each ergo
+		 * starts a new stroke for the responses to fill in, which is only complete once all its
+		 * queries have been answered.  If a query goes unanswered those after it aren't sent, so
+		 * their ergos are queried again. */
+		int queryCount = 0;
+		for (int i = 0; i < ergoCount; i++) {
+			if (!received[i]) {
+				manager.startStroke( i, ergoQueryCounts[i] );
+			}
+		}
+		for (int level = 0; level < 4; level++) {
+			for (int j = 0; j < ergoCount; j++) {
+				int slot = (rotation + j) % ergoCount;
+				if (!received[slot] && level < ergoQueryCounts[slot]) {
+					queries[queryCount] = ergoQueries[slot][level];
+					querySlots[queryCount] = slot;
+					queryBuffer[queryCount * 2] = (byte) queries[queryCount];
+					queryBuffer[queryCount * 2 + 1] = (byte) ergoNumbers[slot];
+					queryCount++;
+				}
+			}
+		}
+		
+		if (queryCount == 0) {
+			return 0;
+		}
+		
+		if ( OptionsSingleton.getInstance().getPipelinedQueries() ) {
+			
+			/* Send every query in a single write and wait for all the responses.  This saves a
+			 * round trip per query as the PM2+ answers them in the order they were sent. */
+			manager.expectResponses(queries, querySlots, 0, queryCount);
+			pm2PlusOutputStream.write(queryBuffer, 0, queryCount * 2);
+			pm2PlusOutputStream.flush();
+			
+			waitForDataToBeProcessed();
+		}
+		else {
+			
+			/* Send each query in turn, waiting for its response before sending the next */
+			for (int i = 0; i < queryCount; i++) {
+				manager.expectResponses(queries, querySlots, i, 1);
+				pm2PlusOutputStream.write(queryBuffer, i * 2, 2);
+				
+				if ( !waitForDataToBeProcessed() ) {
+					return i + 1;
+				}
+			}
+		}
+		
+		return queryCount;
+	}
+	
+	
+	/**
+	 * Sends the command in the command buffer and confirms the PM2+ has acted on it.  The PM2+
+	 * doesn't acknowledge commands, but it handles bytes in the order they arrive, so the 
+	 * response to a status query sent straight after the command shows the command has been
+	 * processed.  The command is resent if the response doesn't arrive before the serial 
+	 * timeout or doesn't have the expected status.
+	 * 
+	 * @param	length			the number of bytes of the command in the command buffer
+	 * @param	expectedStatus	the status confirming the command; ANY_STATUS if any will do
+	 * @param	description		the command, for the error message
+	 * @throws IOException	if the command isn't confirmed after the retries
+	 * @throws InterruptedException
+	 */
+	private synchronized void sendCommand(int length, int expectedStatus, String description) 
+			throws IOException, InterruptedException {
+		
+		/* Follow the command with the status query */
+		commandBuffer[length] = (byte) QUERY_TIME;
+		commandBuffer[length + 1] = (byte) CONFIRM_ERGO;
+		
+		int retries = OptionsSingleton.getInstance().getSerialRetries();
+		for (int attempt = 0; attempt <= retries; attempt++) {
+			StrokeData status = manager.startStroke(0, 1);
+			manager.expectResponses(confirmQuery, confirmSlot, 0, 1);
+			pm2PlusOutputStream.write(commandBuffer, 0, length + 2);
+			pm2PlusOutputStream.flush();
+			
+			if ( waitForDataToBeProcessed() && isStatus(status.getStatus(), expectedStatus) ) {
+				return;
+			}
+		}
+		
+		throw new IOException("The PM2+ on " + portName + " did not confirm the " + description 
+			+ " command after " + (retries + 1) + " attempts");
+	}
+	
+	
+	/**
+	 * Ensures that the program cannot progess until the serial port event has fired and completed
+	 * or the serial timeout has expired.  The calling thread is blocked, rather than polling, so
+	 * no processor time is taken from the GUI whilst waiting for the PM2+.
+	 * 
+	 * @return	<code>true</code> if the data was processed; <code>false</code> if the PM2+ didn't
+	 * 			respond before the timeout
+	 * @throws InterruptedException
+	 */
+	private boolean waitForDataToBeProcessed() throws InterruptedException {
+	
+		/* Block until the PM2PlusReadEventListener has processed the responses */
+		boolean processed = 
+			manager.waitForResponses( OptionsSingleton.getInstance().getSerialTimeout() );
+		
+		/* If the PM2+ didn't respond then any late or partial responses must not be taken as the
+		 * answer to the next query */
+		if (!processed) {
+			manager.cancelResponses();
+			readListener.discardBufferedData();
 		}
 		
-		/* Now that the data has been processed, set the data processed to false for next time */
-		manager.setDataProcessed(false);	
+		return processed;
 	}
 }
\ No newline at end of file
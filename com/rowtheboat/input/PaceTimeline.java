@@ -0,0 +1,315 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: PaceTimeline.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Strokes found by time with a cursor or binary search
+ * 17-Oct-2026	1.05		agent		Loaded by the streaming PaceTimelineLoader
+ * 17-Oct-2026	1.05		agent		Strokes held in buffers so session files can be mapped
+ * 
+ */
+ 
+package com.rowtheboat.input;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
+
+/**
+ * PaceTimeline holds the strokes of a workout log (as written by the XMLWorkoutWriter) in
+ * parallel columns, so a pace boat can be raced against the log without going back to the XML.
+ * An XML log is streamed into arrays by a PaceTimelineLoader when it is loaded, whereas the 
+ * columns of a binary SessionFile are read straight from the mapped file.  A timeline can't be
+ * changed once made, so it may be shared.
+ * 
+ * @author agent
+ */
+
+public class PaceTimeline {
+
+	/* Class Variables */
+	
+	private final FloatBuffer times;				/* The stroke times in seconds */
+	private final FloatBuffer distances;			/* The stroke distances in meters */
+	private final FloatBuffer splits;				/* The 500m splits in seconds, 0 if the
+													   stroke has no pace data */
+	private final DoubleBuffer powers;				/* The powers in watts */
+	private final IntBuffer strokeRates;			/* The stroke rates */
+	private final FloatBuffer heartRates;			/* The heart rates */
+	private final int count;						/* The number of strokes */
+	private final SessionDetails details;			/* The rower and workout details, may be
+													   null */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs a timeline from the values of each stroke.  The arrays must be the same length
+	 * and the times increasing.  The arrays are copied.
+	 * 
+	 * @param	times		the stroke times in seconds
+	 * @param	distances	the distances at each stroke in meters
+	 * @param	splits		the 500m splits in seconds, 0 if the stroke has no pace data
+	 * @param	powers		the powers in watts
+	 * @param	strokeRates	the stroke rates
+	 * @param	heartRates	the heart rates
+	 */
+	public PaceTimeline(float [] times, float [] distances, float [] splits, double [] powers, 
+			int [] strokeRates, float [] heartRates) {
+		
+		this(times, distances, splits, powers, strokeRates, heartRates, null);
+	}
+	
+	
+	/**
+	 * Constructs a timeline from the values of each stroke and the details of the workout.  The
+	 * arrays must be the same length and the times increasing.  The arrays are copied.
+	 * 
+	 * @param	times		the stroke times in seconds
+	 * @param	distances	the distances at each stroke in meters
+	 * @param	splits		the 500m splits in seconds, 0 if the stroke has no pace data
+	 * @param	powers		the powers in watts
+	 * @param	strokeRates	the stroke rates
+	 * @param	heartRates	the heart rates
+	 * @param	details		the rower and workout details, may be null
+	 */
+	public PaceTimeline(float [] times, float [] distances, float [] splits, double [] powers, 
+			int [] strokeRates, float [] heartRates, SessionDetails details) {
+		
+		this( FloatBuffer.wrap( (float []) times.clone() ), 
+			FloatBuffer.wrap( (float []) distances.clone() ),
+			FloatBuffer.wrap( (float []) splits.clone() ), 
+			DoubleBuffer.wrap( (double []) powers.clone() ),
+			IntBuffer.wrap( (int []) strokeRates.clone() ), 
+			FloatBuffer.wrap( (float []) heartRates.clone() ), details );
+	}
+	
+	
+	/**
+	 * Constructs a timeline over columns that are already held in buffers, such as those mapped
+	 * from a session file.  The buffers are used as they are, so must not be changed afterwards.
+	 * 
+	 * @param	times		the stroke times in seconds
+	 * @param	distances	the distances at each stroke in meters
+	 * @param	splits		the 500m splits in seconds, 0 if the stroke has no pace data
+	 * @param	powers		the powers in watts
+	 * @param	strokeRates	the stroke rates
+	 * @param	heartRates	the heart rates
+	 * @param	details		the rower and workout details, may be null
+	 */
+	PaceTimeline(FloatBuffer times, FloatBuffer distances, FloatBuffer splits, 
+			DoubleBuffer powers, IntBuffer strokeRates, FloatBuffer heartRates, 
+			SessionDetails details) {
+		
+		int count = times.limit();
+		if (distances.limit() != count || splits.limit() != count || powers.limit() != count ||
+				strokeRates.limit() != count || heartRates.limit() != count) {
+			throw new IllegalArgumentException("The stroke arrays must be the same length");
+		}
+		
+		this.times = times;
+		this.distances = distances;
+		this.splits = splits;
+		this.powers = powers;
+		this.strokeRates = strokeRates;
+		this.heartRates = heartRates;
+		this.count = count;
+		this.details = details;
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Finds the last stroke at or before the given time
+	 * 
+	 * @param	time	the time in seconds
+	 * @return	the stroke index; 0 if the time is before the first stroke
+	 */
+	public int findStroke(float time) {
+		
+		/* Binary search for the last time not after the time given */
+		int low = 0;
+		int high = count - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (times.get(middle) <= time) {
+				low = middle;
+			}
+			else {
+				high = middle - 1;
+			}
+		}
+		
+		return low;
+	}
+	
+	
+	/**
+	 * Finds the last stroke at or before the given time, starting from the stroke found for the
+	 * previous time.  When the times go forwards, as in a race, this is the same or the next 
+	 * stroke and is found without searching.  Any other time is found by a binary search.
+	 * 
+	 * @param	time	the time in seconds
+	 * @param	cursor	the stroke found for the previous time
+	 * @return	the stroke index; 0 if the time is before the first stroke
+	 */
+	public int findStroke(float time, int cursor) {
+		
+		int lastIndex = count - 1;
+		if ( cursor >= 0 && cursor <= lastIndex && times.get(cursor) <= time ) {
+			
+			/* Check whether the time is still within the stroke or the next one */
+			if ( cursor == lastIndex || time < times.get(cursor + 1) ) {
+				return cursor;
+			}
+			if ( cursor + 1 == lastIndex || time < times.get(cursor + 2) ) {
+				return cursor + 1;
+			}
+		}
+		
+		return findStroke(time);
+	}
+	
+	
+	/**
+	 * Returns the rower and workout details
+	 * 
+	 * @return	the details; null if the log had none
+	 */
+	public SessionDetails getDetails() {
+		
+		return details;
+	}
+	
+	
+	/**
+	 * Returns the distance at a stroke
+	 * 
+	 * @param	stroke	the stroke index
+	 * @return	the distance in meters
+	 */
+	public float getDistance(int stroke) {
+		
+		return distances.get(stroke);
+	}
+	
+	
+	/**
+	 * Returns the heart rate at a stroke
+	 * 
+	 * @param	stroke	the stroke index
+	 * @return	the heart rate
+	 */
+	public float getHeartRate(int stroke) {
+		
+		return heartRates.get(stroke);
+	}
+	
+	
+	/**
+	 * Returns the power of a stroke
+	 * 
+	 * @param	stroke	the stroke index
+	 * @return	the power in watts
+	 */
+	public double getPower(int stroke) {
+		
+		return powers.get(stroke);
+	}
+	
+	
+	/**
+	 * Returns the 500m split of a stroke
+	 * 
+	 * @param	stroke	the stroke index
+	 * @return	the split in seconds, 0 if the stroke has no pace data
+	 */
+	public float getSplit(int stroke) {
+		
+		return splits.get(stroke);
+	}
+	
+	
+	/**
+	 * Returns the number of strokes
+	 * 
+	 * @return	the number of strokes
+	 */
+	public int getStrokeCount() {
+		
+		return count;
+	}
+	
+	
+	/**
+	 * Returns the stroke rate of a stroke
+	 * 
+	 * @param	stroke	the stroke index
+	 * @return	the stroke rate
+	 */
+	public int getStrokeRate(int stroke) {
+		
+		return strokeRates.get(stroke);
+	}
+	
+	
+	/**
+	 * Returns the time of a stroke
+	 * 
+	 * @param	stroke	the stroke index
+	 * @return	the time in seconds
+	 */
+	public float getTime(int stroke) {
+		
+		return times.get(stroke);
+	}
+	
+	
+	/**
+	 * Loads the strokes of a workout log, either a binary session file or the XML
+	 * 
+	 * @param	file	the workout log
+	 * @return	the timeline
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 */
+	public static PaceTimeline load(File file) 
+			throws IOException, SAXException, ParserConfigurationException {
+		
+		if ( SessionFile.isSessionFile(file) ) {
+			return SessionFile.read(file);
+		}
+		return PaceTimelineLoader.load(file, null);
+	}
+}
@@ -0,0 +1,262 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: PaceTimelineCache.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 18-Oct-2026	1.05		agent		Added evict so a session file can be replaced
+ * 
+ */
+ 
+package com.rowtheboat.input;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
+
+/**
+ * PaceTimelineCache keeps the timelines of the workout logs loaded, so a log raced against by
+ * several lanes or shadows, or in several races, is only parsed once.  As a timeline can't be
+ * changed each lane shares it and keeps only its own place in it.  A log is known by its canonical
+ * path and is loaded again if it has been modified since.  The least recently used timelines are
+ * dropped once the strokes held pass a limit.
+ * 
+ * @author agent
+ */
+
+public class PaceTimelineCache {
+
+	/* Class Variables */
+	
+	private LinkedHashMap entries = new LinkedHashMap(16, 0.75f, true);
+													/* The entries by path, least recently used
+													   first */
+	private int maximumStrokes = DEFAULT_MAXIMUM_STROKES;
+													/* The most strokes to hold */
+	private int strokes;							/* The strokes held */
+	private int loads;								/* The number of logs parsed */
+	
+	private static PaceTimelineCache singleton;		/* Self reference for singleton */
+	
+	/**
+	 * The most strokes held by default, around two days of rowing
+	 */
+	public static final int DEFAULT_MAXIMUM_STROKES = 1000000;
+	
+	
+	/* Constructor */
+	
+	/**
+	 * A private constructor to ensure that only one instance is created.
+	 */
+	private PaceTimelineCache() {
+		
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Returns the PaceTimelineCache instance
+	 * 
+	 * @return	the cache
+	 */
+	public static synchronized PaceTimelineCache getInstance() {
+		
+		if (singleton == null) {
+			singleton = new PaceTimelineCache();
+		}
+		
+		return singleton;
+	}
+	
+	
+	/**
+	 * Drops all the timelines held
+	 */
+	public synchronized void clear() {
+		
+		entries.clear();
+		strokes = 0;
+	}
+	
+	
+	/**
+	 * Drops the timeline of a workout log if it is held, e.g. before the file is replaced.  A 
+	 * timeline read from a session file maps the file, and the mapping is only released once the
+	 * garbage collector frees the timeline, so this lets it go once no lane is using it.
+	 * 
+	 * @param	file	the workout log
+	 * @throws IOException
+	 */
+	public synchronized void evict(File file) throws IOException {
+		
+		String path = file.getCanonicalPath();
+		if ( entries.containsKey(path) ) {
+			remove(path);
+		}
+	}
+	
+	
+	/**
+	 * Returns the number of logs that have been parsed rather than found in the cache
+	 * 
+	 * @return	the number of loads
+	 */
+	public synchronized int getLoadCount() {
+		
+		return loads;
+	}
+	
+	
+	/**
+	 * Returns the most strokes held before timelines are dropped
+	 * 
+	 * @return	the number of strokes
+	 */
+	public synchronized int getMaximumStrokes() {
+		
+		return maximumStrokes;
+	}
+	
+	
+	/**
+	 * Returns the number of strokes held
+	 * 
+	 * @return	the number of strokes
+	 */
+	public synchronized int getStrokeCount() {
+		
+		return strokes;
+	}
+	
+	
+	/**
+	 * Returns the timeline of a workout log, loading it unless it is held and unchanged
+	 * 
+	 * @param	file	the workout log
+	 * @return	the timeline
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 */
+	public synchronized PaceTimeline load(File file) 
+			throws IOException, SAXException, ParserConfigurationException {
+		
+		String path = file.getCanonicalPath();
+		long modified = file.lastModified();
+		long length = file.length();
+		
+		/* Use the timeline held unless the file has changed */
+		Entry entry = (Entry) entries.get(path);
+		if (entry != null) {
+			if (entry.modified == modified && entry.length == length) {
+				return entry.timeline;
+			}
+			remove(path);
+		}
+		
+		PaceTimeline timeline = PaceTimeline.load(file);
+		loads++;
+		entries.put( path, new Entry(timeline, modified, length) );
+		strokes += timeline.getStrokeCount();
+		trim();
+		
+		return timeline;
+	}
+	
+	
+	/**
+	 * Sets the most strokes held before timelines are dropped.  The timeline last used is always
+	 * held.
+	 * 
+	 * @param	maximumStrokes	the number of strokes
+	 */
+	public synchronized void setMaximumStrokes(int maximumStrokes) {
+		
+		this.maximumStrokes = maximumStrokes;
+		trim();
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Drops the timeline of a path
+	 * 
+	 * @param	path	the canonical path
+	 */
+	private void remove(String path) {
+		
+		Entry entry = (Entry) entries.remove(path);
+		strokes -= entry.timeline.getStrokeCount();
+	}
+	
+	
+	/**
+	 * Drops the least recently used timelines until the strokes held are within the maximum
+	 */
+	private void trim() {
+		
+		Iterator iterator = entries.values().iterator();
+		while (strokes > maximumStrokes && entries.size() > 1) {
+			Entry entry = (Entry) iterator.next();
+			iterator.remove();
+			strokes -= entry.timeline.getStrokeCount();
+		}
+	}
+	
+	
+	/* Inner Classes */
+	
+	/**
+	 * A timeline held with the state of the file it was loaded from
+	 */
+	private static class Entry {
+		
+		private final PaceTimeline timeline;		/* The timeline */
+		private final long modified;				/* The modification time of the file */
+		private final long length;					/* The length of the file */
+		
+		/**
+		 * Constructs the entry
+		 * 
+		 * @param	timeline	the timeline
+		 * @param	modified	the modification time of the file
+		 * @param	length		the length of the file
+		 */
+		public Entry(PaceTimeline timeline, long modified, long length) {
+			
+			this.timeline = timeline;
+			this.modified = modified;
+			this.length = length;
+		}
+	}
+}
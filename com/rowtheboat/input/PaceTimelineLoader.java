@@ -0,0 +1,384 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: PaceTimelineLoader.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Rower and workout details kept
+ * 17-Oct-2026	1.05		agent		Arrays trimmed once and wrapped rather than cloned again
+ * 
+ */
+ 
+package com.rowtheboat.input;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * PaceTimelineLoader reads the strokes of a workout log straight into the arrays of a
+ * PaceTimeline as the file is parsed, so no document is built and only the strokes are held in
+ * memory however long the session.  The rower and workout details are kept with the timeline.
+ * The progress can be reported as the file is read.
+ * 
+ * @author agent
+ */
+
+public class PaceTimelineLoader extends DefaultHandler {
+
+	/* Class Variables */
+	
+	private float [] times = new float[INITIAL_SIZE];/* The stroke times */
+	private float [] distances = new float[INITIAL_SIZE];
+													/* The stroke distances */
+	private float [] splits = new float[INITIAL_SIZE];
+													/* The stroke splits */
+	private double [] powers = new double[INITIAL_SIZE];
+													/* The stroke powers */
+	private int [] strokeRates = new int[INITIAL_SIZE];
+													/* The stroke rates */
+	private float [] heartRates = new float[INITIAL_SIZE];
+													/* The stroke heart rates */
+	private int count;								/* The number of strokes read */
+	
+	private boolean inStroke;						/* Whether a stroke is being read */
+	private boolean inRower;						/* Whether the rower is being read */
+	private boolean inDetails;						/* Whether the details are being read */
+	private boolean hasDetails;						/* Whether the log has details */
+	private String rowerName = "";					/* The name of the rower */
+	private String date = "";						/* The date of the workout */
+	private int type;								/* The type of the workout */
+	private int distance = -1;						/* The distance of the workout */
+	private int time = -1;							/* The time of the workout */
+	private StringBuffer text = new StringBuffer();	/* The text of the current value */
+	
+	private CountingInputStream input;				/* The file being read */
+	private long length;							/* The length of the file */
+	private IProgressListener listener;				/* Informed of the progress, may be null */
+	
+	private static final int INITIAL_SIZE = 1024;	/* The initial size of the arrays */
+	private static final int PROGRESS_STROKES = 1000;
+													/* The strokes between progress reports */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs the loader
+	 * 
+	 * @param	listener	informed of the progress, may be null
+	 */
+	private PaceTimelineLoader(IProgressListener listener) {
+		
+		this.listener = listener;
+	}
+	
+	
+	/* Public Methods */
+	
+	/* Inherited Javadoc */
+	public void characters(char [] ch, int start, int length) {
+		
+		if (inStroke || inRower || inDetails) {
+			text.append(ch, start, length);
+		}
+	}
+	
+	
+	/* Inherited Javadoc */
+	public void endElement(String uri, String localName, String qName) {
+		
+		if (inRower || inDetails) {
+			endDetailElement(qName);
+			return;
+		}
+		if (!inStroke) {
+			return;
+		}
+		
+		/* Store each value of the stroke as it ends */
+		if ( qName.equals("Stroke") ) {
+			inStroke = false;
+			count++;
+			if (listener != null && count % PROGRESS_STROKES == 0) {
+				listener.progress(input.getCount(), length);
+			}
+		}
+		else if ( qName.equals("Time") ) {
+			times[count] = Float.parseFloat( getText() );
+		}
+		else if ( qName.equals("Distance") ) {
+			distances[count] = Float.parseFloat( getText() );
+		}
+		else if ( qName.equals("Split") ) {
+			splits[count] = Float.parseFloat( getText() );
+		}
+		else if ( qName.equals("Power") ) {
+			powers[count] = Double.parseDouble( getText() );
+		}
+		else if ( qName.equals("SPM") ) {
+			strokeRates[count] = Integer.parseInt( getText() );
+		}
+		else if ( qName.equals("HR") ) {
+			heartRates[count] = Float.parseFloat( getText() );
+		}
+	}
+	
+	
+	/**
+	 * Loads the strokes of a workout log
+	 * 
+	 * @param	file		the workout log
+	 * @param	listener	informed of the progress, may be null
+	 * @return	the timeline
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 */
+	public static PaceTimeline load(File file, IProgressListener listener) 
+			throws IOException, SAXException, ParserConfigurationException {
+		
+		PaceTimelineLoader loader = new PaceTimelineLoader(listener);
+		loader.length = file.length();
+		loader.input = new CountingInputStream( new FileInputStream(file) );
+		
+		try {
+			XMLReader reader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+			reader.setContentHandler(loader);
+			InputSource source = new InputSource( new BufferedInputStream(loader.input) );
+			source.setSystemId( file.toURI().toString() );
+			reader.parse(source);
+		}
+		finally {
+			loader.input.close();
+		}
+		
+		if (listener != null) {
+			listener.progress(loader.length, loader.length);
+		}
+		
+		return loader.createTimeline();
+	}
+	
+	
+	/* Inherited Javadoc */
+	public void startElement(String uri, String localName, String qName, Attributes attributes) {
+		
+		/* Each stroke starts with the values of a stroke without pace data */
+		if ( qName.equals("Stroke") ) {
+			inStroke = true;
+			if (count == times.length) {
+				increaseArraySizes();
+			}
+			times[count] = 0;
+			distances[count] = 0;
+			splits[count] = 0;
+			powers[count] = StrokeData.UNSET;
+			strokeRates[count] = StrokeData.UNSET;
+			heartRates[count] = StrokeData.UNSET;
+		}
+		else if ( qName.equals("Rower") ) {
+			inRower = true;
+			hasDetails = true;
+		}
+		else if ( qName.equals("Details") ) {
+			inDetails = true;
+			hasDetails = true;
+		}
+		text.setLength(0);
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Creates the timeline of the strokes read.  The arrays are trimmed to the strokes read, 
+	 * unless already full, and handed to the timeline without being copied again, so at most two
+	 * copies of the strokes are held at once.
+	 * 
+	 * @return	the timeline
+	 */
+	private PaceTimeline createTimeline() {
+		
+		if (count < times.length) {
+			resizeArrays(count);
+		}
+		
+		SessionDetails details = null;
+		if (hasDetails) {
+			details = new SessionDetails(rowerName, date, type, distance, time);
+		}
+		
+		/* The loader is finished with so the arrays are the timeline's alone */
+		return new PaceTimeline( FloatBuffer.wrap(times), FloatBuffer.wrap(distances),
+			FloatBuffer.wrap(splits), DoubleBuffer.wrap(powers), IntBuffer.wrap(strokeRates),
+			FloatBuffer.wrap(heartRates), details );
+	}
+	
+	
+	/**
+	 * Stores a value of the rower or workout details as it ends
+	 * 
+	 * @param	qName	the name of the element ended
+	 */
+	private void endDetailElement(String qName) {
+		
+		if ( qName.equals("Rower") ) {
+			inRower = false;
+		}
+		else if ( qName.equals("Details") ) {
+			inDetails = false;
+		}
+		else if ( inRower && qName.equals("Name") ) {
+			rowerName = getText();
+		}
+		else if ( qName.equals("Date") ) {
+			date = getText();
+		}
+		else if ( qName.equals("Type") ) {
+			type = Integer.parseInt( getText() );
+		}
+		else if ( qName.equals("Distance") ) {
+			distance = Integer.parseInt( getText() );
+		}
+		else if ( qName.equals("Time") ) {
+			time = Integer.parseInt( getText() );
+		}
+	}
+	
+	
+	/**
+	 * Returns the text of the value just ended
+	 * 
+	 * @return	the text
+	 */
+	private String getText() {
+		
+		return text.toString().trim();
+	}
+	
+	
+	/**
+	 * Doubles the size of the arrays
+	 */
+	private void increaseArraySizes() {
+		
+		resizeArrays(times.length * 2);
+	}
+	
+	
+	/**
+	 * Changes the size of the arrays, keeping the strokes read
+	 * 
+	 * @param	size	the new size, at least the number of strokes read
+	 */
+	private void resizeArrays(int size) {
+		
+		float [] t = new float[size];
+		float [] d = new float[size];
+		float [] s = new float[size];
+		double [] p = new double[size];
+		int [] r = new int[size];
+		float [] h = new float[size];
+		System.arraycopy(times, 0, t, 0, count);
+		System.arraycopy(distances, 0, d, 0, count);
+		System.arraycopy(splits, 0, s, 0, count);
+		System.arraycopy(powers, 0, p, 0, count);
+		System.arraycopy(strokeRates, 0, r, 0, count);
+		System.arraycopy(heartRates, 0, h, 0, count);
+		times = t;
+		distances = d;
+		splits = s;
+		powers = p;
+		strokeRates = r;
+		heartRates = h;
+	}
+	
+	
+	/* Inner Classes */
+	
+	/**
+	 * Counts the bytes read from a stream
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+		
+		private long count;							/* The number of bytes read */
+		
+		/**
+		 * Constructs the stream
+		 * 
+		 * @param	in	the stream to count
+		 */
+		public CountingInputStream(InputStream in) {
+			
+			super(in);
+		}
+		
+		/**
+		 * Returns the number of bytes read
+		 * 
+		 * @return	the number of bytes
+		 */
+		public long getCount() {
+			
+			return count;
+		}
+		
+		/* Inherited Javadoc */
+		public int read() throws IOException {
+			
+			int b = super.read();
+			if (b != -1) {
+				count++;
+			}
+			return b;
+		}
+		
+		/* Inherited Javadoc */
+		public int read(byte [] b, int off, int len) throws IOException {
+			
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+	}
+}
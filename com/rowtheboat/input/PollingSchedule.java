@@ -0,0 +1,191 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: PollingSchedule.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.input;
+
+/**
+ * PollingSchedule decides which PM2+ queries are sent each time the stroke data for an ergo is
+ * retrieved.  Each metric has a sampling period, in retrievals, and a priority which orders the
+ * queries within a retrieval so the most important responses arrive first.  Metrics with the
+ * same period are staggered so that the slower queries are spread evenly over the retrievals.
+ * Every metric is sampled on the first retrieval.
+ * 
+ * @author agent
+ */
+
+public class PollingSchedule {
+
+	/* Class Variables */
+	
+	/**
+	 * The distance metric
+	 */
+	public static final int DISTANCE = 0;
+	
+	/**
+	 * The pace metric (stroke rate and power)
+	 */
+	public static final int PACE = 1;
+	
+	/**
+	 * The heart rate metric
+	 */
+	public static final int HEART = 2;
+	
+	/**
+	 * The time metric
+	 */
+	public static final int TIME = 3;
+	
+	private static final int METRICS = 4;			/* The number of metrics */
+	private static final int [] QUERIES = {PM2PlusUnit.QUERY_DISTANCE, PM2PlusUnit.QUERY_PACE,
+		PM2PlusUnit.QUERY_HEART, PM2PlusUnit.QUERY_TIME};
+													/* The query code of each metric */
+	
+	private int [] periods = {1, 1, 1, 1};			/* The sampling periods, 0 for never */
+	private int [] priorities = {0, 2, 3, 1};		/* The priorities, lowest first */
+	private int [] order = new int[METRICS];		/* The metrics in priority order */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs a schedule that samples every metric on every retrieval, in the order distance,
+	 * time, pace and heart
+	 */
+	public PollingSchedule() {
+		
+		sortByPriority();
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Fills the given array with the queries due on the given retrieval, in priority order
+	 * 
+	 * @param	retrieval	the number of the retrieval, counting from zero
+	 * @param	queries		the array to fill, which must have room for every metric
+	 * @return	the number of queries
+	 */
+	public int getQueries(int retrieval, int [] queries) {
+		
+		int count = 0;
+		for (int i = 0; i < METRICS; i++) {
+			if ( isDue(order[i], retrieval) ) {
+				queries[count++] = QUERIES[ order[i] ];
+			}
+		}
+		
+		return count;
+	}
+	
+	
+	/**
+	 * Returns the sampling period of the metric
+	 * 
+	 * @param	metric	the metric
+	 * @return	the number of retrievals between samples; 0 if never sampled
+	 */
+	public int getPeriod(int metric) {
+		
+		return periods[metric];
+	}
+	
+	
+	/**
+	 * Returns whether the metric is sampled on the given retrieval
+	 * 
+	 * @param	metric		the metric
+	 * @param	retrieval	the number of the retrieval, counting from zero
+	 * @return	<code>true</code> if the metric is sampled; <code>false</code> otherwise
+	 */
+	public boolean isDue(int metric, int retrieval) {
+		
+		int period = periods[metric];
+		if (period == 0) {
+			return false;
+		}
+		
+		/* Offset each metric by its number so those with the same period don't coincide */
+		return retrieval == 0 || retrieval % period == metric % period;
+	}
+	
+	
+	/**
+	 * Sets the sampling period of the metric
+	 * 
+	 * @param	metric	the metric
+	 * @param	period	the number of retrievals between samples; 0 for never
+	 */
+	public void setPeriod(int metric, int period) {
+		
+		periods[metric] = Math.max(period, 0);
+	}
+	
+	
+	/**
+	 * Sets the priority of the metric.  Metrics due on the same retrieval are queried lowest
+	 * priority number first.
+	 * 
+	 * @param	metric		the metric
+	 * @param	priority	the priority
+	 */
+	public void setPriority(int metric, int priority) {
+		
+		priorities[metric] = priority;
+		sortByPriority();
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Orders the metrics by priority
+	 */
+	private void sortByPriority() {
+		
+		for (int i = 0; i < METRICS; i++) {
+			order[i] = i;
+		}
+		
+		/* Insertion sort as there are only four */
+		for (int i = 1; i < METRICS; i++) {
+			int metric = order[i];
+			int j = i - 1;
+			while (j >= 0 && priorities[ order[j] ] > priorities[metric]) {
+				order[j + 1] = order[j];
+				j--;
+			}
+			order[j + 1] = metric;
+		}
+	}
+}
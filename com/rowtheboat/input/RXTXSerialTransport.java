@@ -0,0 +1,163 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: RXTXSerialTransport.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded from PM2PlusUnit
+ * 
+ */
+ 
+package com.rowtheboat.input;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.TooManyListenersException;
+
+import gnu.io.CommPortIdentifier;
+import gnu.io.PortInUseException;
+import gnu.io.SerialPort;
+import gnu.io.SerialPortEvent;
+import gnu.io.SerialPortEventListener;
+import gnu.io.UnsupportedCommOperationException;
+
+import com.rowtheboat.gui.OptionsSingleton;
+
+/**
+ * RXTXSerialTransport is the ISerialTransport for a real serial port, using the RXTX driver
+ * 
+ * @author agent
+ */
+
+public class RXTXSerialTransport implements ISerialTransport, SerialPortEventListener {
+
+	/* Class Variables */
+	
+	private SerialPort serialPort;						/* The serial port */
+	private ISerialDataListener listener;				/* The listener for incoming data */
+	
+	private static final int PORT_TIMEOUT = 2000;		/* The serial port timeout (=2seconds) */
+	private static final int BAUD_RATE = 9600;			/* The PM2+ baud rate */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs the transport around an open serial port
+	 * 
+	 * @param	serialPort	the serial port
+	 */
+	private RXTXSerialTransport(SerialPort serialPort) {
+		
+		this.serialPort = serialPort;
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Opens the named serial port and sets it up for the PM2+
+	 * 
+	 * @param	port	the port to open (this is OS dependent)
+	 * @return	the transport for the port
+	 * @throws PortInUseException
+	 * @throws UnsupportedCommOperationException
+	 * @throws IOException	if the port doesn't exist
+	 */
+	public static RXTXSerialTransport open(String port) 
+			throws PortInUseException, UnsupportedCommOperationException, IOException {
+		
+		/* Find the ports and iterate through them */
+		Enumeration portList = CommPortIdentifier.getPortIdentifiers();
+		
+		while (portList.hasMoreElements()) {
+			CommPortIdentifier portId = (CommPortIdentifier) portList.nextElement();
+			
+			/* If the port is serial and named as the passed parameter then open it */
+			if (portId.getPortType() == CommPortIdentifier.PORT_SERIAL 
+				&& portId.getName().equals(port)) {
+				
+				SerialPort serialPort = 
+					(SerialPort) portId.open(OptionsSingleton.APP_NAME, PORT_TIMEOUT);
+				
+				/* Set the port up to the defaults required */
+				serialPort.notifyOnDataAvailable(true);
+				serialPort.setSerialPortParams(BAUD_RATE, SerialPort.DATABITS_8, 
+					SerialPort.STOPBITS_1, SerialPort.PARITY_NONE);
+				
+				return new RXTXSerialTransport(serialPort);
+			}
+		}
+		
+		/* The port may have been chosen for a rower but since been removed from the system */
+		throw new IOException("Serial port " + port + " not found");
+	}
+	
+	
+	/* Inherited Javadoc */
+	public void close() throws IOException {
+		
+		serialPort.getInputStream().close();
+		serialPort.getOutputStream().close();
+		serialPort.close();
+	}
+	
+	
+	/* Inherited Javadoc */
+	public InputStream getInputStream() throws IOException {
+		
+		return serialPort.getInputStream();
+	}
+	
+	
+	/* Inherited Javadoc */
+	public OutputStream getOutputStream() throws IOException {
+		
+		return serialPort.getOutputStream();
+	}
+	
+	
+	/**
+	 * The method called when a serialEvent occurs.  Only the arrival of data is of interest.
+	 * 
+	 * @param event	the serial port event
+	 */
+	public void serialEvent(SerialPortEvent event) {
+		
+		if (event.getEventType() == SerialPortEvent.DATA_AVAILABLE && listener != null) {
+			listener.dataAvailable();
+		}
+	}
+	
+	
+	/* Inherited Javadoc */
+	public void setDataListener(ISerialDataListener listener) 
+			throws TooManyListenersException {
+		
+		this.listener = listener;
+		serialPort.addEventListener(this);
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: SessionDetails.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.input;
+
+/**
+ * SessionDetails holds the rower and workout details at the head of a workout log.  The details
+ * can't be changed once made.
+ * 
+ * @author agent
+ */
+
+public class SessionDetails {
+
+	/* Class Variables */
+	
+	private final String rowerName;					/* The name of the rower */
+	private final String date;						/* The date in the form yyyy-m-d-h:m:s */
+	private final int type;							/* The type of the workout */
+	private final int distance;						/* The distance, -1 if not a distance
+													   workout */
+	private final int time;							/* The time, -1 if not a time workout */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Constructs the details
+	 * 
+	 * @param	rowerName	the name of the rower
+	 * @param	date		the date in the form yyyy-m-d-h:m:s
+	 * @param	type		the type of the workout, as in the Workout class
+	 * @param	distance	the distance, -1 if not a distance workout
+	 * @param	time		the time, -1 if not a time workout
+	 */
+	public SessionDetails(String rowerName, String date, int type, int distance, int time) {
+		
+		this.rowerName = rowerName;
+		this.date = date;
+		this.type = type;
+		this.distance = distance;
+		this.time = time;
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Returns the date of the workout
+	 * 
+	 * @return	the date in the form yyyy-m-d-h:m:s
+	 */
+	public String getDate() {
+		
+		return date;
+	}
+	
+	
+	/**
+	 * Returns the distance of the workout
+	 * 
+	 * @return	the distance; -1 if not a distance workout
+	 */
+	public int getDistance() {
+		
+		return distance;
+	}
+	
+	
+	/**
+	 * Returns the name of the rower
+	 * 
+	 * @return	the name
+	 */
+	public String getRowerName() {
+		
+		return rowerName;
+	}
+	
+	
+	/**
+	 * Returns the time of the workout
+	 * 
+	 * @return	the time; -1 if not a time workout
+	 */
+	public int getTime() {
+		
+		return time;
+	}
+	
+	
+	/**
+	 * Returns the type of the workout
+	 * 
+	 * @return	the type, as in the Workout class
+	 */
+	public int getType() {
+		
+		return type;
+	}
+}
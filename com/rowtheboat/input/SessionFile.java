@@ -0,0 +1,493 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: SessionFile.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Written to a temporary file and renamed so mapped readers
+ * 										aren't truncated.  Header bounds checked
+ * 18-Oct-2026	1.05		agent		Dropped from the PaceTimelineCache before being replaced
+ * 
+ */
+ 
+package com.rowtheboat.input;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.dom4j.Document;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.dom4j.io.OutputFormat;
+import org.dom4j.io.XMLWriter;
+import org.xml.sax.SAXException;
+
+import com.rowtheboat.workout.Workout;
+
+/**
+ * SessionFile reads and writes the binary form of a workout log.  The strokes are held as a table
+ * of fixed width columns, so a reader maps the file and uses the columns where they lie rather 
+ * than parsing them.  Even a long session then loads in a few milliseconds.  The file is big
+ * endian and laid out as follows:
+ * 
+ * <pre>
+ * int		magic number, "PCRS"
+ * short	version
+ * short	flags, bit 0 set when the rower and workout details are present
+ * int		number of strokes
+ * int		offset of the first column, a multiple of 8
+ * int		workout type
+ * int		workout distance, -1 if not a distance workout
+ * int		workout time, -1 if not a time workout
+ * string	rower name, as a short length and UTF-8 bytes
+ * string	workout date, as a short length and UTF-8 bytes
+ * double[]	powers
+ * float[]	times
+ * float[]	distances
+ * float[]	splits
+ * float[]	heart rates
+ * int[]	stroke rates
+ * </pre>
+ * 
+ * Converters to and from the XML log are provided, and may be run from the command line.  The
+ * calories of each stroke are not kept.
+ * 
+ * @author agent
+ */
+
+public class SessionFile {
+
+	/* Class Variables */
+	
+	/**
+	 * The magic number at the start of each file
+	 */
+	public static final int MAGIC = 0x50435253;
+	
+	/**
+	 * The version of the file format written
+	 */
+	public static final short VERSION = 1;
+	
+	/**
+	 * The extension given to session files
+	 */
+	public static final String EXTENSION = ".pcr";
+	
+	private static final short HAS_DETAILS = 1;		/* The flag for the details */
+	private static final int STROKE_SIZE = 28;		/* The bytes of each stroke */
+	private static final int HEADER_SIZE = 28;		/* The bytes before the strings */
+	
+	
+	/* Constructor */
+	
+	/**
+	 * Not to be constructed
+	 */
+	private SessionFile() {
+		
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Returns whether a file is a session file by its magic number
+	 * 
+	 * @param	file	the file
+	 * @return	<code>true</code> if a session file; <code>false</code> otherwise
+	 * @throws IOException
+	 */
+	public static boolean isSessionFile(File file) throws IOException {
+		
+		if (file.length() < HEADER_SIZE) {
+			return false;
+		}
+		
+		DataInputStream in = new DataInputStream( new FileInputStream(file) );
+		try {
+			return in.readInt() == MAGIC;
+		}
+		finally {
+			in.close();
+		}
+	}
+	
+	
+	/**
+	 * Converts a workout log from one form to the other.  A session file is written as XML and
+	 * an XML log as a session file.
+	 * 
+	 * @param	args	the log to convert and the file to write
+	 */
+	public static void main(String [] args) throws Exception {
+		
+		if (args.length != 2) {
+			System.out.println("Usage: SessionFile in.xml out" + EXTENSION + 
+				" | SessionFile in" + EXTENSION + " out.xml");
+			return;
+		}
+		
+		File in = new File(args[0]);
+		File out = new File(args[1]);
+		if ( isSessionFile(in) ) {
+			toXML(in, out);
+		}
+		else {
+			fromXML(in, out);
+		}
+	}
+	
+	
+	/**
+	 * Reads a session file.  The file is mapped and the timeline reads its columns from the
+	 * mapping, so no strokes are copied.
+	 * 
+	 * @param	file	the session file
+	 * @return	the timeline
+	 * @throws IOException	if the file is not a session file this version can read
+	 */
+	public static PaceTimeline read(File file) throws IOException {
+		
+		/* The mapping remains valid once the channel is closed */
+		MappedByteBuffer buffer;
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+		}
+		finally {
+			raf.close();
+		}
+		
+		/* Check the header */
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+			throw new IOException("Not a session file: " + file);
+		}
+		short version = buffer.getShort();
+		if (version > VERSION) {
+			throw new IOException("Unsupported session file version " + version + ": " + file);
+		}
+		short flags = buffer.getShort();
+		int count = buffer.getInt();
+		int offset = buffer.getInt();
+		if ( count < 0 || offset < HEADER_SIZE + 4 || 
+				(long) offset + (long) count * STROKE_SIZE > buffer.limit() ) {
+			throw new IOException("Truncated session file: " + file);
+		}
+		
+		/* Read the details */
+		SessionDetails details = null;
+		int type = buffer.getInt();
+		int distance = buffer.getInt();
+		int time = buffer.getInt();
+		String rowerName = readString(buffer, offset, file);
+		String date = readString(buffer, offset, file);
+		if ( (flags & HAS_DETAILS) != 0 ) {
+			details = new SessionDetails(rowerName, date, type, distance, time);
+		}
+		
+		/* Give each column its own view of the mapping */
+		int powers = offset;
+		int times = powers + count * 8;
+		int distances = times + count * 4;
+		int splits = distances + count * 4;
+		int heartRates = splits + count * 4;
+		int strokeRates = heartRates + count * 4;
+		
+		return new PaceTimeline( column(buffer, times, count * 4).asFloatBuffer(),
+			column(buffer, distances, count * 4).asFloatBuffer(),
+			column(buffer, splits, count * 4).asFloatBuffer(),
+			column(buffer, powers, count * 8).asDoubleBuffer(),
+			column(buffer, strokeRates, count * 4).asIntBuffer(),
+			column(buffer, heartRates, count * 4).asFloatBuffer(), details );
+	}
+	
+	
+	/**
+	 * Writes a timeline as a session file.  The file is written alongside and then renamed over
+	 * the target, as the old file may still be mapped by a timeline in use and truncating it 
+	 * would break the readers.  The old timeline is dropped from the PaceTimelineCache first.  A
+	 * mapping is only released when the garbage collector frees its timeline, and some platforms
+	 * (e.g. Windows) won't replace a mapped file, so there the file can't be written over while
+	 * a timeline read from it is still in use, e.g. by a race.
+	 * 
+	 * @param	timeline	the timeline
+	 * @param	file		the file to write
+	 * @throws IOException	if the file can't be written or replaced
+	 */
+	public static void write(PaceTimeline timeline, File file) throws IOException {
+		
+		PaceTimelineCache.getInstance().evict(file);
+		
+		File directory = file.getAbsoluteFile().getParentFile();
+		File temporary = File.createTempFile("session", ".tmp", directory);
+		boolean written = false;
+		try {
+			writeColumns(timeline, temporary);
+			
+			/* The old file may still be mapped by a timeline nothing uses but the garbage 
+			 * collector hasn't freed, so collect before trying again */
+			if ( !replace(temporary, file) ) {
+				System.gc();
+				System.runFinalization();
+				if ( !replace(temporary, file) ) {
+					throw new IOException("Could not replace session file: " + file);
+				}
+			}
+			written = true;
+		}
+		finally {
+			if (!written) {
+				temporary.delete();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Converts an XML workout log to a session file
+	 * 
+	 * @param	xml		the XML log
+	 * @param	file	the session file to write
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 */
+	public static void fromXML(File xml, File file) 
+			throws IOException, SAXException, ParserConfigurationException {
+		
+		write( PaceTimelineLoader.load(xml, null), file );
+	}
+	
+	
+	/**
+	 * Converts a session file to an XML workout log
+	 * 
+	 * @param	file	the session file
+	 * @param	xml		the XML log to write
+	 * @throws IOException
+	 */
+	public static void toXML(File file, File xml) throws IOException {
+		
+		writeXML( read(file), xml );
+	}
+	
+	
+	/**
+	 * Writes a timeline as an XML workout log in the form written by the XMLWorkoutWriter
+	 * 
+	 * @param	timeline	the timeline
+	 * @param	xml			the XML log to write
+	 * @throws IOException
+	 */
+	public static void writeXML(PaceTimeline timeline, File xml) throws IOException {
+		
+		Document document = DocumentHelper.createDocument();
+		Element root = document.addElement( "Session" );
+		
+		/* Write the rower and workout details */
+		SessionDetails details = timeline.getDetails();
+		if (details != null) {
+			root.addElement( "Rower" ).addElement( "Name" )
+				.addText( details.getRowerName() );
+			
+			Element detailsElement = root.addElement( "Details" );
+			detailsElement.addElement( "Date" )
+				.addText( details.getDate() );
+			detailsElement.addElement( "Type" )
+				.addText( details.getType() + "" );
+			if (details.getType() == Workout.DISTANCE_WORKOUT) {
+				detailsElement.addElement( "Distance" )
+					.addText( details.getDistance() + "" );
+			}
+			else {
+				detailsElement.addElement( "Time" )
+					.addText( details.getTime() + "" );
+			}
+		}
+		
+		/* Write the strokes */
+		for (int i = 0; i < timeline.getStrokeCount(); i++) {
+			Element strokeElement = root.addElement( "Stroke" );
+			strokeElement.addElement( "Time" )
+				.addText( timeline.getTime(i) + "" );
+			strokeElement.addElement( "Distance" )
+				.addText( timeline.getDistance(i) + "" );
+			strokeElement.addElement( "Split" )
+				.addText( timeline.getSplit(i) + "" );
+			strokeElement.addElement( "Power" )
+				.addText( timeline.getPower(i) + "" );
+			strokeElement.addElement( "SPM" )
+				.addText( timeline.getStrokeRate(i) + "" );
+			strokeElement.addElement( "HR" )
+				.addText( timeline.getHeartRate(i) + "" );
+		}
+		
+		XMLWriter writer = new XMLWriter( new FileWriter(xml), OutputFormat.createPrettyPrint() );
+		try {
+			writer.write(document);
+		}
+		finally {
+			writer.close();
+		}
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Returns a view of part of a buffer
+	 * 
+	 * @param	buffer	the buffer
+	 * @param	offset	the offset of the part
+	 * @param	length	the length of the part in bytes
+	 * @return	the view, starting at 0
+	 */
+	private static ByteBuffer column(ByteBuffer buffer, int offset, int length) {
+		
+		ByteBuffer view = buffer.duplicate();
+		view.limit(offset + length);
+		view.position(offset);
+		return view.slice();
+	}
+	
+	
+	/**
+	 * Renames a file over another
+	 * 
+	 * @param	from	the file to rename
+	 * @param	to		the file to replace
+	 * @return	<code>true</code> if replaced; <code>false</code> otherwise
+	 */
+	private static boolean replace(File from, File to) {
+		
+		/* Some platforms won't rename over an existing file */
+		return from.renameTo(to) || ( to.delete() && from.renameTo(to) );
+	}
+	
+	
+	/**
+	 * Writes a timeline into a new file in the session file format
+	 * 
+	 * @param	timeline	the timeline
+	 * @param	file		the file to write
+	 * @throws IOException
+	 */
+	private static void writeColumns(PaceTimeline timeline, File file) throws IOException {
+		
+		SessionDetails details = timeline.getDetails();
+		byte [] rowerName = new byte[0];
+		byte [] date = new byte[0];
+		if (details != null) {
+			rowerName = details.getRowerName().getBytes("UTF-8");
+			date = details.getDate().getBytes("UTF-8");
+		}
+		
+		/* Pad the header so the columns are aligned */
+		int headerSize = HEADER_SIZE + 2 + rowerName.length + 2 + date.length;
+		int offset = (headerSize + 7) & ~7;
+		
+		int count = timeline.getStrokeCount();
+		DataOutputStream out = new DataOutputStream( 
+			new BufferedOutputStream( new FileOutputStream(file) ) );
+		try {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeShort(details == null ? 0 : HAS_DETAILS);
+			out.writeInt(count);
+			out.writeInt(offset);
+			out.writeInt(details == null ? Workout.JUST_ROW : details.getType());
+			out.writeInt(details == null ? -1 : details.getDistance());
+			out.writeInt(details == null ? -1 : details.getTime());
+			out.writeShort(rowerName.length);
+			out.write(rowerName);
+			out.writeShort(date.length);
+			out.write(date);
+			for (int i = headerSize; i < offset; i++) {
+				out.writeByte(0);
+			}
+			
+			/* Write the columns */
+			for (int i = 0; i < count; i++) {
+				out.writeDouble( timeline.getPower(i) );
+			}
+			for (int i = 0; i < count; i++) {
+				out.writeFloat( timeline.getTime(i) );
+			}
+			for (int i = 0; i < count; i++) {
+				out.writeFloat( timeline.getDistance(i) );
+			}
+			for (int i = 0; i < count; i++) {
+				out.writeFloat( timeline.getSplit(i) );
+			}
+			for (int i = 0; i < count; i++) {
+				out.writeFloat( timeline.getHeartRate(i) );
+			}
+			for (int i = 0; i < count; i++) {
+				out.writeInt( timeline.getStrokeRate(i) );
+			}
+		}
+		finally {
+			out.close();
+		}
+	}
+	
+	
+	/**
+	 * Reads a string written as a short length and UTF-8 bytes
+	 * 
+	 * @param	buffer	the buffer to read from
+	 * @param	end		the offset the string must end by
+	 * @param	file	the file being read, for the error message
+	 * @return	the string
+	 * @throws IOException	if the string runs past the end
+	 */
+	private static String readString(ByteBuffer buffer, int end, File file) throws IOException {
+		
+		if (buffer.position() + 2 > end) {
+			throw new IOException("Corrupt session file header: " + file);
+		}
+		int length = buffer.getShort() & 0xffff;
+		if (buffer.position() + length > end) {
+			throw new IOException("Corrupt session file header: " + file);
+		}
+		byte [] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, "UTF-8");
+	}
+}
@@ -26,6 +26,8 @@
  * 
  * Date			Version		User		Description
  * 17-Oct-2003	1.0			GeorgeP		Inital version coded
+ * 17-Oct-2026	1.05		agent		Added the arrival time of the data
+ * 17-Oct-2026	1.05		agent		Added reset and setStrokeData so instances can be reused
  * 
  */
 
@@ -63,6 +65,7 @@ public class StrokeData {
 	private float distance = UNSET;					/* The current distance travelled */
 	private double power = UNSET;					/* The current stroke pace */
 	private float time = UNSET;						/* The current time of the workout */
+	private long arrivalTime = UNSET;				/* When the data arrived (in milliseconds) */
 	
 	
 	/* Constructor */
@@ -105,6 +108,21 @@ public class StrokeData {
 	}
 	
 	
+	/**
+	 * Unsets every field, so that a stroke can be reused rather than a new one created
+	 */
+	public void reset() {
+		
+		status = UNSET;
+		strokeRate = UNSET;
+		heartRate = UNSET;
+		distance = UNSET;
+		power = UNSET;
+		time = UNSET;
+		arrivalTime = UNSET;
+	}
+	
+	
 	/**
 	 * Returns the current 500m split
 	 * 
@@ -137,6 +155,18 @@ public class StrokeData {
 	}
 	
 	
+	/**
+	 * Returns the time the data arrived from the ergo.  Data from a computer rower has no
+	 * arrival time.
+	 * 
+	 * @return the arrival time in milliseconds; -1 if not set
+	 */
+	public long getArrivalTime() {
+		
+		return arrivalTime;
+	}
+	
+	
 	/**
 	 * Returns the current calories per hour
 	 * 
@@ -269,6 +299,17 @@ public class StrokeData {
 	}
 	
 	
+	/**
+	 * Set the time the data arrived from the ergo
+	 * 
+	 * @param arrivalTime	the arrival time in milliseconds
+	 */
+	public void setArrivalTime(long arrivalTime) {
+		
+		this.arrivalTime = arrivalTime;
+	}
+	
+	
 	/**
 	 * Set the distance
 	 * 
@@ -361,6 +402,24 @@ public class StrokeData {
 	}
 	
 	
+	/**
+	 * Sets every field to that of the given stroke, so that a stroke can be reused rather than a 
+	 * new one created
+	 * 
+	 * @param stroke	the stroke to copy
+	 */
+	public void setStrokeData(StrokeData stroke) {
+		
+		status = stroke.status;
+		strokeRate = stroke.strokeRate;
+		heartRate = stroke.heartRate;
+		distance = stroke.distance;
+		power = stroke.power;
+		time = stroke.time;
+		arrivalTime = stroke.arrivalTime;
+	}
+	
+	
 	/**
 	 * Set the time data
 	 * 
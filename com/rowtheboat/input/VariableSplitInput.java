@@ -27,26 +27,29 @@
  * Date			Version		User		Description
  * 28-Nov-2003	1.0			GeorgeP		Initial version coded
  * 02-Nov-2004	1.03		GeorgeP		Added apache xerces parser for native build
+ * 17-Oct-2026	1.05		agent		The same stroke is reused for every call
+ * 17-Oct-2026	1.05		agent		Strokes read from a PaceTimeline rather than the document
+ * 17-Oct-2026	1.05		agent		Any time may be asked for, not just later ones
+ * 17-Oct-2026	1.05		agent		Session streamed in rather than read into a document
+ * 17-Oct-2026	1.05		agent		Sessions shared through the PaceTimelineCache
  * 
  */
  
 package com.rowtheboat.input;
 
 import java.io.File;
-import java.net.MalformedURLException;
-import java.util.Iterator;
+import java.io.IOException;
 
-import org.dom4j.Document;
-import org.dom4j.DocumentException;
-import org.dom4j.Element;
-import org.dom4j.Node;
-import org.dom4j.io.SAXReader;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
 
-import com.rowtheboat.workout.ComputerRower;
 import com.rowtheboat.workout.Workout;
 
 /**
- * VariableSplitInput uses an xml file to create a variable pace boat against which to race
+ * VariableSplitInput uses an xml file to create a variable pace boat against which to race.  The
+ * file is loaded into a PaceTimeline so each stroke is found and interpolated from arrays.  The
+ * timeline is shared through the PaceTimelineCache, so each input only keeps its place in it.
  * 
  * @author GeorgeP
  */
@@ -55,71 +58,39 @@ public class VariableSplitInput implements IInputDevice {
 
 	/* Class Variables */
 	
-	private Element root;							/* The root element */
-	private float [] times;							/* The stroke times */
-	private int [] timeIndexes;						/* The indexes for the times */
+	private PaceTimeline timeline;					/* The strokes of the session */
 	private int lastStrokeIndex = 0;				/* The last stroke index */ 
+	private StrokeData stroke = new StrokeData();	/* The stroke returned */
 
 	/* This is needed to correct files that are compiled in gcj */
 	private static final Class dom4j = org.dom4j.io.aelfred.SAXDriver.class;
 	
 
-	/* Constructor */
+	/* Constructors */
 
 	/**
 	 * Construct the variable split class
 	 * 
 	 * @param	file	the file from which to pull the xml workout data
 	 */
-	public VariableSplitInput(File file) throws MalformedURLException, DocumentException {
-		
-		/* Initialise the arrays */
-		times = new float[10];
-		timeIndexes = new int[10];
-		
-		/* Create the reader */
-		SAXReader reader = new SAXReader();
-		Document document = reader.read(file);
-
-		/* Get the root element */
-		root = document.getRootElement();
+	public VariableSplitInput(File file) 
+			throws IOException, SAXException, ParserConfigurationException {
 		
-		/* Create the rower */
-		for ( Iterator i = root.elementIterator( "Rower" ); i.hasNext(); ) {
-			
-			Element rowerElement = (Element) i.next();
-			ComputerRower rower = new ComputerRower(ComputerRower.VARIABLE_SPLIT);
-			rower.setName( rowerElement.elementText("Name") );
-		}
-
-		/* Create the workout */
-		for ( Iterator i = root.elementIterator( "Details" ); i.hasNext(); ) {
-			
-			Element wElement = (Element) i.next();
-			Workout workout = new Workout( Integer.parseInt(wElement.elementText("Type")) );
-			workout.setDate( wElement.elementText("Date") );
-			if ( workout.getType() == Workout.DISTANCE_WORKOUT ) {
-				workout.setDistance( Integer.parseInt(wElement.elementText("Distance")) );
-			}
-			else {
-				workout.setTime( Integer.parseInt(wElement.elementText("Time")) );
-			}
-		}
+		this( PaceTimelineCache.getInstance().load(file) );
+	}
+	
+	
+	/**
+	 * Construct the variable split class from a session already loaded
+	 * 
+	 * @param	timeline	the strokes of the session
+	 */
+	public VariableSplitInput(PaceTimeline timeline) {
 		
-		/* Populate the stroke times and time index arrays */
-		int arrayIndex = 0;
-		for ( int i = 0, size = root.nodeCount(); i < size; i++ ) {
-			Node node = root.node(i);
-			if ( node instanceof Element && node.getName().equals("Stroke" )) {
-				Element el = (Element) node;
-				times[arrayIndex] = Float.parseFloat( el.elementText("Time") );
-				timeIndexes[arrayIndex] = i;
-				arrayIndex++;
-				if (arrayIndex == times.length) {
-					increaseArraySizes();
-				}
-			}
+		if (timeline.getStrokeCount() == 0) {
+			throw new IllegalArgumentException("The session has no strokes");
 		}
+		this.timeline = timeline;
 	}
 	
 	
@@ -138,63 +109,36 @@ public class VariableSplitInput implements IInputDevice {
 	/* Inherited Javadoc */
 	public StrokeData retrieveStrokeData(float time) throws Exception {
 		
-		boolean nextStrokeExists = true;
-		
-		while(true) {
-			if (lastStrokeIndex != 0 && times[lastStrokeIndex] == 0.0) {
-				/* If this isn't the first stroke index and the distance is 0.0 then the last
-				 * distance was the final one because any uninitialised floats are 0.0  Thus
-				 * decrease the index and break */
-				lastStrokeIndex--;
-				nextStrokeExists = false;
-				break;
-			}
-			if (time >= times[lastStrokeIndex]) {
-				/* If the time required is greater or equal than the stroke then proceed  */
-				
-				if ( lastStrokeIndex < times.length - 1 ) {
-					/* If the last stroke index is less than the length - 1 then proceed and test
-					 * whether the time required is less than the next stroke.  If so break as we
-					 * have the correct stroke index.  Otherwise fall out of if statements,
-					 * increase index and try again. */
-					if (time < times[lastStrokeIndex + 1]) {
-						break;
-					}
-				}
-				
-				/* Increment the index if not broken out already (i.e. found the required stroke
-				 * index) */
-				lastStrokeIndex++;
-			}
-		}
+		/* Find the last stroke at or before the time.  The race time normally goes forwards so
+		 * the search starts from the previous stroke, but the session may be replayed from any
+		 * time. */
+		int lastIndex = timeline.getStrokeCount() - 1;
+		lastStrokeIndex = timeline.findStroke(time, lastStrokeIndex);
 		
-		/* Create the stroke */
-		StrokeData stroke = new StrokeData();
-		Element strokeEl = (Element) root.node(timeIndexes[lastStrokeIndex]);
+		/* Clear the stroke */
+		stroke.reset();
 		
 		/* If there's another stroke available create more accurate distances and times */
-		if (nextStrokeExists) {
-			float time1 = times[lastStrokeIndex];
-			float time2 = times[lastStrokeIndex + 1];
-			float dist1 = Float.parseFloat( strokeEl.elementText("Distance") );
-			Element e = (Element) root.node(timeIndexes[lastStrokeIndex + 1]);
-			float dist2 = Float.parseFloat( e.elementText("Distance") );
+		if (lastStrokeIndex < lastIndex) {
+			float time1 = timeline.getTime(lastStrokeIndex);
+			float time2 = timeline.getTime(lastStrokeIndex + 1);
+			float dist1 = timeline.getDistance(lastStrokeIndex);
+			float dist2 = timeline.getDistance(lastStrokeIndex + 1);
 			double mPerS = (dist2 - dist1) / (time2 - time1);
-			stroke.setDistance( (float) (((time - time1) * mPerS) + dist1) );
+			stroke.setDistance( (float) ((Math.max(time - time1, 0) * mPerS) + dist1) );
 			stroke.setTime( time );
 		}
 		else {
-			stroke.setDistance( Float.parseFloat( strokeEl.elementText("Distance") ) );
-			stroke.setTime( times[lastStrokeIndex] );
+			stroke.setDistance( timeline.getDistance(lastStrokeIndex) );
+			stroke.setTime( timeline.getTime(lastStrokeIndex) );
 		}
 		
 		/* Check to see whether full stroke information is available */
-		double split = Double.parseDouble( strokeEl.elementText("Split") );
-		if (split != 0.0) {
+		if (timeline.getSplit(lastStrokeIndex) != 0.0) {
 			/* Full stroke data was switched on */
-			stroke.setPower( Double.parseDouble( strokeEl.elementText("Power") ) );
-			stroke.setStrokeRate( Integer.parseInt( strokeEl.elementText("SPM") ) );
-			stroke.setHeartRate( Float.parseFloat( strokeEl.elementText("HR") ) );
+			stroke.setPower( timeline.getPower(lastStrokeIndex) );
+			stroke.setStrokeRate( timeline.getStrokeRate(lastStrokeIndex) );
+			stroke.setHeartRate( timeline.getHeartRate(lastStrokeIndex) );
 		}
 		
 		/* Return the stroke */
@@ -212,25 +156,4 @@ public class VariableSplitInput implements IInputDevice {
 	public void startRowing(int startType) {
 		/* Nothing required in this implementation */		
 	}
-	
-	
-	/* Private Methods */
-	
-	/**
-	 * Doubles the times array size
-	 */
-	private void increaseArraySizes() {
-		
-		/* Create a temp array to store the times data */
-		float [] temp = times;
-		int [] indexTemps = timeIndexes;
-		times = new float[times.length * 2];
-		timeIndexes = new int[timeIndexes.length * 2];
-		
-		/* Copy over the data */
-		for (int i = 0; i < temp.length; i++) {
-			times[i] = temp[i];
-			timeIndexes[i] = indexTemps[i];
-		}
-	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,370 @@
+/*
+ * PC-Rower	PC-Rower is a piece of software that allows the connection of a Concept II rowing
+ * 			machine to a PC to provide real-time and post workout analysis of performance.
+ * Copyright (C) 2003-2005 George Palmer
+ * 
+ * 
+ * This file is part of PC-Rower.  PC-Rower is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License(GPL) as published by the Free 
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.  
+ * Under the GPL any derivations or alterations of this software must keep this header intact.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program; if
+ * not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, 
+ * MA 02111-1307 USA
+ * 
+ * The author may be contacted at feedback@rowtheboat.com
+ */
+ 
+ 
+ /*
+ * File: VirtualErg.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Workout logs loaded through a PaceTimeline
+ * 17-Oct-2026	1.05		agent		Workout logs shared through the PaceTimelineCache
+ * 
+ */
+ 
+package com.rowtheboat.input;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
+
+import com.rowtheboat.workout.Workout;
+
+/**
+ * VirtualErg is a scripted ergo for the PM2PlusEmulator.  The script is a list of strokes, each
+ * with a time, distance, split, stroke rate and heart rate, either recorded in a workout log (as
+ * written by the XMLWorkoutWriter) or generated at a constant pace.  The ergo answers the PM2+
+ * queries from the script according to the time since it was started.
+ * 
+ * @author agent
+ */
+
+public class VirtualErg {
+
+	/* Class Variables */
+	
+	private float [] times;							/* The stroke times in seconds */
+	private float [] distances;						/* The stroke distances in meters */
+	private float [] paces;							/* The stroke paces in seconds per meter */
+	private int [] strokeRates;						/* The stroke rates */
+	private int [] heartPeriods;					/* The heart periods */
+	
+	private int workoutType = Workout.JUST_ROW;		/* The workout type */
+	private float finishTime;						/* The time at which the workout ends */
+	private long startMillis = -1;					/* The start time, -1 if not started */
+	private int lastStroke = -1;					/* The last stroke reported as ended */
+	
+	private static final int DISTANCE_STATUS = 196;	/* The distance workout status - hex c4 */
+	private static final int TIME_STATUS = 200;		/* The time workout status - hex c8 */
+	private static final int END_OF_WORKOUT_MASK = 1;
+													/* The end of workout mask */
+	private static final int END_OF_STROKE_MASK = 2;/* The end of stroke mask */
+	private static final float HEART_PERIOD_RATE = 576000;
+													/* Heart period multiplied by heart rate */
+	
+	
+	/* Constructors */
+	
+	/**
+	 * Constructs an ergo that rows at a constant pace
+	 * 
+	 * @param	split		the 500m split to row at in seconds
+	 * @param	strokeRate	the stroke rate
+	 * @param	heartRate	the heart rate, 0 if not worn
+	 * @param	duration	the time to row for in seconds
+	 */
+	public VirtualErg(float split, int strokeRate, float heartRate, float duration) {
+		
+		/* A stroke every 60 / stroke rate seconds */
+		float strokeTime = 60f / strokeRate;
+		int strokes = (int) (duration / strokeTime) + 1;
+		float [] strokeTimes = new float[strokes];
+		float [] strokeDistances = new float[strokes];
+		float [] splits = new float[strokes];
+		int [] rates = new int[strokes];
+		float [] heartRates = new float[strokes];
+		
+		for (int i = 0; i < strokes; i++) {
+			strokeTimes[i] = i * strokeTime;
+			strokeDistances[i] = strokeTimes[i] * 500 / split;
+			splits[i] = split;
+			rates[i] = strokeRate;
+			heartRates[i] = heartRate;
+		}
+		
+		setScript(strokeTimes, strokeDistances, splits, rates, heartRates);
+	}
+	
+	
+	/**
+	 * Constructs an ergo from a script of strokes.  The arrays must be the same length and the
+	 * times increasing.
+	 * 
+	 * @param	times		the stroke times in seconds
+	 * @param	distances	the distances at each stroke in meters
+	 * @param	splits		the 500m splits in seconds, 0 if unknown
+	 * @param	strokeRates	the stroke rates, -1 if unknown
+	 * @param	heartRates	the heart rates, -1 if unknown
+	 */
+	public VirtualErg(float [] times, float [] distances, float [] splits, int [] strokeRates,
+			float [] heartRates) {
+		
+		setScript(times, distances, splits, strokeRates, heartRates);
+	}
+	
+	
+	/* Public Methods */
+	
+	/**
+	 * Loads an ergo from a workout log
+	 * 
+	 * @param	file	the workout log
+	 * @return	the ergo
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 */
+	public static VirtualErg load(File file) 
+			throws IOException, SAXException, ParserConfigurationException {
+		
+		/* Read the strokes */
+		PaceTimeline timeline = PaceTimelineCache.getInstance().load(file);
+		int count = timeline.getStrokeCount();
+		float [] times = new float[count];
+		float [] distances = new float[count];
+		float [] splits = new float[count];
+		int [] strokeRates = new int[count];
+		float [] heartRates = new float[count];
+		
+		for (int i = 0; i < count; i++) {
+			times[i] = timeline.getTime(i);
+			distances[i] = timeline.getDistance(i);
+			splits[i] = timeline.getSplit(i);
+			strokeRates[i] = timeline.getStrokeRate(i);
+			heartRates[i] = timeline.getHeartRate(i);
+		}
+		
+		return new VirtualErg(times, distances, splits, strokeRates, heartRates);
+	}
+	
+	
+	/**
+	 * Returns the distance rowed
+	 * 
+	 * @param	now	the current time in milliseconds
+	 * @return	the distance in meters
+	 */
+	public synchronized float getDistance(long now) {
+		
+		float time = getTime(now);
+		int stroke = strokeAt(time);
+		
+		/* Interpolate between the strokes */
+		if (stroke < times.length - 1) {
+			float fraction = (time - times[stroke]) / (times[stroke + 1] - times[stroke]);
+			return distances[stroke] + fraction * (distances[stroke + 1] - distances[stroke]);
+		}
+		
+		return distances[stroke];
+	}
+	
+	
+	/**
+	 * Returns the heart period, the form the PM2+ sends heart rate in
+	 * 
+	 * @param	now	the current time in milliseconds
+	 * @return	the heart period, 0 if the heart rate is unknown
+	 */
+	public synchronized int getHeartPeriod(long now) {
+		
+		return heartPeriods[ strokeAt( getTime(now) ) ];
+	}
+	
+	
+	/**
+	 * Returns the pace of the current stroke
+	 * 
+	 * @param	now	the current time in milliseconds
+	 * @return	the pace in seconds per meter
+	 */
+	public synchronized float getPace(long now) {
+		
+		return paces[ strokeAt( getTime(now) ) ];
+	}
+	
+	
+	/**
+	 * Returns the status byte.  The end of stroke flag is set the first time the status is asked
+	 * for after a stroke, as the PM2+ sends it in response to the distance query.
+	 * 
+	 * @param	now			the current time in milliseconds
+	 * @param	distance	whether the status is for the distance query
+	 * @return	the status byte
+	 */
+	public synchronized int getStatus(long now, boolean distance) {
+		
+		int status = DISTANCE_STATUS;
+		if (workoutType == Workout.TIME_WORKOUT) {
+			status = TIME_STATUS;
+		}
+		if (startMillis == -1) {
+			return status;
+		}
+		
+		/* Flag the end of the workout */
+		if ( (now - startMillis) / 1000f >= finishTime ) {
+			return status + END_OF_WORKOUT_MASK;
+		}
+		
+		/* Flag a new stroke */
+		int stroke = strokeAt( getTime(now) );
+		if (distance && stroke > lastStroke) {
+			lastStroke = stroke;
+			return status + END_OF_STROKE_MASK;
+		}
+		
+		return status;
+	}
+	
+	
+	/**
+	 * Returns the stroke rate of the current stroke
+	 * 
+	 * @param	now	the current time in milliseconds
+	 * @return	the stroke rate, 0 if unknown
+	 */
+	public synchronized int getStrokeRate(long now) {
+		
+		return strokeRates[ strokeAt( getTime(now) ) ];
+	}
+	
+	
+	/**
+	 * Returns the time rowed.  This stops at the end of the workout.
+	 * 
+	 * @param	now	the current time in milliseconds
+	 * @return	the time in seconds
+	 */
+	public synchronized float getTime(long now) {
+		
+		if (startMillis == -1) {
+			return 0;
+		}
+		
+		return Math.min( (now - startMillis) / 1000f, finishTime );
+	}
+	
+	
+	/**
+	 * Sets up a workout.  The workout ends at the target or at the end of the script, whichever
+	 * is first.
+	 * 
+	 * @param	type	the workout type (get from Workout)
+	 * @param	target	the distance in meters or time in seconds
+	 */
+	public synchronized void setupWorkout(int type, float target) {
+		
+		workoutType = type;
+		finishTime = times[times.length - 1];
+		startMillis = -1;
+		lastStroke = -1;
+		
+		if (type == Workout.TIME_WORKOUT) {
+			finishTime = Math.min(target, finishTime);
+		}
+		if (type == Workout.DISTANCE_WORKOUT) {
+			
+			/* Find the time the distance is reached */
+			for (int i = 1; i < times.length; i++) {
+				if (distances[i] >= target) {
+					float fraction = (target - distances[i - 1]) / 
+						(distances[i] - distances[i - 1]);
+					finishTime = times[i - 1] + fraction * (times[i] - times[i - 1]);
+					break;
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * Starts the ergo rowing
+	 * 
+	 * @param	now	the current time in milliseconds
+	 */
+	public synchronized void start(long now) {
+		
+		startMillis = now;
+		lastStroke = -1;
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Sets the script, converting the values to the form the PM2+ sends them in
+	 */
+	private void setScript(float [] times, float [] distances, float [] splits, 
+			int [] strokeRates, float [] heartRates) {
+		
+		this.times = times;
+		this.distances = distances;
+		this.paces = new float[times.length];
+		this.strokeRates = new int[times.length];
+		this.heartPeriods = new int[times.length];
+		this.finishTime = times[times.length - 1];
+		
+		for (int i = 0; i < times.length; i++) {
+			
+			/* Use the split if recorded, otherwise the speed to the next stroke */
+			if (splits[i] > 0) {
+				paces[i] = splits[i] / 500;
+			}
+			else if (i < times.length - 1 && distances[i + 1] > distances[i]) {
+				paces[i] = (times[i + 1] - times[i]) / (distances[i + 1] - distances[i]);
+			}
+			
+			this.strokeRates[i] = Math.max(strokeRates[i], 0);
+			if (heartRates[i] > 0) {
+				heartPeriods[i] = Math.round(HEART_PERIOD_RATE / heartRates[i]);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Returns the index of the stroke being rowed at the given time
+	 * 
+	 * @param	time	the time in seconds
+	 * @return	the stroke index
+	 */
+	private int strokeAt(float time) {
+		
+		/* Binary search for the last stroke at or before the time */
+		int low = 0;
+		int high = times.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) / 2;
+			if (times[mid] <= time) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		
+		return low;
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * File: PM2PlusEmulatorTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Byte loss with one query at a time
+ * 17-Oct-2026	1.05		agent		Setup confirmed with the venue racing bit set
+ * 
+ */
+ 
+package com.rowtheboat.input.test;
+
+import java.io.IOException;
+
+import com.rowtheboat.gui.OptionsSingleton;
+import com.rowtheboat.input.PM2PlusEmulator;
+import com.rowtheboat.input.PM2PlusUnit;
+import com.rowtheboat.input.StrokeData;
+import com.rowtheboat.input.VirtualErg;
+import com.rowtheboat.workout.Workout;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * The JUnit test for the PM2+ emulator, including the PM2PlusUnit talking to it
+ * 
+ * @author agent
+ */
+
+public class PM2PlusEmulatorTest extends TestCase {
+
+	/* Class Variables */
+	private VirtualErg erg;
+	
+	
+	/* Constructor */
+	public PM2PlusEmulatorTest(String arg0) {
+		super(arg0);
+	}
+
+	/* Setup class variables */
+	protected void setUp() throws Exception {
+		
+		/* Four strokes 10 seconds apart covering 300 meters */
+		erg = new VirtualErg( new float [] {0, 10, 20, 30}, new float [] {0, 100, 150, 300},
+			new float [] {0, 0, 0, 0}, new int [] {24, 26, 28, 30}, 
+			new float [] {-1, 120, 150, 160} );
+	}
+
+
+	/* Test cases */
+	public void testScript() {
+		
+		erg.setupWorkout(Workout.JUST_ROW, 0);
+		Assert.assertEquals( 0, erg.getTime(25000), 0 );
+		
+		erg.start(0);
+		Assert.assertEquals( 25, erg.getTime(25000), 0 );
+		Assert.assertEquals( 225, erg.getDistance(25000), 0.01 );
+		Assert.assertEquals( 28, erg.getStrokeRate(25000) );
+		Assert.assertEquals( 3840, erg.getHeartPeriod(25000) );
+		Assert.assertEquals( 0.1, erg.getPace(5000), 0.0001 );
+	}
+	
+	public void testEndOfStroke() {
+		
+		erg.setupWorkout(Workout.DISTANCE_WORKOUT, 300);
+		erg.start(0);
+		
+		/* The end of stroke is only flagged once per stroke */
+		Assert.assertEquals( 198, erg.getStatus(12000, true) );
+		Assert.assertEquals( 196, erg.getStatus(13000, true) );
+		Assert.assertEquals( 198, erg.getStatus(21000, true) );
+	}
+	
+	public void testDistanceWorkoutEnds() {
+		
+		erg.setupWorkout(Workout.DISTANCE_WORKOUT, 200);
+		erg.start(0);
+		
+		/* 200 meters is a third of the way through the last stroke */
+		Assert.assertEquals( 197, erg.getStatus(40000, true) );
+		Assert.assertEquals( 200, erg.getDistance(40000), 0.01 );
+		Assert.assertEquals( 23.333, erg.getTime(40000), 0.001 );
+	}
+	
+	public void testUnitQueries() throws Exception {
+		
+		PM2PlusEmulator emulator = new PM2PlusEmulator( new VirtualErg [] {erg, erg} );
+		Workout workout = new Workout(Workout.DISTANCE_WORKOUT);
+		workout.setDistance(300);
+		
+		PM2PlusUnit unit = PM2PlusUnit.getInstance("PM2PlusEmulatorTest", emulator, workout);
+		try {
+			unit.setupWorkout(workout);
+			Assert.assertTrue( emulator.isLocked() );
+			
+			unit.startRowing(Workout.START_AFTER_COUNT);
+			StrokeData stroke = unit.retrieveStrokeData(1);
+			Assert.assertNotNull(stroke);
+			Assert.assertTrue( stroke.getTime() >= 0 && stroke.getTime() < 10 );
+			Assert.assertEquals( stroke.getTime() * 10, stroke.getDistance(), 0.5 );
+		}
+		finally {
+			unit.cleanUp();
+		}
+		
+		Assert.assertFalse( emulator.isLocked() );
+	}
+	
+	public void testUnitConfirmsCommands() throws Exception {
+		
+		PM2PlusEmulator emulator = new PM2PlusEmulator( new VirtualErg [] {erg} );
+		emulator.setBaudRate(9600);
+		Workout workout = new Workout(Workout.TIME_WORKOUT);
+		workout.setTime(60);
+		
+		PM2PlusUnit unit = PM2PlusUnit.getInstance("PM2PlusEmulatorTest", emulator, workout);
+		try {
+			/* The setup finishes once the PM2+ has it rather than after a fixed wait */
+			long start = System.currentTimeMillis();
+			unit.setupWorkout(workout);
+			unit.startRowing(Workout.START_ON_STROKE);
+			Assert.assertTrue( System.currentTimeMillis() - start < 300 );
+			Assert.assertTrue( emulator.isLocked() );
+		}
+		finally {
+			unit.cleanUp();
+		}
+	}
+	
+	public void testUnitConfirmsVenueRacing() throws Exception {
+		
+		/* A PM2+ in venue racing sets the hex 10 bit of the status */
+		VirtualErg venueErg = new VirtualErg(100, 30, 0, 60) {
+			public synchronized int getStatus(long now, boolean distance) {
+				return super.getStatus(now, distance) | 16;
+			}
+		};
+		PM2PlusEmulator emulator = new PM2PlusEmulator( new VirtualErg [] {venueErg} );
+		Workout workout = new Workout(Workout.TIME_WORKOUT);
+		workout.setTime(60);
+		
+		PM2PlusUnit unit = PM2PlusUnit.getInstance("PM2PlusEmulatorTest", emulator, workout);
+		try {
+			unit.setupWorkout(workout);
+			Assert.assertTrue( emulator.isLocked() );
+		}
+		finally {
+			unit.cleanUp();
+		}
+	}
+	
+	public void testUnitCommandNotConfirmed() throws Exception {
+		
+		/* A chain with no ergos never answers */
+		PM2PlusEmulator emulator = new PM2PlusEmulator( new VirtualErg[0] );
+		Workout workout = new Workout(Workout.DISTANCE_WORKOUT);
+		workout.setDistance(300);
+		
+		PM2PlusUnit unit = PM2PlusUnit.getInstance("PM2PlusEmulatorTest", emulator, workout);
+		try {
+			unit.setupWorkout(workout);
+			Assert.fail();
+		}
+		catch (IOException e) {
+			/* Expected */
+		}
+		
+		try {
+			unit.cleanUp();
+			Assert.fail();
+		}
+		catch (IOException e) {
+			/* Expected */
+		}
+	}
+	
+	public void testUnitBatch() throws Exception {
+		
+		VirtualErg [] ergs = new VirtualErg[3];
+		for (int i = 0; i < ergs.length; i++) {
+			ergs[i] = new VirtualErg(100 + i * 10, 30, 0, 60);
+		}
+		PM2PlusEmulator emulator = new PM2PlusEmulator(ergs);
+		emulator.setBaudRate(9600);
+		Workout workout = new Workout(Workout.TIME_WORKOUT);
+		workout.setTime(60);
+		
+		PM2PlusUnit unit = PM2PlusUnit.getInstance("PM2PlusEmulatorTest", emulator, workout);
+		try {
+			unit.setupWorkout(workout);
+			unit.startRowing(Workout.START_AFTER_COUNT);
+			
+			/* Retrieve the ergos in a different order to the chain */
+			StrokeData [] strokes = new StrokeData[3];
+			unit.retrieveStrokeData(new int [] {2, 0, 1}, strokes);
+			unit.retrieveStrokeData(new int [] {2, 0, 1}, strokes);
+			
+			for (int i = 0; i < strokes.length; i++) {
+				Assert.assertNotNull( strokes[i] );
+				Assert.assertTrue( strokes[i].getArrivalTime() > 0 );
+			}
+			
+			/* The slowest ergo has covered the least distance */
+			Assert.assertTrue( strokes[0].getDistance() < strokes[1].getDistance() );
+		}
+		finally {
+			unit.cleanUp();
+		}
+	}
+	
+	public void testUnitBatchByteLoss() throws Exception {
+		
+		VirtualErg [] ergs = new VirtualErg[3];
+		for (int i = 0; i < ergs.length; i++) {
+			ergs[i] = new VirtualErg(100 + i * 10, 30, 0, 60);
+		}
+		PM2PlusEmulator emulator = new PM2PlusEmulator(ergs);
+		Workout workout = new Workout(Workout.TIME_WORKOUT);
+		workout.setTime(60);
+		
+		OptionsSingleton options = OptionsSingleton.getInstance();
+		boolean pipelined = options.getPipelinedQueries();
+		int timeout = options.getSerialTimeout();
+		int retries = options.getSerialRetries();
+		options.setPipelinedQueries(false);
+		options.setSerialTimeout(20);
+		options.setSerialRetries(20);
+		
+		PM2PlusUnit unit = PM2PlusUnit.getInstance("PM2PlusEmulatorTest", emulator, workout);
+		try {
+			unit.setupWorkout(workout);
+			unit.startRowing(Workout.START_AFTER_COUNT);
+			emulator.setSeed(9);
+			emulator.setByteLoss(0.05);
+			
+			/* A query going unanswered stops those after it being sent, but no ergo's stroke is
+			 * returned without its distance and time */
+			StrokeData [] strokes = new StrokeData[3];
+			for (int i = 0; i < 20; i++) {
+				unit.retrieveStrokeData(new int [] {0, 1, 2}, strokes);
+				for (int j = 0; j < strokes.length; j++) {
+					Assert.assertTrue( strokes[j].getDistance() != StrokeData.UNSET );
+					Assert.assertTrue( strokes[j].getTime() != StrokeData.UNSET );
+				}
+			}
+			Assert.assertTrue( emulator.getBytesLost() > 0 );
+		}
+		finally {
+			emulator.setByteLoss(0);
+			unit.cleanUp();
+			options.setPipelinedQueries(pipelined);
+			options.setSerialTimeout(timeout);
+			options.setSerialRetries(retries);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * File: PM2PlusFrameAssemblerTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.input.test;
+
+import com.rowtheboat.input.PM2PlusFrameAssembler;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * The JUnit test for the PM2+ frame assembler
+ * 
+ * @author agent
+ */
+
+public class PM2PlusFrameAssemblerTest extends TestCase {
+
+	/* Class Variables */
+	private PM2PlusFrameAssembler assembler;
+	private byte [] frame;
+	
+	
+	/* Constructor */
+	public PM2PlusFrameAssemblerTest(String arg0) {
+		super(arg0);
+	}
+
+	/* Setup class variables */
+	protected void setUp() throws Exception {
+		
+		assembler = new PM2PlusFrameAssembler();
+		frame = new byte[5];
+	}
+	
+	/* Builds a response with the float sent least significant byte first */
+	private byte [] response(int status, float value) {
+		
+		int bits = Float.floatToIntBits(value);
+		return new byte [] { (byte) status, (byte) bits, (byte) (bits >> 8), 
+			(byte) (bits >> 16), (byte) (bits >> 24) };
+	}
+	
+	/* Checks the frame holds the given response */
+	private void assertFrame(int status, float value) {
+		
+		byte [] expected = response(status, value);
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertEquals( expected[i], frame[i] );
+		}
+	}
+
+
+	/* Test cases */
+	public void testSplitResponse() {
+		
+		byte [] data = response(198, 250);
+		assembler.append(data, 0, 2);
+		Assert.assertFalse( assembler.nextFrame(frame, true) );
+		
+		assembler.append(data, 2, 3);
+		Assert.assertTrue( assembler.nextFrame(frame, true) );
+		assertFrame(198, 250);
+		Assert.assertEquals( 0, assembler.getBufferedBytes() );
+	}
+	
+	public void testCoalescedResponses() {
+		
+		byte [] data = new byte[10];
+		System.arraycopy(response(196, 100), 0, data, 0, 5);
+		System.arraycopy(response(196, 37.5f), 0, data, 5, 5);
+		assembler.append(data, 0, data.length);
+		
+		Assert.assertTrue( assembler.nextFrame(frame, true) );
+		assertFrame(196, 100);
+		Assert.assertTrue( assembler.nextFrame(frame, true) );
+		assertFrame(196, 37.5f);
+		Assert.assertFalse( assembler.nextFrame(frame, true) );
+	}
+	
+	public void testResynchronise() {
+		
+		/* The first response has lost its status byte */
+		byte [] data = response(196, 100);
+		assembler.append(data, 1, 4);
+		assembler.append(response(200, 60), 0, 5);
+		
+		Assert.assertTrue( assembler.nextFrame(frame, true) );
+		assertFrame(200, 60);
+		Assert.assertEquals( 4, assembler.getDiscardedBytes() );
+	}
+	
+	public void testPaceNotResynchronised() {
+		
+		/* The first byte of a pace response is the stroke rate so mustn't be checked */
+		assembler.append(response(28, 0.4f), 0, 5);
+		
+		Assert.assertTrue( assembler.nextFrame(frame, false) );
+		assertFrame(28, 0.4f);
+		Assert.assertEquals( 0, assembler.getDiscardedBytes() );
+	}
+	
+	public void testWrapAround() {
+		
+		/* Push enough responses through to wrap the ring buffer several times */
+		for (int i = 0; i < 200; i++) {
+			assembler.append(response(196, i), 0, 5);
+			Assert.assertTrue( assembler.nextFrame(frame, true) );
+			assertFrame(196, i);
+		}
+	}
+	
+	public void testReset() {
+		
+		assembler.append(response(196, 1), 0, 3);
+		assembler.reset();
+		assembler.append(response(196, 2), 0, 5);
+		
+		Assert.assertTrue( assembler.nextFrame(frame, true) );
+		assertFrame(196, 2);
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * File: PM2PlusFrameDecoderTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.input.test;
+
+import com.rowtheboat.input.PM2PlusFrameDecoder;
+import com.rowtheboat.input.StrokeData;
+import com.rowtheboat.workout.Workout;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * The JUnit test for the PM2+ frame decoder
+ * 
+ * @author agent
+ */
+
+public class PM2PlusFrameDecoderTest extends TestCase {
+
+	/* Class Variables */
+	private PM2PlusFrameDecoder distanceDecoder;
+	private PM2PlusFrameDecoder timeDecoder;
+	
+	
+	/* Constructor */
+	public PM2PlusFrameDecoderTest(String arg0) {
+		super(arg0);
+	}
+
+	/* Setup class variables */
+	protected void setUp() throws Exception {
+		
+		distanceDecoder = new PM2PlusFrameDecoder(Workout.DISTANCE_WORKOUT);
+		timeDecoder = new PM2PlusFrameDecoder(Workout.TIME_WORKOUT);
+	}
+	
+	/* Builds a response with the float sent least significant byte first */
+	private byte [] frame(int status, float value) {
+		
+		int bits = Float.floatToIntBits(value);
+		return new byte [] { (byte) status, (byte) bits, (byte) (bits >> 8), 
+			(byte) (bits >> 16), (byte) (bits >> 24) };
+	}
+
+
+	/* Test cases */
+	public void testDecodeValue() {
+		
+		float [] values = new float [] { 0, 1, 500, 123.456f, 2000.5f, -1 };
+		for (int i = 0; i < values.length; i++) {
+			distanceDecoder.decode(frame(196, values[i]), 0);
+			Assert.assertTrue( distanceDecoder.getValue() == values[i] );
+		}
+	}
+	
+	public void testDecodeAtOffset() {
+		
+		byte [] buffer = new byte[12];
+		System.arraycopy(frame(200, 42.5f), 0, buffer, 7, PM2PlusFrameDecoder.FRAME_SIZE);
+		
+		timeDecoder.decode(buffer, 7);
+		Assert.assertEquals( 200, timeDecoder.getFirstByte() );
+		Assert.assertTrue( timeDecoder.getValue() == 42.5f );
+	}
+	
+	public void testDistanceWorkoutStatus() {
+		
+		distanceDecoder.decode(frame(196, 0), 0);
+		Assert.assertEquals( 196, distanceDecoder.getStatus() );
+		
+		distanceDecoder.decode(frame(198, 0), 0);
+		Assert.assertEquals( StrokeData.END_OF_STROKE, distanceDecoder.getStatus() );
+		
+		distanceDecoder.decode(frame(197, 0), 0);
+		Assert.assertEquals( StrokeData.END_OF_WORKOUT, distanceDecoder.getStatus() );
+		
+		distanceDecoder.decode(frame(213, 0), 0);
+		Assert.assertEquals( StrokeData.END_OF_WORKOUT, distanceDecoder.getStatus() );
+	}
+	
+	public void testTimeWorkoutStatus() {
+		
+		timeDecoder.decode(frame(202, 0), 0);
+		Assert.assertEquals( StrokeData.END_OF_STROKE, timeDecoder.getStatus() );
+		
+		timeDecoder.decode(frame(201, 0), 0);
+		Assert.assertEquals( StrokeData.END_OF_WORKOUT, timeDecoder.getStatus() );
+		
+		/* A distance workout status isn't standardised in a time workout */
+		timeDecoder.decode(frame(198, 0), 0);
+		Assert.assertEquals( 198, timeDecoder.getStatus() );
+	}
+	
+	public void testPaceFirstByte() {
+		
+		/* The first byte of a pace response is the stroke rate and must be left unchanged */
+		distanceDecoder.decode(frame(30, 0.5f), 0);
+		Assert.assertEquals( 30, distanceDecoder.getFirstByte() );
+		Assert.assertTrue( distanceDecoder.getValue() == 0.5f );
+	}
+}
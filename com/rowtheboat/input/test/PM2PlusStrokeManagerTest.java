@@ -0,0 +1,90 @@
+/*
+ * File: PM2PlusStrokeManagerTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.input.test;
+
+import com.rowtheboat.input.PM2PlusStrokeManager;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * The JUnit test for the PM2PlusStrokeManager
+ * 
+ * @author agent
+ */
+
+public class PM2PlusStrokeManagerTest extends TestCase {
+
+	/* Class Variables */
+	private PM2PlusStrokeManager manager;
+	private int [] queries = new int [] {176, 179};
+	private int [] slots = new int [] {0, 0};
+	
+	
+	/* Constructor */
+	public PM2PlusStrokeManagerTest(String arg0) {
+		super(arg0);
+	}
+
+	/* Setup class variables */
+	protected void setUp() throws Exception {
+		
+		manager = new PM2PlusStrokeManager();
+	}
+
+
+	/* Test cases */
+	public void testResponsesProcessed() {
+		
+		manager.startStroke(0, 2);
+		manager.expectResponses(queries, slots, 0, 2);
+		int attempt = manager.getAttempt();
+		
+		Assert.assertTrue( manager.responseProcessed(attempt) );
+		Assert.assertFalse( manager.isComplete(0) );
+		Assert.assertTrue( manager.responseProcessed(attempt) );
+		Assert.assertTrue( manager.isComplete(0) );
+		Assert.assertTrue( manager.getDataProcessed() );
+		
+		/* No more responses are expected */
+		Assert.assertFalse( manager.responseProcessed(attempt) );
+	}
+	
+	public void testCancelledAttemptIgnored() {
+		
+		manager.startStroke(0, 2);
+		manager.expectResponses(queries, slots, 0, 2);
+		int cancelled = manager.getAttempt();
+		manager.responseProcessed(cancelled);
+		
+		/* A late response for the cancelled attempt doesn't count towards the retry */
+		manager.cancelResponses();
+		manager.startStroke(0, 2);
+		manager.expectResponses(queries, slots, 0, 2);
+		Assert.assertFalse( manager.responseProcessed(cancelled) );
+		Assert.assertEquals( 176, manager.getNextExpectedQuery() );
+		Assert.assertFalse( manager.getDataProcessed() );
+		
+		int retry = manager.getAttempt();
+		Assert.assertTrue( manager.responseProcessed(retry) );
+		Assert.assertTrue( manager.responseProcessed(retry) );
+		Assert.assertTrue( manager.isComplete(0) );
+	}
+	
+	public void testIncompleteUntilAllAnswered() {
+		
+		/* Only the first of the two queries planned is sent and answered */
+		manager.startStroke(0, 2);
+		manager.startStroke(1, 2);
+		manager.expectResponses(queries, slots, 0, 1);
+		Assert.assertTrue( manager.responseProcessed( manager.getAttempt() ) );
+		
+		Assert.assertFalse( manager.isComplete(0) );
+		Assert.assertFalse( manager.isComplete(1) );
+	}
+}
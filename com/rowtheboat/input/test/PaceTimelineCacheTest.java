@@ -0,0 +1,161 @@
+/*
+ * File: PaceTimelineCacheTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 18-Oct-2026	1.05		agent		Added writing over a cached file
+ * 
+ */
+ 
+package com.rowtheboat.input.test;
+
+import java.io.File;
+
+import com.rowtheboat.input.PaceTimeline;
+import com.rowtheboat.input.PaceTimelineCache;
+import com.rowtheboat.input.SessionFile;
+import com.rowtheboat.input.VariableSplitInput;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * The JUnit test for the PaceTimelineCache
+ * 
+ * @author agent
+ */
+
+public class PaceTimelineCacheTest extends TestCase {
+
+	/* Class Variables */
+	private PaceTimelineCache cache;
+	private File [] files = new File[3];
+	
+	
+	/* Constructor */
+	public PaceTimelineCacheTest(String arg0) {
+		super(arg0);
+	}
+
+	/* Setup class variables */
+	protected void setUp() throws Exception {
+		
+		cache = PaceTimelineCache.getInstance();
+		cache.clear();
+		
+		/* Three logs of 6 strokes each */
+		PaceTimeline timeline = PaceTimeline.load( new File("data" + File.separator + "geo.xml") );
+		for (int i = 0; i < files.length; i++) {
+			files[i] = File.createTempFile("cache", SessionFile.EXTENSION);
+			SessionFile.write(timeline, files[i]);
+		}
+	}
+	
+	/* Remove the files written and leave the cache as found */
+	protected void tearDown() {
+		
+		for (int i = 0; i < files.length; i++) {
+			files[i].delete();
+		}
+		cache.clear();
+		cache.setMaximumStrokes(PaceTimelineCache.DEFAULT_MAXIMUM_STROKES);
+	}
+
+
+	/* Test cases */
+	public void testSharedAcrossLanes() throws Exception {
+		
+		/* A shadow on each of five lanes only parses the log once */
+		int loads = cache.getLoadCount();
+		VariableSplitInput [] lanes = new VariableSplitInput[5];
+		for (int i = 0; i < lanes.length; i++) {
+			lanes[i] = new VariableSplitInput(files[0]);
+		}
+		Assert.assertEquals( loads + 1, cache.getLoadCount() );
+		Assert.assertEquals( 6, cache.getStrokeCount() );
+		
+		/* Each lane keeps its own place in the shared timeline */
+		Assert.assertEquals( 150, lanes[0].retrieveStrokeData(20).getDistance(), 0.001 );
+		Assert.assertEquals( 50, lanes[1].retrieveStrokeData(5).getDistance(), 0.001 );
+		Assert.assertEquals( 500, lanes[0].retrieveStrokeData(70).getDistance(), 0.001 );
+		Assert.assertEquals( 125, lanes[1].retrieveStrokeData(15).getDistance(), 0.001 );
+	}
+	
+	public void testCanonicalPath() throws Exception {
+		
+		PaceTimeline timeline = cache.load(files[0]);
+		File other = new File( files[0].getParentFile(), 
+			"." + File.separator + files[0].getName() );
+		Assert.assertSame( timeline, cache.load(other) );
+	}
+	
+	public void testModified() throws Exception {
+		
+		PaceTimeline timeline = cache.load(files[0]);
+		Assert.assertSame( timeline, cache.load(files[0]) );
+		
+		/* A changed log is loaded again in place of the old one */
+		files[0].setLastModified( files[0].lastModified() + 2000 );
+		PaceTimeline changed = cache.load(files[0]);
+		Assert.assertNotSame( timeline, changed );
+		Assert.assertEquals( 6, cache.getStrokeCount() );
+		Assert.assertSame( changed, cache.load(files[0]) );
+	}
+	
+	public void testLeastRecentlyUsedDropped() throws Exception {
+		
+		cache.setMaximumStrokes(12);
+		PaceTimeline first = cache.load(files[0]);
+		PaceTimeline second = cache.load(files[1]);
+		
+		/* The first is dropped for the third */
+		cache.load(files[2]);
+		Assert.assertEquals( 12, cache.getStrokeCount() );
+		Assert.assertSame( second, cache.load(files[1]) );
+		
+		/* The third is now the least recently used, so is dropped for the first */
+		int loads = cache.getLoadCount();
+		Assert.assertNotSame( first, cache.load(files[0]) );
+		Assert.assertEquals( loads + 1, cache.getLoadCount() );
+		Assert.assertSame( second, cache.load(files[1]) );
+		cache.load(files[2]);
+		Assert.assertEquals( loads + 2, cache.getLoadCount() );
+	}
+	
+	public void testOversizedTimelineKept() throws Exception {
+		
+		/* The timeline last used is held even if it is over the maximum alone */
+		cache.setMaximumStrokes(4);
+		PaceTimeline timeline = cache.load(files[0]);
+		Assert.assertSame( timeline, cache.load(files[0]) );
+		Assert.assertEquals( 6, cache.getStrokeCount() );
+	}
+	
+	public void testWriteOverCached() throws Exception {
+		
+		/* Race against the file, then write it again with each stroke twice as far */
+		cache.load(files[0]);
+		PaceTimeline xml = PaceTimeline.load( new File("data" + File.separator + "geo.xml") );
+		int count = xml.getStrokeCount();
+		float [] times = new float[count];
+		float [] distances = new float[count];
+		float [] splits = new float[count];
+		double [] powers = new double[count];
+		int [] strokeRates = new int[count];
+		float [] heartRates = new float[count];
+		for (int i = 0; i < count; i++) {
+			times[i] = xml.getTime(i);
+			distances[i] = xml.getDistance(i) * 2;
+			splits[i] = xml.getSplit(i);
+			powers[i] = xml.getPower(i);
+			strokeRates[i] = xml.getStrokeRate(i);
+			heartRates[i] = xml.getHeartRate(i);
+		}
+		SessionFile.write( new PaceTimeline(times, distances, splits, powers, strokeRates, 
+			heartRates, xml.getDetails()), files[0] );
+		
+		/* The old timeline is dropped and the new one loaded in its place */
+		Assert.assertEquals( 0, cache.getStrokeCount() );
+		PaceTimeline timeline = cache.load(files[0]);
+		Assert.assertEquals( 1000, timeline.getDistance(count - 1), 0.001 );
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * File: PaceTimelineTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 17-Oct-2026	1.05		agent		Seeking tests added
+ * 17-Oct-2026	1.05		agent		Streaming load tests added
+ * 
+ */
+ 
+package com.rowtheboat.input.test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+
+import com.rowtheboat.input.IProgressListener;
+import com.rowtheboat.input.PaceTimeline;
+import com.rowtheboat.input.PaceTimelineLoader;
+import com.rowtheboat.input.StrokeData;
+import com.rowtheboat.input.VariableSplitInput;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * The JUnit test for the PaceTimeline and the VariableSplitInput that races against it
+ * 
+ * @author agent
+ */
+
+public class PaceTimelineTest extends TestCase {
+
+	/* Class Variables */
+	private PaceTimeline timeline;
+	private long lastDone;
+	private int reports;
+	
+	
+	/* Constructor */
+	public PaceTimelineTest(String arg0) {
+		super(arg0);
+	}
+
+	/* Setup class variables */
+	protected void setUp() throws Exception {
+		
+		timeline = PaceTimeline.load( new File("data" + File.separator + "geo.xml") );
+	}
+
+
+	/* Test cases */
+	public void testLoad() {
+		
+		Assert.assertEquals( 6, timeline.getStrokeCount() );
+		Assert.assertEquals( 10, timeline.getTime(1), 0.001 );
+		Assert.assertEquals( 100, timeline.getDistance(1), 0.001 );
+		Assert.assertEquals( 50, timeline.getTime(5), 0.001 );
+		Assert.assertEquals( 500, timeline.getDistance(5), 0.001 );
+		Assert.assertEquals( 0, timeline.getSplit(5), 0.001 );
+		Assert.assertEquals( -1, timeline.getStrokeRate(5) );
+	}
+	
+	public void testInterpolation() throws Exception {
+		
+		VariableSplitInput input = new VariableSplitInput(timeline);
+		
+		/* Between strokes the distance is interpolated */
+		StrokeData stroke = input.retrieveStrokeData(5);
+		Assert.assertEquals( 5, stroke.getTime(), 0.001 );
+		Assert.assertEquals( 50, stroke.getDistance(), 0.001 );
+		stroke = input.retrieveStrokeData(15);
+		Assert.assertEquals( 125, stroke.getDistance(), 0.001 );
+		stroke = input.retrieveStrokeData(20);
+		Assert.assertEquals( 150, stroke.getDistance(), 0.001 );
+		
+		/* After the last stroke the boat stops at the end of the session */
+		stroke = input.retrieveStrokeData(70);
+		Assert.assertEquals( 50, stroke.getTime(), 0.001 );
+		Assert.assertEquals( 500, stroke.getDistance(), 0.001 );
+	}
+	
+	public void testFindStroke() {
+		
+		Assert.assertEquals( 0, timeline.findStroke(-1) );
+		Assert.assertEquals( 0, timeline.findStroke(0) );
+		Assert.assertEquals( 1, timeline.findStroke(10) );
+		Assert.assertEquals( 2, timeline.findStroke(29.9f) );
+		Assert.assertEquals( 5, timeline.findStroke(50) );
+		Assert.assertEquals( 5, timeline.findStroke(1000) );
+		
+		/* The cursor gives the same answer whether it is near or far */
+		for (int cursor = -1; cursor <= 6; cursor++) {
+			Assert.assertEquals( 3, timeline.findStroke(35, cursor) );
+			Assert.assertEquals( 0, timeline.findStroke(5, cursor) );
+			Assert.assertEquals( 5, timeline.findStroke(55, cursor) );
+		}
+	}
+	
+	public void testSeek() throws Exception {
+		
+		/* A marathon of strokes every 2 seconds at 5m/s */
+		int count = 50000;
+		float [] times = new float[count];
+		float [] distances = new float[count];
+		for (int i = 0; i < count; i++) {
+			times[i] = i * 2;
+			distances[i] = i * 10;
+		}
+		PaceTimeline marathon = new PaceTimeline( times, distances, new float[count], 
+			new double[count], new int[count], new float[count] );
+		VariableSplitInput input = new VariableSplitInput(marathon);
+		
+		/* Forwards, backwards and forwards again */
+		Assert.assertEquals( 50000, input.retrieveStrokeData(10000).getDistance(), 0.01 );
+		Assert.assertEquals( 505, input.retrieveStrokeData(101).getDistance(), 0.01 );
+		Assert.assertEquals( 400005, input.retrieveStrokeData(80001).getDistance(), 0.1 );
+		Assert.assertEquals( 400010, input.retrieveStrokeData(80002).getDistance(), 0.1 );
+	}
+	
+	public void testStreamedLoad() throws Exception {
+		
+		/* A long session in the format the XMLWorkoutWriter writes */
+		File file = File.createTempFile("session", ".xml");
+		BufferedWriter writer = new BufferedWriter( new FileWriter(file) );
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Session>\n");
+		writer.write("  <Rower>\n    <Name>Long</Name>\n  </Rower>\n");
+		writer.write("  <Details>\n    <Date>2005-1-1-9:0:0</Date>\n    <Type>2</Type>\n" +
+			"    <Time>10000</Time>\n  </Details>\n");
+		for (int i = 0; i < 5000; i++) {
+			writer.write("  <Stroke>\n    <Time>" + (i * 2f) + "</Time>\n    <Distance>" + 
+				(i * 9f) + "</Distance>\n    <Split>111.1</Split>\n    <Power>260.5</Power>\n" +
+				"    <SPM>" + (20 + i % 10) + "</SPM>\n" + 
+				"    <CaloriesPerHour>1000.0</CaloriesPerHour>\n    <HR>150.0</HR>\n  </Stroke>\n");
+		}
+		writer.write("</Session>\n");
+		writer.close();
+		
+		/* The progress goes up to the size of the file */
+		PaceTimeline session = PaceTimelineLoader.load( file, new IProgressListener() {
+			public void progress(long done, long total) {
+				Assert.assertTrue( done >= lastDone );
+				Assert.assertTrue( done <= total );
+				lastDone = done;
+				reports++;
+			}
+		} );
+		Assert.assertEquals( file.length(), lastDone );
+		Assert.assertTrue( reports > 1 );
+		file.delete();
+		
+		Assert.assertEquals( 5000, session.getStrokeCount() );
+		Assert.assertEquals( 9998, session.getTime(4999), 0.001 );
+		Assert.assertEquals( 44991, session.getDistance(4999), 0.001 );
+		Assert.assertEquals( 111.1, session.getSplit(10), 0.001 );
+		Assert.assertEquals( 260.5, session.getPower(10), 0.001 );
+		Assert.assertEquals( 29, session.getStrokeRate(4999) );
+		Assert.assertEquals( 150, session.getHeartRate(0), 0.001 );
+	}
+	
+	public void testPaceData() throws Exception {
+		
+		PaceTimeline paced = new PaceTimeline( new float [] {0, 2}, new float [] {0, 10}, 
+			new float [] {0, 100}, new double [] {-1, 350}, new int [] {-1, 30}, 
+			new float [] {-1, 150} );
+		VariableSplitInput input = new VariableSplitInput(paced);
+		
+		/* Only strokes with a split have full stroke data */
+		StrokeData stroke = input.retrieveStrokeData(1);
+		Assert.assertEquals( StrokeData.UNSET, stroke.getStrokeRate() );
+		stroke = input.retrieveStrokeData(2);
+		Assert.assertEquals( 350, stroke.getPower(), 0.001 );
+		Assert.assertEquals( 30, stroke.getStrokeRate() );
+		Assert.assertEquals( 150, stroke.getHeartRate(), 0.001 );
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * File: PollingScheduleTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 
+ */
+ 
+package com.rowtheboat.input.test;
+
+import com.rowtheboat.input.PollingSchedule;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * The JUnit test for the PM2+ polling schedule
+ * 
+ * @author agent
+ */
+
+public class PollingScheduleTest extends TestCase {
+
+	/* Class Variables */
+	private PollingSchedule schedule;
+	private int [] queries;
+	
+	
+	/* Constructor */
+	public PollingScheduleTest(String arg0) {
+		super(arg0);
+	}
+
+	/* Setup class variables */
+	protected void setUp() throws Exception {
+		
+		schedule = new PollingSchedule();
+		queries = new int[4];
+	}
+
+
+	/* Test cases */
+	public void testDefaultOrder() {
+		
+		/* Distance, time, pace then heart */
+		Assert.assertEquals( 4, schedule.getQueries(7, queries) );
+		Assert.assertEquals( 176, queries[0] );
+		Assert.assertEquals( 179, queries[1] );
+		Assert.assertEquals( 177, queries[2] );
+		Assert.assertEquals( 178, queries[3] );
+	}
+	
+	public void testPeriods() {
+		
+		schedule.setPeriod(PollingSchedule.PACE, 4);
+		schedule.setPeriod(PollingSchedule.HEART, 4);
+		
+		/* Everything is sampled first, then pace and heart on different retrievals */
+		Assert.assertEquals( 4, schedule.getQueries(0, queries) );
+		Assert.assertEquals( 3, schedule.getQueries(1, queries) );
+		Assert.assertEquals( 177, queries[2] );
+		Assert.assertEquals( 3, schedule.getQueries(2, queries) );
+		Assert.assertEquals( 178, queries[2] );
+		Assert.assertEquals( 2, schedule.getQueries(3, queries) );
+		Assert.assertEquals( 3, schedule.getQueries(5, queries) );
+		Assert.assertFalse( schedule.isDue(PollingSchedule.PACE, 4) );
+		
+		schedule.setPeriod(PollingSchedule.HEART, 0);
+		Assert.assertFalse( schedule.isDue(PollingSchedule.HEART, 0) );
+	}
+	
+	public void testPriority() {
+		
+		schedule.setPriority(PollingSchedule.HEART, -1);
+		schedule.getQueries(0, queries);
+		Assert.assertEquals( 178, queries[0] );
+		Assert.assertEquals( 176, queries[1] );
+	}
+}
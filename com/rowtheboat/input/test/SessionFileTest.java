@@ -0,0 +1,223 @@
+/*
+ * File: SessionFileTest.java
+ * 
+ * Date			Version		User		Description
+ * 17-Oct-2026	1.05		agent		Initial version coded
+ * 18-Oct-2026	1.05		agent		Added corrupt header and rewrite tests
+ * 
+ */
+ 
+package com.rowtheboat.input.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import com.rowtheboat.input.PaceTimeline;
+import com.rowtheboat.input.SessionDetails;
+import com.rowtheboat.input.SessionFile;
+import com.rowtheboat.input.VariableSplitInput;
+import com.rowtheboat.workout.Workout;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * The JUnit test for the binary SessionFile and its conversion to and from XML
+ * 
+ * @author agent
+ */
+
+public class SessionFileTest extends TestCase {
+
+	/* Class Variables */
+	private File xml;
+	private File binary;
+	private File converted;
+	
+	
+	/* Constructor */
+	public SessionFileTest(String arg0) {
+		super(arg0);
+	}
+
+	/* Setup class variables */
+	protected void setUp() throws Exception {
+		
+		xml = new File("data" + File.separator + "geo.xml");
+		binary = File.createTempFile("session", SessionFile.EXTENSION);
+		converted = File.createTempFile("session", ".xml");
+	}
+	
+	/* Remove the files written */
+	protected void tearDown() {
+		
+		binary.delete();
+		converted.delete();
+	}
+
+
+	/* Test cases */
+	public void testFromXML() throws Exception {
+		
+		SessionFile.fromXML(xml, binary);
+		Assert.assertTrue( SessionFile.isSessionFile(binary) );
+		Assert.assertFalse( SessionFile.isSessionFile(xml) );
+		
+		/* The strokes and details are those of the XML */
+		PaceTimeline session = SessionFile.read(binary);
+		assertSameStrokes( PaceTimeline.load(xml), session );
+		SessionDetails details = session.getDetails();
+		Assert.assertEquals( "G", details.getRowerName() );
+		Assert.assertEquals( "2004-2-9-16:0:56", details.getDate() );
+		Assert.assertEquals( Workout.DISTANCE_WORKOUT, details.getType() );
+		Assert.assertEquals( 500, details.getDistance() );
+		Assert.assertEquals( -1, details.getTime() );
+	}
+	
+	public void testToXML() throws Exception {
+		
+		SessionFile.fromXML(xml, binary);
+		SessionFile.toXML(binary, converted);
+		
+		/* Back in XML the log loads as it did originally */
+		PaceTimeline session = PaceTimeline.load(converted);
+		assertSameStrokes( PaceTimeline.load(xml), session );
+		Assert.assertEquals( "G", session.getDetails().getRowerName() );
+		Assert.assertEquals( 500, session.getDetails().getDistance() );
+	}
+	
+	public void testRace() throws Exception {
+		
+		/* A pace boat can race against the session file as against the XML */
+		SessionFile.fromXML(xml, binary);
+		VariableSplitInput input = new VariableSplitInput(binary);
+		Assert.assertEquals( 125, input.retrieveStrokeData(15).getDistance(), 0.001 );
+		Assert.assertEquals( 500, input.retrieveStrokeData(70).getDistance(), 0.001 );
+	}
+	
+	public void testLongSession() throws Exception {
+		
+		/* Two hours at 30 strokes a minute with a time workout */
+		int count = 3600;
+		float [] times = new float[count];
+		float [] distances = new float[count];
+		float [] splits = new float[count];
+		double [] powers = new double[count];
+		int [] strokeRates = new int[count];
+		float [] heartRates = new float[count];
+		for (int i = 0; i < count; i++) {
+			times[i] = i * 2;
+			distances[i] = i * 9.5f;
+			splits[i] = 105 + i % 7;
+			powers[i] = 300.25 + i;
+			strokeRates[i] = 28 + i % 5;
+			heartRates[i] = 140 + i % 30;
+		}
+		PaceTimeline session = new PaceTimeline( times, distances, splits, powers, strokeRates, 
+			heartRates, new SessionDetails("Long", "2005-1-1-9:0:0", Workout.TIME_WORKOUT, -1, 
+				7200) );
+		SessionFile.write(session, binary);
+		
+		PaceTimeline read = PaceTimeline.load(binary);
+		assertSameStrokes(session, read);
+		Assert.assertEquals( 7200, read.getDetails().getTime() );
+		Assert.assertEquals( 1800, read.findStroke(3601) );
+	}
+	
+	public void testNoDetails() throws Exception {
+		
+		PaceTimeline session = new PaceTimeline( new float [] {0, 2}, new float [] {0, 10}, 
+			new float [] {0, 100}, new double [] {-1, 350}, new int [] {-1, 30}, 
+			new float [] {-1, 150} );
+		SessionFile.write(session, binary);
+		
+		PaceTimeline read = SessionFile.read(binary);
+		assertSameStrokes(session, read);
+		Assert.assertNull( read.getDetails() );
+	}
+	
+	public void testLaterVersion() throws Exception {
+		
+		SessionFile.fromXML(xml, binary);
+		RandomAccessFile file = new RandomAccessFile(binary, "rw");
+		file.seek(4);
+		file.writeShort(SessionFile.VERSION + 1);
+		file.close();
+		
+		try {
+			SessionFile.read(binary);
+			Assert.fail("A later version should not be read");
+		}
+		catch (IOException e) {
+		}
+	}
+	
+	public void testTruncated() throws Exception {
+		
+		SessionFile.fromXML(xml, binary);
+		RandomAccessFile file = new RandomAccessFile(binary, "rw");
+		file.setLength( file.length() - 4 );
+		file.close();
+		
+		try {
+			SessionFile.read(binary);
+			Assert.fail("A truncated file should not be read");
+		}
+		catch (IOException e) {
+		}
+	}
+	
+	public void testCorruptString() throws Exception {
+		
+		/* The rower name's length runs past the header */
+		SessionFile.fromXML(xml, binary);
+		RandomAccessFile file = new RandomAccessFile(binary, "rw");
+		file.seek(28);
+		file.writeShort(0xffff);
+		file.close();
+		
+		try {
+			SessionFile.read(binary);
+			Assert.fail("A corrupt header should not be read");
+		}
+		catch (IOException e) {
+		}
+	}
+	
+	public void testRewriteWhileMapped() throws Exception {
+		
+		SessionFile.fromXML(xml, binary);
+		PaceTimeline mapped = SessionFile.read(binary);
+		PaceTimeline original = PaceTimeline.load(xml);
+		
+		/* Replacing the file leaves the earlier timeline as it was */
+		PaceTimeline session = new PaceTimeline( new float [] {0, 2}, new float [] {0, 10}, 
+			new float [] {0, 100}, new double [] {-1, 350}, new int [] {-1, 30}, 
+			new float [] {-1, 150} );
+		SessionFile.write(session, binary);
+		assertSameStrokes(original, mapped);
+		assertSameStrokes( session, SessionFile.read(binary) );
+	}
+	
+	
+	/* Private Methods */
+	
+	/**
+	 * Asserts two timelines hold the same strokes
+	 * 
+	 * @param	expected	the expected timeline
+	 * @param	actual		the actual timeline
+	 */
+	private void assertSameStrokes(PaceTimeline expected, PaceTimeline actual) {
+		
+		Assert.assertEquals( expected.getStrokeCount(), actual.getStrokeCount() );
+		for (int i = 0; i < expected.getStrokeCount(); i++) {
+			Assert.assertEquals( expected.getTime(i), actual.getTime(i), 0 );
+			Assert.assertEquals( expected.getDistance(i), actual.getDistance(i), 0 );
+			Assert.assertEquals( expected.getSplit(i), actual.getSplit(i), 0 );
+			Assert.assertEquals( expected.getPower(i), actual.getPower(i), 0 );
+			Assert.assertEquals( expected.getStrokeRate(i), actual.getStrokeRate(i) );
+			Assert.assertEquals( expected.getHeartRate(i), actual.getHeartRate(i), 0 );
+		}
+	}
+}
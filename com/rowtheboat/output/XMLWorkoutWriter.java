@@ -26,11 +26,13 @@
  * 
  * Date			Version		User		Description
  * 28-Nov-2003	1.0			GeorgeP		Initial version coded
+ * 17-Oct-2026	1.05		agent		Writing the file recorded by the EventRecorder
  * 
  */
  
 package com.rowtheboat.output;
 
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 
@@ -42,6 +44,7 @@ import org.dom4j.io.XMLWriter;
 import org.dom4j.tree.DefaultElement;
 import org.xml.sax.SAXException;
 
+import com.rowtheboat.controller.EventRecorder;
 import com.rowtheboat.input.StrokeData;
 import com.rowtheboat.workout.HumanRower;
 import com.rowtheboat.workout.Rower;
@@ -58,6 +61,8 @@ public class XMLWorkoutWriter implements IFileOutputDevice {
 	private XMLWriter writer;						/* The XML writer */
 	private float distance;							/* The workout distance */
 	private Element root;							/* The root element */
+	private File file;								/* The file written */
+	private int ergoNumber;							/* The ergo number of the rower */
 
 	/* Constructor */
 	
@@ -72,10 +77,12 @@ public class XMLWorkoutWriter implements IFileOutputDevice {
 		
 		/* Set the distance class variable */
 		this.distance = workout.getDistance();
+		this.file = rower.getXMLFileName();
+		this.ergoNumber = rower.getErgoNumber();
 		
 		/* Intansiate the writer */
 		OutputFormat format = OutputFormat.createPrettyPrint();
-		this.writer = new XMLWriter( new FileWriter( rower.getXMLFileName() ), format	);
+		this.writer = new XMLWriter( new FileWriter(file), format	);
 		writer.startDocument();
 		
 		Document document = DocumentHelper.createDocument();
@@ -183,9 +190,11 @@ public class XMLWorkoutWriter implements IFileOutputDevice {
 	private void closeWriter() throws SAXException, IOException {
 	
 		/* Close the writer */
+		long eventStart = EventRecorder.start();
 		writer.write(root);
 		writer.endDocument();
 		writer.close();	
+		EventRecorder.record( EventRecorder.FLUSH, eventStart, ergoNumber, 1, file.length() );
 	}
 	
 	
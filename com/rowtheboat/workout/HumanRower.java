@@ -26,6 +26,7 @@
  * 
  * Date			Version		User		Description
  * 22-Nov-2003	1.0			GeorgeP		Initial version coded
+ * 17-Oct-2026	1.05		agent		Rower identified by serial port as well as ergo number
  * 
  */
  
@@ -44,6 +45,7 @@ public class HumanRower extends Rower {
 	/* Class variables */
 
 	private int ergoNumber;							/* The users ergo number */
+	private String serialPort;						/* The serial port of the users ergo */
 	private boolean logData;						/* Whether to log workout data to file */
 	private File filePath;							/* The log file path */
 
@@ -59,7 +61,24 @@ public class HumanRower extends Rower {
 	 */
 	public HumanRower(String name, int ergoNumber, boolean logData) {
 		
+		this(name, null, ergoNumber, logData);
+	}
+	
+	
+	/**
+	 * Construct the rower on an ergo connected to the given serial port.  Each serial port has
+	 * its own daisy chain of PM2+ units, numbered from zero.
+	 * 
+	 * @param name			the name of the rower
+	 * @param serialPort	the serial port the ergo is connected to, or null for the default
+	 * 						port in the options
+	 * @param ergoNumber	the number of the ergo the user is rowing on
+	 * @param logData		whether to log the workout data to file
+	 */
+	public HumanRower(String name, String serialPort, int ergoNumber, boolean logData) {
+		
 		super(name);
+		this.serialPort = serialPort;
 		this.ergoNumber = ergoNumber;
 		this.logData = logData;
 	}
@@ -78,10 +97,27 @@ public class HumanRower extends Rower {
 	}
 	
 	
+	/**
+	 * Returns the serial port the users ergo is connected to
+	 * 
+	 * @return the serial port; null if the default port in the options should be used
+	 */
+	public String getSerialPort() {
+		
+		return serialPort;
+	}
+	
+	
 	/* Inherited Javadoc */
 	public String[] getGUIDisplayForm(boolean shadow, int lane) {
 		
-		return new String [] {lane + "", getName(), "Ergo " + (getErgoNumber() + 1)};
+		/* Only show the port if one has been chosen as most setups have a single chain */
+		String ergo = "Ergo " + (getErgoNumber() + 1);
+		if (serialPort != null) {
+			ergo += " (" + serialPort + ")";
+		}
+		
+		return new String [] {lane + "", getName(), ergo};
 	}
 	
 	